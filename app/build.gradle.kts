@@ -21,6 +21,16 @@ android {
             isMinifyEnabled = false
             proguardFiles(getDefaultProguardFile("proguard-android-optimize.txt"), "proguard-rules.pro")
         }
+        // release with R8 shrinking/optimization (full mode, see gradle.properties) and
+        // resource shrinking; also the target the :baselineprofile module measures
+        create("optimized") {
+            initWith(getByName("release"))
+            isMinifyEnabled = true
+            isShrinkResources = true
+            // debug-signed so it can be installed for benchmarking; sign properly for distribution
+            signingConfig = signingConfigs.getByName("debug")
+            matchingFallbacks += listOf("release")
+        }
     }
     compileOptions {
         sourceCompatibility = JavaVersion.VERSION_1_8
@@ -34,7 +44,31 @@ dependencies {
     implementation("com.google.android.material:material:1.10.0")
     implementation("androidx.constraintlayout:constraintlayout:2.1.4")
     implementation ("com.airbnb.android:lottie:4.2.0")
+    // activity-scoped booking session that survives process death
+    implementation("androidx.lifecycle:lifecycle-viewmodel-savedstate:2.6.2")
+    // installs src/main/baseline-prof.txt on devices where the app is not installed from Play
+    implementation("androidx.profileinstaller:profileinstaller:1.3.1")
     testImplementation("junit:junit:4.13.2")
     androidTestImplementation("androidx.test.ext:junit:1.1.5")
     androidTestImplementation("androidx.test.espresso:espresso-core:3.5.1")
-}
\ No newline at end of file
+}
+
+// Prints the size of the plain release APK next to the optimized one:
+// ./gradlew :app:assembleRelease :app:assembleOptimized :app:reportApkSizes
+tasks.register("reportApkSizes") {
+    mustRunAfter("assembleRelease", "assembleOptimized")
+    doLast {
+        val outputs = layout.buildDirectory.dir("outputs/apk").get().asFile
+        val sizes = listOf("release", "optimized").associateWith { variant ->
+            outputs.resolve(variant).listFiles { file -> file.extension == "apk" }?.firstOrNull()?.length()
+        }
+        sizes.forEach { (variant, size) ->
+            println("%-10s %s".format(variant, size?.let { "%,d bytes".format(it) } ?: "not built"))
+        }
+        val release = sizes["release"]
+        val optimized = sizes["optimized"]
+        if (release != null && optimized != null) {
+            println("optimized is %.1f%% smaller".format(100.0 * (release - optimized) / release))
+        }
+    }
+}
@@ -12,10 +12,18 @@
 #   public *;
 #}
 
-# Uncomment this to preserve the line number information for
-# debugging stack traces.
-#-keepattributes SourceFile,LineNumberTable
+# Preserve the line number information for debugging stack traces.
+-keepattributes SourceFile,LineNumberTable
 
-# If you keep the line number information, uncomment this to
-# hide the original source file name.
-#-renamesourcefileattribute SourceFile
\ No newline at end of file
+# Hide the original source file name.
+-renamesourcefileattribute SourceFile
+
+# Fragments, the activity and Lottie are covered by the AAPT and library consumer
+# rules. The app itself uses no reflection, so everything else may be renamed,
+# merged and inlined by R8.
+
+# Strip verbose and debug logging from minified builds.
+-assumenosideeffects class android.util.Log {
+    public static int v(...);
+    public static int d(...);
+}
\ No newline at end of file
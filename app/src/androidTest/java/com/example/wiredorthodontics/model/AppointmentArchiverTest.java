@@ -0,0 +1,130 @@
+package com.example.wiredorthodontics.model;
+
+import android.content.Context;
+import android.database.DatabaseUtils;
+import android.database.sqlite.SQLiteDatabase;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.io.File;
+import java.io.IOException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.Assert.*;
+
+/**
+ * Moves appointments into yearly archives and reads them back through
+ * the history facade.
+ */
+@RunWith(AndroidJUnit4.class)
+public class AppointmentArchiverTest {
+
+    private static final String DATABASE = "ArchiverTest.db";
+    private static final LocalDate CUTOFF = LocalDate.of(2026, 3, 1);
+
+    private Context context;
+    private AppointmentDAO dao;
+
+    @Before
+    public void setUp() {
+        context = InstrumentationRegistry.getInstrumentation().getTargetContext();
+        deleteAll();
+        dao = new AppointmentDAO(context, DATABASE);
+        for (String date : Arrays.asList("2024-06-03", "2024-06-03", "2025-02-10", "2026-02-27", "2026-03-02", "2026-11-02")) {
+            Appointment appointment = new Appointment("Pat", "1990-01-01", "1 Main St", "X1", date,
+                    TimeSlots.get(dao.getBookedTimesForDate(date).size()), "Adjustment", "Friend");
+            appointment.setBookingRef(UUID.randomUUID().toString());
+            dao.insertAppointment(appointment);
+        }
+    }
+
+    @After
+    public void tearDown() {
+        deleteAll();
+    }
+
+    @Test
+    public void pastYearsMoveOutOfTheLiveTable() {
+        assertEquals(4, new AppointmentArchiver(context, DATABASE).archiveBefore(CUTOFF));
+
+        SQLiteDatabase live = DatabaseHelper.getInstance(context, DATABASE).getReadableDatabase();
+        assertEquals(2, DatabaseUtils.queryNumEntries(live, "appointments"));
+        assertEquals(Arrays.asList(2024, 2025, 2026), ArchiveDatabaseHelper.archivedYears(context, DATABASE));
+
+        // archived days keep their capacity rows, nothing is logged as deleted, and the summary is not stale
+        assertEquals(1, dao.getDailyCapacity("2024-06-03", "2024-06-03").size());
+        assertEquals(2, dao.getDailyCapacity("2024-06-03", "2024-06-03").get(0).getBooked());
+        assertEquals(0, DatabaseUtils.queryNumEntries(live, DatabaseHelper.TABLE_CHANGES, "op = 'D'"));
+        assertFalse(dao.isDailyCapacityStale());
+    }
+
+    @Test
+    public void historySpansLiveAndArchives() {
+        AppointmentHistory history = new AppointmentHistory(context, DATABASE);
+        List<String> before = scan(history, "2024-01-01", "2026-12-31");
+
+        new AppointmentArchiver(context, DATABASE).archiveBefore(CUTOFF);
+        List<String> after = scan(history, "2024-01-01", "2026-12-31");
+        assertEquals(before, after);
+        assertEquals(Arrays.asList("2025-02-10", "2026-02-27", "2026-03-02"), scan(history, "2025-01-01", "2026-10-01"));
+        assertEquals(2, history.getBookedTimesForDate("2024-06-03").size());
+        assertEquals(1, history.getBookedTimesForDate("2026-11-02").size());
+    }
+
+    @Test
+    public void archivesAreBackedUpBeforeRowsLeave() throws IOException {
+        new AppointmentArchiver(context, DATABASE).archiveBefore(CUTOFF);
+
+        BackupManager backups = new BackupManager(context, DATABASE);
+        List<Integer> years = new ArrayList<>();
+        for (BackupManager.Backup backup : backups.listBackups()) {
+            assertEquals(BackupManager.Type.ARCHIVE, backup.getType());
+            years.add((int) backup.getThroughSeq());
+        }
+        assertEquals(Arrays.asList(2024, 2025, 2026), years);
+        assertTrue(backups.verify().isEmpty());
+    }
+
+    @Test
+    public void rerunningIsHarmless() {
+        AppointmentArchiver archiver = new AppointmentArchiver(context, DATABASE);
+        archiver.archiveBefore(CUTOFF);
+        assertEquals(0, archiver.archiveBefore(CUTOFF));
+        assertEquals(6, scan(new AppointmentHistory(context, DATABASE), "2000-01-01", "2099-12-31").size());
+    }
+
+    private static List<String> scan(AppointmentHistory history, String from, String to) {
+        List<String> dates = new ArrayList<>();
+        history.scanReportRows(from, to, (date, source, description) -> dates.add(date));
+        Collections.sort(dates);
+        return dates;
+    }
+
+    private void deleteAll() {
+        DatabaseHelper.getInstance(context, DATABASE).close();
+        context.deleteDatabase(DATABASE);
+        for (int year : ArchiveDatabaseHelper.archivedYears(context, DATABASE)) {
+            ArchiveDatabaseHelper.getInstance(context, DATABASE, year).close();
+            context.deleteDatabase(ArchiveDatabaseHelper.fileName(DATABASE, year));
+        }
+        File backups = new File(new File(context.getFilesDir(), "backups"), "ArchiverTest");
+        File[] files = backups.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                file.delete();
+            }
+        }
+        backups.delete();
+    }
+}
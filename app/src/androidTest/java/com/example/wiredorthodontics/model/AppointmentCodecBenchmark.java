@@ -0,0 +1,107 @@
+package com.example.wiredorthodontics.model;
+
+import android.util.Log;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.filters.LargeTest;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.Locale;
+
+import static org.junit.Assert.*;
+
+/**
+ * Measures binary encode and decode throughput against the platform's
+ * JSON encoder on a device. Timings vary too much between machines to
+ * assert on, so they are logged for comparison run over run with
+ * {@code adb logcat -s AppointmentCodecBenchmark}.
+ */
+@RunWith(AndroidJUnit4.class)
+@LargeTest
+public class AppointmentCodecBenchmark {
+
+    private static final String TAG = "AppointmentCodecBenchmark";
+    private static final String[] SOURCES = {"Friend", "Google", "Instagram", "Dentist referral", "Flyer"};
+    private static final int BATCH = 1000;
+    private static final int ROUNDS = 50;
+
+    @Test
+    public void encodeAndDecodeThroughput() throws JSONException {
+        Appointment[] batch = new Appointment[BATCH];
+        for (int i = 0; i < batch.length; i++) {
+            Appointment appointment = new Appointment("Patient Number " + i, LocalDate.of(1960 + i % 50, 1 + i % 12,
+                    1 + i % 28).toString(), i + " Main Street, Springfield", "D" + (1000000 + i),
+                    LocalDate.of(2026, 1, 1).plusDays(i / 8).toString(), TimeSlots.get(i % 8), "Adjustment",
+                    SOURCES[i % SOURCES.length]);
+            appointment.setId(i + 1);
+            appointment.setBookingRef("8c1f5e2a-0d7b-4c39-9a6e-" + String.format(Locale.US, "%012d", i));
+            batch[i] = appointment;
+        }
+
+        ByteBuffer buffer = ByteBuffer.allocate(256 * 1024);
+        AppointmentCodec.Encoder encoder = new AppointmentCodec.Encoder();
+        AppointmentCodec.Decoder decoder = new AppointmentCodec.Decoder();
+        long encodeNanos = Long.MAX_VALUE;
+        long decodeNanos = Long.MAX_VALUE;
+        long jsonNanos = Long.MAX_VALUE;
+        int jsonBytes = 0;
+        long sum = 0;
+        // best of several rounds, so the first rounds warm up the jit
+        for (int round = 0; round < ROUNDS; round++) {
+            long start = System.nanoTime();
+            buffer.clear();
+            encoder.reset();
+            for (Appointment appointment : batch) {
+                encoder.encode(appointment, buffer);
+            }
+            encodeNanos = Math.min(encodeNanos, System.nanoTime() - start);
+
+            start = System.nanoTime();
+            buffer.flip();
+            decoder.reset();
+            while (buffer.hasRemaining()) {
+                sum += decoder.decode(buffer).getId();
+            }
+            decodeNanos = Math.min(decodeNanos, System.nanoTime() - start);
+
+            start = System.nanoTime();
+            JSONArray array = new JSONArray();
+            for (Appointment appointment : batch) {
+                array.put(toJson(appointment));
+            }
+            jsonBytes = array.toString().getBytes(StandardCharsets.UTF_8).length;
+            jsonNanos = Math.min(jsonNanos, System.nanoTime() - start);
+        }
+
+        assertEquals((long) BATCH * (BATCH + 1) / 2 * ROUNDS, sum);
+        Log.i(TAG, String.format(Locale.US, "binary: %d bytes, encode %.0f records/s, decode %.0f records/s;"
+                        + " json: %d bytes, encode %.0f records/s", buffer.limit(), perSecond(encodeNanos),
+                perSecond(decodeNanos), jsonBytes, perSecond(jsonNanos)));
+    }
+
+    private static double perSecond(long nanos) {
+        return BATCH * 1e9 / nanos;
+    }
+
+    private static JSONObject toJson(Appointment appointment) throws JSONException {
+        return new JSONObject()
+                .put("id", appointment.getId())
+                .put("patientName", appointment.getPatientName())
+                .put("dob", appointment.getDob())
+                .put("address", appointment.getAddress())
+                .put("identificationNumber", appointment.getIdentificationNumber())
+                .put("appointmentDate", appointment.getAppointmentDate())
+                .put("appointmentTime", appointment.getAppointmentTime())
+                .put("appointmentDescription", appointment.getAppointmentDescription())
+                .put("clinicSource", appointment.getClinicSource())
+                .put("bookingRef", appointment.getBookingRef());
+    }
+}
@@ -0,0 +1,348 @@
+package com.example.wiredorthodontics.model;
+
+import android.content.Context;
+import android.database.Cursor;
+import android.database.DatabaseUtils;
+import android.database.sqlite.SQLiteDatabase;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import com.example.wiredorthodontics.core.BlockOut;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.Assert.*;
+
+/**
+ * Full, incremental and archive backups of a clinic shard, the manifest
+ * checksums, and restoring them over the live database.
+ */
+@RunWith(AndroidJUnit4.class)
+public class BackupManagerTest {
+
+    private static final String CLINIC = "backuptest";
+    private static final String DATABASE = ClinicShardRouter.databaseName(CLINIC);
+
+    private Context context;
+    private AppointmentDAO dao;
+    private String date;
+
+    @Before
+    public void setUp() {
+        context = InstrumentationRegistry.getInstrumentation().getTargetContext();
+        deleteAll();
+        dao = new AppointmentDAO(context, DATABASE);
+        // inside the booking queue's availability snapshot
+        date = LocalDate.now().plusDays(7).toString();
+    }
+
+    @After
+    public void tearDown() {
+        deleteAll();
+    }
+
+    @Test
+    public void fullSnapshotCoversEveryTable() throws IOException {
+        book(0);
+        book(1);
+        BlockOutStore.getInstance(context, DATABASE).add(BlockOut.Kind.STAFF_MEETING,
+                LocalDate.now().plusDays(3).atTime(12, 0), LocalDate.now().plusDays(3).atTime(13, 0), null);
+
+        BackupManager backups = new BackupManager(context, DATABASE);
+        BackupManager.Backup full = backups.fullBackup();
+
+        assertEquals(BackupManager.Type.FULL, full.getType());
+        assertEquals(DatabaseHelper.changeLogHead(live()), full.getThroughSeq());
+        assertEquals(Collections.singletonList(full.getFileName()), fileNames(backups.listBackups()));
+        assertTrue(backups.verify().isEmpty());
+        assertSameRows(live(), backupFile(full));
+    }
+
+    @Test
+    public void fallbackCopyKeepsEveryTableWithoutFiringTriggers() {
+        book(0);
+        book(1);
+        book(2);
+        live().delete("appointments", "time = ?", new String[]{TimeSlots.get(1)});
+        BlockOutStore.getInstance(context, DATABASE).add(BlockOut.Kind.CLOSURE,
+                LocalDate.now().plusDays(3).atStartOfDay(), LocalDate.now().plusDays(4).atStartOfDay(), "Holiday");
+
+        File copy = new File(context.getCacheDir(), "BackupManagerTest.copy.db");
+        copy.delete();
+        try {
+            BackupManager.copyDatabase(live(), copy);
+            // a trigger firing on the copy would double the change log and the capacity counts
+            assertSameRows(live(), copy);
+            SQLiteDatabase copied = SQLiteDatabase.openDatabase(copy.getPath(), null, SQLiteDatabase.OPEN_READONLY);
+            try {
+                assertEquals(live().getVersion(), copied.getVersion());
+                assertEquals(DatabaseHelper.changeLogHead(live()), DatabaseHelper.changeLogHead(copied));
+                assertEquals(DatabaseUtils.queryNumEntries(live(), "sqlite_master", "type IN ('index', 'trigger')"),
+                        DatabaseUtils.queryNumEntries(copied, "sqlite_master", "type IN ('index', 'trigger')"));
+            } finally {
+                copied.close();
+            }
+        } finally {
+            copy.delete();
+        }
+    }
+
+    @Test
+    public void incrementalChainRestoresTheLatestState() throws IOException {
+        BackupManager backups = new BackupManager(context, DATABASE);
+        long kept = book(0);
+        long removed = book(1);
+        backups.fullBackup();
+        long added = book(2);
+        live().delete("appointments", "id = ?", new String[]{String.valueOf(removed)});
+
+        BackupManager.Backup incremental = backups.incrementalBackup();
+        assertEquals(BackupManager.Type.INCREMENTAL, incremental.getType());
+        assertEquals(DatabaseHelper.changeLogHead(live()), incremental.getThroughSeq());
+        assertNull("nothing changed since the last backup", backups.incrementalBackup());
+
+        // lose everything, then bring it back
+        live().delete("appointments", null, null);
+        backups.restore();
+
+        assertEquals(ids(kept, added), liveIds());
+        assertFalse(dao.isDailyCapacityStale());
+        assertEquals(2, dao.getBookedTimesForDate(date).size());
+
+        // changes after the restore land in the next incremental
+        book(3);
+        BackupManager.Backup next = backups.incrementalBackup();
+        assertNotNull(next);
+        assertTrue(next.getThroughSeq() > incremental.getThroughSeq());
+        assertEquals(DatabaseHelper.changeLogHead(live()), next.getThroughSeq());
+    }
+
+    @Test
+    public void corruptBackupIsRefused() throws IOException {
+        BackupManager backups = new BackupManager(context, DATABASE);
+        book(0);
+        backups.fullBackup();
+        book(1);
+        BackupManager.Backup incremental = backups.incrementalBackup();
+        try (FileOutputStream out = new FileOutputStream(new File(backupDir(), incremental.getFileName()), true)) {
+            out.write(0);
+        }
+
+        assertEquals(Collections.singletonList(incremental.getFileName()), fileNames(backups.verify()));
+        live().delete("appointments", null, null);
+        try {
+            backups.restore();
+            fail("restored from a corrupt backup");
+        } catch (IOException expected) {
+            // the live database is left as it was
+        }
+        assertEquals(0, DatabaseUtils.queryNumEntries(live(), "appointments"));
+    }
+
+    @Test
+    public void restoreRefreshesBlockOutsAndQueuedAvailability() throws Exception {
+        BookingQueue queue = BookingQueue.getInstance(context, CLINIC);
+        BlockOutStore blockOuts = BlockOutStore.getInstance(context, DATABASE);
+        blockOuts.reload();
+        BackupManager backups = new BackupManager(context, DATABASE);
+
+        submit(queue, 0);
+        blockOuts.add(BlockOut.Kind.STAFF_MEETING, LocalDate.now().plusDays(3).atTime(12, 0),
+                LocalDate.now().plusDays(3).atTime(13, 0), null);
+        backups.fullBackup();
+        submit(queue, 1);
+        blockOuts.add(BlockOut.Kind.VACATION, LocalDate.now().plusDays(5).atStartOfDay(),
+                LocalDate.now().plusDays(6).atStartOfDay(), null);
+        assertTrue(queue.getBookedTimesForDate(date).contains(TimeSlots.get(1)));
+
+        backups.restore();
+
+        assertEquals(Collections.singletonList(TimeSlots.get(0)), queue.getBookedTimesForDate(date));
+        assertEquals(1, blockOuts.getCalendar().getAll().size());
+        assertEquals(BlockOut.Kind.STAFF_MEETING, blockOuts.getCalendar().getAll().get(0).getKind());
+    }
+
+    @Test
+    public void incrementalCarriesBlockOutEdits() throws IOException {
+        BlockOutStore blockOuts = BlockOutStore.getInstance(context, DATABASE);
+        blockOuts.reload();
+        BackupManager backups = new BackupManager(context, DATABASE);
+        BlockOut meeting = blockOuts.add(BlockOut.Kind.STAFF_MEETING, LocalDate.now().plusDays(3).atTime(12, 0),
+                LocalDate.now().plusDays(3).atTime(13, 0), null);
+        backups.fullBackup();
+
+        // only block-outs change after the full backup
+        blockOuts.remove(meeting.getId());
+        blockOuts.add(BlockOut.Kind.VACATION, LocalDate.now().plusDays(5).atStartOfDay(),
+                LocalDate.now().plusDays(6).atStartOfDay(), "Conference");
+        BackupManager.Backup incremental = backups.incrementalBackup();
+        assertNotNull(incremental);
+        assertEquals(DatabaseHelper.changeLogHead(live()), incremental.getThroughSeq());
+        assertNull(backups.incrementalBackup());
+
+        live().delete(DatabaseHelper.TABLE_BLOCK_OUTS, null, null);
+        backups.restore();
+
+        assertEquals(1, DatabaseUtils.queryNumEntries(live(), DatabaseHelper.TABLE_BLOCK_OUTS));
+        assertEquals(1, blockOuts.getCalendar().getAll().size());
+        assertEquals(BlockOut.Kind.VACATION, blockOuts.getCalendar().getAll().get(0).getKind());
+        assertEquals("Conference", blockOuts.getCalendar().getAll().get(0).getReason());
+    }
+
+    @Test
+    public void restorePutsBackMissingArchives() throws IOException {
+        dao.insertAppointment(appointment("2024-06-03", 2));
+        book(0);
+        new AppointmentArchiver(context, DATABASE).archiveBefore(LocalDate.of(2025, 1, 1));
+        BackupManager backups = new BackupManager(context, DATABASE);
+        backups.fullBackup();
+
+        // a new device: the live file and the archive are both gone
+        deleteArchives();
+        live().delete("appointments", null, null);
+        backups.restore();
+
+        assertEquals(Collections.singletonList(2024), ArchiveDatabaseHelper.archivedYears(context, DATABASE));
+        List<String> dates = new ArrayList<>();
+        new AppointmentHistory(context, DATABASE).scanReportRows("2024-01-01", "2099-12-31",
+                (day, source, description) -> dates.add(day));
+        Collections.sort(dates);
+        assertEquals(Arrays.asList("2024-06-03", date), dates);
+    }
+
+    @Test
+    public void exportIncludesArchivedYears() throws IOException {
+        dao.insertAppointment(appointment("2024-06-03", 2));
+        book(0);
+        new AppointmentArchiver(context, DATABASE).archiveBefore(LocalDate.of(2025, 1, 1));
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        assertEquals(2, new BackupManager(context, DATABASE).exportAppointments(out));
+
+        List<String> lines = new ArrayList<>();
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(
+                new GZIPInputStream(new ByteArrayInputStream(out.toByteArray())), StandardCharsets.UTF_8))) {
+            for (String line = reader.readLine(); line != null; line = reader.readLine()) {
+                lines.add(line);
+            }
+        }
+        assertEquals(3, lines.size());
+        assertTrue(lines.get(0).startsWith("id,"));
+        assertTrue(lines.get(1).contains(",2024-06-03,"));
+        assertTrue(lines.get(2).contains("," + date + ","));
+    }
+
+    private long book(int slot) {
+        return dao.insertAppointment(appointment(slot));
+    }
+
+    private void submit(BookingQueue queue, int slot) throws Exception {
+        assertTrue(queue.submit(appointment(slot)).getCommitted().get(10, TimeUnit.SECONDS) > 0);
+    }
+
+    private Appointment appointment(int slot) {
+        return appointment(date, slot);
+    }
+
+    private static Appointment appointment(String day, int slot) {
+        Appointment appointment = new Appointment("Pat " + slot, "1990-01-01", "1 Main St", "X" + slot, day,
+                TimeSlots.get(slot), "Adjustment", "Friend");
+        appointment.setBookingRef(UUID.randomUUID().toString());
+        return appointment;
+    }
+
+    private SQLiteDatabase live() {
+        return DatabaseHelper.getInstance(context, DATABASE).getWritableDatabase();
+    }
+
+    private List<Long> liveIds() {
+        List<Long> ids = new ArrayList<>();
+        try (Cursor cursor = live().rawQuery("SELECT id FROM appointments ORDER BY id", null)) {
+            while (cursor.moveToNext()) {
+                ids.add(cursor.getLong(0));
+            }
+        }
+        return ids;
+    }
+
+    private static List<Long> ids(long... ids) {
+        List<Long> list = new ArrayList<>();
+        for (long id : ids) {
+            list.add(id);
+        }
+        return list;
+    }
+
+    private File backupDir() {
+        return new File(new File(context.getFilesDir(), "backups"), DATABASE.substring(0, DATABASE.length() - 3));
+    }
+
+    private File backupFile(BackupManager.Backup backup) {
+        return new File(backupDir(), backup.getFileName());
+    }
+
+    private static List<String> fileNames(List<BackupManager.Backup> backups) {
+        List<String> names = new ArrayList<>();
+        for (BackupManager.Backup backup : backups) {
+            names.add(backup.getFileName());
+        }
+        return names;
+    }
+
+    /**
+     * Compares the row count of every table in the live database with a copy
+     */
+    private static void assertSameRows(SQLiteDatabase live, File copy) {
+        SQLiteDatabase copied = SQLiteDatabase.openDatabase(copy.getPath(), null, SQLiteDatabase.OPEN_READONLY);
+        try (Cursor tables = live.rawQuery("SELECT name FROM sqlite_master WHERE type = 'table'", null)) {
+            while (tables.moveToNext()) {
+                String table = tables.getString(0);
+                assertEquals(table, DatabaseUtils.queryNumEntries(live, table), DatabaseUtils.queryNumEntries(copied, table));
+            }
+        } finally {
+            copied.close();
+        }
+    }
+
+    private void deleteArchives() {
+        for (int year : ArchiveDatabaseHelper.archivedYears(context, DATABASE)) {
+            ArchiveDatabaseHelper.getInstance(context, DATABASE, year).close();
+            context.deleteDatabase(ArchiveDatabaseHelper.fileName(DATABASE, year));
+        }
+    }
+
+    private void deleteAll() {
+        DatabaseHelper.getInstance(context, DATABASE).close();
+        context.deleteDatabase(DATABASE);
+        deleteArchives();
+        File dir = backupDir();
+        File[] files = dir.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                file.delete();
+            }
+        }
+        dir.delete();
+    }
+}
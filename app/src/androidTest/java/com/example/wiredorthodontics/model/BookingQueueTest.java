@@ -0,0 +1,155 @@
+package com.example.wiredorthodontics.model;
+
+import android.content.Context;
+import android.database.DatabaseUtils;
+import android.database.sqlite.SQLiteDatabase;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+/**
+ * Replays a journal left by a crash, and checks that the journal is
+ * emptied once the writer has caught up, including after a failed write
+ * and after the database file is replaced.
+ */
+@RunWith(AndroidJUnit4.class)
+public class BookingQueueTest {
+
+    private static final String DATABASE = "BookingQueueTest.db";
+    private static final String DATE = "2026-11-02";
+
+    private Context context;
+    private File journal;
+    private File snapshot;
+
+    @Before
+    public void setUp() {
+        context = InstrumentationRegistry.getInstrumentation().getTargetContext();
+        tearDown();
+        journal = new File(context.getCacheDir(), "BookingQueueTest.journal");
+        snapshot = new File(context.getCacheDir(), "BookingQueueTest.snapshot");
+    }
+
+    @After
+    public void tearDown() {
+        DatabaseHelper.getInstance(context, DATABASE).close();
+        context.deleteDatabase(DATABASE);
+        if (journal != null) {
+            journal.delete();
+            snapshot.delete();
+        }
+    }
+
+    @Test
+    public void replayWritesEachJournaledBookingOnce() throws Exception {
+        AppointmentDAO dao = new AppointmentDAO(context, DATABASE);
+        Appointment written = appointment(0);
+        Appointment unwritten = appointment(1);
+        // the process died after inserting the first booking but before its applied marker was journaled
+        dao.insertAppointmentIfAbsent(written);
+        try (AppendOnlyLog log = new AppendOnlyLog(journal, 16, "test-journal")) {
+            log.append(BookingQueue.bookedRecord(written)).get();
+            log.append(BookingQueue.bookedRecord(unwritten)).get();
+        }
+
+        BookingQueue queue = new BookingQueue(journal, dao, snapshot);
+        awaitEmptyJournal();
+
+        SQLiteDatabase db = DatabaseHelper.getInstance(context, DATABASE).getReadableDatabase();
+        assertEquals(2, DatabaseUtils.queryNumEntries(db, "appointments"));
+        List<String> booked = queue.getBookedTimesForDate(DATE);
+        assertTrue(booked.contains(TimeSlots.get(0)));
+        assertTrue(booked.contains(TimeSlots.get(1)));
+        assertTrue(queue.getPendingTimes(DATE).isEmpty());
+    }
+
+    @Test
+    public void journalIsEmptiedOnceDrained() throws Exception {
+        BookingQueue queue = new BookingQueue(journal, new AppointmentDAO(context, DATABASE), snapshot);
+        List<BookingQueue.Reservation> reservations = new ArrayList<>();
+        for (int slot = 0; slot < TimeSlots.count(); slot++) {
+            reservations.add(queue.submit(appointment(slot)));
+        }
+        for (BookingQueue.Reservation reservation : reservations) {
+            assertTrue(reservation.getCommitted().get(10, TimeUnit.SECONDS) > 0);
+        }
+        awaitEmptyJournal();
+        assertEquals(TimeSlots.count(), queue.getBookedTimesForDate(DATE).size());
+    }
+
+    @Test
+    public void failedWriteIsRetriedAndReleased() throws Exception {
+        final AtomicInteger attempts = new AtomicInteger();
+        AppointmentDAO flaky = new AppointmentDAO(context, DATABASE) {
+            @Override
+            public long insertAppointmentIfAbsent(Appointment appointment) {
+                if (attempts.incrementAndGet() == 1) {
+                    throw new IllegalStateException("database is locked");
+                }
+                return super.insertAppointmentIfAbsent(appointment);
+            }
+        };
+        BookingQueue queue = new BookingQueue(journal, flaky, snapshot);
+        BookingQueue.Reservation reservation = queue.submit(appointment(3));
+
+        assertTrue(reservation.getCommitted().get(10, TimeUnit.SECONDS) > 0);
+        assertEquals(2, attempts.get());
+        awaitEmptyJournal();
+        assertTrue(queue.getPendingTimes(DATE).isEmpty());
+        assertTrue(queue.getBookedTimesForDate(DATE).contains(TimeSlots.get(3)));
+    }
+
+    @Test
+    public void replacingTheDatabaseDropsUnwrittenBookings() throws Exception {
+        AppointmentDAO failing = new AppointmentDAO(context, DATABASE) {
+            @Override
+            public long insertAppointmentIfAbsent(Appointment appointment) {
+                throw new IllegalStateException("disk full");
+            }
+        };
+        BookingQueue queue = new BookingQueue(journal, failing, snapshot);
+        BookingQueue.Reservation reservation = queue.submit(appointment(5));
+        assertTrue(queue.getPendingTimes(DATE).contains(TimeSlots.get(5)));
+
+        final AtomicInteger swaps = new AtomicInteger();
+        queue.replaceDatabase(() -> {
+            swaps.incrementAndGet();
+            return null;
+        });
+
+        assertEquals(1, swaps.get());
+        assertTrue(reservation.getCommitted().isCompletedExceptionally());
+        assertTrue(queue.getPendingTimes(DATE).isEmpty());
+        assertFalse(queue.getBookedTimesForDate(DATE).contains(TimeSlots.get(5)));
+        awaitEmptyJournal();
+    }
+
+    private void awaitEmptyJournal() throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (journal.length() > 0 && System.nanoTime() < deadline) {
+            Thread.sleep(20);
+        }
+        assertEquals("journal was not emptied", 0, journal.length());
+    }
+
+    private static Appointment appointment(int slot) {
+        Appointment appointment = new Appointment("Pat " + slot, "1990-01-01", "1 Main St", "X" + slot, DATE,
+                TimeSlots.get(slot), "Adjustment", "Friend");
+        appointment.setBookingRef(UUID.randomUUID().toString());
+        return appointment;
+    }
+}
@@ -0,0 +1,213 @@
+package com.example.wiredorthodontics.model;
+
+import android.content.ContentValues;
+import android.content.Context;
+import android.database.sqlite.SQLiteDatabase;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import com.example.wiredorthodontics.core.BlockOut;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.UUID;
+
+import static org.junit.Assert.*;
+
+/**
+ * Sync tokens of the calendar feed: unchanged schedules, deltas with
+ * cancellations, and the full resync after the change log is pruned or a
+ * backup is restored.
+ */
+@RunWith(AndroidJUnit4.class)
+public class CalendarFeedSyncTest {
+
+    private static final String DATABASE = ClinicShardRouter.databaseName("feedtest");
+    private static final String DATE = "2026-11-02";
+
+    private Context context;
+    private AppointmentDAO dao;
+    private CalendarFeed feed;
+
+    @Before
+    public void setUp() {
+        context = InstrumentationRegistry.getInstrumentation().getTargetContext();
+        deleteAll();
+        dao = new AppointmentDAO(context, DATABASE);
+        feed = new CalendarFeed(context, DATABASE);
+    }
+
+    @After
+    public void tearDown() {
+        deleteAll();
+    }
+
+    @Test
+    public void unchangedScheduleIsNotModified() throws IOException {
+        book(0);
+        book(1);
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        CalendarFeed.Result full = feed.write(null, out);
+        assertEquals(CalendarFeed.Kind.FULL, full.getKind());
+        assertEquals(2, full.getEvents());
+        assertEquals(2, count(out, "STATUS:CONFIRMED"));
+        assertEquals(feed.getCurrentToken(), full.getSyncToken());
+
+        out.reset();
+        CalendarFeed.Result again = feed.write(full.getSyncToken(), out);
+        assertEquals(CalendarFeed.Kind.NOT_MODIFIED, again.getKind());
+        assertEquals(full.getSyncToken(), again.getSyncToken());
+        assertEquals(0, out.size());
+    }
+
+    @Test
+    public void deltaSendsChangesAndCancellations() throws IOException {
+        long moved = book(0);
+        long cancelled = book(1);
+        book(2);
+        String token = feed.write(null, new ByteArrayOutputStream()).getSyncToken();
+
+        long added = book(3);
+        ContentValues values = new ContentValues();
+        values.put("time", TimeSlots.get(5));
+        live().update("appointments", values, "id = ?", new String[]{String.valueOf(moved)});
+        live().delete("appointments", "id = ?", new String[]{String.valueOf(cancelled)});
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        CalendarFeed.Result delta = feed.write(token, out);
+        assertEquals(CalendarFeed.Kind.CHANGES, delta.getKind());
+        assertEquals(3, delta.getEvents());
+        assertEquals(feed.getCurrentToken(), delta.getSyncToken());
+
+        String ics = out.toString("UTF-8");
+        assertTrue(ics.contains(uid(added)));
+        assertTrue(ics.contains(uid(moved)));
+        assertTrue(ics.contains(uid(cancelled)));
+        assertEquals(1, count(out, "STATUS:CANCELLED"));
+        assertEquals(2, count(out, "STATUS:CONFIRMED"));
+        assertTrue(ics.contains("DTSTART:20261102T" + startOf(5)));
+
+        assertEquals(CalendarFeed.Kind.NOT_MODIFIED, feed.write(delta.getSyncToken(), new ByteArrayOutputStream()).getKind());
+    }
+
+    @Test
+    public void blockOutEditsAreNotCalendarEvents() throws IOException {
+        book(0);
+        String token = feed.write(null, new ByteArrayOutputStream()).getSyncToken();
+
+        BlockOutStore.getInstance(context, DATABASE).add(BlockOut.Kind.STAFF_MEETING,
+                LocalDate.of(2026, 11, 2).atTime(12, 0), LocalDate.of(2026, 11, 2).atTime(13, 0), null);
+
+        CalendarFeed.Result delta = feed.write(token, new ByteArrayOutputStream());
+        assertEquals(CalendarFeed.Kind.CHANGES, delta.getKind());
+        assertEquals(0, delta.getEvents());
+        // the token still moves on, so the next request is not modified
+        assertEquals(feed.getCurrentToken(), delta.getSyncToken());
+        assertEquals(CalendarFeed.Kind.NOT_MODIFIED, feed.write(delta.getSyncToken(), new ByteArrayOutputStream()).getKind());
+    }
+
+    @Test
+    public void prunedTokenFallsBackToAFullFeed() throws IOException {
+        String beforeAny = feed.getCurrentToken();
+        book(0);
+        String afterFirst = feed.getCurrentToken();
+        BackupManager backups = new BackupManager(context, DATABASE);
+        backups.fullBackup();
+        long second = book(1);
+        // the second full backup prunes the entries the first one covered
+        backups.fullBackup();
+
+        CalendarFeed.Result stale = feed.write(beforeAny, new ByteArrayOutputStream());
+        assertEquals(CalendarFeed.Kind.FULL, stale.getKind());
+        assertEquals(2, stale.getEvents());
+
+        // a token at the edge of what was pruned still gets a delta
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        CalendarFeed.Result delta = feed.write(afterFirst, out);
+        assertEquals(CalendarFeed.Kind.CHANGES, delta.getKind());
+        assertEquals(1, delta.getEvents());
+        assertTrue(out.toString("UTF-8").contains(uid(second)));
+    }
+
+    @Test
+    public void tokensFromBeforeARestoreGetAFullFeed() throws IOException {
+        book(0);
+        BackupManager backups = new BackupManager(context, DATABASE);
+        backups.fullBackup();
+        book(1);
+        String beforeRestore = feed.getCurrentToken();
+
+        backups.restore();
+
+        assertTrue(Long.parseLong(feed.getCurrentToken()) > Long.parseLong(beforeRestore));
+        CalendarFeed.Result resync = feed.write(beforeRestore, new ByteArrayOutputStream());
+        assertEquals(CalendarFeed.Kind.FULL, resync.getKind());
+        assertEquals(1, resync.getEvents());
+
+        // changes after the restore do not make the old token usable again
+        book(2);
+        assertEquals(CalendarFeed.Kind.FULL, feed.write(beforeRestore, new ByteArrayOutputStream()).getKind());
+        assertEquals(CalendarFeed.Kind.CHANGES, feed.write(resync.getSyncToken(), new ByteArrayOutputStream()).getKind());
+    }
+
+    @Test
+    public void unreadableOrFutureTokensGetAFullFeed() throws IOException {
+        book(0);
+        long head = Long.parseLong(feed.getCurrentToken());
+
+        assertEquals(CalendarFeed.Kind.FULL, feed.write("not a token", new ByteArrayOutputStream()).getKind());
+        assertEquals(CalendarFeed.Kind.FULL, feed.write(String.valueOf(head + 10), new ByteArrayOutputStream()).getKind());
+    }
+
+    private long book(int slot) {
+        Appointment appointment = new Appointment("Pat " + slot, "1990-01-01", "1 Main St", "X" + slot, DATE,
+                TimeSlots.get(slot), "Adjustment", "Friend");
+        appointment.setBookingRef(UUID.randomUUID().toString());
+        return dao.insertAppointment(appointment);
+    }
+
+    private static String uid(long id) {
+        return "UID:appointment-" + id + "@wiredorthodontics";
+    }
+
+    private static String startOf(int slot) {
+        return TimeSlots.startOf(TimeSlots.get(slot)).format(DateTimeFormatter.ofPattern("HHmmss"));
+    }
+
+    private static int count(ByteArrayOutputStream out, String line) {
+        String ics = new String(out.toByteArray(), StandardCharsets.UTF_8);
+        int count = 0;
+        for (int at = ics.indexOf(line); at >= 0; at = ics.indexOf(line, at + 1)) {
+            count++;
+        }
+        return count;
+    }
+
+    private SQLiteDatabase live() {
+        return DatabaseHelper.getInstance(context, DATABASE).getWritableDatabase();
+    }
+
+    private void deleteAll() {
+        DatabaseHelper.getInstance(context, DATABASE).close();
+        context.deleteDatabase(DATABASE);
+        File dir = new File(new File(context.getFilesDir(), "backups"), DATABASE.substring(0, DATABASE.length() - 3));
+        File[] files = dir.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                file.delete();
+            }
+        }
+        dir.delete();
+    }
+}
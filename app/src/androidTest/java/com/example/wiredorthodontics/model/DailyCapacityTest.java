@@ -0,0 +1,153 @@
+package com.example.wiredorthodontics.model;
+
+import android.content.ContentValues;
+import android.content.Context;
+import android.database.sqlite.SQLiteDatabase;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.Assert.*;
+
+/**
+ * The daily capacity summary: the triggers that keep it current, the
+ * rebuild from scratch, and the migration of times stored with native
+ * digits.
+ */
+@RunWith(AndroidJUnit4.class)
+public class DailyCapacityTest {
+
+    private static final String DATABASE = "DailyCapacityTest.db";
+    private static final String DAY = "2026-11-02";
+    private static final String NEXT_DAY = "2026-11-03";
+
+    private Context context;
+    private AppointmentDAO dao;
+
+    @Before
+    public void setUp() {
+        context = InstrumentationRegistry.getInstrumentation().getTargetContext();
+        tearDown();
+        dao = new AppointmentDAO(context, DATABASE);
+    }
+
+    @After
+    public void tearDown() {
+        DatabaseHelper.getInstance(context, DATABASE).close();
+        context.deleteDatabase(DATABASE);
+    }
+
+    @Test
+    public void insertsAndDeletesUpdateTheSummary() {
+        long first = book(DAY, TimeSlots.get(0));
+        book(DAY, TimeSlots.get(2));
+        assertDay(DAY, 2, 0b101);
+
+        // a second booking in the same slot keeps the bit when either is removed
+        long shared = book(DAY, TimeSlots.get(2));
+        assertDay(DAY, 3, 0b101);
+        live().delete("appointments", "id = ?", new String[]{String.valueOf(shared)});
+        assertDay(DAY, 2, 0b101);
+
+        live().delete("appointments", "id = ?", new String[]{String.valueOf(first)});
+        assertDay(DAY, 1, 0b100);
+        assertFalse(dao.isDailyCapacityStale());
+    }
+
+    @Test
+    public void reschedulingMovesTheCount() {
+        long moved = book(DAY, TimeSlots.get(1));
+        book(DAY, TimeSlots.get(4));
+
+        ContentValues values = new ContentValues();
+        values.put("time", TimeSlots.get(3));
+        live().update("appointments", values, "id = ?", new String[]{String.valueOf(moved)});
+        assertDay(DAY, 2, 0b11000);
+
+        values.clear();
+        values.put("date", NEXT_DAY);
+        live().update("appointments", values, "id = ?", new String[]{String.valueOf(moved)});
+        assertDay(DAY, 1, 0b10000);
+        assertDay(NEXT_DAY, 1, 0b1000);
+        assertFalse(dao.isDailyCapacityStale());
+    }
+
+    @Test
+    public void rebuildMatchesTheTriggers() {
+        for (int slot = 0; slot < TimeSlots.count(); slot += 2) {
+            book(DAY, TimeSlots.get(slot));
+        }
+        book(NEXT_DAY, TimeSlots.get(1));
+        book(NEXT_DAY, TimeSlots.get(1));
+        List<String> maintained = rows();
+
+        live().delete(DatabaseHelper.TABLE_DAILY_CAPACITY, null, null);
+        assertTrue(dao.isDailyCapacityStale());
+        dao.rebuildDailyCapacity();
+
+        assertEquals(maintained, rows());
+        assertFalse(dao.isDailyCapacityStale());
+    }
+
+    @Test
+    public void nativeDigitsAreMigratedToSlots() {
+        book(DAY, TimeSlots.get(0));
+        // how "09:00 AM" and "1:00 PM" were stored on an Arabic-Indic device
+        String morning = "\u0660\u0669:\u0660\u0660 AM";
+        String afternoon = "\u0661:\u0660\u0660 PM";
+        book(DAY, morning);
+        book(DAY, afternoon);
+        assertDay(DAY, 3, 0b1);
+
+        // reopen as the previous schema version to run the upgrade
+        live().setVersion(9);
+        DatabaseHelper.getInstance(context, DATABASE).close();
+
+        List<String> times = dao.getBookedTimesForDate(DAY);
+        Collections.sort(times);
+        List<String> expected = new ArrayList<>();
+        expected.add(TimeSlots.get(0));
+        expected.add(TimeSlots.get(1));
+        expected.add(TimeSlots.get(4));
+        Collections.sort(expected);
+        assertEquals(expected, times);
+        assertEquals("09:00 AM", TimeSlots.get(1));
+        assertDay(DAY, 3, 0b10011);
+    }
+
+    private long book(String date, String time) {
+        Appointment appointment = new Appointment("Pat", "1990-01-01", "1 Main St", "X1", date, time, "Adjustment", "Friend");
+        appointment.setBookingRef(UUID.randomUUID().toString());
+        return dao.insertAppointment(appointment);
+    }
+
+    private void assertDay(String date, int booked, int occupancy) {
+        List<DailyCapacity> days = dao.getDailyCapacity(date, date);
+        assertEquals(1, days.size());
+        assertEquals(booked, days.get(0).getBooked());
+        assertEquals(Math.max(0, TimeSlots.count() - booked), days.get(0).getFree());
+        assertEquals(occupancy, days.get(0).getOccupancy());
+    }
+
+    private List<String> rows() {
+        List<String> rows = new ArrayList<>();
+        for (DailyCapacity day : dao.getDailyCapacity("0000-01-01", "9999-12-31")) {
+            rows.add(day.getDate() + " " + day.getBooked() + " " + day.getFree() + " " + day.getOccupancy());
+        }
+        return rows;
+    }
+
+    private SQLiteDatabase live() {
+        return DatabaseHelper.getInstance(context, DATABASE).getWritableDatabase();
+    }
+}
@@ -0,0 +1,180 @@
+package com.example.wiredorthodontics.model;
+
+import android.content.Context;
+import android.database.sqlite.SQLiteDatabase;
+import android.util.Log;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.filters.LargeTest;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * Scaling harness for the DAO queries. Loads synthetic clinics of 1k, 100k
+ * and 1M appointments and checks that the median latency of each query
+ * stays within a small multiple of its 1k latency. The data density per
+ * day is the same at every size, at most one booking per slot, so the
+ * larger clinics cover centuries of dates. An indexed query does the same
+ * work plus a slightly deeper b-tree, while a query that has fallen back
+ * to a table scan gets about a thousand times slower and fails.
+ */
+@RunWith(AndroidJUnit4.class)
+@LargeTest
+public class DaoScalingTest {
+
+    private static final String TAG = "DaoScalingTest";
+    private static final long SEED = 20231020L;
+    private static final int[] SIZES = {1_000, 100_000, 1_000_000};
+    private static final int RUNS = 200;
+    private static final int INSERT_BATCH = 10_000;
+
+    // allowed slowdown from 1k to any larger size, plus a floor so sub-millisecond jitter cannot fail the test
+    private static final double GROWTH_LIMIT = 4;
+    private static final double NOISE_FLOOR_MS = 0.5;
+
+    private Context context;
+    private final List<String> databases = new ArrayList<>();
+
+    @Before
+    public void setUp() {
+        context = InstrumentationRegistry.getInstrumentation().getTargetContext();
+    }
+
+    @After
+    public void tearDown() {
+        for (String name : databases) {
+            DatabaseHelper.getInstance(context, name).close();
+            context.deleteDatabase(name);
+        }
+    }
+
+    @Test
+    public void generatorIsDeterministicAndSkewed() {
+        final List<String> first = new ArrayList<>();
+        final List<String> second = new ArrayList<>();
+        final Map<String, Integer> sources = new HashMap<>();
+        final Map<String, Integer> visitsPerPatient = new HashMap<>();
+        new SyntheticClinicGenerator(SEED).generate(5_000, appointment -> {
+            first.add(appointment.getPatientName() + appointment.getIdentificationNumber() + appointment.getAppointmentDate()
+                    + appointment.getAppointmentTime() + appointment.getBookingRef());
+            sources.merge(appointment.getClinicSource(), 1, Integer::sum);
+            visitsPerPatient.merge(appointment.getIdentificationNumber(), 1, Integer::sum);
+        });
+        new SyntheticClinicGenerator(SEED).generate(5_000, appointment -> second.add(appointment.getPatientName()
+                + appointment.getIdentificationNumber() + appointment.getAppointmentDate()
+                + appointment.getAppointmentTime() + appointment.getBookingRef()));
+
+        assertEquals(first, second);
+        assertTrue(sources.get("Google") > 2 * sources.get("Facebook"));
+        assertTrue(visitsPerPatient.size() < 2_500); // most visits are repeat visits
+    }
+
+    @Test
+    public void generatorSkipsHolidays() {
+        final List<String> dates = new ArrayList<>();
+        new SyntheticClinicGenerator(SEED).startingOn(LocalDate.of(2030, 12, 20))
+                .generate(20_000, appointment -> dates.add(appointment.getAppointmentDate()));
+        assertFalse(dates.contains("2030-12-25"));
+        assertFalse(dates.contains("2031-01-01"));
+        assertTrue(dates.contains("2030-12-26"));
+    }
+
+    @Test
+    public void queryLatencyGrowsSublinearly() {
+        Map<String, Double> baseline = null;
+        for (int size : SIZES) {
+            Map<String, Double> medians = measure(size);
+            Log.i(TAG, size + " rows: " + medians);
+            if (baseline == null) {
+                baseline = medians;
+                continue;
+            }
+            for (Map.Entry<String, Double> query : medians.entrySet()) {
+                double allowed = baseline.get(query.getKey()) * GROWTH_LIMIT + NOISE_FLOOR_MS;
+                assertTrue(query.getKey() + " took " + query.getValue() + " ms at " + size + " rows, limit " + allowed
+                        + " ms (1k rows: " + baseline.get(query.getKey()) + " ms)", query.getValue() <= allowed);
+            }
+        }
+    }
+
+    /**
+     * Builds a clinic of the given size and times each DAO query on it.
+     * @return median milliseconds per query name
+     */
+    private Map<String, Double> measure(int size) {
+        String name = "scaling_" + size + ".db";
+        context.deleteDatabase(name);
+        databases.add(name);
+
+        final AppointmentDAO dao = new AppointmentDAO(context, name);
+        final SQLiteDatabase db = DatabaseHelper.getInstance(context, name).getWritableDatabase();
+        final int[] pending = {0};
+        SyntheticClinicGenerator generator = new SyntheticClinicGenerator(SEED);
+        db.beginTransaction();
+        generator.generate(size, appointment -> {
+            dao.insertAppointment(appointment);
+            if (++pending[0] == INSERT_BATCH) {
+                db.setTransactionSuccessful();
+                db.endTransaction();
+                db.beginTransaction();
+                pending[0] = 0;
+            }
+        });
+        db.setTransactionSuccessful();
+        db.endTransaction();
+
+        LocalDate first = generator.getStartDate();
+        long span = ChronoUnit.DAYS.between(first, generator.getLastDate());
+        Random random = new Random(SEED);
+        double[] booked = new double[RUNS];
+        double[] capacity = new double[RUNS];
+        double[] report = new double[RUNS];
+        final int[] rows = {0};
+        for (int i = 0; i < RUNS; i++) {
+            LocalDate date = first.plusDays((long) (random.nextDouble() * span));
+            String day = date.toString();
+            String weekLater = date.plusDays(6).toString();
+            String monthLater = date.plusDays(30).toString();
+
+            long start = System.nanoTime();
+            dao.getBookedTimesForDate(day);
+            booked[i] = (System.nanoTime() - start) / 1e6;
+
+            start = System.nanoTime();
+            dao.getDailyCapacity(day, monthLater);
+            capacity[i] = (System.nanoTime() - start) / 1e6;
+
+            start = System.nanoTime();
+            dao.scanReportRows(day, weekLater, (d, source, description) -> rows[0]++);
+            report[i] = (System.nanoTime() - start) / 1e6;
+        }
+        assertTrue(rows[0] > 0);
+
+        Map<String, Double> medians = new HashMap<>();
+        medians.put("getBookedTimesForDate", median(booked));
+        medians.put("getDailyCapacity", median(capacity));
+        medians.put("scanReportRows", median(report));
+        return medians;
+    }
+
+    private static double median(double[] samples) {
+        double[] sorted = samples.clone();
+        Arrays.sort(sorted);
+        return sorted[sorted.length / 2];
+    }
+}
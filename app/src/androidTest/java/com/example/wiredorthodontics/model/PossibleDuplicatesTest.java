@@ -0,0 +1,77 @@
+package com.example.wiredorthodontics.model;
+
+import android.content.Context;
+import android.database.Cursor;
+import android.database.DatabaseUtils;
+import android.database.sqlite.SQLiteDatabase;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import com.example.wiredorthodontics.core.DuplicatePatientIndex;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.Assert.*;
+
+/**
+ * Stores likely duplicate patients for staff, once per pair.
+ */
+@RunWith(AndroidJUnit4.class)
+public class PossibleDuplicatesTest {
+
+    private static final String DATABASE = "PossibleDuplicatesTest.db";
+
+    private Context context;
+    private AppointmentDAO dao;
+
+    @Before
+    public void setUp() {
+        context = InstrumentationRegistry.getInstrumentation().getTargetContext();
+        tearDown();
+        dao = new AppointmentDAO(context, DATABASE);
+    }
+
+    @After
+    public void tearDown() {
+        DatabaseHelper.getInstance(context, DATABASE).close();
+        context.deleteDatabase(DATABASE);
+    }
+
+    @Test
+    public void eachPairIsStoredOnce() {
+        DuplicatePatientIndex index = new DuplicatePatientIndex();
+        index.add("Jonathan Smith", "1990-03-04", "12 Oak Street Apt 4", "D1234567");
+        List<DuplicatePatientIndex.Match> matches = index.findMatches("Jonathon Smith", "1990-03-04",
+                "12 Oak St Apt 4", "D1234567", 5);
+        assertEquals(1, matches.size());
+
+        Appointment booking = new Appointment("Jonathon Smith", "1990-03-04", "12 Oak St Apt 4", "D1234567",
+                "2026-11-02", TimeSlots.get(0), "Adjustment", "Friend");
+        booking.setBookingRef(UUID.randomUUID().toString());
+        dao.recordPossibleDuplicate(booking, matches.get(0));
+        dao.recordPossibleDuplicate(booking, matches.get(0));
+
+        SQLiteDatabase db = DatabaseHelper.getInstance(context, DATABASE).getReadableDatabase();
+        assertEquals(1, DatabaseUtils.queryNumEntries(db, DatabaseHelper.TABLE_POSSIBLE_DUPLICATES));
+        try (Cursor cursor = db.rawQuery("SELECT booking_ref, match_name, similarity FROM "
+                + DatabaseHelper.TABLE_POSSIBLE_DUPLICATES, null)) {
+            assertTrue(cursor.moveToFirst());
+            assertEquals(booking.getBookingRef(), cursor.getString(0));
+            assertEquals("Jonathan Smith", cursor.getString(1));
+            assertEquals(matches.get(0).getSimilarity(), cursor.getDouble(2), 1e-9);
+        }
+
+        // the startup scan finding the same pair again adds nothing
+        index.add("Jonathon Smith", "1990-03-04", "12 Oak St Apt 4", "D1234567");
+        List<DuplicatePatientIndex.Patient> cluster = index.findClusters().get(0);
+        dao.recordPossibleDuplicate(cluster.get(1), cluster.get(0));
+        assertEquals(1, DatabaseUtils.queryNumEntries(db, DatabaseHelper.TABLE_POSSIBLE_DUPLICATES));
+    }
+}
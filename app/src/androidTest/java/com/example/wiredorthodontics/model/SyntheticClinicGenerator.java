@@ -0,0 +1,197 @@
+package com.example.wiredorthodontics.model;
+
+import com.example.wiredorthodontics.core.HolidayCalendar;
+
+import java.time.LocalDate;
+import java.time.MonthDay;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Deterministic generator of realistic clinic appointments for scale tests.
+ * The same seed always yields the same rows. Days are filled in date order
+ * from a start date: each slot is booked at most once, with a fixed
+ * probability, as the booking screen allows, so a large count spans many
+ * years rather than packing more into a day. The clinic's holidays are
+ * skipped every year, most visits belong to patients already in
+ * treatment, and referral sources follow a Zipf distribution so a few
+ * sources dominate.
+ */
+public class SyntheticClinicGenerator {
+
+    /**
+     * Receives generated appointments one at a time.
+     */
+    public interface Sink {
+        void accept(Appointment appointment);
+    }
+
+    private static final String[] FIRST_NAMES = {
+            "Maria", "Jose", "Sofia", "Liam", "Emma", "Noah", "Olivia", "Mateo", "Ava", "Lucas",
+            "Isabella", "Ethan", "Mia", "Diego", "Amelia", "Daniel", "Harper", "Santiago", "Ella", "Gabriel"
+    };
+    private static final String[] LAST_NAMES = {
+            "Garcia", "Martinez", "Smith", "Lopez", "Johnson", "Chavez", "Sanchez", "Brown", "Romero", "Baca",
+            "Trujillo", "Gonzales", "Williams", "Jones", "Montoya", "Lucero", "Martin", "Vigil", "Davis", "Archuleta"
+    };
+    private static final String[] STREETS = {
+            "Central Ave", "Montgomery Blvd", "Lomas Blvd", "Menaul Blvd", "Coors Blvd", "Paseo del Norte",
+            "Wyoming Blvd", "Juan Tabo Blvd", "San Mateo Blvd", "Rio Grande Blvd"
+    };
+    private static final String[] ID_TYPES = {"DL", "SID", "PP"};
+    // most common first; drawn with a Zipf distribution
+    private static final String[] SOURCES = {
+            "Google", "Friend or family", "Dentist referral", "Instagram", "Facebook",
+            "School flyer", "Yelp", "Billboard", "Radio", "Other"
+    };
+    private static final double SOURCE_SKEW = 1.2;
+    private static final String[] FOLLOW_UP_REASONS = {
+            "Adjustment", "Wire change", "Adjustment and check", "Retainer check", "Broken bracket"
+    };
+    private static final String[] FIRST_VISIT_REASONS = {
+            "Consultation", "Braces fitting", "Evaluation for crowding", "Consultation for overbite"
+    };
+
+    private static final double REPEAT_VISIT_RATE = 0.8;
+    private static final int MAX_ACTIVE_PATIENTS = 5000;
+
+    private static class Patient {
+        String name, dob, address, idNumber, source;
+    }
+
+    private final Random random;
+    private final Set<MonthDay> holidays = new HashSet<>();
+    private final double[] sourceCumulative;
+    private final List<Patient> active = new ArrayList<>();
+    private LocalDate start = LocalDate.of(2010, 1, 4);
+    private double fillRate = 0.7;
+    private LocalDate lastDate;
+
+    /**
+     * Constructor for a generator
+     * @param seed - the same seed produces the same appointments
+     */
+    public SyntheticClinicGenerator(long seed) {
+        this.random = new Random(seed);
+        // the calendar lists one year; its dates close the clinic every year
+        for (String holiday : HolidayCalendar.newMexico2023().getHolidays()) {
+            holidays.add(MonthDay.from(LocalDate.parse(holiday)));
+        }
+        sourceCumulative = new double[SOURCES.length];
+        double total = 0;
+        for (int i = 0; i < SOURCES.length; i++) {
+            total += 1 / Math.pow(i + 1, SOURCE_SKEW);
+            sourceCumulative[i] = total;
+        }
+        for (int i = 0; i < SOURCES.length; i++) {
+            sourceCumulative[i] /= total;
+        }
+    }
+
+    /**
+     * Sets the first day bookings are generated for
+     * @param start - the first date
+     * @return this generator
+     */
+    public SyntheticClinicGenerator startingOn(LocalDate start) {
+        this.start = start;
+        return this;
+    }
+
+    /**
+     * Sets the share of slots that get booked
+     * @param fillRate - between 0 and 1
+     * @return this generator
+     */
+    public SyntheticClinicGenerator fillRate(double fillRate) {
+        this.fillRate = fillRate;
+        return this;
+    }
+
+    /**
+     * Generates appointments in date order until count have been produced
+     * @param count - number of appointments
+     * @param sink - receives each appointment
+     */
+    public void generate(int count, Sink sink) {
+        LocalDate date = start;
+        int produced = 0;
+        while (produced < count) {
+            if (!holidays.contains(MonthDay.from(date))) {
+                String day = date.toString();
+                for (int slot = 0; slot < TimeSlots.count() && produced < count; slot++) {
+                    if (random.nextDouble() < fillRate) {
+                        sink.accept(nextAppointment(day, TimeSlots.get(slot)));
+                        produced++;
+                    }
+                }
+                lastDate = date;
+            }
+            date = date.plusDays(1);
+        }
+    }
+
+    /**
+     * Date of the last generated appointment
+     * @return the date, or null before generate
+     */
+    public LocalDate getLastDate() {
+        return lastDate;
+    }
+
+    /**
+     * The first day bookings are generated for
+     * @return the start date
+     */
+    public LocalDate getStartDate() {
+        return start;
+    }
+
+    private Appointment nextAppointment(String date, String time) {
+        Patient patient;
+        String reason;
+        if (!active.isEmpty() && random.nextDouble() < REPEAT_VISIT_RATE) {
+            patient = active.get(random.nextInt(active.size()));
+            reason = FOLLOW_UP_REASONS[random.nextInt(FOLLOW_UP_REASONS.length)];
+        } else {
+            patient = newPatient();
+            reason = FIRST_VISIT_REASONS[random.nextInt(FIRST_VISIT_REASONS.length)];
+            if (active.size() < MAX_ACTIVE_PATIENTS) {
+                active.add(patient);
+            } else {
+                // a random patient finishes treatment to make room
+                active.set(random.nextInt(active.size()), patient);
+            }
+        }
+        Appointment appointment = new Appointment(patient.name, patient.dob, patient.address, patient.idNumber,
+                date, time, reason, patient.source);
+        appointment.setBookingRef(new UUID(random.nextLong(), random.nextLong()).toString());
+        return appointment;
+    }
+
+    private Patient newPatient() {
+        Patient patient = new Patient();
+        patient.name = FIRST_NAMES[random.nextInt(FIRST_NAMES.length)] + " " + LAST_NAMES[random.nextInt(LAST_NAMES.length)];
+        // orthodontic patients are mostly teenagers, with some adults
+        int age = random.nextDouble() < 0.75 ? 10 + random.nextInt(8) : 18 + random.nextInt(40);
+        patient.dob = LocalDate.of(2024 - age, 1 + random.nextInt(12), 1 + random.nextInt(28)).toString();
+        patient.address = (100 + random.nextInt(9900)) + " " + STREETS[random.nextInt(STREETS.length)] + ", Albuquerque, NM";
+        patient.idNumber = ID_TYPES[random.nextInt(ID_TYPES.length)] + (10_000_000 + random.nextInt(90_000_000));
+        patient.source = SOURCES[zipfIndex()];
+        return patient;
+    }
+
+    private int zipfIndex() {
+        double u = random.nextDouble();
+        for (int i = 0; i < sourceCumulative.length; i++) {
+            if (u < sourceCumulative[i]) {
+                return i;
+            }
+        }
+        return sourceCumulative.length - 1;
+    }
+}
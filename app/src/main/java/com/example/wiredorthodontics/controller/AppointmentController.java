@@ -3,76 +3,162 @@
  * Used within the main activity and the associated tab fragments for
  * each step of the appointment scheduling process.
  * -
- * The list of holidays that is used to
- * by the calendar was acquired via this .gov list of holidays:
- * https://www.employmentlawhandbook.com/employment-and-labor-laws/states/new-mexico/leave-laws/holidays/
+ * The booking rules themselves live in the headless SchedulingService;
+ * this class turns its results into alerts on the view.
  * -
  * @author Drey Smith
  * @date 10.28.2023
  */
 package com.example.wiredorthodontics.controller;
 
+import android.content.Context;
+import android.util.Log;
+
 import com.example.wiredorthodontics.R;
+import com.example.wiredorthodontics.core.BookingResult;
+import com.example.wiredorthodontics.core.DuplicatePatientIndex;
+import com.example.wiredorthodontics.core.ProcedureType;
+import com.example.wiredorthodontics.core.SchedulingService;
+import com.example.wiredorthodontics.core.SlotSuggester;
 import com.example.wiredorthodontics.view.MainActivity;
 import com.example.wiredorthodontics.model.Appointment;
 import com.example.wiredorthodontics.model.AppointmentDAO;
-import java.util.ArrayList;
+import com.example.wiredorthodontics.model.AppointmentHistory;
+import com.example.wiredorthodontics.model.AuditLog;
+import com.example.wiredorthodontics.model.ClinicShardRouter;
+import com.example.wiredorthodontics.model.DailyCapacity;
+
+import java.time.LocalDate;
 import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 public class AppointmentController {
+    private static final String TAG = "AppointmentController";
     // class level vars
     private final MainActivity view;
-    private final AppointmentDAO model;
-    private final List<String> holidays;
+    private final SchedulingService scheduler;
+    private final SlotSuggester suggester;
+
+    // how far ahead time suggestions look
+    private static final int SUGGESTION_DAYS = 30;
+
+    // every patient seen by this process, to spot the same person registering under another spelling
+    private static final DuplicatePatientIndex PATIENTS = new DuplicatePatientIndex();
+    private static final int MAX_DUPLICATES = 5;
+    // likely duplicates are stored for staff off the ui thread
+    private static final ExecutorService DUPLICATE_WRITER = Executors.newSingleThreadExecutor();
+
+    // the app has no sign-in, so lookups and bookings are attributed to the device user;
+    // the booking reference identifies the patient's record without copying their id number into the log
+    private static final String APP_USER = "app-user";
 
     /**
-     * Constructor method to accept the view as context and the model as the data access object
-     * Also initializes the 2023 holiday-dates list.
+     * Constructor method to accept the view as context. Bookings go through
+     * the default clinic's process-wide scheduling core, so every activity's
+     * holds hide slots from the others and the cross-clinic search sees
+     * the same locks.
      * @param view
-     * @param model
      */
-    public AppointmentController(MainActivity view, AppointmentDAO model) {
+    public AppointmentController(MainActivity view) {
+        this(view, ClinicShardRouter.schedulingService(view, ClinicShardRouter.DEFAULT_CLINIC));
+    }
+
+    /**
+     * Constructor method to accept the view and an already configured scheduling core
+     * @param view
+     * @param scheduler - the headless scheduling core
+     */
+    public AppointmentController(MainActivity view, SchedulingService scheduler) {
         this.view = view;
-        this.model = model;
-
-        // initialize the list of holidays
-        holidays = new ArrayList<>();
-        holidays.add("2023-01-01"); // new years day
-        holidays.add("2023-01-02"); // new years day (in lieu)
-        holidays.add("2023-01-16"); // mlk jr day
-        holidays.add("2023-04-09"); // easter sunday
-        holidays.add("2023-05-14"); // mother's day
-        holidays.add("2023-06-18"); // father's day
-        holidays.add("2023-05-29"); // memorial day
-        holidays.add("2023-06-19"); // Juneteenth
-        holidays.add("2023-07-04"); // 4th of july
-        holidays.add("2023-07-04"); // labor day
-        holidays.add("2023-08-09"); // indigenous people's day
-        holidays.add("2023-11-10"); // veterans day
-        holidays.add("2023-11-23"); // thanksgiving
-        holidays.add("2023-11-24"); // day after thanksgiving
-        holidays.add("2023-12-25"); // christmas
+        this.scheduler = scheduler;
+        this.suggester = new SlotSuggester(scheduler.getHolidayCalendar(), scheduler.getBlockOutCalendar());
     }
 
     /**
-     * Method to collect all available times from the DAO/Model
-     * Collects a list of all times and a list of scheduled times,
-     * then subtracts the scheduled times from the available times to
-     * only show back to the user the dates that are available.
+     * Method to collect all available times from the scheduling core:
+     * every slot of the day minus the ones already booked (or queued for booking)
+     * and the ones other booking sessions are holding.
      * @param selectedDate - selected date by the user
+     * @param sessionId - the asking booking session
      * @return a 1d list of non-booked, selectable times
      */
-    public List<String> getAvailableTimes(String selectedDate) {
-        // starts as a list of all times for a date
-        List<String> availableTimes = model.getAllTimesForDate(selectedDate);
+    public List<String> getAvailableTimes(String selectedDate, String sessionId) {
+        AuditLog.recordInBackground(view, APP_USER, AuditLog.Action.VIEW, "availability:" + selectedDate, null);
+        return scheduler.getAvailableTimes(selectedDate, sessionId);
+    }
 
-        // retrieve a list of all booked times for the selected date
-        List<String> bookedTimes = model.getBookedTimesForDate(selectedDate);
+    /**
+     * Fills the duplicate-patient index from every stored appointment,
+     * archives included. Reads the whole history, so call it once per
+     * process off the ui thread; lookups made before it finishes only
+     * see the patients loaded so far.
+     * @param context - any context
+     */
+    public static void loadPatientIndex(Context context) {
+        new AppointmentHistory(context).scanPatients(PATIENTS::add);
+    }
 
-        // remove the booked times from available times
-        availableTimes.removeAll(bookedTimes);
+    /**
+     * Method to find patients already on file under details close to,
+     * but not exactly, the ones given
+     * @param patientName - name of patient
+     * @param patientDOB - date of birth
+     * @param patientAddress - their address
+     * @param patientID - ID number
+     * @return likely matches, most similar first
+     */
+    public List<DuplicatePatientIndex.Match> findPossibleDuplicates(String patientName, String patientDOB,
+                                                                    String patientAddress, String patientID) {
+        return PATIENTS.findMatches(patientName, patientDOB, patientAddress, patientID, MAX_DUPLICATES);
+    }
 
-        return availableTimes;
+    /**
+     * Groups every patient on file with their likely duplicates and stores
+     * each group's pairs for staff to link. Pairs already stored are
+     * skipped, so it can run on every start after
+     * {@link #loadPatientIndex(Context)}, off the ui thread.
+     * @param context - any context
+     * @return the number of groups found
+     */
+    public static int recordDuplicatePatients(Context context) {
+        AppointmentDAO dao = new AppointmentDAO(context);
+        List<List<DuplicatePatientIndex.Patient>> clusters = PATIENTS.findClusters();
+        for (List<DuplicatePatientIndex.Patient> cluster : clusters) {
+            for (int i = 1; i < cluster.size(); i++) {
+                dao.recordPossibleDuplicate(cluster.get(i), cluster.get(0));
+            }
+        }
+        return clusters.size();
+    }
+
+    /**
+     * Method to hold the picked time for the booking session until the
+     * patient submits their details, so nobody else can pick it meanwhile.
+     * @param sessionId - the booking session
+     * @param selectedDate - selected date
+     * @param selectedTime - selected time
+     * @return true if held, false if it was taken in the meantime
+     */
+    public boolean holdTime(String sessionId, String selectedDate, String selectedTime) {
+        return scheduler.hold(sessionId, selectedDate, selectedTime);
+    }
+
+    /**
+     * Method to suggest the times that best fill the clinic's days over the
+     * next month, starting tomorrow. Works from the scheduler's view of each
+     * day, so bookings still queued for writing, other sessions' holds and
+     * block-outs are never suggested. Reads through the booking queue, so
+     * call it off the ui thread.
+     * @param appointmentDescription - reason for visit, used to pick the preferred part of the day
+     * @param sessionId - the asking booking session; its own hold is not counted as taken
+     * @param count - how many suggestions to return
+     * @return the best suggestions first
+     */
+    public List<SlotSuggester.Suggestion> suggestTimes(String appointmentDescription, String sessionId, int count) {
+        LocalDate from = LocalDate.now().plusDays(1);
+        List<DailyCapacity> capacity = scheduler.getCapacity(from, SUGGESTION_DAYS, sessionId);
+        return suggester.suggest(from, SUGGESTION_DAYS, capacity, ProcedureType.fromDescription(appointmentDescription), count);
     }
 
     /**
@@ -86,47 +172,78 @@ public class AppointmentController {
      * @param clinicSource - how did you hear about us?
      * @param selectedDate - appointment date
      * @param selectedTime - appointmentTime
+     * @param sessionId - the booking session holding the slot
      * @return true if successfully added
      */
     public boolean addAppointment(String patientName, String patientDOB, String patientAddress, String patientID,
-                               String appointmentDescription, String clinicSource, String selectedDate, String selectedTime) {
+                               String appointmentDescription, String clinicSource, String selectedDate, String selectedTime,
+                               String sessionId) {
         // initialize an appointment object
         Appointment appointment = new Appointment(patientName, patientDOB, patientAddress, patientID, appointmentDescription, clinicSource, selectedDate, selectedTime);
 
-        if (!isEmpty(appointment)) {
-            // if appointment insertion is successful, display the confirmation message
-            if (model.insertAppointment(appointment) != -1) {
-                String message = "Name: " + appointment.getPatientName() + "\n\n"
-                        + "Date of Birth: " + appointment.getDob() + "\n\n"
-                        + "Address: " + appointment.getAddress() + "\n\n"
-                        + "ID: " + appointment.getIdentificationNumber() + "\n\n"
-                        + "Reason for Visit: " + appointment.getAppointmentDescription() + "\n\n"
-                        + "Source: " + appointment.getClinicSource() + "\n\n"
-                        + "Appointment Date: " + appointment.getAppointmentDate() + "\n\n"
-                        + "Appointment Time: " + appointment.getAppointmentTime();
-
+        BookingResult result = scheduler.book(appointment, sessionId);
+        switch (result.getStatus()) {
+            case BOOKED:
+                AuditLog.recordInBackground(view, APP_USER, AuditLog.Action.BOOK, appointment.getBookingRef(),
+                        appointment.getAppointmentDate() + " " + appointment.getAppointmentTime());
+                // never show whose records matched, only that staff should look
+                List<DuplicatePatientIndex.Match> matches = findPossibleDuplicates(appointment.getPatientName(),
+                        appointment.getDob(), appointment.getAddress(), appointment.getIdentificationNumber());
+                boolean possibleDuplicate = !matches.isEmpty();
+                if (possibleDuplicate) {
+                    recordPossibleDuplicates(appointment, matches);
+                }
+                PATIENTS.add(appointment.getPatientName(), appointment.getDob(), appointment.getAddress(),
+                        appointment.getIdentificationNumber());
                 // Show an alert with appointment details
-                view.showAlert(message);
+                view.showAlert(possibleDuplicate
+                        ? result.getSummary() + "\n\n" + view.getString(R.string.possible_duplicate_note)
+                        : result.getSummary());
                 return true;
+            case SLOT_TAKEN:
+                view.showAlert(view.getString(R.string.slot_taken_alert));
+                return false;
+            case BLOCKED_OUT:
+                view.showAlert(view.getString(R.string.blocked_out_alert));
+                return false;
+            default:
+                view.showAlert(view.getString(R.string.null_error_alert));
+                return false;
+        }
+    }
+
+    /**
+     * Stores the likely duplicates of a new booking so staff can link the
+     * records at check-in, as the alert promises the patient
+     * @param appointment - the booked appointment
+     * @param matches - patients on file it resembles
+     */
+    private void recordPossibleDuplicates(Appointment appointment, List<DuplicatePatientIndex.Match> matches) {
+        AppointmentDAO dao = new AppointmentDAO(view);
+        DUPLICATE_WRITER.execute(() -> {
+            try {
+                for (DuplicatePatientIndex.Match match : matches) {
+                    dao.recordPossibleDuplicate(appointment, match);
+                }
+            } catch (RuntimeException e) {
+                Log.e(TAG, "Possible duplicate of " + appointment.getBookingRef() + " could not be stored", e);
             }
-        } else {
-            view.showAlert(view.getString(R.string.null_error_alert));
-        } return false;
+        });
     }
 
     /**
      * Parent method to the isHoliday method used to efficiently deter a user from
      * selecting a date that is not valid.
      * @param selectedDate - date that is selected
-     * @return - true if valid false if holiday
+     * @return - true if valid false if holiday or blocked out all day
      */
     public boolean isValid(String selectedDate) {
-        if (selectedDate == null || selectedDate == "" || selectedDate.isEmpty()){
+        BookingResult.Status status = scheduler.checkDate(selectedDate);
+        if (status == BookingResult.Status.INVALID_DATE) {
             view.showAlert(view.getString(R.string.unknown_error));
             return false;
-        } else {
-            return !isHoliday(selectedDate);
         }
+        return status != BookingResult.Status.HOLIDAY && status != BookingResult.Status.BLOCKED_OUT;
     }
 
     /**
@@ -135,8 +252,7 @@ public class AppointmentController {
      * @return - true if not in holiday
      */
     public boolean isHoliday(String selectedDate) {
-        // compare to holidays
-        return holidays.contains(selectedDate);
+        return scheduler.isHoliday(selectedDate);
     }
 
     /**
@@ -146,22 +262,6 @@ public class AppointmentController {
      * @return true if non empty/null
      */
     public boolean isEmpty(Appointment appointment) {
-        return isNullOrEmpty(appointment.getPatientName()) ||
-                isNullOrEmpty(appointment.getDob()) ||
-                isNullOrEmpty(appointment.getAddress()) ||
-                isNullOrEmpty(appointment.getIdentificationNumber()) ||
-                isNullOrEmpty(appointment.getAppointmentDescription()) ||
-                isNullOrEmpty(appointment.getClinicSource()) ||
-                isNullOrEmpty(appointment.getAppointmentDate()) ||
-                isNullOrEmpty(appointment.getAppointmentTime());
-    }
-
-    /**
-     * Method takes in a value passed from isEmpty then returns checks if empty
-     * @param value - string passed from isEmpty
-     * @return - true if non-empty for each value
-     */
-    private boolean isNullOrEmpty(String value) {
-        return value == null || value.trim().isEmpty();
+        return SchedulingService.hasMissingFields(appointment);
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,128 @@
+/**
+ * Controller for the marketing reports: appointments broken down by
+ * referral source, month and reason for visit.
+ * The requested date range is split into month partitions which are
+ * aggregated in parallel on a fork/join pool; each partition streams its
+ * rows from the database in a single pass and the partial reports are
+ * merged on the way back up.
+ * @date 10.19.2026
+ */
+package com.example.wiredorthodontics.controller;
+
+import android.content.Context;
+
+import com.example.wiredorthodontics.model.AppointmentHistory;
+import com.example.wiredorthodontics.model.ReferralReport;
+import com.example.wiredorthodontics.model.ReportRowSource;
+import com.example.wiredorthodontics.model.TextDictionary;
+
+import java.time.YearMonth;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+public class ReportController {
+
+    // a leaf task reads at most this many months of appointments
+    private static final int MONTHS_PER_PARTITION = 3;
+
+    private final ReportRowSource rows;
+    private final ForkJoinPool pool;
+
+    /**
+     * Constructor reporting over the default database, archived years included
+     * @param context - any context
+     */
+    public ReportController(Context context) {
+        this(new AppointmentHistory(context));
+    }
+
+    /**
+     * Constructor using the common fork/join pool
+     * @param rows - where appointment rows are streamed from
+     */
+    public ReportController(ReportRowSource rows) {
+        this(rows, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Constructor with an explicit pool
+     * @param rows - where appointment rows are streamed from
+     * @param pool - pool the partitions run on
+     */
+    public ReportController(ReportRowSource rows, ForkJoinPool pool) {
+        this.rows = rows;
+        this.pool = pool;
+    }
+
+    /**
+     * Builds the referral/visit-reason report for a date range.
+     * Blocks until done, so call it off the ui thread.
+     * @param fromDate - first date (inclusive) as yyyy-MM-dd
+     * @param toDate - last date (inclusive) as yyyy-MM-dd
+     * @return the aggregated report
+     */
+    public ReferralReport buildReport(String fromDate, String toDate) {
+        YearMonth first = YearMonth.parse(fromDate.substring(0, 7));
+        YearMonth last = YearMonth.parse(toDate.substring(0, 7));
+        TextDictionary sources = new TextDictionary();
+        TextDictionary reasons = new TextDictionary();
+
+        if (last.isBefore(first)) {
+            return new ReferralReport(sources, reasons);
+        }
+        return pool.invoke(new PartitionTask(fromDate, toDate, first, last, sources, reasons));
+    }
+
+    /**
+     * Aggregates a run of whole months, splitting in half until the run is
+     * small enough to scan directly.
+     */
+    private class PartitionTask extends RecursiveTask<ReferralReport> {
+        private static final long serialVersionUID = 1L;
+
+        private final String fromDate, toDate;
+        private final YearMonth first, last;
+        private final TextDictionary sources, reasons;
+
+        PartitionTask(String fromDate, String toDate, YearMonth first, YearMonth last,
+                      TextDictionary sources, TextDictionary reasons) {
+            this.fromDate = fromDate;
+            this.toDate = toDate;
+            this.first = first;
+            this.last = last;
+            this.sources = sources;
+            this.reasons = reasons;
+        }
+
+        @Override
+        protected ReferralReport compute() {
+            long months = last.getYear() * 12L + last.getMonthValue() - (first.getYear() * 12L + first.getMonthValue()) + 1;
+
+            if (months <= MONTHS_PER_PARTITION) {
+                // clamp the partition to the requested range at either end
+                String start = max(fromDate, first.atDay(1).toString());
+                String end = min(toDate, last.atEndOfMonth().toString());
+
+                ReferralReport report = new ReferralReport(sources, reasons);
+                rows.scanReportRows(start, end, report::add);
+                return report;
+            }
+
+            YearMonth leftLast = first.plusMonths(months / 2 - 1);
+            PartitionTask left = new PartitionTask(fromDate, toDate, first, leftLast, sources, reasons);
+            PartitionTask right = new PartitionTask(fromDate, toDate, leftLast.plusMonths(1), last, sources, reasons);
+            left.fork();
+            ReferralReport report = right.compute();
+            report.merge(left.join());
+            return report;
+        }
+    }
+
+    private static String max(String a, String b) {
+        return a.compareTo(b) >= 0 ? a : b;
+    }
+
+    private static String min(String a, String b) {
+        return a.compareTo(b) <= 0 ? a : b;
+    }
+}
@@ -0,0 +1,28 @@
+/**
+ * Storage used by the scheduling core. Implementations may persist
+ * synchronously (a plain DAO) or write-behind (the booking queue), but
+ * a saved appointment must be visible to {@link #getBookedTimesForDate}
+ * as soon as {@link #save} returns.
+ * @date 10.19.2026
+ */
+package com.example.wiredorthodontics.core;
+
+import com.example.wiredorthodontics.model.Appointment;
+
+import java.util.List;
+
+public interface AppointmentStore {
+
+    /**
+     * Times already taken on a date.
+     * @param date - the date as yyyy-MM-dd
+     * @return the booked slot display strings
+     */
+    List<String> getBookedTimesForDate(String date);
+
+    /**
+     * Persists a new appointment.
+     * @param appointment - a validated appointment for a free slot
+     */
+    void save(Appointment appointment);
+}
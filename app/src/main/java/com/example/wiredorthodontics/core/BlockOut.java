@@ -0,0 +1,107 @@
+/**
+ * A stretch of clinic time that cannot be booked even though it is not a
+ * holiday: a staff meeting, a half-day closure, a doctor's vacation or a
+ * chair maintenance window. Times are the clinic's wall clock.
+ * @date 10.19.2026
+ */
+package com.example.wiredorthodontics.core;
+
+import java.time.LocalDateTime;
+
+public final class BlockOut {
+
+    /**
+     * Why the time is blocked.
+     */
+    public enum Kind {
+        STAFF_MEETING,
+        CLOSURE,
+        VACATION,
+        MAINTENANCE
+    }
+
+    private static final int MINUTES_PER_DAY = 24 * 60;
+
+    private final long id;
+    private final Kind kind;
+    private final LocalDateTime start;
+    private final LocalDateTime end;
+    private final String reason;
+
+    /**
+     * Constructor for a block-out
+     * @param id - storage id, or 0 if not stored
+     * @param kind - why the time is blocked
+     * @param start - first blocked minute
+     * @param end - first minute after the block-out; must be after start
+     * @param reason - free-text note for staff, may be null
+     */
+    public BlockOut(long id, Kind kind, LocalDateTime start, LocalDateTime end, String reason) {
+        if (kind == null || start == null || end == null) {
+            throw new IllegalArgumentException("Block-out needs a kind, a start and an end");
+        }
+        if (!end.isAfter(start)) {
+            throw new IllegalArgumentException("Block-out must end after it starts");
+        }
+        this.id = id;
+        this.kind = kind;
+        this.start = start;
+        this.end = end;
+        this.reason = reason;
+    }
+
+    /**
+     * Storage id
+     * @return the id, 0 if not stored
+     */
+    public long getId() {
+        return id;
+    }
+
+    /**
+     * Why the time is blocked
+     * @return the kind
+     */
+    public Kind getKind() {
+        return kind;
+    }
+
+    /**
+     * First blocked minute
+     * @return the start
+     */
+    public LocalDateTime getStart() {
+        return start;
+    }
+
+    /**
+     * First minute after the block-out
+     * @return the end
+     */
+    public LocalDateTime getEnd() {
+        return end;
+    }
+
+    /**
+     * Note for staff
+     * @return the reason, may be null
+     */
+    public String getReason() {
+        return reason;
+    }
+
+    long startMinute() {
+        return minuteOf(start);
+    }
+
+    long endMinute() {
+        return minuteOf(end);
+    }
+
+    /**
+     * Minutes since 1970-01-01T00:00 on the clinic's wall clock
+     */
+    static long minuteOf(LocalDateTime time) {
+        return time.toLocalDate().toEpochDay() * MINUTES_PER_DAY + time.getHour() * 60 + time.getMinute();
+    }
+}
@@ -0,0 +1,154 @@
+/**
+ * The clinic's current block-outs, indexed by time for availability.
+ * Readers use an immutable interval tree without taking a lock; every
+ * change builds a new tree and publishes it, which suits a set that is
+ * read on each availability check and edited a few times a month.
+ * Looking up one day's blocked slots visits only the block-outs that
+ * overlap that day.
+ * @date 10.19.2026
+ */
+package com.example.wiredorthodontics.core;
+
+import com.example.wiredorthodontics.model.TimeSlots;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+public class BlockOutCalendar {
+
+    private static final int MINUTES_PER_DAY = 24 * 60;
+
+    // start minute of each slot within the day
+    private static final int[] SLOT_STARTS = new int[TimeSlots.count()];
+
+    static {
+        for (int i = 0; i < SLOT_STARTS.length; i++) {
+            LocalTime start = TimeSlots.startOf(TimeSlots.get(i));
+            SLOT_STARTS[i] = start.getHour() * 60 + start.getMinute();
+        }
+    }
+
+    private final Object writeLock = new Object();
+    private volatile List<BlockOut> blockOuts = Collections.emptyList();
+    private volatile IntervalTree<BlockOut> tree = index(blockOuts);
+
+    /**
+     * Constructor for a calendar without block-outs
+     */
+    public BlockOutCalendar() {
+    }
+
+    /**
+     * Constructor for a calendar with the given block-outs
+     * @param blockOuts - the block-outs
+     */
+    public BlockOutCalendar(Collection<BlockOut> blockOuts) {
+        replaceAll(blockOuts);
+    }
+
+    /**
+     * Replaces every block-out, e.g. after reloading them from storage
+     * @param blockOuts - the new block-outs
+     */
+    public void replaceAll(Collection<BlockOut> blockOuts) {
+        synchronized (writeLock) {
+            publish(new ArrayList<>(blockOuts));
+        }
+    }
+
+    /**
+     * Adds a block-out
+     * @param blockOut - the block-out
+     */
+    public void add(BlockOut blockOut) {
+        synchronized (writeLock) {
+            List<BlockOut> next = new ArrayList<>(blockOuts);
+            next.add(blockOut);
+            publish(next);
+        }
+    }
+
+    /**
+     * Removes a block-out by its storage id
+     * @param id - the block-out's id
+     * @return true if it was present
+     */
+    public boolean remove(long id) {
+        synchronized (writeLock) {
+            List<BlockOut> next = new ArrayList<>(blockOuts);
+            boolean removed = false;
+            for (int i = next.size() - 1; i >= 0; i--) {
+                if (next.get(i).getId() == id) {
+                    next.remove(i);
+                    removed = true;
+                }
+            }
+            if (removed) {
+                publish(next);
+            }
+            return removed;
+        }
+    }
+
+    /**
+     * Every block-out, in no particular order
+     * @return an unmodifiable list
+     */
+    public List<BlockOut> getAll() {
+        return blockOuts;
+    }
+
+    /**
+     * Block-outs that touch a day
+     * @param date - the day
+     * @return the block-outs overlapping it, earliest start first
+     */
+    public List<BlockOut> on(LocalDate date) {
+        long dayStart = date.toEpochDay() * MINUTES_PER_DAY;
+        return tree.overlapping(dayStart, dayStart + MINUTES_PER_DAY);
+    }
+
+    /**
+     * Slots of a day that overlap a block-out, even by a minute
+     * @param date - the day
+     * @return bitmask with bit i set when slot i is blocked, like the occupancy masks
+     */
+    public int blockedSlotMask(LocalDate date) {
+        long dayStart = date.toEpochDay() * MINUTES_PER_DAY;
+        int[] mask = new int[1];
+        tree.query(dayStart, dayStart + MINUTES_PER_DAY, blockOut -> {
+            long from = blockOut.startMinute() - dayStart;
+            long to = blockOut.endMinute() - dayStart;
+            for (int slot = 0; slot < SLOT_STARTS.length; slot++) {
+                if (from < SLOT_STARTS[slot] + TimeSlots.SLOT_MINUTES && to > SLOT_STARTS[slot]) {
+                    mask[0] |= 1 << slot;
+                }
+            }
+        });
+        return mask[0];
+    }
+
+    /**
+     * Whether every slot of a day is blocked
+     * @param date - the day
+     * @return true if nothing can be booked that day
+     */
+    public boolean isClosed(LocalDate date) {
+        int all = (1 << SLOT_STARTS.length) - 1;
+        return blockedSlotMask(date) == all;
+    }
+
+    private void publish(List<BlockOut> next) {
+        IntervalTree<BlockOut> nextTree = index(next);
+        blockOuts = Collections.unmodifiableList(next);
+        tree = nextTree;
+    }
+
+    private static IntervalTree<BlockOut> index(List<BlockOut> blockOuts) {
+        return new IntervalTree<>(blockOuts, BlockOut::startMinute, BlockOut::endMinute);
+    }
+}
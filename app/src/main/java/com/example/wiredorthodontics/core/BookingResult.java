@@ -0,0 +1,76 @@
+/**
+ * Outcome of a booking attempt, returned as a value so callers decide
+ * how to present it (a dialog in the app, an assertion in a test).
+ * @date 10.19.2026
+ */
+package com.example.wiredorthodontics.core;
+
+import com.example.wiredorthodontics.model.Appointment;
+
+public class BookingResult {
+
+    /**
+     * Why a booking did or did not go through.
+     */
+    public enum Status {
+        BOOKED,
+        MISSING_FIELDS,
+        INVALID_DATE,
+        HOLIDAY,
+        UNKNOWN_TIME,
+        SLOT_TAKEN,
+        BLOCKED_OUT
+    }
+
+    private final Status status;
+    private final Appointment appointment;
+
+    /**
+     * Constructor for a result
+     * @param status - the outcome
+     * @param appointment - the appointment that was attempted
+     */
+    public BookingResult(Status status, Appointment appointment) {
+        this.status = status;
+        this.appointment = appointment;
+    }
+
+    /**
+     * The outcome
+     * @return the status
+     */
+    public Status getStatus() {
+        return status;
+    }
+
+    /**
+     * Whether the appointment was booked
+     * @return true if status is BOOKED
+     */
+    public boolean isBooked() {
+        return status == Status.BOOKED;
+    }
+
+    /**
+     * The appointment that was attempted
+     * @return the appointment
+     */
+    public Appointment getAppointment() {
+        return appointment;
+    }
+
+    /**
+     * Human readable summary of the appointment details
+     * @return multi-line confirmation text
+     */
+    public String getSummary() {
+        return "Name: " + appointment.getPatientName() + "\n\n"
+                + "Date of Birth: " + appointment.getDob() + "\n\n"
+                + "Address: " + appointment.getAddress() + "\n\n"
+                + "ID: " + appointment.getIdentificationNumber() + "\n\n"
+                + "Reason for Visit: " + appointment.getAppointmentDescription() + "\n\n"
+                + "Source: " + appointment.getClinicSource() + "\n\n"
+                + "Appointment Date: " + appointment.getAppointmentDate() + "\n\n"
+                + "Appointment Time: " + appointment.getAppointmentTime();
+    }
+}
@@ -0,0 +1,556 @@
+/**
+ * Finds patients who registered more than once under slightly different
+ * spellings, without comparing every patient with every other.
+ * The normalized name and address of each distinct identity are broken
+ * into character trigrams and summarized by MinHash signatures, whose
+ * agreement estimates the Jaccard similarity of two names or addresses.
+ * Locality-sensitive hashing files each signature under one key per band
+ * of rows, so identities whose names or addresses are alike land in a
+ * shared bucket with high probability and others rarely do. Only
+ * identities sharing a bucket are compared, which keeps a lookup to a
+ * few hash probes however many patients are indexed.
+ * A candidate is a duplicate when its weighted score reaches the
+ * threshold: name and address similarity plus exact birth date and ID
+ * number. No single field decides, so two people with the same common
+ * name on the same street are kept apart, while a returning patient who
+ * misspelled their name, moved, or showed a different kind of ID is
+ * still found.
+ * Repeat visits under the exact same details are one identity, so the
+ * index grows with patients, not appointments. Safe to share between threads.
+ * @date 10.19.2026
+ */
+package com.example.wiredorthodontics.core;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+public class DuplicatePatientIndex {
+
+    // 10 bands of 3 rows per field: a field 65% alike shares a bucket 96% of the time, one 30% alike 24%
+    private static final int BANDS = 10;
+    private static final int ROWS = 3;
+    private static final int FIELD_HASHES = BANDS * ROWS;
+    private static final int NAME = 0;
+    private static final int ADDRESS = FIELD_HASHES;
+    private static final int HASHES = 2 * FIELD_HASHES;
+    private static final int GRAM = 3;
+
+    // how much each field counts towards a match
+    private static final double NAME_WEIGHT = 0.35;
+    private static final double ADDRESS_WEIGHT = 0.25;
+    private static final double DOB_WEIGHT = 0.2;
+    private static final double ID_WEIGHT = 0.2;
+
+    /**
+     * Score at or above which two identities are reported as duplicates
+     */
+    public static final double DEFAULT_THRESHOLD = 0.6;
+
+    private static final long[] SEEDS = new long[FIELD_HASHES];
+    private static final Map<String, String> ADDRESS_WORDS = new HashMap<>();
+
+    static {
+        for (int i = 0; i < FIELD_HASHES; i++) {
+            SEEDS[i] = mix(0x9E3779B97F4A7C15L * (i + 1));
+        }
+        String[][] words = {
+                {"street", "st"}, {"avenue", "ave"}, {"road", "rd"}, {"drive", "dr"}, {"boulevard", "blvd"},
+                {"lane", "ln"}, {"court", "ct"}, {"place", "pl"}, {"apartment", "apt"}, {"suite", "ste"},
+                {"north", "n"}, {"south", "s"}, {"east", "e"}, {"west", "w"}
+        };
+        for (String[] word : words) {
+            ADDRESS_WORDS.put(word[0], word[1]);
+        }
+    }
+
+    /**
+     * One distinct spelling of a patient's details.
+     */
+    public static final class Patient {
+        private final String name;
+        private final String dob;
+        private final String address;
+        private final String idNumber;
+
+        Patient(String name, String dob, String address, String idNumber) {
+            this.name = name;
+            this.dob = dob;
+            this.address = address;
+            this.idNumber = idNumber;
+        }
+
+        /**
+         * Name as first registered
+         * @return the name
+         */
+        public String getName() {
+            return name;
+        }
+
+        /**
+         * Date of birth as first registered
+         * @return the date of birth
+         */
+        public String getDob() {
+            return dob;
+        }
+
+        /**
+         * Address as first registered
+         * @return the address
+         */
+        public String getAddress() {
+            return address;
+        }
+
+        /**
+         * ID number as first registered
+         * @return the ID number
+         */
+        public String getIdNumber() {
+            return idNumber;
+        }
+    }
+
+    /**
+     * A likely duplicate and how alike the two identities are.
+     */
+    public static final class Match {
+        private final Patient patient;
+        private final double similarity;
+
+        Match(Patient patient, double similarity) {
+            this.patient = patient;
+            this.similarity = similarity;
+        }
+
+        /**
+         * The indexed identity that matched
+         * @return the patient
+         */
+        public Patient getPatient() {
+            return patient;
+        }
+
+        /**
+         * Weighted similarity of the two identities
+         * @return a value between the threshold and 1
+         */
+        public double getSimilarity() {
+            return similarity;
+        }
+    }
+
+    /**
+     * Members of one LSH bucket, kept as a growable int array.
+     */
+    private static final class Bucket {
+        int[] members = new int[2];
+        int size;
+
+        void add(int member) {
+            if (size == members.length) {
+                members = Arrays.copyOf(members, size * 2);
+            }
+            members[size++] = member;
+        }
+    }
+
+    private final double threshold;
+    private final Map<String, Integer> identities = new HashMap<>();
+    private final List<Patient> patients = new ArrayList<>();
+    private final Map<Long, Bucket> buckets = new HashMap<>();
+    // per identity: name and address signatures, and hashes of the birth date and ID (0 if missing)
+    private int[] signatures = new int[HASHES * 64];
+    private long[] dobs = new long[64];
+    private long[] ids = new long[64];
+    private int[] seen = new int[64];
+    private int queryStamp;
+
+    /**
+     * Constructor for an empty index reporting matches at the default threshold
+     */
+    public DuplicatePatientIndex() {
+        this(DEFAULT_THRESHOLD);
+    }
+
+    /**
+     * Constructor for an empty index
+     * @param threshold - score, between 0 and 1, at or above which identities match
+     */
+    public DuplicatePatientIndex(double threshold) {
+        if (threshold <= 0 || threshold > 1) {
+            throw new IllegalArgumentException("Threshold must be in (0, 1]");
+        }
+        this.threshold = threshold;
+    }
+
+    /**
+     * Adds a patient's details. Details already indexed under the exact
+     * same normalized spelling are ignored.
+     * @param name - patient name
+     * @param dob - date of birth
+     * @param address - address
+     * @param idNumber - identification number
+     * @return true if this was a new identity
+     */
+    public synchronized boolean add(String name, String dob, String address, String idNumber) {
+        String key = identityKey(name, dob, address, idNumber);
+        if (key.isEmpty() || identities.containsKey(key)) {
+            return false;
+        }
+        int member = patients.size();
+        if (dobs.length == member) {
+            signatures = Arrays.copyOf(signatures, signatures.length * 2);
+            dobs = Arrays.copyOf(dobs, member * 2);
+            ids = Arrays.copyOf(ids, member * 2);
+        }
+        signature(name, address, signatures, member * HASHES);
+        dobs[member] = dobKey(dob);
+        ids[member] = idKey(idNumber);
+        for (int band = 0; band < 2 * BANDS; band++) {
+            if (isEmptyBand(signatures, member * HASHES, band)) {
+                continue;
+            }
+            long bandKey = bandKey(signatures, member * HASHES, band);
+            Bucket bucket = buckets.get(bandKey);
+            if (bucket == null) {
+                bucket = new Bucket();
+                buckets.put(bandKey, bucket);
+            }
+            bucket.add(member);
+        }
+        identities.put(key, member);
+        patients.add(new Patient(name, dob, address, idNumber));
+        return true;
+    }
+
+    /**
+     * Indexed identities that are probably the same person spelled
+     * differently. The exact same details are not reported.
+     * @param name - patient name
+     * @param dob - date of birth
+     * @param address - address
+     * @param idNumber - identification number
+     * @param limit - most matches to return
+     * @return matches, most similar first
+     */
+    public synchronized List<Match> findMatches(String name, String dob, String address, String idNumber, int limit) {
+        String key = identityKey(name, dob, address, idNumber);
+        if (key.isEmpty() || patients.isEmpty()) {
+            return Collections.emptyList();
+        }
+        Integer self = identities.get(key);
+        int[] probe = new int[HASHES];
+        signature(name, address, probe, 0);
+        long dobKey = dobKey(dob);
+        long idKey = idKey(idNumber);
+
+        List<Match> matches = new ArrayList<>();
+        int stamp = nextStamp();
+        for (int band = 0; band < 2 * BANDS; band++) {
+            Bucket bucket = isEmptyBand(probe, 0, band) ? null : buckets.get(bandKey(probe, 0, band));
+            if (bucket == null) {
+                continue;
+            }
+            for (int i = 0; i < bucket.size; i++) {
+                int member = bucket.members[i];
+                if (seen[member] == stamp || (self != null && member == self)) {
+                    continue;
+                }
+                seen[member] = stamp;
+                double score = score(probe, 0, dobKey, idKey, member);
+                if (score >= threshold) {
+                    matches.add(new Match(patients.get(member), score));
+                }
+            }
+        }
+        Collections.sort(matches, (a, b) -> Double.compare(b.similarity, a.similarity));
+        return matches.size() > limit ? new ArrayList<>(matches.subList(0, limit)) : matches;
+    }
+
+    /**
+     * Groups every indexed identity with its likely duplicates. Only pairs
+     * sharing a bucket are compared, and pairs already known to be in the
+     * same group are skipped, so this is close to linear in the number of
+     * patients. Grouping is transitive: A and C end up together when both
+     * match B. The buckets are copied under the lock and compared outside
+     * it, so lookups and additions are not held up by a long pass.
+     * @return groups of two or more identities, largest first
+     */
+    public List<List<Patient>> findClusters() {
+        int count;
+        List<Patient> indexed;
+        List<int[]> members;
+        int[] signatures;
+        long[] dobs;
+        long[] ids;
+        synchronized (this) {
+            count = patients.size();
+            indexed = new ArrayList<>(patients);
+            members = new ArrayList<>(buckets.size());
+            for (Bucket bucket : buckets.values()) {
+                if (bucket.size > 1) {
+                    members.add(Arrays.copyOf(bucket.members, bucket.size));
+                }
+            }
+            // entries below count are never rewritten, and growth replaces the arrays
+            signatures = this.signatures;
+            dobs = this.dobs;
+            ids = this.ids;
+        }
+
+        int[] parent = new int[count];
+        for (int i = 0; i < count; i++) {
+            parent[i] = i;
+        }
+        for (int[] bucket : members) {
+            for (int i = 0; i < bucket.length; i++) {
+                int first = bucket[i];
+                for (int j = i + 1; j < bucket.length; j++) {
+                    int second = bucket[j];
+                    int a = find(parent, first);
+                    int b = find(parent, second);
+                    if (a != b && score(signatures, dobs, ids, signatures, first * HASHES, dobs[first], ids[first],
+                            second) >= threshold) {
+                        parent[Math.max(a, b)] = Math.min(a, b);
+                    }
+                }
+            }
+        }
+
+        Map<Integer, List<Patient>> groups = new HashMap<>();
+        for (int i = 0; i < count; i++) {
+            int root = find(parent, i);
+            List<Patient> group = groups.get(root);
+            if (group == null) {
+                group = new ArrayList<>(2);
+                groups.put(root, group);
+            }
+            group.add(indexed.get(i));
+        }
+        List<List<Patient>> clusters = new ArrayList<>();
+        for (List<Patient> group : groups.values()) {
+            if (group.size() > 1) {
+                clusters.add(group);
+            }
+        }
+        Collections.sort(clusters, (a, b) -> Integer.compare(b.size(), a.size()));
+        return clusters;
+    }
+
+    /**
+     * Number of distinct identities indexed
+     * @return the count
+     */
+    public synchronized int size() {
+        return patients.size();
+    }
+
+    private int nextStamp() {
+        if (seen.length < patients.size()) {
+            seen = Arrays.copyOf(seen, Math.max(patients.size(), seen.length * 2));
+        }
+        if (++queryStamp == 0) {
+            Arrays.fill(seen, 0); // wrapped around; old stamps could collide
+            queryStamp = 1;
+        }
+        return queryStamp;
+    }
+
+    private static int find(int[] parent, int member) {
+        while (parent[member] != member) {
+            parent[member] = parent[parent[member]]; // path halving
+            member = parent[member];
+        }
+        return member;
+    }
+
+    /**
+     * Weighted similarity of an identity given by its signature and keys
+     * to an indexed one. A field missing on either side adds nothing.
+     */
+    private double score(int[] signature, int offset, long dobKey, long idKey, int member) {
+        return score(signatures, dobs, ids, signature, offset, dobKey, idKey, member);
+    }
+
+    private static double score(int[] signatures, long[] dobs, long[] ids,
+                                int[] signature, int offset, long dobKey, long idKey, int member) {
+        int other = member * HASHES;
+        double score = NAME_WEIGHT * agreement(signature, offset + NAME, signatures, other + NAME)
+                + ADDRESS_WEIGHT * agreement(signature, offset + ADDRESS, signatures, other + ADDRESS);
+        if (dobKey != 0 && dobKey == dobs[member]) {
+            score += DOB_WEIGHT;
+        }
+        if (idKey != 0 && idKey == ids[member]) {
+            score += ID_WEIGHT;
+        }
+        return score;
+    }
+
+    /**
+     * Share of equal MinHash values, the estimate of the Jaccard
+     * similarity of two trigram sets. Two empty fields do not agree.
+     */
+    private static double agreement(int[] a, int aOffset, int[] b, int bOffset) {
+        if (a[aOffset] == Integer.MAX_VALUE || b[bOffset] == Integer.MAX_VALUE) {
+            return 0;
+        }
+        int equal = 0;
+        for (int i = 0; i < FIELD_HASHES; i++) {
+            if (a[aOffset + i] == b[bOffset + i]) {
+                equal++;
+            }
+        }
+        return (double) equal / FIELD_HASHES;
+    }
+
+    /**
+     * Whether a band belongs to a field that was empty. Every empty field
+     * would share one bucket, so such bands are never filed or probed.
+     */
+    private static boolean isEmptyBand(int[] signature, int offset, int band) {
+        return signature[offset + (band < BANDS ? NAME : ADDRESS)] == Integer.MAX_VALUE;
+    }
+
+    /**
+     * Bucket key of one band; bands 0 to BANDS - 1 cover the name, the
+     * rest the address.
+     */
+    private static long bandKey(int[] signature, int offset, int band) {
+        long key = band;
+        for (int row = 0; row < ROWS; row++) {
+            key = mix(key * 31 + signature[offset + band * ROWS + row]);
+        }
+        return key;
+    }
+
+    /**
+     * Writes the name and address MinHash signatures into
+     * out[offset .. offset + HASHES).
+     */
+    private static void signature(String name, String address, int[] out, int offset) {
+        Arrays.fill(out, offset, offset + HASHES, Integer.MAX_VALUE);
+        addGrams(out, offset + NAME, normalize(name));
+        addGrams(out, offset + ADDRESS, normalizeAddress(address));
+    }
+
+    private static void addGrams(int[] out, int offset, String text) {
+        if (text.isEmpty()) {
+            return;
+        }
+        // padded so the first and last letters get trigrams of their own
+        String padded = " " + text + " ";
+        for (int i = 0; i + GRAM <= padded.length(); i++) {
+            long gram = 0;
+            for (int j = i; j < i + GRAM; j++) {
+                gram = gram * 0x100000001B3L + padded.charAt(j);
+            }
+            for (int k = 0; k < FIELD_HASHES; k++) {
+                int value = (int) mix(gram ^ SEEDS[k]);
+                if (value < out[offset + k]) {
+                    out[offset + k] = value;
+                }
+            }
+        }
+    }
+
+    private static long dobKey(String dob) {
+        return valueKey(digits(dob));
+    }
+
+    private static long idKey(String idNumber) {
+        return valueKey(normalize(idNumber).replace(" ", ""));
+    }
+
+    private static long valueKey(String value) {
+        if (value.isEmpty()) {
+            return 0;
+        }
+        long hash = 0xCBF29CE484222325L;
+        for (int i = 0; i < value.length(); i++) {
+            hash = (hash ^ value.charAt(i)) * 0x100000001B3L;
+        }
+        return hash == 0 ? 1 : hash;
+    }
+
+    // the 64-bit finalizer from MurmurHash3
+    private static long mix(long h) {
+        h ^= h >>> 33;
+        h *= 0xFF51AFD7ED558CCDL;
+        h ^= h >>> 33;
+        h *= 0xC4CEB9FE1A85EC53L;
+        h ^= h >>> 33;
+        return h;
+    }
+
+    private static String identityKey(String name, String dob, String address, String idNumber) {
+        String key = normalize(name) + '|' + digits(dob) + '|' + normalizeAddress(address) + '|'
+                + normalize(idNumber).replace(" ", "");
+        return key.length() == 3 ? "" : key; // nothing but the separators
+    }
+
+    /**
+     * Lower-cases and keeps letters and digits, with a single space
+     * wherever anything else was.
+     */
+    static String normalize(String value) {
+        if (value == null) {
+            return "";
+        }
+        StringBuilder out = new StringBuilder(value.length());
+        boolean gap = false;
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (Character.isLetterOrDigit(c)) {
+                if (gap && out.length() > 0) {
+                    out.append(' ');
+                }
+                gap = false;
+                out.append(c);
+            } else {
+                gap = true;
+            }
+        }
+        return out.toString().toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Normalizes an address and abbreviates common street words, so
+     * "12 Oak Street" and "12 oak st." look alike.
+     */
+    static String normalizeAddress(String address) {
+        String text = normalize(address);
+        if (text.isEmpty()) {
+            return text;
+        }
+        StringBuilder out = new StringBuilder(text.length());
+        for (String word : text.split(" ")) {
+            String shortWord = ADDRESS_WORDS.get(word);
+            if (out.length() > 0) {
+                out.append(' ');
+            }
+            out.append(shortWord != null ? shortWord : word);
+        }
+        return out.toString();
+    }
+
+    private static String digits(String value) {
+        if (value == null) {
+            return "";
+        }
+        StringBuilder out = new StringBuilder(8);
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c >= '0' && c <= '9') {
+                out.append(c);
+            }
+        }
+        return out.toString();
+    }
+}
@@ -0,0 +1,67 @@
+/**
+ * Dates on which the clinic is closed.
+ * The list of holidays was acquired via this .gov list of holidays:
+ * https://www.employmentlawhandbook.com/employment-and-labor-laws/states/new-mexico/leave-laws/holidays/
+ * @date 10.19.2026
+ */
+package com.example.wiredorthodontics.core;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+
+public class HolidayCalendar {
+
+    private final Set<String> holidays;
+
+    /**
+     * Constructor for a calendar with the given closed dates
+     * @param holidays - dates as yyyy-MM-dd
+     */
+    public HolidayCalendar(Collection<String> holidays) {
+        this.holidays = Collections.unmodifiableSet(new HashSet<>(holidays));
+    }
+
+    /**
+     * The 2023 New Mexico holiday calendar the clinic observes
+     * @return the default calendar
+     */
+    public static HolidayCalendar newMexico2023() {
+        return new HolidayCalendar(Arrays.asList(
+                "2023-01-01", // new years day
+                "2023-01-02", // new years day (in lieu)
+                "2023-01-16", // mlk jr day
+                "2023-04-09", // easter sunday
+                "2023-05-14", // mother's day
+                "2023-06-18", // father's day
+                "2023-05-29", // memorial day
+                "2023-06-19", // Juneteenth
+                "2023-07-04", // 4th of july
+                "2023-07-04", // labor day
+                "2023-08-09", // indigenous people's day
+                "2023-11-10", // veterans day
+                "2023-11-23", // thanksgiving
+                "2023-11-24", // day after thanksgiving
+                "2023-12-25"  // christmas
+        ));
+    }
+
+    /**
+     * Compares a date to the holiday dates
+     * @param date - date as yyyy-MM-dd
+     * @return true if the clinic is closed that day
+     */
+    public boolean isHoliday(String date) {
+        return holidays.contains(date);
+    }
+
+    /**
+     * All closed dates
+     * @return an unmodifiable view of the holiday dates
+     */
+    public Set<String> getHolidays() {
+        return holidays;
+    }
+}
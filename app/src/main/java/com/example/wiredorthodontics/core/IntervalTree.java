@@ -0,0 +1,114 @@
+/**
+ * Immutable interval tree over half-open ranges [start, end) of longs.
+ * Intervals are sorted by start and laid out as an implicit balanced
+ * binary tree over the sorted array: the middle element of a range is its
+ * root and each node also stores the largest end in its subtree. A query
+ * skips every subtree that ends before the range or starts after it, so
+ * finding the k intervals that overlap a range costs O(log n + k).
+ * Being immutable it is read without locks; writers build a new tree.
+ * @date 10.19.2026
+ */
+package com.example.wiredorthodontics.core;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.function.ToLongFunction;
+
+public final class IntervalTree<T> {
+
+    private final long[] starts;
+    private final long[] ends;
+    private final long[] maxEnds;
+    private final Object[] values;
+
+    /**
+     * Builds a tree in O(n log n)
+     * @param items - the values to index
+     * @param start - first point covered by a value
+     * @param end - first point after a value; values with end at or before start cover nothing and are left out
+     */
+    public IntervalTree(Collection<? extends T> items, ToLongFunction<? super T> start, ToLongFunction<? super T> end) {
+        List<T> sorted = new ArrayList<>(items.size());
+        for (T item : items) {
+            if (end.applyAsLong(item) > start.applyAsLong(item)) {
+                sorted.add(item);
+            }
+        }
+        sorted.sort((a, b) -> Long.compare(start.applyAsLong(a), start.applyAsLong(b)));
+
+        int size = sorted.size();
+        starts = new long[size];
+        ends = new long[size];
+        maxEnds = new long[size];
+        values = new Object[size];
+        for (int i = 0; i < size; i++) {
+            T item = sorted.get(i);
+            starts[i] = start.applyAsLong(item);
+            ends[i] = end.applyAsLong(item);
+            values[i] = item;
+        }
+        computeMaxEnds(0, size);
+    }
+
+    /**
+     * Number of intervals in the tree
+     * @return the count
+     */
+    public int size() {
+        return values.length;
+    }
+
+    /**
+     * Visits every interval overlapping [from, to), in start order
+     * @param from - first point of the range
+     * @param to - first point after the range
+     * @param visitor - called once per overlapping value
+     */
+    public void query(long from, long to, Consumer<? super T> visitor) {
+        if (from < to) {
+            query(0, values.length, from, to, visitor);
+        }
+    }
+
+    /**
+     * Intervals overlapping [from, to)
+     * @param from - first point of the range
+     * @param to - first point after the range
+     * @return the overlapping values in start order
+     */
+    public List<T> overlapping(long from, long to) {
+        List<T> found = new ArrayList<>();
+        query(from, to, found::add);
+        return found;
+    }
+
+    @SuppressWarnings("unchecked")
+    private void query(int lo, int hi, long from, long to, Consumer<? super T> visitor) {
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (maxEnds[mid] <= from) {
+                return; // everything below here ends before the range
+            }
+            query(lo, mid, from, to, visitor);
+            if (starts[mid] >= to) {
+                return; // this node and everything after it start after the range
+            }
+            if (ends[mid] > from) {
+                visitor.accept((T) values[mid]);
+            }
+            lo = mid + 1; // the right subtree, without recursing
+        }
+    }
+
+    private long computeMaxEnds(int lo, int hi) {
+        if (lo >= hi) {
+            return Long.MIN_VALUE;
+        }
+        int mid = (lo + hi) >>> 1;
+        long max = Math.max(ends[mid], Math.max(computeMaxEnds(lo, mid), computeMaxEnds(mid + 1, hi)));
+        maxEnds[mid] = max;
+        return max;
+    }
+}
@@ -0,0 +1,146 @@
+/**
+ * Scheduling across several clinic locations. Each clinic has its own
+ * SchedulingService over its own store, so bookings at one location never
+ * wait on another. The services are passed in rather than built here, so
+ * the one that books a clinic's slots is also the one searched, with the
+ * same date locks, holds and block-outs. Cross-clinic questions such as "first opening at any
+ * location" are fanned out to every clinic in parallel and the per-clinic
+ * answers merged.
+ * @date 10.19.2026
+ */
+package com.example.wiredorthodontics.core;
+
+import com.example.wiredorthodontics.model.TimeSlots;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+public class MultiClinicScheduler {
+
+    private final Map<String, SchedulingService> clinics;
+    private final ExecutorService fanOut;
+
+    /**
+     * An open slot at a specific clinic.
+     */
+    public static class Opening {
+        private final String clinicId;
+        private final LocalDate date;
+        private final String time;
+
+        Opening(String clinicId, LocalDate date, String time) {
+            this.clinicId = clinicId;
+            this.date = date;
+            this.time = time;
+        }
+
+        /**
+         * The clinic with the opening
+         * @return the clinic id
+         */
+        public String getClinicId() {
+            return clinicId;
+        }
+
+        /**
+         * The open date
+         * @return the date
+         */
+        public LocalDate getDate() {
+            return date;
+        }
+
+        /**
+         * The open slot
+         * @return the slot display string
+         */
+        public String getTime() {
+            return time;
+        }
+
+        private boolean isEarlierThan(Opening other) {
+            int byDate = date.compareTo(other.date);
+            if (byDate != 0) {
+                return byDate < 0;
+            }
+            int bySlot = Integer.compare(TimeSlots.indexOf(time), TimeSlots.indexOf(other.time));
+            return bySlot != 0 ? bySlot < 0 : clinicId.compareTo(other.clinicId) < 0;
+        }
+    }
+
+    /**
+     * Constructor for the multi-clinic scheduler
+     * @param clinics - each clinic's scheduling core, keyed by clinic id
+     * @param fanOut - executor that runs the per-clinic parts of cross-clinic queries
+     */
+    public MultiClinicScheduler(Map<String, SchedulingService> clinics, ExecutorService fanOut) {
+        this.clinics = Collections.unmodifiableMap(new LinkedHashMap<>(clinics));
+        this.fanOut = fanOut;
+    }
+
+    /**
+     * The scheduling core for a single clinic
+     * @param clinicId - the clinic
+     * @return that clinic's scheduler
+     */
+    public SchedulingService forClinic(String clinicId) {
+        SchedulingService service = clinics.get(clinicId);
+        if (service == null) {
+            throw new IllegalArgumentException("Unknown clinic: " + clinicId);
+        }
+        return service;
+    }
+
+    /**
+     * Finds the earliest open slot at any clinic, searching every clinic
+     * in parallel. Holidays, days blocked out at a clinic, block-outs and
+     * held slots are skipped. Ties on date and time go to the lower clinic id.
+     * @param from - first date to consider
+     * @param days - how many days to search from there
+     * @return the earliest opening, or null if every clinic is full
+     * @throws InterruptedException if interrupted while waiting for the clinics
+     */
+    public Opening findFirstOpening(final LocalDate from, final int days) throws InterruptedException {
+        List<Callable<Opening>> searches = new ArrayList<>();
+        for (final Map.Entry<String, SchedulingService> clinic : clinics.entrySet()) {
+            searches.add(() -> firstOpening(clinic.getKey(), clinic.getValue(), from, days));
+        }
+
+        Opening earliest = null;
+        for (Future<Opening> result : fanOut.invokeAll(searches)) {
+            Opening opening;
+            try {
+                opening = result.get();
+            } catch (ExecutionException e) {
+                throw new IllegalStateException("Clinic search failed", e.getCause());
+            }
+            if (opening != null && (earliest == null || opening.isEarlierThan(earliest))) {
+                earliest = opening;
+            }
+        }
+        return earliest;
+    }
+
+    private static Opening firstOpening(String clinicId, SchedulingService service, LocalDate from, int days) {
+        for (int i = 0; i < days; i++) {
+            LocalDate date = from.plusDays(i);
+            String key = date.toString();
+            if (service.checkDate(key) != BookingResult.Status.BOOKED) {
+                continue;
+            }
+            List<String> available = service.getAvailableTimes(key);
+            if (!available.isEmpty()) {
+                return new Opening(clinicId, date, available.get(0));
+            }
+        }
+        return null;
+    }
+}
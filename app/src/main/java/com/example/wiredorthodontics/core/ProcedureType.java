@@ -0,0 +1,81 @@
+/**
+ * Kinds of visit the scheduler distinguishes when suggesting times, each
+ * with the part of the day it is best booked in. Appointments only carry
+ * a free-text description, so the type is inferred from its wording.
+ * @date 10.19.2026
+ */
+package com.example.wiredorthodontics.core;
+
+import com.example.wiredorthodontics.model.TimeSlots;
+
+import java.time.LocalTime;
+import java.util.Locale;
+
+public enum ProcedureType {
+
+    // long chair time, booked early while the day is still on schedule
+    BRACES_FITTING(Block.MORNING, "fit", "bond", "placement", "install", "new braces"),
+    // new patients talk through treatment options, usually after school
+    CONSULTATION(Block.AFTERNOON, "consult", "evaluation", "first visit"),
+    RETAINER_CHECK(Block.AFTERNOON, "retainer"),
+    // short visits that are best used to fill gaps
+    ADJUSTMENT(Block.ANY, "adjust", "tighten", "wire", "check"),
+    EMERGENCY(Block.ANY, "pain", "broken", "loose", "emergency"),
+    OTHER(Block.ANY);
+
+    /**
+     * Part of the clinic day.
+     */
+    public enum Block { MORNING, AFTERNOON, ANY }
+
+    private final Block block;
+    private final String[] keywords;
+
+    ProcedureType(Block block, String... keywords) {
+        this.block = block;
+        this.keywords = keywords;
+    }
+
+    /**
+     * Part of the day this procedure is preferably booked in
+     * @return the block
+     */
+    public Block getPreferredBlock() {
+        return block;
+    }
+
+    /**
+     * Slots of the preferred block as a bitmask over {@link TimeSlots}
+     * @return the mask, 0 when any time is equally good
+     */
+    public int preferredSlotMask() {
+        int mask = 0;
+        for (int i = 0; i < TimeSlots.count(); i++) {
+            boolean morning = TimeSlots.startOf(TimeSlots.get(i)).isBefore(LocalTime.NOON);
+            if ((block == Block.MORNING && morning) || (block == Block.AFTERNOON && !morning)) {
+                mask |= 1 << i;
+            }
+        }
+        return mask;
+    }
+
+    /**
+     * Infers the procedure from an appointment description
+     * @param description - the patient's free-text reason for the visit
+     * @return the first type whose keywords appear, or OTHER
+     */
+    public static ProcedureType fromDescription(String description) {
+        if (description == null) {
+            return OTHER;
+        }
+        String text = description.toLowerCase(Locale.US);
+        for (ProcedureType type : values()) {
+            for (String keyword : type.keywords) {
+                if (text.contains(keyword)) {
+                    return type;
+                }
+            }
+        }
+        return OTHER;
+    }
+}
@@ -0,0 +1,101 @@
+/**
+ * One reminder for one appointment. Reminders are the entries of the
+ * reminder timing wheel, so they carry only what dispatch needs: which
+ * appointment, which reminder and when the appointment starts.
+ * @date 10.19.2026
+ */
+package com.example.wiredorthodontics.core;
+
+import java.util.concurrent.TimeUnit;
+
+public final class Reminder extends TimingWheel.Entry {
+
+    /**
+     * The reminders sent for every appointment.
+     */
+    public enum Kind {
+        BEFORE_48_HOURS(TimeUnit.HOURS.toMillis(48)),
+        BEFORE_2_HOURS(TimeUnit.HOURS.toMillis(2));
+
+        private final long leadMillis;
+
+        Kind(long leadMillis) {
+            this.leadMillis = leadMillis;
+        }
+
+        /**
+         * How long before the appointment this reminder goes out
+         * @return the lead time in milliseconds
+         */
+        public long getLeadMillis() {
+            return leadMillis;
+        }
+
+        /**
+         * Bit for this kind in a set of kinds packed into an int
+         * @return the bit
+         */
+        public int bit() {
+            return 1 << ordinal();
+        }
+    }
+
+    private final long appointmentId;
+    private final Kind kind;
+    private final long appointmentMillis;
+    Reminder sibling; // the appointment's other pending reminder, if any
+
+    /**
+     * Constructor for a reminder
+     * @param appointmentId - row id of the appointment
+     * @param kind - which reminder
+     * @param appointmentMillis - appointment start in epoch milliseconds
+     */
+    public Reminder(long appointmentId, Kind kind, long appointmentMillis) {
+        this.appointmentId = appointmentId;
+        this.kind = kind;
+        this.appointmentMillis = appointmentMillis;
+    }
+
+    /**
+     * Row id of the appointment
+     * @return the id
+     */
+    public long getAppointmentId() {
+        return appointmentId;
+    }
+
+    /**
+     * Which reminder this is
+     * @return the kind
+     */
+    public Kind getKind() {
+        return kind;
+    }
+
+    /**
+     * When the appointment starts
+     * @return epoch milliseconds
+     */
+    public long getAppointmentMillis() {
+        return appointmentMillis;
+    }
+
+    /**
+     * When the reminder should go out
+     * @return epoch milliseconds
+     */
+    public long getDueMillis() {
+        return appointmentMillis - kind.getLeadMillis();
+    }
+
+    /**
+     * Stable key for this reminder. Senders pass it to the delivery
+     * provider as an idempotency key, so a batch resent after a crash is
+     * not delivered twice.
+     * @return the key
+     */
+    public String getKey() {
+        return appointmentId + ":" + kind;
+    }
+}
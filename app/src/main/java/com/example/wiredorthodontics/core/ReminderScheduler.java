@@ -0,0 +1,250 @@
+/**
+ * Sends appointment reminders 48 hours and 2 hours ahead.
+ * Upcoming appointments are read from the source a page at a time once an
+ * hour, covering the next 50 hours, and their reminders are kept in a
+ * timing wheel with one-minute ticks. The wheel is advanced every minute
+ * in memory; the database is only read by the hourly load. Due reminders
+ * are handed to the sender in batches and then recorded as sent, so a
+ * restarted scheduler skips them. If the process dies between a send and
+ * its record the batch goes out again with the same keys, which the
+ * provider uses to drop the duplicates.
+ * @date 10.19.2026
+ */
+package com.example.wiredorthodontics.core;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+public class ReminderScheduler {
+
+    private static final Logger LOG = Logger.getLogger("ReminderScheduler");
+
+    static final long TICK_MILLIS = TimeUnit.MINUTES.toMillis(1);
+    static final long LOAD_INTERVAL_MILLIS = TimeUnit.HOURS.toMillis(1);
+    // far enough ahead that every reminder is in the wheel a load interval before it is due
+    static final long LOAD_AHEAD_MILLIS = Reminder.Kind.BEFORE_48_HOURS.getLeadMillis() + 2 * LOAD_INTERVAL_MILLIS;
+    static final int PAGE_SIZE = 500;
+    static final int BATCH_SIZE = 100;
+    static final long RETRY_DELAY_MILLIS = TimeUnit.MINUTES.toMillis(5);
+    private static final int WHEEL_LEVELS = 4; // 64^4 minutes, about 31 weeks
+
+    private final ReminderSource source;
+    private final ReminderSender sender;
+    private final LongSupplier clock;
+    private final TimingWheel<Reminder> wheel;
+    // first pending reminder per appointment; its sibling is the other one
+    private final Map<Long, Reminder> pending = new HashMap<>();
+
+    /**
+     * Constructor using the system clock
+     * @param source - upcoming appointments and the sent ledger
+     * @param sender - delivers the reminders
+     */
+    public ReminderScheduler(ReminderSource source, ReminderSender sender) {
+        this(source, sender, System::currentTimeMillis);
+    }
+
+    /**
+     * Constructor with an explicit clock, for tests
+     * @param source - upcoming appointments and the sent ledger
+     * @param sender - delivers the reminders
+     * @param clock - current time in epoch milliseconds
+     */
+    public ReminderScheduler(ReminderSource source, ReminderSender sender, LongSupplier clock) {
+        this.source = source;
+        this.sender = sender;
+        this.clock = clock;
+        this.wheel = new TimingWheel<>(TICK_MILLIS, WHEEL_LEVELS, clock.getAsLong());
+    }
+
+    /**
+     * Starts the hourly load and the per-minute dispatch
+     * @param executor - runs both jobs; its threads must not be the ui thread
+     */
+    public void start(ScheduledExecutorService executor) {
+        executor.scheduleWithFixedDelay(() -> {
+            try {
+                loadUpcoming();
+            } catch (RuntimeException e) {
+                // a failing job would be cancelled by the executor; try again next interval
+                LOG.log(Level.WARNING, "Loading upcoming appointments failed", e);
+            }
+        }, 0, LOAD_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+        executor.scheduleWithFixedDelay(() -> {
+            try {
+                dispatchDue();
+            } catch (RuntimeException e) {
+                LOG.log(Level.WARNING, "Reminder dispatch failed", e);
+            }
+        }, TICK_MILLIS, TICK_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Reads the appointments in the load window page by page and schedules
+     * the reminders they still need. Appointments already in the wheel are
+     * skipped, so overlapping windows cost nothing.
+     * @return the number of reminders added
+     */
+    public int loadUpcoming() {
+        long now = clock.getAsLong();
+        long until = now + LOAD_AHEAD_MILLIS;
+        long afterId = 0;
+        int added = 0;
+        List<ReminderSource.Upcoming> page;
+        do {
+            // the database read happens outside the lock so dispatch is never held up by it
+            page = source.loadUpcoming(now, until, afterId, PAGE_SIZE);
+            synchronized (this) {
+                for (ReminderSource.Upcoming upcoming : page) {
+                    if (upcoming.getStartMillis() > now && upcoming.getStartMillis() <= until
+                            && !pending.containsKey(upcoming.getId())) {
+                        added += addReminders(upcoming, now);
+                    }
+                }
+            }
+            if (!page.isEmpty()) {
+                afterId = page.get(page.size() - 1).getId();
+            }
+        } while (page.size() == PAGE_SIZE);
+        return added;
+    }
+
+    /**
+     * Schedules reminders for a new booking right away instead of waiting
+     * for the next load. Bookings beyond the load window are left to a
+     * later load.
+     * @param appointmentId - row id of the appointment
+     * @param startMillis - appointment start in epoch milliseconds
+     */
+    public synchronized void schedule(long appointmentId, long startMillis) {
+        long now = clock.getAsLong();
+        if (startMillis > now && startMillis <= now + LOAD_AHEAD_MILLIS && !pending.containsKey(appointmentId)) {
+            addReminders(new ReminderSource.Upcoming(appointmentId, startMillis, 0), now);
+        }
+    }
+
+    /**
+     * Drops the pending reminders of a cancelled appointment. For a
+     * rescheduled appointment call this and then {@link #schedule}.
+     * @param appointmentId - row id of the appointment
+     * @return true if it had pending reminders
+     */
+    public synchronized boolean cancel(long appointmentId) {
+        Reminder first = pending.remove(appointmentId);
+        if (first == null) {
+            return false;
+        }
+        wheel.cancel(first);
+        if (first.sibling != null) {
+            wheel.cancel(first.sibling);
+        }
+        return true;
+    }
+
+    /**
+     * Advances the wheel to now and sends everything that has come due,
+     * in batches of {@link #BATCH_SIZE}. A batch that fails is retried a
+     * few minutes later while it is still worth sending.
+     * @return the number of reminders sent
+     */
+    public int dispatchDue() {
+        final long now = clock.getAsLong();
+        final List<Reminder> due = new ArrayList<>();
+        synchronized (this) {
+            wheel.advance(now, due::add);
+        }
+
+        int sent = 0;
+        for (int from = 0; from < due.size(); from += BATCH_SIZE) {
+            List<Reminder> batch = due.subList(from, Math.min(due.size(), from + BATCH_SIZE));
+            try {
+                sender.send(batch);
+                source.markSent(batch);
+                sent += batch.size();
+                synchronized (this) {
+                    for (Reminder reminder : batch) {
+                        forget(reminder);
+                    }
+                }
+            } catch (Exception e) {
+                LOG.log(Level.WARNING, "Sending " + batch.size() + " reminders failed, will retry", e);
+                synchronized (this) {
+                    for (Reminder reminder : batch) {
+                        if (isWorthSending(reminder.getKind(), reminder.getAppointmentMillis(), now + RETRY_DELAY_MILLIS)
+                                && pending.containsKey(reminder.getAppointmentId())) {
+                            wheel.schedule(reminder, now + RETRY_DELAY_MILLIS);
+                        } else {
+                            forget(reminder);
+                        }
+                    }
+                }
+            }
+        }
+        return sent;
+    }
+
+    /**
+     * Number of reminders waiting in the wheel
+     * @return the count
+     */
+    public synchronized int pendingCount() {
+        return wheel.size();
+    }
+
+    /**
+     * Puts an appointment's unsent reminders in the wheel. A reminder whose
+     * time has passed is still sent late, but only while it is some use:
+     * a 48-hour reminder stops making sense once the 2-hour one is close.
+     */
+    private int addReminders(ReminderSource.Upcoming upcoming, long now) {
+        Reminder first = null;
+        int added = 0;
+        for (Reminder.Kind kind : Reminder.Kind.values()) {
+            if (upcoming.wasSent(kind) || !isWorthSending(kind, upcoming.getStartMillis(), now)) {
+                continue;
+            }
+            Reminder reminder = new Reminder(upcoming.getId(), kind, upcoming.getStartMillis());
+            wheel.schedule(reminder, reminder.getDueMillis());
+            if (first == null) {
+                first = reminder;
+                pending.put(upcoming.getId(), reminder);
+            } else {
+                first.sibling = reminder;
+            }
+            added++;
+        }
+        return added;
+    }
+
+    /**
+     * Unlinks a reminder that has been sent or given up on. It stays
+     * linked while in flight so a concurrent load does not re-add it.
+     */
+    private void forget(Reminder reminder) {
+        Reminder first = pending.get(reminder.getAppointmentId());
+        if (first == reminder) {
+            if (first.sibling != null) {
+                pending.put(reminder.getAppointmentId(), first.sibling);
+            } else {
+                pending.remove(reminder.getAppointmentId());
+            }
+        } else if (first != null && first.sibling == reminder) {
+            first.sibling = null;
+        }
+        reminder.sibling = null;
+    }
+
+    /**
+     * A reminder is worth sending until half its lead time is left.
+     */
+    private static boolean isWorthSending(Reminder.Kind kind, long appointmentMillis, long at) {
+        return at < appointmentMillis - kind.getLeadMillis() / 2;
+    }
+}
@@ -0,0 +1,19 @@
+/**
+ * Delivers reminders to patients (SMS, push, e-mail). Implementations
+ * receive whole batches so they can use a provider's bulk API.
+ * @date 10.19.2026
+ */
+package com.example.wiredorthodontics.core;
+
+import java.util.List;
+
+public interface ReminderSender {
+
+    /**
+     * Sends a batch of due reminders. Either every reminder in the batch
+     * was accepted or an exception is thrown and the batch is retried.
+     * @param batch - the reminders
+     * @throws Exception if delivery failed
+     */
+    void send(List<Reminder> batch) throws Exception;
+}
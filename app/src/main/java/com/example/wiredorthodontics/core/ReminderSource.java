@@ -0,0 +1,76 @@
+/**
+ * Where the reminder scheduler reads upcoming appointments from and
+ * records which reminders have gone out, so a restarted scheduler does
+ * not send them again.
+ * @date 10.19.2026
+ */
+package com.example.wiredorthodontics.core;
+
+import java.util.List;
+
+public interface ReminderSource {
+
+    /**
+     * An appointment that may still need reminders.
+     */
+    final class Upcoming {
+        private final long id;
+        private final long startMillis;
+        private final int sentKinds;
+
+        /**
+         * Constructor for an upcoming appointment
+         * @param id - row id
+         * @param startMillis - start in epoch milliseconds
+         * @param sentKinds - bits of the reminder kinds already sent
+         */
+        public Upcoming(long id, long startMillis, int sentKinds) {
+            this.id = id;
+            this.startMillis = startMillis;
+            this.sentKinds = sentKinds;
+        }
+
+        /**
+         * Row id of the appointment
+         * @return the id
+         */
+        public long getId() {
+            return id;
+        }
+
+        /**
+         * When the appointment starts
+         * @return epoch milliseconds
+         */
+        public long getStartMillis() {
+            return startMillis;
+        }
+
+        /**
+         * Whether a reminder has already been sent
+         * @param kind - the reminder
+         * @return true if recorded as sent
+         */
+        public boolean wasSent(Reminder.Kind kind) {
+            return (sentKinds & kind.bit()) != 0;
+        }
+    }
+
+    /**
+     * One page of appointments starting in a time range that still have
+     * reminders to send, in ascending id order. Implementations may return
+     * appointments slightly outside the range; the caller filters.
+     * @param fromMillis - start of the range in epoch milliseconds
+     * @param toMillis - end of the range in epoch milliseconds
+     * @param afterId - only appointments with a larger id
+     * @param limit - page size
+     * @return up to limit appointments
+     */
+    List<Upcoming> loadUpcoming(long fromMillis, long toMillis, long afterId, int limit);
+
+    /**
+     * Records reminders as sent.
+     * @param reminders - reminders the sender accepted
+     */
+    void markSent(List<Reminder> reminders);
+}
@@ -0,0 +1,313 @@
+/**
+ * Headless scheduling core: availability and booking rules with no
+ * Android dependencies, so it can run on a background thread, in a JVM
+ * unit test or on a server.
+ * Bookings for the same date are serialized by a lock so two callers can
+ * never take the same slot, while bookings on different dates proceed in
+ * parallel. Locks are striped by epoch day; with 64 stripes any two dates
+ * less than 64 days apart always use different locks, which covers the
+ * 30-day booking window.
+ * With a slot hold registry, a slot picked in one booking session is
+ * hidden from the others and cannot be booked by them until the hold is
+ * booked, released or expires.
+ * Slots overlapping a block-out are neither offered nor bookable, and a
+ * day blocked from opening to closing is treated as closed.
+ * @date 10.19.2026
+ */
+package com.example.wiredorthodontics.core;
+
+import com.example.wiredorthodontics.model.Appointment;
+import com.example.wiredorthodontics.model.DailyCapacity;
+import com.example.wiredorthodontics.model.TimeSlots;
+
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantLock;
+
+public class SchedulingService {
+
+    private static final int LOCK_STRIPES = 64; // power of two
+
+    private final AppointmentStore store;
+    private final HolidayCalendar holidays;
+    private final SlotHoldRegistry holds; // null when holds are not used
+    private final BlockOutCalendar blockOuts;
+    private final ReentrantLock[] dateLocks = new ReentrantLock[LOCK_STRIPES];
+
+    /**
+     * Constructor for the scheduling core
+     * @param store - where appointments are read from and saved to
+     * @param holidays - dates the clinic is closed
+     */
+    public SchedulingService(AppointmentStore store, HolidayCalendar holidays) {
+        this(store, holidays, null);
+    }
+
+    /**
+     * Constructor for the scheduling core with slot holds
+     * @param store - where appointments are read from and saved to
+     * @param holidays - dates the clinic is closed
+     * @param holds - holds shared by every booking session, or null for none
+     */
+    public SchedulingService(AppointmentStore store, HolidayCalendar holidays, SlotHoldRegistry holds) {
+        this(store, holidays, holds, new BlockOutCalendar());
+    }
+
+    /**
+     * Constructor for the scheduling core with slot holds and block-outs
+     * @param store - where appointments are read from and saved to
+     * @param holidays - dates the clinic is closed
+     * @param holds - holds shared by every booking session, or null for none
+     * @param blockOuts - times within open days that cannot be booked
+     */
+    public SchedulingService(AppointmentStore store, HolidayCalendar holidays, SlotHoldRegistry holds,
+                             BlockOutCalendar blockOuts) {
+        this.store = store;
+        this.holidays = holidays;
+        this.holds = holds;
+        this.blockOuts = blockOuts;
+        for (int i = 0; i < LOCK_STRIPES; i++) {
+            dateLocks[i] = new ReentrantLock();
+        }
+    }
+
+    /**
+     * All slots on a date minus the ones already booked.
+     * @param date - date as yyyy-MM-dd
+     * @return free slots in clock order
+     */
+    public List<String> getAvailableTimes(String date) {
+        return getAvailableTimes(date, null);
+    }
+
+    /**
+     * All slots on a date minus the ones blocked out, booked or held by
+     * other sessions.
+     * @param date - date as yyyy-MM-dd
+     * @param sessionId - the asking booking session; its own hold stays visible
+     * @return free slots in clock order
+     */
+    public List<String> getAvailableTimes(String date, String sessionId) {
+        int blocked = blockedSlotMask(date);
+        List<String> available = new ArrayList<>(TimeSlots.count());
+        for (int slot = 0; slot < TimeSlots.count(); slot++) {
+            if ((blocked >> slot & 1) == 0) {
+                available.add(TimeSlots.get(slot));
+            }
+        }
+        available.removeAll(store.getBookedTimesForDate(date));
+        if (holds != null) {
+            available.removeAll(holds.heldByOthers(date, sessionId));
+        }
+        return available;
+    }
+
+    /**
+     * Which slots of each day in a window cannot be offered: blocked out,
+     * booked in the store (bookings it has accepted but not yet written
+     * included) or held by other sessions. The same rules as
+     * {@link #getAvailableTimes(String, String)}, as capacity rows.
+     * @param from - first date
+     * @param days - number of days from there
+     * @param sessionId - the asking booking session; its own hold counts as free
+     * @return one row per day that is not a holiday, in date order
+     */
+    public List<DailyCapacity> getCapacity(LocalDate from, int days, String sessionId) {
+        List<DailyCapacity> capacity = new ArrayList<>(days);
+        for (int d = 0; d < days; d++) {
+            LocalDate day = from.plusDays(d);
+            String date = day.toString();
+            if (holidays.isHoliday(date)) {
+                continue;
+            }
+            int taken = blockOuts.blockedSlotMask(day) | slotMask(store.getBookedTimesForDate(date));
+            if (holds != null) {
+                taken |= slotMask(holds.heldByOthers(date, sessionId));
+            }
+            int booked = Integer.bitCount(taken);
+            capacity.add(new DailyCapacity(date, booked, TimeSlots.count() - booked, taken));
+        }
+        return capacity;
+    }
+
+    /**
+     * Holds a free slot for a booking session while the patient fills in
+     * their details. Picking another slot moves the session's hold.
+     * @param sessionId - the booking session
+     * @param date - date as yyyy-MM-dd
+     * @param time - slot display string
+     * @return true if the slot is free and now held by the session
+     */
+    public boolean hold(String sessionId, String date, String time) {
+        if (isBlockedOut(date, time)) {
+            return false;
+        }
+        if (holds == null) {
+            return !store.getBookedTimesForDate(date).contains(time);
+        }
+        if (!holds.hold(sessionId, date, time)) {
+            return false;
+        }
+        if (store.getBookedTimesForDate(date).contains(time)) {
+            holds.release(sessionId);
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Checks a date before showing its availability.
+     * @param date - date as yyyy-MM-dd
+     * @return BOOKED if the date can be booked, otherwise INVALID_DATE, HOLIDAY or BLOCKED_OUT
+     */
+    public BookingResult.Status checkDate(String date) {
+        Long epochDay = parseEpochDay(date);
+        if (epochDay == null) {
+            return BookingResult.Status.INVALID_DATE;
+        }
+        if (holidays.isHoliday(date)) {
+            return BookingResult.Status.HOLIDAY;
+        }
+        return blockOuts.isClosed(LocalDate.ofEpochDay(epochDay)) ? BookingResult.Status.BLOCKED_OUT : BookingResult.Status.BOOKED;
+    }
+
+    /**
+     * Whether a date is a holiday
+     * @param date - date as yyyy-MM-dd
+     * @return true if the clinic is closed
+     */
+    public boolean isHoliday(String date) {
+        return holidays.isHoliday(date);
+    }
+
+    /**
+     * The closed dates this scheduler enforces
+     * @return the holiday calendar
+     */
+    public HolidayCalendar getHolidayCalendar() {
+        return holidays;
+    }
+
+    /**
+     * The block-outs this scheduler enforces
+     * @return the block-out calendar
+     */
+    public BlockOutCalendar getBlockOutCalendar() {
+        return blockOuts;
+    }
+
+    /**
+     * Validates and books an appointment. The availability check and the
+     * save happen under the date's lock, so concurrent callers racing for
+     * one slot get exactly one BOOKED result.
+     * @param appointment - the requested appointment
+     * @return the outcome
+     */
+    public BookingResult book(Appointment appointment) {
+        return book(appointment, null);
+    }
+
+    /**
+     * Books an appointment for a booking session. A slot held by another
+     * session counts as taken; the session's own hold is released once
+     * the appointment is booked.
+     * @param appointment - the requested appointment
+     * @param sessionId - the booking session, or null if it holds nothing
+     * @return the outcome
+     */
+    public BookingResult book(Appointment appointment, String sessionId) {
+        if (hasMissingFields(appointment)) {
+            return new BookingResult(BookingResult.Status.MISSING_FIELDS, appointment);
+        }
+        String date = appointment.getAppointmentDate();
+        Long epochDay = parseEpochDay(date);
+        if (epochDay == null) {
+            return new BookingResult(BookingResult.Status.INVALID_DATE, appointment);
+        }
+        if (holidays.isHoliday(date)) {
+            return new BookingResult(BookingResult.Status.HOLIDAY, appointment);
+        }
+        int slot = TimeSlots.indexOf(appointment.getAppointmentTime());
+        if (slot < 0) {
+            return new BookingResult(BookingResult.Status.UNKNOWN_TIME, appointment);
+        }
+        if ((blockOuts.blockedSlotMask(LocalDate.ofEpochDay(epochDay)) >> slot & 1) != 0) {
+            return new BookingResult(BookingResult.Status.BLOCKED_OUT, appointment);
+        }
+
+        ReentrantLock lock = lockFor(epochDay);
+        lock.lock();
+        try {
+            if (store.getBookedTimesForDate(date).contains(appointment.getAppointmentTime())
+                    || (holds != null && holds.isHeldByOther(date, appointment.getAppointmentTime(), sessionId))) {
+                return new BookingResult(BookingResult.Status.SLOT_TAKEN, appointment);
+            }
+            store.save(appointment);
+            if (holds != null && sessionId != null) {
+                holds.release(sessionId);
+            }
+            return new BookingResult(BookingResult.Status.BOOKED, appointment);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Checks every required field of an appointment
+     * @param appointment - new appointment
+     * @return true if any field is null or blank
+     */
+    public static boolean hasMissingFields(Appointment appointment) {
+        return isNullOrEmpty(appointment.getPatientName()) ||
+                isNullOrEmpty(appointment.getDob()) ||
+                isNullOrEmpty(appointment.getAddress()) ||
+                isNullOrEmpty(appointment.getIdentificationNumber()) ||
+                isNullOrEmpty(appointment.getAppointmentDescription()) ||
+                isNullOrEmpty(appointment.getClinicSource()) ||
+                isNullOrEmpty(appointment.getAppointmentDate()) ||
+                isNullOrEmpty(appointment.getAppointmentTime());
+    }
+
+    private int blockedSlotMask(String date) {
+        Long epochDay = parseEpochDay(date);
+        return epochDay == null ? 0 : blockOuts.blockedSlotMask(LocalDate.ofEpochDay(epochDay));
+    }
+
+    private static int slotMask(Collection<String> times) {
+        int mask = 0;
+        for (String time : times) {
+            int slot = TimeSlots.indexOf(time);
+            if (slot >= 0) {
+                mask |= 1 << slot;
+            }
+        }
+        return mask;
+    }
+
+    private boolean isBlockedOut(String date, String time) {
+        int slot = TimeSlots.indexOf(time);
+        return slot >= 0 && (blockedSlotMask(date) >> slot & 1) != 0;
+    }
+
+    private ReentrantLock lockFor(long epochDay) {
+        return dateLocks[(int) (epochDay & (LOCK_STRIPES - 1))];
+    }
+
+    private static Long parseEpochDay(String date) {
+        if (isNullOrEmpty(date)) {
+            return null;
+        }
+        try {
+            return LocalDate.parse(date).toEpochDay();
+        } catch (DateTimeParseException e) {
+            return null;
+        }
+    }
+
+    private static boolean isNullOrEmpty(String value) {
+        return value == null || value.trim().isEmpty();
+    }
+}
@@ -0,0 +1,183 @@
+/**
+ * Short-lived holds on appointment slots while a booking is being filled
+ * in. Picking a time holds it for its session, and other sessions stop
+ * seeing it until the hold is booked, released or runs out. Each session
+ * holds at most one slot; picking another moves the hold.
+ * Holds live in concurrent maps keyed by slot and by session. Expiry is
+ * driven by a DelayQueue: a reaper thread sleeps until the earliest hold
+ * is due and removes it, so nothing polls. A hold that has run out is
+ * treated as gone even before the reaper gets to it.
+ * @date 10.19.2026
+ */
+package com.example.wiredorthodontics.core;
+
+import java.io.Closeable;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.DelayQueue;
+import java.util.concurrent.Delayed;
+import java.util.concurrent.TimeUnit;
+
+public class SlotHoldRegistry implements Closeable {
+
+    /**
+     * One session's claim on one slot. Refreshing a hold replaces it with a
+     * new instance, so a stale instance still waiting in the delay queue
+     * removes nothing when it fires.
+     */
+    private static final class Hold implements Delayed {
+        final String sessionId;
+        final String date;
+        final String time;
+        final long expiresAtNanos;
+
+        Hold(String sessionId, String date, String time, long expiresAtNanos) {
+            this.sessionId = sessionId;
+            this.date = date;
+            this.time = time;
+            this.expiresAtNanos = expiresAtNanos;
+        }
+
+        String slotKey() {
+            return key(date, time);
+        }
+
+        boolean isLive() {
+            return System.nanoTime() - expiresAtNanos < 0;
+        }
+
+        @Override
+        public long getDelay(TimeUnit unit) {
+            return unit.convert(expiresAtNanos - System.nanoTime(), TimeUnit.NANOSECONDS);
+        }
+
+        @Override
+        public int compareTo(Delayed other) {
+            // nanoTime values are only comparable by difference
+            return Long.signum(expiresAtNanos - ((Hold) other).expiresAtNanos);
+        }
+    }
+
+    private final long ttlNanos;
+    private final ConcurrentHashMap<String, Hold> bySlot = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, Hold> bySession = new ConcurrentHashMap<>();
+    private final DelayQueue<Hold> expiries = new DelayQueue<>();
+    private final Thread reaper;
+
+    /**
+     * Constructor for the registry; starts the reaper thread
+     * @param ttl - how long a hold lasts
+     * @param unit - unit of ttl
+     */
+    public SlotHoldRegistry(long ttl, TimeUnit unit) {
+        if (ttl <= 0) {
+            throw new IllegalArgumentException("Hold time must be positive");
+        }
+        this.ttlNanos = unit.toNanos(ttl);
+        this.reaper = new Thread(this::reapLoop, "slot-hold-reaper");
+        reaper.setDaemon(true);
+        reaper.start();
+    }
+
+    /**
+     * Holds a slot for a session, or refreshes the session's hold on it.
+     * Any other slot the session was holding is released.
+     * @param sessionId - the booking session
+     * @param date - date as yyyy-MM-dd
+     * @param time - slot display string
+     * @return true if the session now holds the slot, false if another session does
+     */
+    public boolean hold(String sessionId, String date, String time) {
+        Hold fresh = new Hold(sessionId, date, time, System.nanoTime() + ttlNanos);
+        Hold winner = bySlot.compute(fresh.slotKey(), (slot, current) ->
+                current == null || !current.isLive() || current.sessionId.equals(sessionId) ? fresh : current);
+        if (winner != fresh) {
+            return false;
+        }
+        Hold previous = bySession.put(sessionId, fresh);
+        if (previous != null && !previous.slotKey().equals(fresh.slotKey())) {
+            bySlot.remove(previous.slotKey(), previous);
+        }
+        expiries.add(fresh);
+        return true;
+    }
+
+    /**
+     * Drops a session's hold, e.g. once its appointment is booked
+     * @param sessionId - the booking session
+     */
+    public void release(String sessionId) {
+        Hold hold = bySession.remove(sessionId);
+        if (hold != null) {
+            bySlot.remove(hold.slotKey(), hold);
+        }
+    }
+
+    /**
+     * Whether a slot is held by a session other than the given one
+     * @param date - date as yyyy-MM-dd
+     * @param time - slot display string
+     * @param sessionId - the asking session, or null to count every hold
+     * @return true if someone else holds the slot
+     */
+    public boolean isHeldByOther(String date, String time, String sessionId) {
+        Hold hold = bySlot.get(key(date, time));
+        return hold != null && hold.isLive() && !hold.sessionId.equals(sessionId);
+    }
+
+    /**
+     * Slots on a date held by sessions other than the given one
+     * @param date - date as yyyy-MM-dd
+     * @param sessionId - the asking session, or null to count every hold
+     * @return the held slot display strings
+     */
+    public Set<String> heldByOthers(String date, String sessionId) {
+        Set<String> held = new HashSet<>();
+        // one hold per session, so this scans a handful of entries
+        for (Hold hold : bySession.values()) {
+            if (hold.date.equals(date) && hold.isLive() && !hold.sessionId.equals(sessionId)) {
+                held.add(hold.time);
+            }
+        }
+        return held;
+    }
+
+    /**
+     * Number of holds that have not been removed yet
+     * @return the count
+     */
+    public int size() {
+        return bySlot.size();
+    }
+
+    /**
+     * Stops the reaper thread. Holds still answer queries but no longer
+     * get removed in the background.
+     */
+    @Override
+    public void close() {
+        // a hold without a session expires at once and tells the reaper to stop
+        expiries.add(new Hold(null, "", "", System.nanoTime()));
+    }
+
+    private void reapLoop() {
+        while (true) {
+            Hold expired;
+            try {
+                expired = expiries.take();
+            } catch (InterruptedException e) {
+                return;
+            }
+            if (expired.sessionId == null) {
+                return;
+            }
+            bySlot.remove(expired.slotKey(), expired);
+            bySession.remove(expired.sessionId, expired);
+        }
+    }
+
+    private static String key(String date, String time) {
+        return date + ' ' + time;
+    }
+}
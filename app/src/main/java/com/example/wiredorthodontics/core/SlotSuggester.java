@@ -0,0 +1,221 @@
+/**
+ * Suggests appointment times that keep the clinic's days tightly packed.
+ * Every free slot in the search window is scored on how well it fits the
+ * day around it: slots next to existing bookings or against the start of
+ * the day, lunch or closing score higher, slots that would leave a
+ * one-hour hole nobody can use score lower, fuller days beat emptier
+ * ones, and the procedure's preferred part of the day adds a bonus.
+ * A day has few enough slots that the packing score of every slot under
+ * every possible occupancy is computed once up front, so scoring a month
+ * is a table lookup per slot over the daily capacity bitmasks.
+ * Block-outs are folded into a day's mask as if booked, so they are never
+ * suggested and times are packed up against them instead of leaving holes.
+ * @date 10.19.2026
+ */
+package com.example.wiredorthodontics.core;
+
+import com.example.wiredorthodontics.model.DailyCapacity;
+import com.example.wiredorthodontics.model.TimeSlots;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+public class SlotSuggester {
+
+    // score weights
+    private static final int NEXT_TO_BOOKING = 4;
+    private static final int NEXT_TO_BREAK = 2; // start of day, lunch, closing
+    private static final int HOLE = 6; // per isolated free slot created (or bonus per one filled)
+    private static final int PER_BOOKED_SLOT = 1;
+    private static final int PREFERRED_BLOCK = 3;
+
+    private static final int TAKEN = Integer.MIN_VALUE;
+
+    // PACKING[occupancy][slot]: packing score of booking slot on a day with that occupancy
+    private static final int[][] PACKING = buildPackingTable();
+
+    /**
+     * A suggested time.
+     */
+    public static class Suggestion {
+        private final LocalDate date;
+        private final int slot;
+        private final int score;
+
+        Suggestion(LocalDate date, int slot, int score) {
+            this.date = date;
+            this.slot = slot;
+            this.score = score;
+        }
+
+        /**
+         * The suggested date
+         * @return the date
+         */
+        public LocalDate getDate() {
+            return date;
+        }
+
+        /**
+         * The suggested slot
+         * @return the slot display string
+         */
+        public String getTime() {
+            return TimeSlots.get(slot);
+        }
+
+        /**
+         * How well the slot packs its day; higher is better
+         * @return the score
+         */
+        public int getScore() {
+            return score;
+        }
+
+        private boolean isBetterThan(Suggestion other) {
+            if (score != other.score) {
+                return score > other.score;
+            }
+            int byDate = date.compareTo(other.date);
+            return byDate != 0 ? byDate < 0 : slot < other.slot;
+        }
+    }
+
+    private final HolidayCalendar holidays;
+    private final BlockOutCalendar blockOuts;
+
+    /**
+     * Constructor for the suggester
+     * @param holidays - dates the clinic is closed
+     */
+    public SlotSuggester(HolidayCalendar holidays) {
+        this(holidays, new BlockOutCalendar());
+    }
+
+    /**
+     * Constructor for the suggester with block-outs
+     * @param holidays - dates the clinic is closed
+     * @param blockOuts - times within open days that cannot be booked
+     */
+    public SlotSuggester(HolidayCalendar holidays, BlockOutCalendar blockOuts) {
+        this.holidays = holidays;
+        this.blockOuts = blockOuts;
+    }
+
+    /**
+     * Ranks every free slot in a date window and returns the best ones.
+     * @param from - first date to consider
+     * @param days - number of days from there
+     * @param capacity - daily capacity rows for the window; dates without a row are empty
+     * @param procedure - what the visit is for
+     * @param k - how many suggestions to return
+     * @return up to k suggestions, best first
+     */
+    public List<Suggestion> suggest(LocalDate from, int days, List<DailyCapacity> capacity, ProcedureType procedure, int k) {
+        if (k <= 0) {
+            return new ArrayList<>();
+        }
+        Map<String, Integer> occupancy = new HashMap<>();
+        for (DailyCapacity day : capacity) {
+            occupancy.put(day.getDate(), day.getOccupancy());
+        }
+        int preferred = procedure.preferredSlotMask();
+        int slots = TimeSlots.count();
+
+        // bounded heap with the weakest kept suggestion on top
+        PriorityQueue<Suggestion> best = new PriorityQueue<>(k + 1, (a, b) -> a.isBetterThan(b) ? 1 : (b.isBetterThan(a) ? -1 : 0));
+        for (int d = 0; d < days; d++) {
+            LocalDate date = from.plusDays(d);
+            String key = date.toString();
+            if (holidays.isHoliday(key)) {
+                continue;
+            }
+            Integer booked = occupancy.get(key);
+            int taken = (booked == null ? 0 : booked) | blockOuts.blockedSlotMask(date);
+            int[] scores = PACKING[taken & ((1 << slots) - 1)];
+            for (int slot = 0; slot < slots; slot++) {
+                if (scores[slot] == TAKEN) {
+                    continue;
+                }
+                int score = scores[slot] + ((preferred >> slot & 1) != 0 ? PREFERRED_BLOCK : 0);
+                if (best.size() < k) {
+                    best.add(new Suggestion(date, slot, score));
+                } else {
+                    Suggestion weakest = best.peek();
+                    if (score > weakest.score) {
+                        // later candidates never win ties, so only a higher score displaces
+                        best.poll();
+                        best.add(new Suggestion(date, slot, score));
+                    }
+                }
+            }
+        }
+
+        List<Suggestion> ranked = new ArrayList<>(best);
+        Collections.sort(ranked, (a, b) -> a.isBetterThan(b) ? -1 : (b.isBetterThan(a) ? 1 : 0));
+        return ranked;
+    }
+
+    /**
+     * Packing score of a single slot, without the procedure bonus
+     * @param occupancy - booked slot bitmask of the day
+     * @param slot - candidate slot index
+     * @return the score, or Integer.MIN_VALUE if the slot is taken
+     */
+    static int packingScore(int occupancy, int slot) {
+        return PACKING[occupancy][slot];
+    }
+
+    private static int[][] buildPackingTable() {
+        int slots = TimeSlots.count();
+        // a session break follows slot i when the next slot does not start right after it
+        boolean[] breakAfter = new boolean[slots];
+        for (int i = 0; i < slots; i++) {
+            breakAfter[i] = i == slots - 1
+                    || !TimeSlots.startOf(TimeSlots.get(i)).plusMinutes(TimeSlots.SLOT_MINUTES).equals(TimeSlots.startOf(TimeSlots.get(i + 1)));
+        }
+
+        int[][] table = new int[1 << slots][slots];
+        for (int occupancy = 0; occupancy < 1 << slots; occupancy++) {
+            int holesBefore = isolatedFreeSlots(occupancy, breakAfter);
+            for (int slot = 0; slot < slots; slot++) {
+                if ((occupancy >> slot & 1) != 0) {
+                    table[occupancy][slot] = TAKEN;
+                    continue;
+                }
+                int score = Integer.bitCount(occupancy) * PER_BOOKED_SLOT;
+                score += slot == 0 || breakAfter[slot - 1] ? NEXT_TO_BREAK
+                        : (occupancy >> (slot - 1) & 1) != 0 ? NEXT_TO_BOOKING : 0;
+                score += breakAfter[slot] ? NEXT_TO_BREAK
+                        : (occupancy >> (slot + 1) & 1) != 0 ? NEXT_TO_BOOKING : 0;
+                score -= (isolatedFreeSlots(occupancy | 1 << slot, breakAfter) - holesBefore) * HOLE;
+                table[occupancy][slot] = score;
+            }
+        }
+        return table;
+    }
+
+    /**
+     * Counts free slots boxed in on both sides by bookings or session
+     * breaks, i.e. one-hour holes.
+     */
+    private static int isolatedFreeSlots(int occupancy, boolean[] breakAfter) {
+        int holes = 0;
+        for (int i = 0; i < breakAfter.length; i++) {
+            if ((occupancy >> i & 1) != 0) {
+                continue;
+            }
+            boolean leftClosed = i == 0 || breakAfter[i - 1] || (occupancy >> (i - 1) & 1) != 0;
+            boolean rightClosed = breakAfter[i] || (occupancy >> (i + 1) & 1) != 0;
+            if (leftClosed && rightClosed) {
+                holes++;
+            }
+        }
+        return holes;
+    }
+}
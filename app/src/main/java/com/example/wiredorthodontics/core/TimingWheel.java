@@ -0,0 +1,208 @@
+/**
+ * Hierarchical timing wheel. Each level is a ring of 64 buckets; level 0
+ * buckets are one tick wide, and every level above is 64 times coarser, so
+ * four levels of one-minute ticks reach about 31 weeks ahead. A timer is
+ * put in the finest level that can hold its deadline and moves down a
+ * level each time the wheel below it wraps, until it expires in level 0.
+ * Entries are intrusive doubly linked list nodes, so scheduling and
+ * cancelling are O(1) and need no allocation beyond the entry itself.
+ * Not thread-safe; callers serialize access.
+ * @date 10.19.2026
+ */
+package com.example.wiredorthodontics.core;
+
+public class TimingWheel<E extends TimingWheel.Entry> {
+
+    private static final int SLOT_BITS = 6;
+    private static final int SLOTS = 1 << SLOT_BITS;
+    private static final int SLOT_MASK = SLOTS - 1;
+
+    /**
+     * Base class of anything the wheel can hold. An entry can be in at most
+     * one wheel bucket at a time.
+     */
+    public abstract static class Entry {
+        Entry prev, next; // bucket links, null while not scheduled
+        long deadlineMillis;
+
+        /**
+         * Time the entry is due
+         * @return the deadline in epoch milliseconds
+         */
+        public long getDeadlineMillis() {
+            return deadlineMillis;
+        }
+
+        /**
+         * Whether the entry is currently in a wheel
+         * @return true if scheduled and not yet expired or cancelled
+         */
+        public boolean isScheduled() {
+            return next != null;
+        }
+
+        void unlink() {
+            prev.next = next;
+            next.prev = prev;
+            prev = null;
+            next = null;
+        }
+    }
+
+    /**
+     * Bucket list head; never handed out.
+     */
+    private static final class Head extends Entry {
+        Head() {
+            super.prev = this;
+            super.next = this;
+        }
+    }
+
+    /**
+     * Receives entries as they expire.
+     */
+    public interface ExpiryHandler<E> {
+        void onExpired(E entry);
+    }
+
+    private final long tickMillis;
+    private final int levels;
+    private final Head[][] buckets;
+    private long currentTick; // next tick to be processed
+    private int size;
+
+    /**
+     * Constructor for a timing wheel
+     * @param tickMillis - width of a level 0 bucket in milliseconds
+     * @param levels - number of levels; the wheel spans 64^levels ticks
+     * @param startMillis - current time in epoch milliseconds
+     */
+    public TimingWheel(long tickMillis, int levels, long startMillis) {
+        if (tickMillis <= 0 || levels < 1 || levels * SLOT_BITS >= 63) {
+            throw new IllegalArgumentException("Bad wheel shape: tick " + tickMillis + " ms, " + levels + " levels");
+        }
+        this.tickMillis = tickMillis;
+        this.levels = levels;
+        this.buckets = new Head[levels][SLOTS];
+        for (int level = 0; level < levels; level++) {
+            for (int slot = 0; slot < SLOTS; slot++) {
+                buckets[level][slot] = new Head();
+            }
+        }
+        this.currentTick = startMillis / tickMillis;
+    }
+
+    /**
+     * Schedules an entry. Deadlines in the past expire on the next advance.
+     * @param entry - an entry that is not already scheduled
+     * @param deadlineMillis - when it is due, in epoch milliseconds
+     */
+    public void schedule(E entry, long deadlineMillis) {
+        if (entry.isScheduled()) {
+            throw new IllegalStateException("Entry is already scheduled");
+        }
+        entry.deadlineMillis = deadlineMillis;
+        place(entry);
+        size++;
+    }
+
+    /**
+     * Removes an entry before it expires
+     * @param entry - the entry
+     * @return true if it was scheduled
+     */
+    public boolean cancel(E entry) {
+        if (!entry.isScheduled()) {
+            return false;
+        }
+        entry.unlink();
+        size--;
+        return true;
+    }
+
+    /**
+     * Moves the wheel forward to the given time, handing every entry whose
+     * deadline has passed to the handler. Entries are removed from the wheel
+     * before the handler sees them, so it may reschedule them.
+     * @param nowMillis - the current time in epoch milliseconds
+     * @param handler - receives expired entries in deadline order, tick by tick
+     * @return the number of entries that expired
+     */
+    public int advance(long nowMillis, ExpiryHandler<? super E> handler) {
+        long targetTick = nowMillis / tickMillis;
+        int expired = 0;
+        while (currentTick <= targetTick) {
+            if (size == 0) {
+                // nothing to cascade or expire, jump straight to the target
+                currentTick = targetTick + 1;
+                break;
+            }
+            cascade();
+            Head bucket = buckets[0][(int) (currentTick & SLOT_MASK)];
+            currentTick++;
+            while (bucket.next != bucket) {
+                @SuppressWarnings("unchecked")
+                E entry = (E) bucket.next;
+                entry.unlink();
+                size--;
+                expired++;
+                handler.onExpired(entry);
+            }
+        }
+        return expired;
+    }
+
+    /**
+     * Number of scheduled entries
+     * @return the size
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * When level 0 wraps, empties the matching bucket of the level above
+     * back into the wheel, and so on up while each level wraps too.
+     */
+    private void cascade() {
+        for (int level = 1; level < levels; level++) {
+            if (((currentTick >> (SLOT_BITS * (level - 1))) & SLOT_MASK) != 0) {
+                return;
+            }
+            Head bucket = buckets[level][(int) ((currentTick >> (SLOT_BITS * level)) & SLOT_MASK)];
+            while (bucket.next != bucket) {
+                Entry entry = bucket.next;
+                entry.unlink();
+                place(entry);
+            }
+        }
+    }
+
+    /**
+     * Links an entry into the finest level whose span covers its deadline.
+     * Anything beyond the top level is parked in its farthest bucket and
+     * re-placed when that bucket cascades.
+     */
+    private void place(Entry entry) {
+        long tick = Math.max(ceilTick(entry.deadlineMillis), currentTick);
+        long delta = tick - currentTick;
+        int level = 0;
+        while (level < levels - 1 && delta >= 1L << (SLOT_BITS * (level + 1))) {
+            level++;
+        }
+        if (delta >= 1L << (SLOT_BITS * levels)) {
+            tick = currentTick + (1L << (SLOT_BITS * levels)) - 1;
+        }
+        Head bucket = buckets[level][(int) ((tick >> (SLOT_BITS * level)) & SLOT_MASK)];
+        entry.prev = bucket.prev;
+        entry.next = bucket;
+        bucket.prev.next = entry;
+        bucket.prev = entry;
+    }
+
+    private long ceilTick(long millis) {
+        long tick = millis / tickMillis;
+        return tick * tickMillis < millis ? tick + 1 : tick;
+    }
+}
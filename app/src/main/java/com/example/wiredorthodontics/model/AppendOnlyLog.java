@@ -0,0 +1,280 @@
+/**
+ * An append-only, checksummed record log on local storage.
+ * Appends from any thread are queued and a single flusher thread writes
+ * them in batches, forcing the file to disk once per batch (group commit)
+ * instead of once per record. Each record is framed as
+ * [int length][int crc32][payload] so a torn write at the tail from a
+ * process crash is detected and trimmed on the next open.
+ * @date 10.19.2026
+ */
+package com.example.wiredorthodontics.model;
+
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.zip.CRC32;
+
+public class AppendOnlyLog implements Closeable {
+
+    /**
+     * Callback used when reading the log back from disk.
+     */
+    public interface RecordVisitor {
+        void onRecord(byte[] payload) throws IOException;
+    }
+
+    private static final int HEADER_BYTES = 8;
+    private static final int MAX_RECORD_BYTES = 1 << 20;
+    private static final PendingRecord POISON = new PendingRecord(new byte[0], null);
+
+    private final File file;
+    private final int maxBatch;
+    private final BlockingQueue<PendingRecord> pending = new LinkedBlockingQueue<>();
+    private final Object writeLock = new Object();
+    private final Thread flusher;
+    private FileChannel channel;
+    private long appendedCount;
+    private volatile boolean closed;
+
+    /**
+     * Opens (or creates) the log file, trims any torn tail record and
+     * starts the flusher thread.
+     * @param file - the journal file
+     * @param maxBatch - most records written per fsync
+     * @param threadName - name of the flusher thread
+     * @throws IOException if the file cannot be opened
+     */
+    public AppendOnlyLog(File file, int maxBatch, String threadName) throws IOException {
+        this.file = file;
+        this.maxBatch = maxBatch;
+
+        long validLength = scan(file, null);
+        channel = new RandomAccessFile(file, "rw").getChannel();
+        if (channel.size() > validLength) {
+            // drop the partially written record left behind by a crash
+            channel.truncate(validLength);
+            channel.force(true);
+        }
+        channel.position(validLength);
+
+        flusher = new Thread(this::flushLoop, threadName);
+        flusher.setDaemon(true);
+        flusher.start();
+    }
+
+    /**
+     * Queues a record for the next group commit.
+     * @param payload - record bytes
+     * @return a future completed once the record is durable on disk
+     */
+    public CompletableFuture<Void> append(byte[] payload) {
+        CompletableFuture<Void> done = new CompletableFuture<>();
+        if (closed) {
+            done.completeExceptionally(new IOException("log is closed"));
+        } else if (payload.length > MAX_RECORD_BYTES) {
+            done.completeExceptionally(new IOException("record too large: " + payload.length));
+        } else {
+            pending.add(new PendingRecord(payload, done));
+        }
+        return done;
+    }
+
+    /**
+     * Reads every intact record in the log in append order.
+     * @param visitor - receives each payload
+     * @throws IOException if the file cannot be read
+     */
+    public void replay(RecordVisitor visitor) throws IOException {
+        synchronized (writeLock) {
+            scan(file, visitor);
+        }
+    }
+
+    /**
+     * Reads every intact record of a log file without opening it for
+     * writing, so nothing is trimmed. Used by verifiers that must see the
+     * file exactly as it is on disk.
+     * @param file - log file
+     * @param visitor - receives each payload in append order
+     * @return byte length of the intact prefix; less than the file length
+     *         if the file ends in a torn or corrupt record
+     * @throws IOException if the file cannot be read
+     */
+    public static long read(File file, RecordVisitor visitor) throws IOException {
+        return scan(file, visitor);
+    }
+
+    /**
+     * Empties the log, but only if no record has been appended since the
+     * caller observed {@code expectedCount}; otherwise does nothing.
+     * @param expectedCount - value previously returned by {@link #getAppendedCount()}
+     * @return true if the log was truncated
+     * @throws IOException if truncation fails
+     */
+    public boolean truncateIfUnchanged(long expectedCount) throws IOException {
+        synchronized (writeLock) {
+            if (appendedCount != expectedCount || !pending.isEmpty()) {
+                return false;
+            }
+            channel.truncate(0);
+            channel.force(true);
+            return true;
+        }
+    }
+
+    /**
+     * Number of records durably written by this instance.
+     * @return the running record count
+     */
+    public long getAppendedCount() {
+        synchronized (writeLock) {
+            return appendedCount;
+        }
+    }
+
+    /**
+     * Flushes everything still queued and closes the file.
+     */
+    @Override
+    public void close() throws IOException {
+        closed = true;
+        // a poison record rather than an interrupt, which would close the channel mid-write
+        pending.add(POISON);
+        try {
+            flusher.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        synchronized (writeLock) {
+            List<PendingRecord> rest = new ArrayList<>();
+            pending.drainTo(rest);
+            rest.remove(POISON);
+            writeBatch(rest);
+            channel.close();
+        }
+    }
+
+    /**
+     * Body of the flusher thread: block for one record, then take whatever
+     * else has queued up behind it and commit the lot with a single force.
+     */
+    private void flushLoop() {
+        List<PendingRecord> batch = new ArrayList<>(maxBatch);
+        boolean stop = false;
+        while (!stop) {
+            try {
+                batch.add(pending.take());
+            } catch (InterruptedException e) {
+                break;
+            }
+            pending.drainTo(batch, maxBatch - 1);
+            stop = batch.remove(POISON);
+            synchronized (writeLock) {
+                writeBatch(batch);
+            }
+            batch.clear();
+        }
+    }
+
+    private void writeBatch(List<PendingRecord> batch) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        try {
+            int size = 0;
+            for (PendingRecord record : batch) {
+                size += HEADER_BYTES + record.payload.length;
+            }
+            ByteBuffer buffer = ByteBuffer.allocate(size);
+            CRC32 crc = new CRC32();
+            for (PendingRecord record : batch) {
+                crc.reset();
+                crc.update(record.payload, 0, record.payload.length);
+                buffer.putInt(record.payload.length);
+                buffer.putInt((int) crc.getValue());
+                buffer.put(record.payload);
+            }
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            channel.force(false);
+            appendedCount += batch.size();
+            for (PendingRecord record : batch) {
+                record.done.complete(null);
+            }
+        } catch (IOException e) {
+            for (PendingRecord record : batch) {
+                record.done.completeExceptionally(e);
+            }
+        }
+    }
+
+    /**
+     * Walks the file record by record, stopping at the first short or
+     * corrupt record.
+     * @param file - log file
+     * @param visitor - optional receiver of each intact payload
+     * @return byte length of the intact prefix of the file
+     */
+    private static long scan(File file, RecordVisitor visitor) throws IOException {
+        if (!file.exists()) {
+            return 0;
+        }
+        long valid = 0;
+        CRC32 crc = new CRC32();
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+            while (true) {
+                int length;
+                int checksum;
+                byte[] payload;
+                try {
+                    length = in.readInt();
+                    checksum = in.readInt();
+                    if (length < 0 || length > MAX_RECORD_BYTES) {
+                        break;
+                    }
+                    payload = new byte[length];
+                    in.readFully(payload);
+                } catch (EOFException e) {
+                    break;
+                }
+                crc.reset();
+                crc.update(payload, 0, payload.length);
+                if ((int) crc.getValue() != checksum) {
+                    break;
+                }
+                if (visitor != null) {
+                    visitor.onRecord(payload);
+                }
+                valid += HEADER_BYTES + length;
+            }
+        }
+        return valid;
+    }
+
+    /**
+     * A queued record and the future to complete once it is on disk.
+     */
+    private static final class PendingRecord {
+        final byte[] payload;
+        final CompletableFuture<Void> done;
+
+        PendingRecord(byte[] payload, CompletableFuture<Void> done) {
+            this.payload = payload;
+            this.done = done;
+        }
+    }
+}
@@ -13,6 +13,7 @@ public class Appointment {
     private String dob;
     private String appointmentTime;
     private String appointmentDate;
+    private String bookingRef;
 
     /**
      * An empty constructor to initialize a new
@@ -59,6 +60,23 @@ public class Appointment {
         this.id = id;
     }
 
+    /**
+     * The client-generated reference that makes a booking idempotent
+     * when it is replayed from the booking journal
+     * @return - the booking reference, or null for legacy rows
+     */
+    public String getBookingRef() {
+        return bookingRef;
+    }
+
+    /**
+     * Sets the booking reference
+     * @param bookingRef - unique reference for this booking
+     */
+    public void setBookingRef(String bookingRef) {
+        this.bookingRef = bookingRef;
+    }
+
     /**
      * Name of patient
      * @return string name
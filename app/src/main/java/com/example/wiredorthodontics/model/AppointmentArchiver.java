@@ -0,0 +1,213 @@
+/**
+ * Background job that moves past appointments out of the live table into
+ * one archive database per year, so the live table and its indexes only
+ * hold the recent past and the future that bookings, availability and
+ * reminders look at.
+ * Each year is moved in three steps: the rows are copied into the archive
+ * and committed there, the archive is snapshotted into the clinic's
+ * backups, then the live transaction advances the archive watermark and
+ * deletes them. The live table is the source of truth for every date on
+ * or after the watermark, so a crash between the steps leaves harmless
+ * copies that the next run overwrites. The delete triggers ignore dates
+ * before the watermark, so the daily capacity rows of archived days are
+ * kept and nothing is logged as cancelled. Once deleted, the rows are no
+ * longer in the live database's backups, so a year whose archive cannot
+ * be backed up stays in the live table until a later run succeeds.
+ * @date 10.19.2026
+ */
+package com.example.wiredorthodontics.model;
+
+import android.content.ContentValues;
+import android.content.Context;
+import android.database.Cursor;
+import android.database.DatabaseUtils;
+import android.database.sqlite.SQLiteDatabase;
+import android.util.Log;
+
+import java.io.IOException;
+import java.time.LocalDate;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+public class AppointmentArchiver implements Runnable {
+
+    private static final String TAG = "AppointmentArchiver";
+
+    // how far back appointments stay in the live table
+    static final int KEEP_DAYS = 90;
+    private static final long RUN_INTERVAL_HOURS = 24;
+    // copies of one year before giving up until the next run when bookings keep changing it
+    private static final int MAX_MOVE_ATTEMPTS = 3;
+
+    private final Context context;
+    private final String databaseName;
+    private final DatabaseHelper dbHelper;
+
+    /**
+     * Constructor for archiving the default database
+     * @param context - any context
+     */
+    public AppointmentArchiver(Context context) {
+        this(context, DatabaseHelper.DATABASE_NAME);
+    }
+
+    /**
+     * Constructor for archiving a specific database file, used for clinic shards
+     * @param context - any context
+     * @param databaseName - the live database file name
+     */
+    public AppointmentArchiver(Context context, String databaseName) {
+        this.context = context.getApplicationContext();
+        this.databaseName = databaseName;
+        this.dbHelper = DatabaseHelper.getInstance(context, databaseName);
+    }
+
+    /**
+     * Runs the job now and then once a day on the given executor
+     * @param executor - background executor
+     * @param initialDelay - delay before the first run
+     * @param unit - unit of initialDelay
+     */
+    public void schedule(ScheduledExecutorService executor, long initialDelay, TimeUnit unit) {
+        executor.scheduleWithFixedDelay(this, unit.toMillis(initialDelay),
+                TimeUnit.HOURS.toMillis(RUN_INTERVAL_HOURS), TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Archives everything older than the retention window. Must not run
+     * on the ui thread.
+     */
+    @Override
+    public void run() {
+        try {
+            int moved = archiveBefore(LocalDate.now().minusDays(KEEP_DAYS));
+            if (moved > 0) {
+                Log.i(TAG, "Archived " + moved + " appointments");
+            }
+        } catch (RuntimeException e) {
+            // a failed run is retried on the next one; a scheduled task that throws is never run again
+            Log.e(TAG, "Archiving failed", e);
+        }
+    }
+
+    /**
+     * Moves every appointment dated before a cutoff into its year's archive
+     * @param cutoff - first date to keep in the live table
+     * @return the number of appointments moved
+     * @throws IllegalStateException if an archive could not be backed up or
+     * its year kept changing while being copied; the years before it stay moved
+     */
+    public int archiveBefore(LocalDate cutoff) {
+        SQLiteDatabase live = dbHelper.getWritableDatabase();
+        String end = cutoff.toString();
+        String oldest = DatabaseUtils.stringForQuery(live,
+                "SELECT IFNULL(MIN(date), '') FROM appointments WHERE date < ?", new String[]{end});
+
+        int moved = 0;
+        if (!oldest.isEmpty()) {
+            for (int year = LocalDate.parse(oldest).getYear(); year <= cutoff.getYear(); year++) {
+                String from = LocalDate.of(year, 1, 1).toString();
+                String to = year == cutoff.getYear() ? end : LocalDate.of(year + 1, 1, 1).toString();
+                moved += moveYear(live, year, from, to);
+            }
+        }
+        advanceWatermark(live, end);
+        return moved;
+    }
+
+    /**
+     * Copies one year's rows into its archive, backs the archive up, then
+     * removes them from the live table. No live transaction is open while
+     * the rows are copied or the backup is written, so bookings are not
+     * held up; instead the delete transaction checks that nothing in the
+     * range changed since the copy, and copies again if it did.
+     */
+    private int moveYear(SQLiteDatabase live, int year, String from, String to) {
+        String[] range = {from, to};
+        if (DatabaseUtils.longForQuery(live, "SELECT COUNT(*) FROM appointments WHERE date >= ? AND date < ?", range) == 0) {
+            return 0;
+        }
+
+        SQLiteDatabase archive = ArchiveDatabaseHelper.getInstance(context, databaseName, year).getWritableDatabase();
+        long since = -1;
+        for (int attempt = 0; attempt < MAX_MOVE_ATTEMPTS; attempt++) {
+            long head = DatabaseHelper.changeLogHead(live);
+            int copied = copyYear(live, archive, range, since);
+            since = head;
+            try {
+                new BackupManager(context, databaseName).backupArchive(year);
+            } catch (IOException e) {
+                throw new IllegalStateException("Archive for " + year + " could not be backed up", e);
+            }
+
+            live.beginTransaction();
+            try {
+                if (DatabaseUtils.longForQuery(live, "SELECT COUNT(*) FROM appointments WHERE date >= ? AND date < ?",
+                        range) != copied || changedSince(live, head)) {
+                    continue; // ends the transaction without deleting anything
+                }
+                // the watermark moves first so the delete triggers skip these rows
+                advanceWatermark(live, to);
+                live.delete("appointments", "date >= ? AND date < ?", range);
+                live.setTransactionSuccessful();
+                return copied;
+            } finally {
+                live.endTransaction();
+            }
+        }
+        throw new IllegalStateException("Appointments for " + year + " kept changing while being archived");
+    }
+
+    /**
+     * Copies a year's live rows into its archive in one archive transaction.
+     * On a retry, rows changed since the previous copy are dropped from the
+     * archive first so rows since cancelled or moved out of the year go too.
+     * @param since - change log head of the previous copy, or -1 for the first
+     * @return the number of rows copied
+     */
+    private int copyYear(SQLiteDatabase live, SQLiteDatabase archive, String[] range, long since) {
+        int copied = 0;
+        archive.beginTransaction();
+        try {
+            if (since >= 0) {
+                try (Cursor changed = live.rawQuery("SELECT DISTINCT " + DatabaseHelper.COLUMN_APPOINTMENT_ID
+                        + " FROM " + DatabaseHelper.TABLE_CHANGES + " WHERE " + DatabaseHelper.COLUMN_SEQ + " > ? AND "
+                        + DatabaseHelper.COLUMN_OP + " <> ?", new String[]{Long.toString(since), DatabaseHelper.OP_BLOCK_OUT})) {
+                    while (changed.moveToNext()) {
+                        archive.delete(ArchiveDatabaseHelper.TABLE_APPOINTMENTS, "id = ?",
+                                new String[]{Long.toString(changed.getLong(0))});
+                    }
+                }
+            }
+            try (Cursor cursor = live.rawQuery("SELECT " + String.join(", ", ArchiveDatabaseHelper.COLUMNS)
+                    + " FROM appointments WHERE date >= ? AND date < ?", range)) {
+                ContentValues values = new ContentValues();
+                while (cursor.moveToNext()) {
+                    values.clear();
+                    values.put("id", cursor.getLong(0));
+                    for (int i = 1; i < ArchiveDatabaseHelper.COLUMNS.length; i++) {
+                        values.put(ArchiveDatabaseHelper.COLUMNS[i], cursor.getString(i));
+                    }
+                    archive.insertWithOnConflict(ArchiveDatabaseHelper.TABLE_APPOINTMENTS, null, values,
+                            SQLiteDatabase.CONFLICT_REPLACE);
+                    copied++;
+                }
+            }
+            archive.setTransactionSuccessful();
+        } finally {
+            archive.endTransaction();
+        }
+        return copied;
+    }
+
+    private static boolean changedSince(SQLiteDatabase live, long head) {
+        return DatabaseUtils.longForQuery(live, "SELECT COUNT(*) FROM " + DatabaseHelper.TABLE_CHANGES + " WHERE "
+                + DatabaseHelper.COLUMN_SEQ + " > ? AND " + DatabaseHelper.COLUMN_OP + " <> ?",
+                new String[]{Long.toString(head), DatabaseHelper.OP_BLOCK_OUT}) > 0;
+    }
+
+    private void advanceWatermark(SQLiteDatabase live, String date) {
+        live.execSQL("UPDATE " + DatabaseHelper.TABLE_ARCHIVE_STATE + " SET " + DatabaseHelper.COLUMN_ARCHIVED_BEFORE
+                + " = MAX(" + DatabaseHelper.COLUMN_ARCHIVED_BEFORE + ", ?)", new Object[]{date});
+    }
+}
@@ -0,0 +1,424 @@
+/**
+ * Compact, versioned binary format for appointment records, for exports,
+ * sync payloads and caches. A record is a version byte followed by:
+ * <pre>
+ *   varint  id
+ *   date    appointment date    epoch day
+ *   time    appointment time    start minute of the slot
+ *   ref     clinic source       dictionary code
+ *   ref     reason for visit    dictionary code
+ *   text    patient name
+ *   date    date of birth
+ *   text    address
+ *   text    identification number
+ *   text    booking reference
+ * </pre>
+ * A text is a varint of its UTF-8 length plus one (0 for null) and the
+ * bytes. A date or time is a varint: 0 for null, 1 for a value that is not
+ * in canonical form and follows as text, otherwise the zigzag epoch day or
+ * the minute plus two, so any record decodes to exactly what was encoded.
+ * Sources and reasons are picked from a handful of values, so each one
+ * travels as text only the first time it is seen in a stream and as a
+ * small code after that. Values are kept verbatim; unlike the report
+ * {@link TextDictionary} nothing is normalized.
+ * <p>
+ * The dictionary makes records depend on the ones before them: records
+ * written by one {@link Encoder} must be read in the same order by one
+ * {@link Decoder}, and both must be {@code reset()} at the same record
+ * boundary. Encoders and decoders keep their scratch space between
+ * records and are not thread safe.
+ * @date 10.19.2026
+ */
+package com.example.wiredorthodontics.model;
+
+import java.nio.BufferOverflowException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+public final class AppointmentCodec {
+
+    static final byte FORMAT_VERSION = 1;
+
+    // dictionary entries per stream; later values are always sent as text
+    static final int MAX_DICTIONARY = 1024;
+
+    private static final int NULL = 0;
+    private static final int AS_TEXT = 1;
+    private static final int VALUE_BASE = 2;
+
+    private static final long DAYS_0000_TO_1970 = 719528;
+
+    private AppointmentCodec() {
+    }
+
+    /**
+     * Writes appointments into caller-supplied buffers. Encoding allocates
+     * nothing once the stream's sources and reasons have been seen.
+     */
+    public static final class Encoder {
+        private final Map<String, Integer> codes = new HashMap<>();
+
+        /**
+         * Appends one record at the buffer's position.
+         * @param appointment - the appointment to write
+         * @param out - destination, positioned after the record on return
+         * @throws BufferOverflowException if the record does not fit; the
+         * buffer's position is then undefined and the stream must be restarted
+         */
+        public void encode(Appointment appointment, ByteBuffer out) {
+            out.put(FORMAT_VERSION);
+            writeVarint(out, appointment.getId() & 0xFFFFFFFFL);
+            writeDate(out, appointment.getAppointmentDate());
+            writeTime(out, appointment.getAppointmentTime());
+            writeRef(out, appointment.getClinicSource());
+            writeRef(out, appointment.getAppointmentDescription());
+            writeText(out, appointment.getPatientName());
+            writeDate(out, appointment.getDob());
+            writeText(out, appointment.getAddress());
+            writeText(out, appointment.getIdentificationNumber());
+            writeText(out, appointment.getBookingRef());
+        }
+
+        /**
+         * Forgets the dictionary; the next record starts a new stream
+         */
+        public void reset() {
+            codes.clear();
+        }
+
+        private void writeRef(ByteBuffer out, String value) {
+            Integer code = value == null ? null : codes.get(value);
+            if (code != null) {
+                writeVarint(out, code);
+                return;
+            }
+            // code 0: the value follows as text and takes the next free code
+            writeVarint(out, 0);
+            writeText(out, value);
+            if (value != null && codes.size() < MAX_DICTIONARY) {
+                codes.put(value, codes.size() + 1);
+            }
+        }
+    }
+
+    /**
+     * Reads records written by an {@link Encoder}. Apart from the strings
+     * it returns, decoding allocates only for dates outside a small cache.
+     */
+    public static final class Decoder {
+        private static final int DATE_CACHE = 512; // power of two
+
+        private final List<String> entries = new ArrayList<>();
+        private final long[] cachedDays = new long[DATE_CACHE];
+        private final String[] cachedDates = new String[DATE_CACHE];
+        private char[] chars = new char[64];
+
+        /**
+         * Reads one record from the buffer's position.
+         * @param in - source, positioned after the record on return
+         * @return the appointment
+         * @throws IllegalArgumentException if the record has an unknown version or is malformed
+         * @throws BufferUnderflowException if the record is truncated
+         */
+        public Appointment decode(ByteBuffer in) {
+            byte version = in.get();
+            if (version != FORMAT_VERSION) {
+                throw new IllegalArgumentException("Unsupported appointment format version " + version);
+            }
+            int id = (int) readVarint(in);
+            String date = readDate(in);
+            String time = readTime(in);
+            String source = readRef(in);
+            String description = readRef(in);
+            String name = readText(in);
+            String dob = readDate(in);
+            String address = readText(in);
+            String identification = readText(in);
+            String bookingRef = readText(in);
+
+            Appointment appointment = new Appointment(name, dob, address, identification, date, time, description, source);
+            appointment.setId(id);
+            appointment.setBookingRef(bookingRef);
+            return appointment;
+        }
+
+        /**
+         * Forgets the dictionary; the next record starts a new stream
+         */
+        public void reset() {
+            entries.clear();
+        }
+
+        private String readRef(ByteBuffer in) {
+            long code = readVarint(in);
+            if (code != 0) {
+                if (code > entries.size()) {
+                    throw new IllegalArgumentException("Unknown dictionary code " + code);
+                }
+                return entries.get((int) code - 1);
+            }
+            String value = readText(in);
+            if (value != null && entries.size() < MAX_DICTIONARY) {
+                entries.add(value);
+            }
+            return value;
+        }
+
+        private String readDate(ByteBuffer in) {
+            long tag = readVarint(in);
+            if (tag == NULL) {
+                return null;
+            }
+            if (tag == AS_TEXT) {
+                return readText(in);
+            }
+            long epochDay = unzigzag(tag - VALUE_BASE);
+            int slot = (int) epochDay & (DATE_CACHE - 1);
+            String date = cachedDates[slot];
+            if (date == null || cachedDays[slot] != epochDay) {
+                date = LocalDate.ofEpochDay(epochDay).toString();
+                cachedDates[slot] = date;
+                cachedDays[slot] = epochDay;
+            }
+            return date;
+        }
+
+        private String readTime(ByteBuffer in) {
+            long tag = readVarint(in);
+            if (tag == NULL) {
+                return null;
+            }
+            if (tag == AS_TEXT) {
+                return readText(in);
+            }
+            long minute = tag - VALUE_BASE;
+            if (minute >= 24 * 60) {
+                throw new IllegalArgumentException("Bad start minute " + minute);
+            }
+            return TimeSlots.atMinute((int) minute);
+        }
+
+        private String readText(ByteBuffer in) {
+            long prefix = readVarint(in);
+            if (prefix == 0) {
+                return null;
+            }
+            long length = prefix - 1;
+            if (length > in.remaining()) {
+                throw new BufferUnderflowException();
+            }
+            if (chars.length < length) {
+                chars = new char[Math.max((int) length, chars.length * 2)];
+            }
+            int end = in.position() + (int) length;
+            int count = 0;
+            while (in.position() < end) {
+                int b = in.get();
+                if (b >= 0) {
+                    chars[count++] = (char) b;
+                } else if ((b & 0xE0) == 0xC0) {
+                    chars[count++] = (char) (((b & 0x1F) << 6) | continuation(in));
+                } else if ((b & 0xF0) == 0xE0) {
+                    chars[count++] = (char) (((b & 0x0F) << 12) | (continuation(in) << 6) | continuation(in));
+                } else if ((b & 0xF8) == 0xF0) {
+                    int codePoint = ((b & 0x07) << 18) | (continuation(in) << 12) | (continuation(in) << 6) | continuation(in);
+                    chars[count++] = Character.highSurrogate(codePoint);
+                    chars[count++] = Character.lowSurrogate(codePoint);
+                } else {
+                    throw new IllegalArgumentException("Malformed UTF-8");
+                }
+            }
+            if (in.position() != end) {
+                throw new IllegalArgumentException("Malformed UTF-8");
+            }
+            return new String(chars, 0, count);
+        }
+
+        private static int continuation(ByteBuffer in) {
+            int b = in.get();
+            if ((b & 0xC0) != 0x80) {
+                throw new IllegalArgumentException("Malformed UTF-8");
+            }
+            return b & 0x3F;
+        }
+    }
+
+    /**
+     * A date as its epoch day when it is canonical yyyy-MM-dd, which is
+     * what the schedule stores; anything else, such as a birth date typed
+     * another way, is kept as text.
+     */
+    private static void writeDate(ByteBuffer out, String date) {
+        if (date == null) {
+            writeVarint(out, NULL);
+            return;
+        }
+        long epochDay = epochDayOf(date);
+        if (epochDay == Long.MIN_VALUE) {
+            writeVarint(out, AS_TEXT);
+            writeText(out, date);
+        } else {
+            writeVarint(out, VALUE_BASE + zigzag(epochDay));
+        }
+    }
+
+    private static void writeTime(ByteBuffer out, String time) {
+        if (time == null) {
+            writeVarint(out, NULL);
+            return;
+        }
+        int minute = TimeSlots.startMinuteOf(time);
+        if (minute < 0) {
+            writeVarint(out, AS_TEXT);
+            writeText(out, time);
+        } else {
+            writeVarint(out, VALUE_BASE + minute);
+        }
+    }
+
+    /**
+     * Length-prefixed UTF-8, measured first so the text is written straight
+     * into the buffer without an intermediate byte array. An unpaired
+     * surrogate is written as '?', as String.getBytes would.
+     */
+    private static void writeText(ByteBuffer out, String text) {
+        if (text == null) {
+            writeVarint(out, 0);
+            return;
+        }
+        int length = text.length();
+        int bytes = 0;
+        for (int i = 0; i < length; i++) {
+            char c = text.charAt(i);
+            if (c < 0x80) {
+                bytes++;
+            } else if (c < 0x800) {
+                bytes += 2;
+            } else if (Character.isHighSurrogate(c) && i + 1 < length && Character.isLowSurrogate(text.charAt(i + 1))) {
+                bytes += 4;
+                i++;
+            } else if (Character.isSurrogate(c)) {
+                bytes++;
+            } else {
+                bytes += 3;
+            }
+        }
+        writeVarint(out, bytes + 1L);
+        if (out.remaining() < bytes) {
+            throw new BufferOverflowException();
+        }
+        for (int i = 0; i < length; i++) {
+            char c = text.charAt(i);
+            if (c < 0x80) {
+                out.put((byte) c);
+            } else if (c < 0x800) {
+                out.put((byte) (0xC0 | (c >> 6)));
+                out.put((byte) (0x80 | (c & 0x3F)));
+            } else if (Character.isHighSurrogate(c) && i + 1 < length && Character.isLowSurrogate(text.charAt(i + 1))) {
+                int codePoint = Character.toCodePoint(c, text.charAt(++i));
+                out.put((byte) (0xF0 | (codePoint >> 18)));
+                out.put((byte) (0x80 | ((codePoint >> 12) & 0x3F)));
+                out.put((byte) (0x80 | ((codePoint >> 6) & 0x3F)));
+                out.put((byte) (0x80 | (codePoint & 0x3F)));
+            } else if (Character.isSurrogate(c)) {
+                out.put((byte) '?');
+            } else {
+                out.put((byte) (0xE0 | (c >> 12)));
+                out.put((byte) (0x80 | ((c >> 6) & 0x3F)));
+                out.put((byte) (0x80 | (c & 0x3F)));
+            }
+        }
+    }
+
+    static void writeVarint(ByteBuffer out, long value) {
+        while ((value & ~0x7FL) != 0) {
+            out.put((byte) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.put((byte) value);
+    }
+
+    static long readVarint(ByteBuffer in) {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            byte b = in.get();
+            value |= (long) (b & 0x7F) << shift;
+            if (b >= 0) {
+                return value;
+            }
+        }
+        throw new IllegalArgumentException("Varint too long");
+    }
+
+    private static long zigzag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    private static long unzigzag(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    /**
+     * Epoch day of a canonical yyyy-MM-dd date without parsing through
+     * java.time, which would allocate for every record.
+     * @return the epoch day, or Long.MIN_VALUE if the text is not a
+     * canonical, valid date that LocalDate.toString gives back unchanged
+     */
+    static long epochDayOf(String date) {
+        if (date.length() != 10 || date.charAt(4) != '-' || date.charAt(7) != '-') {
+            return Long.MIN_VALUE;
+        }
+        int year = digits(date, 0, 4);
+        int month = digits(date, 5, 7);
+        int day = digits(date, 8, 10);
+        if (year < 0 || month < 1 || month > 12 || day < 1 || day > lengthOfMonth(year, month)) {
+            return Long.MIN_VALUE;
+        }
+        // same arithmetic as LocalDate.toEpochDay for non-negative years
+        long total = 365L * year + (year + 3) / 4 - (year + 99) / 100 + (year + 399) / 400;
+        total += (367 * month - 362) / 12;
+        total += day - 1;
+        if (month > 2) {
+            total--;
+            if (!isLeapYear(year)) {
+                total--;
+            }
+        }
+        return total - DAYS_0000_TO_1970;
+    }
+
+    private static int digits(String text, int from, int to) {
+        int value = 0;
+        for (int i = from; i < to; i++) {
+            char c = text.charAt(i);
+            if (c < '0' || c > '9') {
+                return -1;
+            }
+            value = value * 10 + (c - '0');
+        }
+        return value;
+    }
+
+    private static boolean isLeapYear(int year) {
+        return (year & 3) == 0 && (year % 100 != 0 || year % 400 == 0);
+    }
+
+    private static int lengthOfMonth(int year, int month) {
+        switch (month) {
+            case 2:
+                return isLeapYear(year) ? 29 : 28;
+            case 4:
+            case 6:
+            case 9:
+            case 11:
+                return 30;
+            default:
+                return 31;
+        }
+    }
+}
@@ -8,13 +8,15 @@ package com.example.wiredorthodontics.model;
 import android.content.ContentValues;
 import android.content.Context;
 import android.database.Cursor;
+import android.database.DatabaseUtils;
 import android.database.sqlite.SQLiteDatabase;
 
+import com.example.wiredorthodontics.core.DuplicatePatientIndex;
+
 import java.util.ArrayList;
 import java.util.List;
-import java.util.Locale;
 
-public class AppointmentDAO {
+public class AppointmentDAO implements ReportRowSource {
 
     // Table and field names
     private static final String TABLE_APPOINTMENTS = "appointments";
@@ -26,10 +28,29 @@ public class AppointmentDAO {
     private static final String COLUMN_DATE = "date";
     private static final String COLUMN_TIME = "time";
     private static final String COLUMN_DESCRIPTION = "description";
+    private static final String COLUMN_BOOKING_REF = "booking_ref";
     private final DatabaseHelper dbHelper;
 
     public AppointmentDAO(Context context) {
-        dbHelper = new DatabaseHelper(context);
+        dbHelper = DatabaseHelper.getInstance(context);
+    }
+
+    /**
+     * Constructor for a dao over a specific database file, used for clinic shards
+     * @param context any context
+     * @param databaseName the database file name
+     */
+    public AppointmentDAO(Context context, String databaseName) {
+        dbHelper = DatabaseHelper.getInstance(context, databaseName);
+    }
+
+    /**
+     * Opens the database, creating or migrating the schema if needed.
+     * Called from a background thread at startup so the first query on
+     * the ui thread finds the connection already open.
+     */
+    public void open() {
+        dbHelper.getWritableDatabase();
     }
 
     /**
@@ -40,6 +61,68 @@ public class AppointmentDAO {
      */
     public long insertAppointment(Appointment appointment) {
         SQLiteDatabase db = dbHelper.getWritableDatabase();
+
+        // insert a the new row; the helper keeps the shared connection open
+        // because the booking writer thread and the ui read through it concurrently
+        return db.insert(TABLE_APPOINTMENTS, null, toContentValues(appointment)); // the auto-incremented id of the new row
+    }
+
+    /**
+     * Inserts an appointment unless a row with the same booking reference
+     * already exists, which makes replaying the booking journal idempotent.
+     * @param appointment the appointment, carrying a non-null booking reference
+     * @return id of the new row, or -1 if it was already present
+     */
+    public long insertAppointmentIfAbsent(Appointment appointment) {
+        SQLiteDatabase db = dbHelper.getWritableDatabase();
+        return db.insertWithOnConflict(TABLE_APPOINTMENTS, null, toContentValues(appointment), SQLiteDatabase.CONFLICT_IGNORE);
+    }
+
+    /**
+     * Stores a likely duplicate raised by a new booking, for staff to link
+     * the two records at check-in
+     * @param appointment the new booking, carrying its booking reference
+     * @param match the patient on file it resembles, with how alike they are
+     */
+    public void recordPossibleDuplicate(Appointment appointment, DuplicatePatientIndex.Match match) {
+        insertPossibleDuplicate(appointment.getBookingRef(), appointment.getPatientName(), appointment.getDob(),
+                appointment.getAddress(), appointment.getIdentificationNumber(), match.getPatient(), match.getSimilarity());
+    }
+
+    /**
+     * Stores a pair of likely duplicates found by scanning every patient on file
+     * @param patient one spelling of the patient
+     * @param match another spelling grouped with it
+     */
+    public void recordPossibleDuplicate(DuplicatePatientIndex.Patient patient, DuplicatePatientIndex.Patient match) {
+        insertPossibleDuplicate(null, patient.getName(), patient.getDob(), patient.getAddress(), patient.getIdNumber(),
+                match, null);
+    }
+
+    private void insertPossibleDuplicate(String bookingRef, String name, String dob, String address, String idNumber,
+                                         DuplicatePatientIndex.Patient match, Double similarity) {
+        ContentValues values = new ContentValues();
+        values.put(COLUMN_BOOKING_REF, bookingRef);
+        values.put(COLUMN_NAME, name);
+        values.put(COLUMN_DATE_OF_BIRTH, dob);
+        values.put(COLUMN_ADDRESS, address);
+        values.put(COLUMN_IDENTIFICATION_NUMBER, idNumber);
+        values.put(DatabaseHelper.COLUMN_MATCH_PREFIX + COLUMN_NAME, match.getName());
+        values.put(DatabaseHelper.COLUMN_MATCH_PREFIX + COLUMN_DATE_OF_BIRTH, match.getDob());
+        values.put(DatabaseHelper.COLUMN_MATCH_PREFIX + COLUMN_ADDRESS, match.getAddress());
+        values.put(DatabaseHelper.COLUMN_MATCH_PREFIX + COLUMN_IDENTIFICATION_NUMBER, match.getIdNumber());
+        values.put(DatabaseHelper.COLUMN_SIMILARITY, similarity);
+        values.put(DatabaseHelper.COLUMN_DETECTED_AT, System.currentTimeMillis());
+        dbHelper.getWritableDatabase().insertWithOnConflict(DatabaseHelper.TABLE_POSSIBLE_DUPLICATES, null, values,
+                SQLiteDatabase.CONFLICT_IGNORE);
+    }
+
+    /**
+     * Maps an appointment onto the columns of the appointments table
+     * @param appointment the appointment to map
+     * @return the column values
+     */
+    private ContentValues toContentValues(Appointment appointment) {
         ContentValues values = new ContentValues();
         values.put(COLUMN_NAME, appointment.getPatientName());
         values.put(COLUMN_DATE_OF_BIRTH, appointment.getDob());
@@ -49,11 +132,8 @@ public class AppointmentDAO {
         values.put(COLUMN_SOURCE, appointment.getClinicSource());
         values.put(COLUMN_DATE, appointment.getAppointmentDate());
         values.put(COLUMN_TIME, appointment.getAppointmentTime());
-
-        // insert a the new row and close database
-        long id = db.insert("appointments", null, values);
-        db.close();
-        return id; // the auto-incremented id of the new row
+        values.put(COLUMN_BOOKING_REF, appointment.getBookingRef());
+        return values;
     }
 
     /**
@@ -63,40 +143,9 @@ public class AppointmentDAO {
      * @return a list of all times for the selected date
      */
     public List<String> getAllTimesForDate(String selectedDate) {
-        int startHour = 8; // 8 am
-        int endHour = 17; // 5 pm
-
-        SQLiteDatabase db = dbHelper.getReadableDatabase();
-        String query = "SELECT time FROM appointments WHERE date = ?";
-        Cursor cursor = db.rawQuery(query, new String[]{selectedDate});
-
-        List<String> allAppointments = new ArrayList<>();
-        List<String> availableTimes = new ArrayList<>(); // init the list for available times
-
-        if (cursor.moveToFirst()) {
-            do {
-                allAppointments.add(cursor.getString(0));
-            } while (cursor.moveToNext());
-        }
-
-        cursor.close();
-
-        for (int hour = startHour; hour <= endHour; hour++) {
-            if (hour != 12 && hour != 17) { // exclude 12:00pm (lunchtime) and 5pm (closing time)
-                for (int minute = 0; minute < 60; minute += 60) { /* For every hour in the time range */
-                    String timeSlot = String.format(Locale.getDefault(), "%02d:%02d", hour, minute);
-                    if (!allAppointments.contains(timeSlot)) {
-                        if (hour >= 12) {
-                            int displayHour = (hour > 12) ? hour - 12 : hour;
-                            availableTimes.add(String.format(Locale.getDefault(), "%d:%02d PM", displayHour, minute));
-                        } else {
-                            availableTimes.add(String.format(Locale.getDefault(), "%02d:%02d AM", hour, minute));
-                        }
-                    }
-                }
-            }
-        }
-        return availableTimes;
+        // every day offers the same slots (8am - 4pm, skipping 12pm for lunch);
+        // booked ones are subtracted by the controller
+        return new ArrayList<>(TimeSlots.all());
     }
 
     /**
@@ -123,4 +172,77 @@ public class AppointmentDAO {
         cursor.close();
         return bookedTimes;
     }
-}
\ No newline at end of file
+
+    /**
+     * Reads the precomputed capacity summary for a range of dates.
+     * Only dates with at least one appointment have a row; a missing date
+     * is fully free.
+     * @param fromDate first date (inclusive) as yyyy-MM-dd
+     * @param toDate last date (inclusive) as yyyy-MM-dd
+     * @return one entry per booked date in date order
+     */
+    public List<DailyCapacity> getDailyCapacity(String fromDate, String toDate) {
+        List<DailyCapacity> days = new ArrayList<>();
+        SQLiteDatabase db = dbHelper.getReadableDatabase();
+
+        String query = "SELECT " + COLUMN_DATE + ", " + DatabaseHelper.COLUMN_BOOKED + ", " + DatabaseHelper.COLUMN_FREE + ", "
+                + DatabaseHelper.COLUMN_OCCUPANCY + " FROM " + DatabaseHelper.TABLE_DAILY_CAPACITY
+                + " WHERE " + COLUMN_DATE + " BETWEEN ? AND ? ORDER BY " + COLUMN_DATE;
+        Cursor cursor = db.rawQuery(query, new String[]{fromDate, toDate});
+
+        if (cursor.moveToFirst()) {
+            do {
+                days.add(new DailyCapacity(cursor.getString(0), cursor.getInt(1), cursor.getInt(2), cursor.getInt(3)));
+            } while (cursor.moveToNext());
+        }
+
+        cursor.close();
+        return days;
+    }
+
+    /**
+     * Checks whether the capacity summary still agrees with the
+     * appointments table, comparing total booked counts. Archived days are
+     * left out: their summary rows outlive the appointments moved away.
+     * @return true if the summary needs rebuilding
+     */
+    public boolean isDailyCapacityStale() {
+        SQLiteDatabase db = dbHelper.getReadableDatabase();
+        String[] archivedBefore = {DatabaseHelper.archivedBefore(db)};
+        long appointments = DatabaseUtils.longForQuery(db,
+                "SELECT COUNT(*) FROM " + TABLE_APPOINTMENTS + " WHERE " + COLUMN_DATE + " >= ?", archivedBefore);
+        long summarized = DatabaseUtils.longForQuery(db,
+                "SELECT IFNULL(SUM(" + DatabaseHelper.COLUMN_BOOKED + "), 0) FROM " + DatabaseHelper.TABLE_DAILY_CAPACITY
+                        + " WHERE " + COLUMN_DATE + " >= ?", archivedBefore);
+        return appointments != summarized;
+    }
+
+    /**
+     * Recomputes the capacity summary from scratch. This scans every
+     * appointment, so it should only be run off the ui thread.
+     */
+    public void rebuildDailyCapacity() {
+        DatabaseHelper.rebuildDailyCapacity(dbHelper.getWritableDatabase());
+    }
+
+    /**
+     * Streams the reporting columns of every appointment in a date range
+     * straight off the cursor. Safe to call from several threads at once;
+     * with write-ahead logging each call reads on its own connection.
+     * @param fromDate first date (inclusive) as yyyy-MM-dd
+     * @param toDate last date (inclusive) as yyyy-MM-dd
+     * @param visitor called once per row
+     */
+    @Override
+    public void scanReportRows(String fromDate, String toDate, RowVisitor visitor) {
+        SQLiteDatabase db = dbHelper.getReadableDatabase();
+        String query = "SELECT " + COLUMN_DATE + ", " + COLUMN_SOURCE + ", " + COLUMN_DESCRIPTION + " FROM " + TABLE_APPOINTMENTS
+                + " WHERE " + COLUMN_DATE + " BETWEEN ? AND ?";
+
+        try (Cursor cursor = db.rawQuery(query, new String[]{fromDate, toDate})) {
+            while (cursor.moveToNext()) {
+                visitor.onRow(cursor.getString(0), cursor.getString(1), cursor.getString(2));
+            }
+        }
+    }
+}
@@ -0,0 +1,183 @@
+/**
+ * Read-only view over the live appointments table and its yearly
+ * archives, for reports and other history lookups. A date range is split
+ * at the archive watermark: dates before it are read from the archive of
+ * each year they cover, dates on or after it from the live table. Hot
+ * paths such as availability keep using the dao, which only ever touches
+ * the live table.
+ * @date 10.19.2026
+ */
+package com.example.wiredorthodontics.model;
+
+import android.content.Context;
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+
+import java.io.IOException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+public class AppointmentHistory implements ReportRowSource {
+
+    /**
+     * Receives the identifying details of one patient.
+     */
+    public interface PatientVisitor {
+        void onPatient(String name, String dob, String address, String identificationNumber);
+    }
+
+    /**
+     * Receives one appointment row, positioned on the cursor.
+     */
+    public interface AppointmentVisitor {
+        void onAppointment(Cursor row) throws IOException;
+    }
+
+    private static final String PATIENT_QUERY = "SELECT DISTINCT name, date_of_birth, address, identification_number FROM ";
+
+    private final Context context;
+    private final String databaseName;
+    private final DatabaseHelper dbHelper;
+    private final AppointmentDAO live;
+
+    /**
+     * Constructor for the history of the default database
+     * @param context - any context
+     */
+    public AppointmentHistory(Context context) {
+        this(context, DatabaseHelper.DATABASE_NAME);
+    }
+
+    /**
+     * Constructor for the history of a specific database file, used for clinic shards
+     * @param context - any context
+     * @param databaseName - the live database file name
+     */
+    public AppointmentHistory(Context context, String databaseName) {
+        this.context = context.getApplicationContext();
+        this.databaseName = databaseName;
+        this.dbHelper = DatabaseHelper.getInstance(context, databaseName);
+        this.live = new AppointmentDAO(context, databaseName);
+    }
+
+    /**
+     * Streams every appointment dated within a range, wherever it is stored.
+     * @param fromDate - first date (inclusive) as yyyy-MM-dd
+     * @param toDate - last date (inclusive) as yyyy-MM-dd
+     * @param visitor - called once per row
+     */
+    @Override
+    public void scanReportRows(String fromDate, String toDate, RowVisitor visitor) {
+        String archivedBefore = DatabaseHelper.archivedBefore(dbHelper.getReadableDatabase());
+        if (fromDate.compareTo(archivedBefore) < 0) {
+            for (SQLiteDatabase archive : archivesCovering(fromDate, toDate)) {
+                try (Cursor cursor = archive.rawQuery("SELECT date, source, description FROM "
+                        + ArchiveDatabaseHelper.TABLE_APPOINTMENTS + " WHERE date BETWEEN ? AND ? AND date < ?",
+                        new String[]{fromDate, toDate, archivedBefore})) {
+                    while (cursor.moveToNext()) {
+                        visitor.onRow(cursor.getString(0), cursor.getString(1), cursor.getString(2));
+                    }
+                }
+            }
+        }
+        if (toDate.compareTo(archivedBefore) >= 0) {
+            live.scanReportRows(fromDate.compareTo(archivedBefore) < 0 ? archivedBefore : fromDate, toDate, visitor);
+        }
+    }
+
+    /**
+     * Streams the details of every patient who ever booked, archives
+     * first. Details repeated within one table are sent once; the same
+     * details found in several tables are sent once per table.
+     * @param visitor - called once per distinct set of details
+     */
+    public void scanPatients(PatientVisitor visitor) {
+        for (int year : ArchiveDatabaseHelper.archivedYears(context, databaseName)) {
+            scanPatients(ArchiveDatabaseHelper.getInstance(context, databaseName, year).getReadableDatabase(),
+                    ArchiveDatabaseHelper.TABLE_APPOINTMENTS, visitor);
+        }
+        scanPatients(dbHelper.getReadableDatabase(), "appointments", visitor);
+    }
+
+    private static void scanPatients(SQLiteDatabase db, String table, PatientVisitor visitor) {
+        try (Cursor cursor = db.rawQuery(PATIENT_QUERY + table, null)) {
+            while (cursor.moveToNext()) {
+                visitor.onPatient(cursor.getString(0), cursor.getString(1), cursor.getString(2), cursor.getString(3));
+            }
+        }
+    }
+
+    /**
+     * Streams every appointment ever booked, archived years first and
+     * then the live table, each in id order. A write transaction on the
+     * live database keeps an archiving run from moving rows out from under
+     * the scan; it only delays the write-behind booking queue.
+     * @param columns - columns to select, found in both the live and archive tables
+     * @param visitor - called once per row
+     * @throws IOException if the visitor fails
+     */
+    public void scanAppointments(String[] columns, AppointmentVisitor visitor) throws IOException {
+        String select = "SELECT " + String.join(", ", columns) + " FROM ";
+        SQLiteDatabase db = dbHelper.getWritableDatabase();
+        db.beginTransactionNonExclusive();
+        try {
+            String[] archivedBefore = {DatabaseHelper.archivedBefore(db)};
+            for (int year : ArchiveDatabaseHelper.archivedYears(context, databaseName)) {
+                // rows at or after the watermark are copies the live table still owns
+                SQLiteDatabase archive = ArchiveDatabaseHelper.getInstance(context, databaseName, year).getReadableDatabase();
+                try (Cursor cursor = archive.rawQuery(select + ArchiveDatabaseHelper.TABLE_APPOINTMENTS
+                        + " WHERE date < ? ORDER BY id", archivedBefore)) {
+                    while (cursor.moveToNext()) {
+                        visitor.onAppointment(cursor);
+                    }
+                }
+            }
+            try (Cursor cursor = db.rawQuery(select + "appointments ORDER BY id", null)) {
+                while (cursor.moveToNext()) {
+                    visitor.onAppointment(cursor);
+                }
+            }
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+        }
+    }
+
+    /**
+     * Times booked on a date, wherever the date is stored
+     * @param date - date as yyyy-MM-dd
+     * @return the booked times
+     */
+    public List<String> getBookedTimesForDate(String date) {
+        if (date.compareTo(DatabaseHelper.archivedBefore(dbHelper.getReadableDatabase())) >= 0) {
+            return live.getBookedTimesForDate(date);
+        }
+        List<String> times = new ArrayList<>();
+        for (SQLiteDatabase archive : archivesCovering(date, date)) {
+            try (Cursor cursor = archive.rawQuery("SELECT time FROM " + ArchiveDatabaseHelper.TABLE_APPOINTMENTS
+                    + " WHERE date = ?", new String[]{date})) {
+                while (cursor.moveToNext()) {
+                    times.add(cursor.getString(0));
+                }
+            }
+        }
+        return times;
+    }
+
+    /**
+     * Opens the archives of the years a range covers, skipping years
+     * that were never archived.
+     */
+    private List<SQLiteDatabase> archivesCovering(String fromDate, String toDate) {
+        int firstYear = LocalDate.parse(fromDate).getYear();
+        int lastYear = LocalDate.parse(toDate).getYear();
+        List<SQLiteDatabase> archives = new ArrayList<>();
+        for (int year : ArchiveDatabaseHelper.archivedYears(context, databaseName)) {
+            if (year >= firstYear && year <= lastYear) {
+                archives.add(ArchiveDatabaseHelper.getInstance(context, databaseName, year).getReadableDatabase());
+            }
+        }
+        return archives;
+    }
+}
@@ -0,0 +1,133 @@
+/**
+ * Opens the archive database holding one year of past appointments for
+ * one clinic database. Archives are separate files opened on their own
+ * connections instead of being ATTACHed to the live database, because
+ * Android turns write-ahead logging off on a connection with attached
+ * databases and the live database relies on it.
+ * Archived rows keep their live ids, so copying a year again after an
+ * interrupted run replaces rows instead of duplicating them.
+ * @date 10.19.2026
+ */
+package com.example.wiredorthodontics.model;
+
+import android.content.Context;
+import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteOpenHelper;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+public class ArchiveDatabaseHelper extends SQLiteOpenHelper {
+
+    private static final int DATABASE_VERSION = 1;
+
+    // same columns as the live appointments table
+    static final String TABLE_APPOINTMENTS = "appointments";
+    static final String[] COLUMNS = {
+            "id", "name", "date_of_birth", "address", "identification_number",
+            "source", "date", "time", "description", "booking_ref"
+    };
+
+    // one helper per archive file
+    private static final Map<String, ArchiveDatabaseHelper> instances = new HashMap<>();
+
+    /**
+     * Returns the process-wide helper for a year's archive
+     * @param context - any context; the application context is retained
+     * @param databaseName - file name of the live database being archived
+     * @param year - the year archived
+     * @return the shared helper
+     */
+    public static synchronized ArchiveDatabaseHelper getInstance(Context context, String databaseName, int year) {
+        String name = fileName(databaseName, year);
+        ArchiveDatabaseHelper helper = instances.get(name);
+        if (helper == null) {
+            helper = new ArchiveDatabaseHelper(context.getApplicationContext(), name);
+            instances.put(name, helper);
+        }
+        return helper;
+    }
+
+    /**
+     * Years that have an archive file for a live database
+     * @param context - any context
+     * @param databaseName - file name of the live database
+     * @return the years in ascending order
+     */
+    public static List<Integer> archivedYears(Context context, String databaseName) {
+        List<Integer> years = new ArrayList<>();
+        File dir = context.getDatabasePath(databaseName).getParentFile();
+        String[] files = dir == null ? null : dir.list();
+        if (files == null) {
+            return years;
+        }
+        Pattern pattern = Pattern.compile(Pattern.quote(baseName(databaseName)) + "_archive_(\\d{4})\\.db");
+        for (String file : files) {
+            Matcher matcher = pattern.matcher(file);
+            if (matcher.matches()) {
+                years.add(Integer.parseInt(matcher.group(1)));
+            }
+        }
+        Collections.sort(years);
+        return years;
+    }
+
+    /**
+     * File name of a year's archive, e.g. AppData_archive_2024.db
+     * @param databaseName - file name of the live database
+     * @param year - the year archived
+     * @return the archive file name
+     */
+    static String fileName(String databaseName, int year) {
+        return baseName(databaseName) + "_archive_" + year + ".db";
+    }
+
+    private static String baseName(String databaseName) {
+        return databaseName.endsWith(".db") ? databaseName.substring(0, databaseName.length() - 3) : databaseName;
+    }
+
+    private ArchiveDatabaseHelper(Context context, String name) {
+        super(context, name, null, DATABASE_VERSION);
+        setWriteAheadLoggingEnabled(true);
+    }
+
+    /**
+     * Creates the archive table and the date index history lookups use.
+     * There are no triggers: archives are written only by the archiver.
+     *
+     * @param db The database.
+     */
+    @Override
+    public void onCreate(SQLiteDatabase db) {
+        db.execSQL("CREATE TABLE " + TABLE_APPOINTMENTS + " (" +
+                "id INTEGER PRIMARY KEY," +
+                "name TEXT," +
+                "date_of_birth TEXT," +
+                "address TEXT," +
+                "identification_number TEXT," +
+                "source TEXT," +
+                "date TEXT," +
+                "time TEXT," +
+                "description TEXT," +
+                "booking_ref TEXT" +
+                ")");
+        db.execSQL("CREATE INDEX idx_archive_date_time ON " + TABLE_APPOINTMENTS + " (date, time)");
+    }
+
+    /**
+     * No upgrades yet.
+     *
+     * @param db         The database.
+     * @param oldVersion The old database version.
+     * @param newVersion The new database version.
+     */
+    @Override
+    public void onUpgrade(SQLiteDatabase db, int oldVersion, int newVersion) {
+    }
+}
@@ -0,0 +1,413 @@
+/**
+ * Tamper-evident audit trail of who booked, changed, viewed or exported
+ * what. Every entry carries the SHA-256 of the entry before it and its own
+ * hash over both, so editing, removing or reordering any entry breaks the
+ * chain from that point on. Entries are stored in an {@link AppendOnlyLog}:
+ * recording one only hashes it and queues it, and the log's flusher
+ * thread writes them to disk in group commits, so callers never wait on
+ * storage.
+ * The head hash can be copied somewhere the device cannot rewrite (a
+ * backup, a report) to also catch the whole chain being regenerated.
+ * Once the active file passes a size limit it is sealed under the next
+ * name in sequence (audit.log.0, audit.log.1, ...) and a new one started,
+ * so opening the log reads at most the active file and the last sealed
+ * segment however long the history is. The chain runs across segments.
+ * @date 10.19.2026
+ */
+package com.example.wiredorthodontics.model;
+
+import android.content.Context;
+import android.util.Log;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+public class AuditLog implements Closeable {
+
+    private static final String TAG = "AuditLog";
+    private static final String FILE_NAME = "audit.log";
+    private static final int MAX_BATCH = 256;
+    private static final int HASH_BYTES = 32;
+    // record framing added by the append-only log: length and crc
+    private static final int FRAME_BYTES = 8;
+    // about ten thousand entries per segment
+    private static final long SEGMENT_BYTES = 1024 * 1024;
+
+    /**
+     * What was done.
+     */
+    public enum Action { BOOK, CHANGE, CANCEL, VIEW, EXPORT, RESTORE }
+
+    /**
+     * Outcome of verifying a log file.
+     */
+    public static class Verification {
+        private final long entries;
+        private final long failedAt;
+        private final String problem;
+        private final byte[] headHash;
+
+        Verification(long entries, long failedAt, String problem, byte[] headHash) {
+            this.entries = entries;
+            this.failedAt = failedAt;
+            this.problem = problem;
+            this.headHash = headHash;
+        }
+
+        /**
+         * Whether the whole chain is intact
+         * @return true if every entry checked out
+         */
+        public boolean isValid() {
+            return problem == null;
+        }
+
+        /**
+         * Number of entries that verified before any problem
+         * @return the count
+         */
+        public long getVerifiedEntries() {
+            return entries;
+        }
+
+        /**
+         * Sequence number of the first bad entry
+         * @return the sequence number, or -1 if the chain is intact
+         */
+        public long getFailedAt() {
+            return failedAt;
+        }
+
+        /**
+         * What was wrong with the first bad entry
+         * @return a description, or null if the chain is intact
+         */
+        public String getProblem() {
+            return problem;
+        }
+
+        /**
+         * Hash of the last verified entry
+         * @return hex SHA-256
+         */
+        public String getHeadHash() {
+            return toHex(headHash);
+        }
+    }
+
+    private static AuditLog instance;
+
+    // opens the shared log and records for callers that must not wait, in call order
+    private static final ExecutorService background = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "audit-recorder");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final File file;
+    private final long segmentLimit;
+    private final MessageDigest digest = newSha256();
+    private AppendOnlyLog log;
+    private long segmentBytes;
+    private byte[] headHash;
+    private long nextSeq;
+
+    /**
+     * Returns the process-wide audit log, opening it on first use. Opening
+     * reads the file once to find the head of the chain, so the first call
+     * should happen on a background thread.
+     * @param context - any context; the application context is retained
+     * @return the shared audit log
+     */
+    public static synchronized AuditLog getInstance(Context context) {
+        if (instance == null) {
+            try {
+                instance = new AuditLog(new File(context.getApplicationContext().getFilesDir(), FILE_NAME));
+            } catch (IOException e) {
+                throw new IllegalStateException("Unable to open audit log", e);
+            }
+        }
+        return instance;
+    }
+
+    /**
+     * Records an event on a background thread, opening the shared log
+     * first if needed. Never blocks and never throws: an entry that cannot
+     * be recorded is logged and dropped. For the ui thread, where
+     * {@link #getInstance(Context)} may read the file.
+     * @param context - any context
+     * @param actor - who did it
+     * @param action - what they did
+     * @param subject - what it was done to
+     * @param detail - free-form detail, may be null
+     */
+    public static void recordInBackground(Context context, final String actor, final Action action,
+                                          final String subject, final String detail) {
+        final Context app = context.getApplicationContext();
+        background.execute(() -> {
+            try {
+                getInstance(app).record(actor, action, subject, detail);
+            } catch (RuntimeException e) {
+                Log.e(TAG, "Audit entry could not be recorded: " + action + " " + subject, e);
+            }
+        });
+    }
+
+    /**
+     * Opens (or creates) an audit log file and continues its chain.
+     * A file whose tail does not read back cleanly is copied aside first,
+     * because opening the underlying log trims everything after the first
+     * bad record and that may be evidence.
+     * @param file - the log file
+     * @throws IOException if the file cannot be opened
+     */
+    public AuditLog(File file) throws IOException {
+        this(file, SEGMENT_BYTES);
+    }
+
+    /**
+     * Opens an audit log with a given segment size, for tests
+     * @param file - the active log file
+     * @param segmentLimit - size in bytes past which the active file is sealed
+     * @throws IOException if the file cannot be opened
+     */
+    AuditLog(File file, long segmentLimit) throws IOException {
+        final Head head = new Head();
+        long intact = AppendOnlyLog.read(file, payload -> head.advance(payload));
+        if (file.exists() && intact < file.length()) {
+            copy(file, new File(file.getPath() + ".damaged-" + System.currentTimeMillis()));
+        }
+        List<File> segments = segments(file);
+        if (head.seq == 0 && !segments.isEmpty()) {
+            // just rotated: the chain continues from the last sealed entry
+            AppendOnlyLog.read(segments.get(segments.size() - 1), payload -> head.advance(payload));
+        }
+        this.file = file;
+        this.segmentLimit = segmentLimit;
+        this.segmentBytes = intact;
+        this.headHash = head.hash;
+        this.nextSeq = head.seq;
+        this.log = new AppendOnlyLog(file, MAX_BATCH, "audit-flusher");
+    }
+
+    /**
+     * Records an event. Returns as soon as the entry is chained and queued;
+     * the returned future completes once it is on disk.
+     * @param actor - who did it
+     * @param action - what they did
+     * @param subject - what it was done to, e.g. a booking reference or date
+     * @param detail - free-form detail, may be null
+     * @return future completed when the entry is durable
+     */
+    public CompletableFuture<Void> record(String actor, Action action, String subject, String detail) {
+        byte[] entry;
+        // chaining and queueing under one lock keeps file order and chain order the same
+        synchronized (this) {
+            if (segmentBytes >= segmentLimit) {
+                rotate();
+            }
+            entry = encode(nextSeq, System.currentTimeMillis(), actor, action, subject, detail, headHash);
+            byte[] hash = hashOf(digest, entry, entry.length - HASH_BYTES);
+            System.arraycopy(hash, 0, entry, entry.length - HASH_BYTES, HASH_BYTES);
+            headHash = hash;
+            nextSeq++;
+            segmentBytes += entry.length + FRAME_BYTES;
+            return log.append(entry);
+        }
+    }
+
+    /**
+     * Seals the active file as the next segment and starts an empty one.
+     * Closing the log first writes out everything still queued. If the
+     * file cannot be renamed the active file simply keeps growing.
+     */
+    private void rotate() {
+        try {
+            log.close();
+            List<File> segments = segments(file);
+            int next = segments.isEmpty() ? 0 : segmentNumber(file, segments.get(segments.size() - 1)) + 1;
+            if (!file.renameTo(new File(file.getPath() + "." + next))) {
+                Log.w(TAG, "Could not seal " + file.getName() + ", it keeps growing");
+            } else {
+                segmentBytes = 0;
+            }
+            log = new AppendOnlyLog(file, MAX_BATCH, "audit-flusher");
+        } catch (IOException e) {
+            throw new IllegalStateException("Unable to reopen audit log", e);
+        }
+    }
+
+    /**
+     * Hash of the newest entry, to be kept outside the device as an anchor
+     * @return hex SHA-256
+     */
+    public synchronized String getHeadHash() {
+        return toHex(headHash);
+    }
+
+    /**
+     * Flushes queued entries and closes the file.
+     * @throws IOException if the final flush fails
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        log.close();
+    }
+
+    /**
+     * Checks an audit log entry by entry, its sealed segments first and
+     * then the active file, reading them as streams so memory use does not
+     * depend on their size. The files are only read.
+     * @param file - the active log file
+     * @return the result; on failure it names the first bad entry
+     * @throws IOException if a file cannot be read
+     */
+    public static Verification verify(File file) throws IOException {
+        final MessageDigest digest = newSha256();
+        final long[] verified = {0};
+        final byte[][] expectedPrev = {new byte[HASH_BYTES]};
+        final String[] problem = {null};
+
+        List<File> files = segments(file);
+        files.add(file);
+        for (File part : files) {
+            long intact = AppendOnlyLog.read(part, payload -> {
+                if (problem[0] != null) {
+                    return;
+                }
+                DataInputStream in = new DataInputStream(new ByteArrayInputStream(payload));
+                long seq = in.readLong();
+                byte[] prev = Arrays.copyOfRange(payload, payload.length - 2 * HASH_BYTES, payload.length - HASH_BYTES);
+                byte[] stored = Arrays.copyOfRange(payload, payload.length - HASH_BYTES, payload.length);
+                if (seq != verified[0]) {
+                    problem[0] = "expected entry " + verified[0] + " but found " + seq;
+                } else if (!Arrays.equals(prev, expectedPrev[0])) {
+                    problem[0] = "previous-hash link broken";
+                } else if (!Arrays.equals(stored, hashOf(digest, payload, payload.length - HASH_BYTES))) {
+                    problem[0] = "entry contents do not match its hash";
+                } else {
+                    expectedPrev[0] = stored;
+                    verified[0]++;
+                }
+            });
+            if (problem[0] == null && part.exists() && intact < part.length()) {
+                problem[0] = "unreadable record after the last good entry in " + part.getName();
+            }
+            if (problem[0] != null) {
+                break;
+            }
+        }
+        return new Verification(verified[0], problem[0] == null ? -1 : verified[0], problem[0], expectedPrev[0]);
+    }
+
+    /**
+     * Sealed segments of a log, oldest first
+     */
+    private static List<File> segments(File file) {
+        List<File> segments = new ArrayList<>();
+        File[] siblings = file.getAbsoluteFile().getParentFile().listFiles();
+        if (siblings != null) {
+            for (File sibling : siblings) {
+                if (segmentNumber(file, sibling) >= 0) {
+                    segments.add(sibling);
+                }
+            }
+        }
+        Collections.sort(segments, (a, b) -> Integer.compare(segmentNumber(file, a), segmentNumber(file, b)));
+        return segments;
+    }
+
+    private static int segmentNumber(File file, File segment) {
+        Matcher matcher = Pattern.compile(Pattern.quote(file.getName()) + "\\.(\\d{1,9})").matcher(segment.getName());
+        return matcher.matches() ? Integer.parseInt(matcher.group(1)) : -1;
+    }
+
+    /**
+     * Tracks the last entry while the file is read at open.
+     */
+    private static final class Head {
+        byte[] hash = new byte[HASH_BYTES];
+        long seq;
+
+        void advance(byte[] payload) throws IOException {
+            seq = new DataInputStream(new ByteArrayInputStream(payload)).readLong() + 1;
+            hash = Arrays.copyOfRange(payload, payload.length - HASH_BYTES, payload.length);
+        }
+    }
+
+    /**
+     * Lays out an entry with room for its own hash at the end:
+     * seq, time, actor, action, subject, detail, previous hash, hash.
+     */
+    private static byte[] encode(long seq, long timeMillis, String actor, Action action, String subject, String detail,
+                                 byte[] prevHash) {
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream(128);
+            DataOutputStream out = new DataOutputStream(bytes);
+            out.writeLong(seq);
+            out.writeLong(timeMillis);
+            out.writeUTF(actor == null ? "" : actor);
+            out.writeUTF(action.name());
+            out.writeUTF(subject == null ? "" : subject);
+            out.writeUTF(detail == null ? "" : detail);
+            out.write(prevHash);
+            out.write(new byte[HASH_BYTES]);
+            out.flush();
+            return bytes.toByteArray();
+        } catch (IOException e) {
+            throw new IllegalStateException(e); // in-memory stream
+        }
+    }
+
+    private static byte[] hashOf(MessageDigest digest, byte[] bytes, int length) {
+        digest.reset();
+        digest.update(bytes, 0, length);
+        return digest.digest();
+    }
+
+    private static MessageDigest newSha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    private static void copy(File from, File to) throws IOException {
+        try (InputStream in = new FileInputStream(from); OutputStream out = new FileOutputStream(to)) {
+            byte[] buffer = new byte[64 * 1024];
+            int n;
+            while ((n = in.read(buffer)) != -1) {
+                out.write(buffer, 0, n);
+            }
+        }
+    }
+
+    private static String toHex(byte[] bytes) {
+        StringBuilder hex = new StringBuilder(bytes.length * 2);
+        for (byte b : bytes) {
+            hex.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+        }
+        return hex.toString();
+    }
+}
@@ -0,0 +1,199 @@
+/**
+ * Read-only, memory-mapped snapshot of slot occupancy for a run of days.
+ * The file is a 32-byte header followed by one fixed-width record per day:
+ * <pre>
+ *   int  magic          "WAVS"
+ *   int  format version
+ *   long version stamp  grows with every write
+ *   long base epoch day first day covered
+ *   int  day count
+ *   int  slot count
+ *   short[day count]    occupancy bitmask per day, bit i = slot i booked
+ * </pre>
+ * Lookups are an absolute read from the mapped buffer: no copying, no
+ * database connection. A single writer replaces the file atomically with
+ * a rename and then bumps the version stamp in a small side file that
+ * every reader keeps mapped, so a reader can tell in one memory read that
+ * a newer snapshot exists and reopen.
+ * @date 10.19.2026
+ */
+package com.example.wiredorthodontics.model;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+public final class AvailabilitySnapshot {
+
+    static final int MAGIC = 0x57415653; // "WAVS"
+    static final int FORMAT_VERSION = 1;
+    static final int HEADER_BYTES = 32;
+    static final int RECORD_BYTES = 2;
+    private static final int MAX_SLOTS = 16; // bits in a record
+
+    private final ByteBuffer records;
+    private final MappedByteBuffer stamp; // null if the side file is missing
+    private final long versionStamp;
+    private final long baseEpochDay;
+    private final int dayCount;
+    private final int slotCount;
+
+    private AvailabilitySnapshot(ByteBuffer records, MappedByteBuffer stamp, long versionStamp,
+                                 long baseEpochDay, int dayCount, int slotCount) {
+        this.records = records;
+        this.stamp = stamp;
+        this.versionStamp = versionStamp;
+        this.baseEpochDay = baseEpochDay;
+        this.dayCount = dayCount;
+        this.slotCount = slotCount;
+    }
+
+    /**
+     * Maps a snapshot file for reading
+     * @param file - the snapshot file
+     * @return the snapshot
+     * @throws IOException if the file is missing, truncated or not a snapshot
+     */
+    public static AvailabilitySnapshot open(File file) throws IOException {
+        MappedByteBuffer mapped;
+        try (RandomAccessFile raf = new RandomAccessFile(file, "r"); FileChannel channel = raf.getChannel()) {
+            // the mapping stays valid after the channel is closed, and after the file is renamed over
+            mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        ByteBuffer buffer = mapped.order(ByteOrder.BIG_ENDIAN);
+        if (buffer.capacity() < HEADER_BYTES || buffer.getInt(0) != MAGIC) {
+            throw new IOException("Not an availability snapshot: " + file);
+        }
+        if (buffer.getInt(4) != FORMAT_VERSION) {
+            throw new IOException("Unsupported snapshot format " + buffer.getInt(4));
+        }
+        long versionStamp = buffer.getLong(8);
+        long baseEpochDay = buffer.getLong(16);
+        int dayCount = buffer.getInt(24);
+        int slotCount = buffer.getInt(28);
+        if (dayCount < 0 || slotCount > MAX_SLOTS || buffer.capacity() < HEADER_BYTES + (long) dayCount * RECORD_BYTES) {
+            throw new IOException("Truncated availability snapshot: " + file);
+        }
+        buffer.position(HEADER_BYTES);
+        ByteBuffer records = buffer.slice();
+        return new AvailabilitySnapshot(records, mapStamp(stampFile(file)), versionStamp, baseEpochDay, dayCount, slotCount);
+    }
+
+    /**
+     * Writes a new snapshot and publishes it: the file is written under a
+     * temporary name, renamed over the old one, and only then is the
+     * version stamp bumped for readers. Only one thread or process may
+     * write a given snapshot file.
+     * @param file - the snapshot file
+     * @param versionStamp - must be larger than the stamp of the snapshot it replaces
+     * @param baseEpochDay - first day covered
+     * @param slotCount - slots per day
+     * @param occupancy - one occupancy bitmask per day from the base day
+     * @throws IOException if the snapshot could not be written
+     */
+    public static void write(File file, long versionStamp, long baseEpochDay, int slotCount, int[] occupancy) throws IOException {
+        if (slotCount > MAX_SLOTS) {
+            throw new IllegalArgumentException("At most " + MAX_SLOTS + " slots per day");
+        }
+        ByteBuffer buffer = ByteBuffer.allocate(HEADER_BYTES + occupancy.length * RECORD_BYTES);
+        buffer.putInt(MAGIC).putInt(FORMAT_VERSION).putLong(versionStamp).putLong(baseEpochDay)
+                .putInt(occupancy.length).putInt(slotCount);
+        for (int day : occupancy) {
+            buffer.putShort((short) day);
+        }
+
+        File tmp = new File(file.getPath() + ".tmp");
+        try (FileOutputStream out = new FileOutputStream(tmp)) {
+            out.write(buffer.array());
+        }
+        if (!tmp.renameTo(file)) {
+            throw new IOException("Could not publish availability snapshot " + file);
+        }
+
+        try (RandomAccessFile raf = new RandomAccessFile(stampFile(file), "rw"); FileChannel channel = raf.getChannel()) {
+            channel.map(FileChannel.MapMode.READ_WRITE, 0, Long.BYTES).putLong(0, versionStamp);
+        }
+    }
+
+    /**
+     * Occupancy of a day
+     * @param epochDay - the day as {@link java.time.LocalDate#toEpochDay()}
+     * @return the bitmask of booked slots, or -1 if the day is not covered
+     */
+    public int getOccupancy(long epochDay) {
+        long index = epochDay - baseEpochDay;
+        if (index < 0 || index >= dayCount) {
+            return -1;
+        }
+        return records.getShort((int) index * RECORD_BYTES) & 0xFFFF;
+    }
+
+    /**
+     * Whether a slot is free on a day
+     * @param epochDay - the day as {@link java.time.LocalDate#toEpochDay()}
+     * @param slot - index into {@link TimeSlots#all()}
+     * @return true if free, false if booked or the day is not covered
+     */
+    public boolean isFree(long epochDay, int slot) {
+        int occupancy = getOccupancy(epochDay);
+        return occupancy >= 0 && (occupancy >> slot & 1) == 0;
+    }
+
+    /**
+     * Whether a newer snapshot has been published since this one was opened
+     * @return true if the reader should reopen the file
+     */
+    public boolean isStale() {
+        return stamp != null && stamp.getLong(0) != versionStamp;
+    }
+
+    /**
+     * Version stamp this snapshot was written with
+     * @return the stamp
+     */
+    public long getVersionStamp() {
+        return versionStamp;
+    }
+
+    /**
+     * First day covered
+     * @return the epoch day
+     */
+    public long getBaseEpochDay() {
+        return baseEpochDay;
+    }
+
+    /**
+     * Number of days covered
+     * @return the day count
+     */
+    public int getDayCount() {
+        return dayCount;
+    }
+
+    /**
+     * Slots per day the snapshot was written for
+     * @return the slot count
+     */
+    public int getSlotCount() {
+        return slotCount;
+    }
+
+    private static File stampFile(File snapshot) {
+        return new File(snapshot.getPath() + ".stamp");
+    }
+
+    private static MappedByteBuffer mapStamp(File stampFile) throws IOException {
+        if (!stampFile.exists()) {
+            return null;
+        }
+        try (RandomAccessFile raf = new RandomAccessFile(stampFile, "r"); FileChannel channel = raf.getChannel()) {
+            return channel.size() < Long.BYTES ? null : channel.map(FileChannel.MapMode.READ_ONLY, 0, Long.BYTES);
+        }
+    }
+}
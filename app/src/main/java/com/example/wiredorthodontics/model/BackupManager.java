@@ -0,0 +1,820 @@
+/**
+ * Backups for an appointments database file.
+ * Full backups are consistent snapshots taken with VACUUM INTO on a
+ * separate read-only connection, so the booking writer keeps running while
+ * the copy is made. Incremental backups store only the rows that changed
+ * since the previous backup, found through the appointment_changes log the
+ * schema keeps with triggers; when a block-out was edited they also carry
+ * the whole (small) block_outs table. The yearly archive databases are snapshotted
+ * by the archiver before it deletes their rows from the live table, since
+ * those rows leave the live file's backups from then on. Every backup file
+ * is listed in a manifest together with its SHA-256, and restore refuses
+ * to use a file whose checksum no longer matches.
+ * All methods do file and database I/O and must be called off the ui thread.
+ * @date 10.19.2026
+ */
+package com.example.wiredorthodontics.model;
+
+import android.content.ContentValues;
+import android.content.Context;
+import android.database.Cursor;
+import android.database.DatabaseUtils;
+import android.database.sqlite.SQLiteDatabase;
+import android.os.Build;
+import android.util.Log;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+public class BackupManager {
+
+    private static final String TAG = "BackupManager";
+
+    private static final String MANIFEST = "manifest.txt";
+    private static final String AUDIT_ACTOR = "backup-manager";
+    private static final int INCREMENTAL_MAGIC = 0x57494E43; // "WINC"
+    private static final byte OP_UPSERT = 'U';
+    private static final byte OP_DELETE = 'D';
+    private static final byte OP_BLOCK_OUTS = 'B';
+    private static final byte OP_END = 0;
+
+    // appointment columns carried in incremental backups and exports, after the id
+    private static final String[] COLUMNS = {
+            "name", "date_of_birth", "address", "identification_number",
+            "source", "date", "time", "description", "booking_ref"
+    };
+    // block-out columns carried in incremental backups, after the id
+    private static final String[] BLOCK_OUT_COLUMNS = {
+            DatabaseHelper.COLUMN_KIND, DatabaseHelper.COLUMN_STARTS_AT, DatabaseHelper.COLUMN_ENDS_AT, DatabaseHelper.COLUMN_REASON
+    };
+
+    /**
+     * Kind of backup file: a snapshot of the live database, the live rows
+     * changed since the previous backup, or a snapshot of one year's archive.
+     */
+    public enum Type { FULL, INCREMENTAL, ARCHIVE }
+
+    /**
+     * One entry of the backup manifest.
+     */
+    public static class Backup {
+        private final Type type;
+        private final String fileName;
+        private final long throughSeq;
+        private final String sha256;
+
+        Backup(Type type, String fileName, long throughSeq, String sha256) {
+            this.type = type;
+            this.fileName = fileName;
+            this.throughSeq = throughSeq;
+            this.sha256 = sha256;
+        }
+
+        /**
+         * Full snapshot or incremental
+         * @return the type
+         */
+        public Type getType() {
+            return type;
+        }
+
+        /**
+         * Name of the backup file inside the backup directory
+         * @return the file name
+         */
+        public String getFileName() {
+            return fileName;
+        }
+
+        /**
+         * Last change log sequence number contained in this backup; for an
+         * archive snapshot, the year it holds
+         * @return the sequence number or year
+         */
+        public long getThroughSeq() {
+            return throughSeq;
+        }
+
+        /**
+         * Hex SHA-256 of the backup file
+         * @return the checksum
+         */
+        public String getSha256() {
+            return sha256;
+        }
+
+        private String toManifestLine() {
+            return type + "\t" + fileName + "\t" + throughSeq + "\t" + sha256;
+        }
+
+        private static Backup fromManifestLine(String line) {
+            String[] parts = line.split("\t");
+            return new Backup(Type.valueOf(parts[0]), parts[1], Long.parseLong(parts[2]), parts[3]);
+        }
+    }
+
+    private final Context context;
+    private final DatabaseHelper dbHelper;
+    private final File databaseFile;
+    private final File backupDir;
+
+    // manifests are appended to by the archiver's instance as well as the backup job's
+    private static final Object manifestLock = new Object();
+
+    /**
+     * Constructor for backups of the default database
+     * @param context - any context
+     */
+    public BackupManager(Context context) {
+        this(context, DatabaseHelper.DATABASE_NAME);
+    }
+
+    /**
+     * Constructor for backups of a specific database file, used for clinic shards
+     * @param context - any context
+     * @param databaseName - the database file name
+     */
+    public BackupManager(Context context, String databaseName) {
+        this.context = context.getApplicationContext();
+        this.dbHelper = DatabaseHelper.getInstance(context, databaseName);
+        this.databaseFile = context.getDatabasePath(databaseName);
+        String shard = databaseName.endsWith(".db") ? databaseName.substring(0, databaseName.length() - 3) : databaseName;
+        this.backupDir = new File(new File(context.getFilesDir(), "backups"), shard);
+    }
+
+    /**
+     * Takes a consistent full snapshot of the database.
+     * Change log entries already covered by the previous full snapshot are
+     * pruned afterwards so the log does not grow without bound.
+     * @return the manifest entry of the new snapshot
+     * @throws IOException if the snapshot could not be written
+     */
+    public synchronized Backup fullBackup() throws IOException {
+        ensureBackupDir();
+        Backup previousFull = latestFull(readManifest());
+
+        File target = new File(backupDir, "full-" + System.currentTimeMillis() + ".db");
+        File tmp = new File(target.getPath() + ".tmp");
+        deleteIfExists(tmp);
+        dbHelper.getWritableDatabase(); // make sure the schema exists and is current
+
+        snapshot(databaseFile, dbHelper.getWritableDatabase(), tmp);
+        long throughSeq = maxSeq(tmp);
+
+        Backup backup = new Backup(Type.FULL, target.getName(), throughSeq, sha256(tmp));
+        publish(tmp, target, backup);
+
+        if (previousFull != null) {
+            dbHelper.getWritableDatabase().delete(DatabaseHelper.TABLE_CHANGES,
+                    DatabaseHelper.COLUMN_SEQ + " <= ?", new String[]{String.valueOf(previousFull.getThroughSeq())});
+        }
+        return backup;
+    }
+
+    /**
+     * Backs up the rows changed since the last backup. Takes a full snapshot
+     * instead when there is no full snapshot to build on yet.
+     * @return the manifest entry of the new backup, or null if nothing changed
+     * @throws IOException if the backup could not be written
+     */
+    public synchronized Backup incrementalBackup() throws IOException {
+        List<Backup> manifest = readManifest();
+        if (latestFull(manifest) == null) {
+            return fullBackup();
+        }
+        List<Backup> chain = liveChain(manifest);
+        long fromSeq = chain.get(chain.size() - 1).getThroughSeq();
+        SQLiteDatabase db = dbHelper.getReadableDatabase();
+        // everything up to the head is covered; a change landing while the rows are
+        // read is written now with its current values and again next time
+        String[] range = {String.valueOf(fromSeq), String.valueOf(DatabaseHelper.changeLogHead(db))};
+        String inRange = DatabaseHelper.COLUMN_SEQ + " > ? AND " + DatabaseHelper.COLUMN_SEQ + " <= ?";
+
+        // a row changed several times is written once with its current values, and a
+        // row that no longer exists comes back with a null id and is written as a delete
+        StringBuilder query = new StringBuilder("SELECT MAX(c." + DatabaseHelper.COLUMN_SEQ + "), c."
+                + DatabaseHelper.COLUMN_APPOINTMENT_ID + ", a.id");
+        for (String column : COLUMNS) {
+            query.append(", a.").append(column);
+        }
+        query.append(" FROM ").append(DatabaseHelper.TABLE_CHANGES).append(" c LEFT JOIN appointments a ON a.id = c.")
+                .append(DatabaseHelper.COLUMN_APPOINTMENT_ID)
+                .append(" WHERE c.").append(inRange)
+                .append(" AND c.").append(DatabaseHelper.COLUMN_OP).append(" <> '").append(DatabaseHelper.OP_BLOCK_OUT).append("'")
+                .append(" GROUP BY c.").append(DatabaseHelper.COLUMN_APPOINTMENT_ID);
+
+        File target = new File(backupDir, "incr-" + System.currentTimeMillis() + ".bin.gz");
+        File tmp = new File(target.getPath() + ".tmp");
+        ensureBackupDir();
+
+        MessageDigest digest = newSha256();
+        long throughSeq = fromSeq;
+        int rows = 0;
+        try (Cursor cursor = db.rawQuery(query.toString(), range);
+             DataOutputStream out = new DataOutputStream(new GZIPOutputStream(
+                     new DigestOutputStream(new FileOutputStream(tmp), digest)))) {
+            out.writeInt(INCREMENTAL_MAGIC);
+            out.writeLong(fromSeq);
+            while (cursor.moveToNext()) {
+                throughSeq = Math.max(throughSeq, cursor.getLong(0));
+                long id = cursor.getLong(1);
+                if (cursor.isNull(2)) {
+                    out.writeByte(OP_DELETE);
+                    out.writeLong(id);
+                } else {
+                    out.writeByte(OP_UPSERT);
+                    out.writeLong(id);
+                    for (int i = 0; i < COLUMNS.length; i++) {
+                        writeNullable(out, cursor.getString(3 + i));
+                    }
+                }
+                rows++;
+            }
+
+            long blockOutSeq = DatabaseUtils.longForQuery(db, "SELECT IFNULL(MAX(" + DatabaseHelper.COLUMN_SEQ + "), 0) FROM "
+                    + DatabaseHelper.TABLE_CHANGES + " WHERE " + inRange + " AND " + DatabaseHelper.COLUMN_OP + " = '"
+                    + DatabaseHelper.OP_BLOCK_OUT + "'", range);
+            if (blockOutSeq > 0) {
+                throughSeq = Math.max(throughSeq, blockOutSeq);
+                writeBlockOuts(db, out);
+                rows++;
+            }
+            out.writeByte(OP_END);
+            out.writeLong(throughSeq);
+        }
+
+        if (rows == 0) {
+            deleteIfExists(tmp);
+            return null;
+        }
+        Backup backup = new Backup(Type.INCREMENTAL, target.getName(), throughSeq, toHex(digest.digest()));
+        publish(tmp, target, backup);
+        return backup;
+    }
+
+    /**
+     * Snapshots one year's archive database. The archiver calls this after
+     * copying rows into the archive and before deleting them from the live
+     * table.
+     * @param year - the archived year
+     * @return the manifest entry of the new snapshot
+     * @throws IOException if the snapshot could not be written
+     */
+    public synchronized Backup backupArchive(int year) throws IOException {
+        ensureBackupDir();
+        String live = databaseFile.getName();
+        File target = new File(backupDir, "archive-" + year + "-" + System.currentTimeMillis() + ".db");
+        File tmp = new File(target.getPath() + ".tmp");
+        deleteIfExists(tmp);
+
+        snapshot(context.getDatabasePath(ArchiveDatabaseHelper.fileName(live, year)),
+                ArchiveDatabaseHelper.getInstance(context, live, year).getWritableDatabase(), tmp);
+
+        Backup backup = new Backup(Type.ARCHIVE, target.getName(), year, sha256(tmp));
+        publish(tmp, target, backup);
+        return backup;
+    }
+
+    /**
+     * Writes every appointment as gzip-compressed CSV, archived years
+     * included. Rows are streamed from cursors straight into the
+     * compressor, so memory use does not depend on the size of the table.
+     * @param out - destination; it is finished but not closed
+     * @return the number of appointments written
+     * @throws IOException if writing fails
+     */
+    public long exportAppointments(OutputStream out) throws IOException {
+        String[] columns = new String[COLUMNS.length + 1];
+        columns[0] = "id";
+        System.arraycopy(COLUMNS, 0, columns, 1, COLUMNS.length);
+
+        GZIPOutputStream gzip = new GZIPOutputStream(out, 64 * 1024);
+        Writer writer = new BufferedWriter(new OutputStreamWriter(gzip, StandardCharsets.UTF_8), 64 * 1024);
+        writer.write("id");
+        for (String column : COLUMNS) {
+            writer.write(',');
+            writer.write(column);
+        }
+        writer.write('\n');
+
+        long[] count = {0};
+        new AppointmentHistory(context, databaseFile.getName()).scanAppointments(columns, cursor -> {
+            writer.write(Long.toString(cursor.getLong(0)));
+            for (int i = 1; i <= COLUMNS.length; i++) {
+                writer.write(',');
+                writeCsvField(writer, cursor.getString(i));
+            }
+            writer.write('\n');
+            count[0]++;
+        });
+        writer.flush();
+        gzip.finish();
+        AuditLog.recordInBackground(context, AUDIT_ACTOR, AuditLog.Action.EXPORT, databaseFile.getName(), count[0] + " appointments");
+        return count[0];
+    }
+
+    /**
+     * The backups recorded in the manifest, oldest first
+     * @return the manifest entries
+     * @throws IOException if the manifest cannot be read
+     */
+    public synchronized List<Backup> listBackups() throws IOException {
+        return readManifest();
+    }
+
+    /**
+     * Checks every backup file against the checksum recorded in the manifest
+     * @return the entries whose file is missing or does not match
+     * @throws IOException if the manifest cannot be read
+     */
+    public synchronized List<Backup> verify() throws IOException {
+        List<Backup> bad = new ArrayList<>();
+        for (Backup backup : readManifest()) {
+            if (!matchesChecksum(backup)) {
+                bad.add(backup);
+            }
+        }
+        return bad;
+    }
+
+    /**
+     * Restores the database from the latest full snapshot plus every
+     * incremental backup taken after it, and puts back any yearly archive
+     * missing from the device from its latest snapshot. An archive still
+     * on the device is kept, since archives only ever gain rows. All files
+     * are verified against their checksums and the rebuilt database is
+     * integrity checked before it replaces the live file; if anything fails
+     * the live database is left untouched.
+     * If a booking queue is open on the database, the file is swapped on
+     * its writer thread and bookings it has not written yet are dropped,
+     * since their slots may be taken in the restored data; it then
+     * publishes availability from the restored file. The live connection
+     * is closed and reopened on the next access.
+     * @throws IOException if a backup is missing, corrupt or fails verification
+     */
+    public synchronized void restore() throws IOException {
+        List<Backup> manifest = readManifest();
+        Backup full = latestFull(manifest);
+        if (full == null) {
+            throw new IOException("No full backup to restore from");
+        }
+        long liveHead = DatabaseHelper.changeLogHead(dbHelper.getReadableDatabase());
+        List<Backup> chain = liveChain(manifest);
+        List<Backup> archives = missingArchives(manifest);
+        List<Backup> used = new ArrayList<>(chain);
+        used.addAll(archives);
+        for (Backup backup : used) {
+            if (!matchesChecksum(backup)) {
+                throw new IOException("Checksum mismatch for backup " + backup.getFileName());
+            }
+        }
+
+        File staging = new File(databaseFile.getPath() + ".restore");
+        deleteDatabaseFiles(staging);
+        copy(new File(backupDir, full.getFileName()), staging);
+
+        SQLiteDatabase db = SQLiteDatabase.openDatabase(staging.getPath(), null, SQLiteDatabase.OPEN_READWRITE);
+        try {
+            db.beginTransaction();
+            try {
+                for (Backup backup : chain.subList(1, chain.size())) {
+                    applyIncremental(db, new File(backupDir, backup.getFileName()));
+                }
+                // REPLACE does not fire delete triggers, so recount the summary once at the end
+                DatabaseHelper.rebuildDailyCapacity(db);
+                resetChangeLog(db, Math.max(chain.get(chain.size() - 1).getThroughSeq(), liveHead) + 1);
+                db.setTransactionSuccessful();
+            } finally {
+                db.endTransaction();
+            }
+            try (Cursor cursor = db.rawQuery("PRAGMA integrity_check", null)) {
+                if (!cursor.moveToFirst() || !"ok".equalsIgnoreCase(cursor.getString(0))) {
+                    throw new IOException("Restored database failed integrity check");
+                }
+            }
+        } finally {
+            db.close();
+        }
+
+        // archives first: the restored watermark may already point past their rows
+        for (Backup archive : archives) {
+            int year = (int) archive.getThroughSeq();
+            ArchiveDatabaseHelper.getInstance(context, databaseFile.getName(), year).close();
+            File file = context.getDatabasePath(ArchiveDatabaseHelper.fileName(databaseFile.getName(), year));
+            deleteDatabaseFiles(file);
+            copy(new File(backupDir, archive.getFileName()), file);
+        }
+
+        BookingQueue queue = BookingQueue.existingFor(databaseFile.getName());
+        if (queue != null) {
+            queue.replaceDatabase(() -> {
+                moveIntoPlace(staging);
+                return null;
+            });
+        } else {
+            moveIntoPlace(staging);
+        }
+        // the block-out calendar is held in memory and would still show the replaced rows
+        BlockOutStore.getInstance(context, databaseFile.getName()).reload();
+        AuditLog.recordInBackground(context, AUDIT_ACTOR, AuditLog.Action.RESTORE, databaseFile.getName(),
+                "through change " + chain.get(chain.size() - 1).getThroughSeq());
+        Log.i(TAG, "Restored " + databaseFile.getName() + " from " + chain.size() + " backup file(s) and "
+                + archives.size() + " archive(s)");
+    }
+
+    /**
+     * Writes a consistent point-in-time copy of a database file
+     * @param file - the database file
+     * @param pooled - the app's open connection to it, used where VACUUM INTO is missing
+     * @param target - file to create
+     */
+    private static void snapshot(File file, SQLiteDatabase pooled, File target) {
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.R) {
+            SQLiteDatabase source = SQLiteDatabase.openDatabase(file.getPath(), null, SQLiteDatabase.OPEN_READONLY);
+            try {
+                // VACUUM INTO reads the source inside one read transaction, so the copy is a
+                // single point-in-time snapshot; with WAL the booking writer is never blocked
+                source.execSQL("VACUUM INTO ?", new Object[]{target.getPath()});
+            } finally {
+                source.close();
+            }
+        } else {
+            copyDatabase(pooled, target);
+        }
+    }
+
+    /**
+     * Fallback snapshot for devices without VACUUM INTO (before Android 11).
+     * Every table is recreated from the source's own schema and its rows
+     * copied as they are, including the AUTOINCREMENT counters. Indexes and
+     * triggers are created only after the rows are in, so the capacity and
+     * change log triggers do not fire on the copy. A write transaction on
+     * the source keeps every table at the same point in time; it holds off
+     * other writers for the length of the copy, which only delays the
+     * write-behind booking queue.
+     * @param source - open connection to the database to copy
+     * @param target - file to create
+     */
+    static void copyDatabase(SQLiteDatabase source, File target) {
+        SQLiteDatabase copy = SQLiteDatabase.openOrCreateDatabase(target, null);
+        try {
+            source.beginTransactionNonExclusive();
+            try {
+                copy.beginTransaction();
+                try {
+                    List<String> afterRows = new ArrayList<>();
+                    boolean hasSequence = false;
+                    try (Cursor schema = source.rawQuery("SELECT type, name, sql FROM sqlite_master ORDER BY rowid", null)) {
+                        while (schema.moveToNext()) {
+                            String type = schema.getString(0);
+                            String name = schema.getString(1);
+                            String sql = schema.getString(2);
+                            if ("sqlite_sequence".equals(name)) {
+                                hasSequence = true; // created along with the first AUTOINCREMENT table
+                            } else if (sql == null || name.startsWith("sqlite_") || "android_metadata".equals(name)) {
+                                continue; // automatic indexes, internal tables and Android's locale table
+                            } else if ("table".equals(type)) {
+                                copy.execSQL(sql);
+                                copyRows(source, copy, name);
+                            } else {
+                                afterRows.add(sql);
+                            }
+                        }
+                    }
+                    if (hasSequence) {
+                        copyRows(source, copy, "sqlite_sequence");
+                    }
+                    for (String sql : afterRows) {
+                        copy.execSQL(sql);
+                    }
+                    copy.setVersion(source.getVersion());
+                    copy.setTransactionSuccessful();
+                } finally {
+                    copy.endTransaction();
+                }
+            } finally {
+                source.endTransaction();
+            }
+        } finally {
+            copy.close();
+        }
+    }
+
+    private static void copyRows(SQLiteDatabase source, SQLiteDatabase copy, String table) {
+        try (Cursor cursor = source.rawQuery("SELECT * FROM \"" + table + "\"", null)) {
+            String[] columns = cursor.getColumnNames();
+            ContentValues values = new ContentValues();
+            while (cursor.moveToNext()) {
+                values.clear();
+                for (int i = 0; i < columns.length; i++) {
+                    switch (cursor.getType(i)) {
+                        case Cursor.FIELD_TYPE_INTEGER:
+                            values.put(columns[i], cursor.getLong(i));
+                            break;
+                        case Cursor.FIELD_TYPE_FLOAT:
+                            values.put(columns[i], cursor.getDouble(i));
+                            break;
+                        case Cursor.FIELD_TYPE_BLOB:
+                            values.put(columns[i], cursor.getBlob(i));
+                            break;
+                        case Cursor.FIELD_TYPE_STRING:
+                            values.put(columns[i], cursor.getString(i));
+                            break;
+                        default:
+                            values.putNull(columns[i]);
+                    }
+                }
+                copy.insertOrThrow(table, null, values);
+            }
+        }
+    }
+
+    private void moveIntoPlace(File staging) throws IOException {
+        dbHelper.close();
+        deleteDatabaseFiles(databaseFile);
+        if (!staging.renameTo(databaseFile)) {
+            throw new IOException("Could not move restored database into place");
+        }
+    }
+
+    /**
+     * Empties the restored change log and restarts its numbering past both
+     * the last backed-up position and anything the replaced database had
+     * handed out. The next incremental backup still picks up exactly the
+     * changes made after the restore, and the numbering gap tells calendar
+     * feed clients holding an older sync token to resync in full.
+     */
+    private static void resetChangeLog(SQLiteDatabase db, long lastSeq) {
+        db.delete(DatabaseHelper.TABLE_CHANGES, null, null);
+        db.delete("sqlite_sequence", "name = ?", new String[]{DatabaseHelper.TABLE_CHANGES});
+        ContentValues sequence = new ContentValues();
+        sequence.put("name", DatabaseHelper.TABLE_CHANGES);
+        sequence.put("seq", lastSeq);
+        db.insert("sqlite_sequence", null, sequence);
+    }
+
+    private void applyIncremental(SQLiteDatabase db, File file) throws IOException {
+        try (DataInputStream in = new DataInputStream(new GZIPInputStream(new FileInputStream(file), 64 * 1024))) {
+            if (in.readInt() != INCREMENTAL_MAGIC) {
+                throw new IOException("Not an incremental backup: " + file.getName());
+            }
+            in.readLong(); // from seq
+            ContentValues values = new ContentValues();
+            byte op;
+            while ((op = in.readByte()) != OP_END) {
+                if (op == OP_BLOCK_OUTS) {
+                    readBlockOuts(db, in);
+                    continue;
+                }
+                long id = in.readLong();
+                if (op == OP_DELETE) {
+                    db.delete("appointments", "id = ?", new String[]{String.valueOf(id)});
+                } else if (op == OP_UPSERT) {
+                    values.clear();
+                    values.put("id", id);
+                    for (String column : COLUMNS) {
+                        values.put(column, readNullable(in));
+                    }
+                    db.insertWithOnConflict("appointments", null, values, SQLiteDatabase.CONFLICT_REPLACE);
+                } else {
+                    throw new IOException("Corrupt incremental backup: " + file.getName());
+                }
+            }
+        }
+    }
+
+    /**
+     * Writes the whole block-out table: a count, then each row's id and columns
+     */
+    private static void writeBlockOuts(SQLiteDatabase db, DataOutputStream out) throws IOException {
+        StringBuilder query = new StringBuilder("SELECT id");
+        for (String column : BLOCK_OUT_COLUMNS) {
+            query.append(", ").append(column);
+        }
+        query.append(" FROM ").append(DatabaseHelper.TABLE_BLOCK_OUTS);
+        try (Cursor cursor = db.rawQuery(query.toString(), null)) {
+            out.writeByte(OP_BLOCK_OUTS);
+            out.writeInt(cursor.getCount());
+            while (cursor.moveToNext()) {
+                out.writeLong(cursor.getLong(0));
+                for (int i = 0; i < BLOCK_OUT_COLUMNS.length; i++) {
+                    writeNullable(out, cursor.getString(1 + i));
+                }
+            }
+        }
+    }
+
+    /**
+     * Replaces the block-out table with the copy written by {@link #writeBlockOuts}
+     */
+    private static void readBlockOuts(SQLiteDatabase db, DataInputStream in) throws IOException {
+        db.delete(DatabaseHelper.TABLE_BLOCK_OUTS, null, null);
+        ContentValues values = new ContentValues();
+        for (int count = in.readInt(); count > 0; count--) {
+            values.clear();
+            values.put("id", in.readLong());
+            for (String column : BLOCK_OUT_COLUMNS) {
+                values.put(column, readNullable(in));
+            }
+            db.insertOrThrow(DatabaseHelper.TABLE_BLOCK_OUTS, null, values);
+        }
+    }
+
+    private static long maxSeq(File snapshot) {
+        SQLiteDatabase db = SQLiteDatabase.openDatabase(snapshot.getPath(), null, SQLiteDatabase.OPEN_READONLY);
+        try (Cursor cursor = db.rawQuery("SELECT IFNULL(MAX(" + DatabaseHelper.COLUMN_SEQ + "), 0) FROM "
+                + DatabaseHelper.TABLE_CHANGES, null)) {
+            cursor.moveToFirst();
+            return cursor.getLong(0);
+        } finally {
+            db.close();
+        }
+    }
+
+    /**
+     * Moves a finished backup into place and then records it, so the
+     * manifest never lists a file that is not fully written.
+     */
+    private void publish(File tmp, File target, Backup backup) throws IOException {
+        if (!tmp.renameTo(target)) {
+            throw new IOException("Could not move backup into place: " + target.getName());
+        }
+        synchronized (manifestLock) {
+            try (FileOutputStream out = new FileOutputStream(new File(backupDir, MANIFEST), true)) {
+                out.write((backup.toManifestLine() + "\n").getBytes(StandardCharsets.UTF_8));
+                out.getFD().sync();
+            }
+        }
+    }
+
+    private List<Backup> readManifest() throws IOException {
+        List<Backup> backups = new ArrayList<>();
+        File manifest = new File(backupDir, MANIFEST);
+        if (!manifest.exists()) {
+            return backups;
+        }
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(new FileInputStream(manifest), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (!line.isEmpty()) {
+                    backups.add(Backup.fromManifestLine(line));
+                }
+            }
+        }
+        return backups;
+    }
+
+    private static Backup latestFull(List<Backup> manifest) {
+        for (int i = manifest.size() - 1; i >= 0; i--) {
+            if (manifest.get(i).getType() == Type.FULL) {
+                return manifest.get(i);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * The latest full snapshot and the incremental backups taken after it
+     */
+    private static List<Backup> liveChain(List<Backup> manifest) {
+        Backup full = latestFull(manifest);
+        List<Backup> chain = new ArrayList<>();
+        for (Backup backup : manifest.subList(manifest.indexOf(full), manifest.size())) {
+            if (backup.getType() != Type.ARCHIVE) {
+                chain.add(backup);
+            }
+        }
+        return chain;
+    }
+
+    /**
+     * The latest snapshot of every archived year whose archive file is no
+     * longer on the device
+     */
+    private List<Backup> missingArchives(List<Backup> manifest) {
+        Map<Long, Backup> latest = new TreeMap<>();
+        for (Backup backup : manifest) {
+            if (backup.getType() == Type.ARCHIVE) {
+                latest.put(backup.getThroughSeq(), backup);
+            }
+        }
+        List<Backup> missing = new ArrayList<>();
+        for (Backup backup : latest.values()) {
+            int year = (int) backup.getThroughSeq();
+            if (!context.getDatabasePath(ArchiveDatabaseHelper.fileName(databaseFile.getName(), year)).exists()) {
+                missing.add(backup);
+            }
+        }
+        return missing;
+    }
+
+    private boolean matchesChecksum(Backup backup) throws IOException {
+        File file = new File(backupDir, backup.getFileName());
+        return file.exists() && sha256(file).equals(backup.getSha256());
+    }
+
+    private void ensureBackupDir() throws IOException {
+        if (!backupDir.isDirectory() && !backupDir.mkdirs()) {
+            throw new IOException("Could not create " + backupDir);
+        }
+    }
+
+    private static void deleteDatabaseFiles(File db) {
+        deleteIfExists(db);
+        deleteIfExists(new File(db.getPath() + "-wal"));
+        deleteIfExists(new File(db.getPath() + "-shm"));
+        deleteIfExists(new File(db.getPath() + "-journal"));
+    }
+
+    private static void deleteIfExists(File file) {
+        if (file.exists() && !file.delete()) {
+            Log.w(TAG, "Could not delete " + file);
+        }
+    }
+
+    private static void copy(File from, File to) throws IOException {
+        try (InputStream in = new FileInputStream(from); FileOutputStream out = new FileOutputStream(to)) {
+            byte[] buffer = new byte[64 * 1024];
+            int n;
+            while ((n = in.read(buffer)) != -1) {
+                out.write(buffer, 0, n);
+            }
+            out.getFD().sync();
+        }
+    }
+
+    static String sha256(File file) throws IOException {
+        MessageDigest digest = newSha256();
+        try (InputStream in = new FileInputStream(file)) {
+            byte[] buffer = new byte[64 * 1024];
+            int n;
+            while ((n = in.read(buffer)) != -1) {
+                digest.update(buffer, 0, n);
+            }
+        }
+        return toHex(digest.digest());
+    }
+
+    private static MessageDigest newSha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    private static String toHex(byte[] bytes) {
+        StringBuilder hex = new StringBuilder(bytes.length * 2);
+        for (byte b : bytes) {
+            hex.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+        }
+        return hex.toString();
+    }
+
+    private static void writeNullable(DataOutputStream out, String value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            out.writeUTF(value);
+        }
+    }
+
+    private static String readNullable(DataInputStream in) throws IOException {
+        return in.readBoolean() ? in.readUTF() : null;
+    }
+
+    private static void writeCsvField(Writer writer, String value) throws IOException {
+        if (value == null) {
+            return;
+        }
+        boolean quote = value.indexOf(',') >= 0 || value.indexOf('"') >= 0
+                || value.indexOf('\n') >= 0 || value.indexOf('\r') >= 0;
+        if (!quote) {
+            writer.write(value);
+            return;
+        }
+        writer.write('"');
+        writer.write(value.replace("\"", "\"\""));
+        writer.write('"');
+    }
+}
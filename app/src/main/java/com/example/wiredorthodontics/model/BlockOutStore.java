@@ -0,0 +1,171 @@
+/**
+ * Persists block-outs in the block_outs table and keeps the in-memory
+ * calendar the scheduling core reads in step with it. The table is the
+ * source of truth: every change is written first and then applied to the
+ * calendar. Block-outs that ended before today are not loaded, since no
+ * availability check can reach them.
+ * The calendar for a database file exists before its store does, so the
+ * scheduling core can be built on the ui thread with an empty calendar
+ * that fills in once the store is first opened in the background.
+ * @date 10.19.2026
+ */
+package com.example.wiredorthodontics.model;
+
+import android.content.ContentValues;
+import android.content.Context;
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+import android.util.Log;
+
+import com.example.wiredorthodontics.core.BlockOut;
+import com.example.wiredorthodontics.core.BlockOutCalendar;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+public class BlockOutStore {
+
+    private static final String TAG = "BlockOutStore";
+
+    // minute precision keeps the stored text sortable
+    private static final DateTimeFormatter STORED = DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm");
+
+    // one store per database file (clinic shard)
+    private static final Map<String, BlockOutStore> instances = new HashMap<>();
+    // not guarded by the store lock, which is held while the table loads
+    private static final ConcurrentHashMap<String, BlockOutCalendar> calendars = new ConcurrentHashMap<>();
+
+    private final DatabaseHelper dbHelper;
+    private final BlockOutCalendar calendar;
+
+    /**
+     * Returns the process-wide store for the default database, loading it
+     * on first use. The first call reads the table, so make it off the ui
+     * thread.
+     * @param context - any context
+     * @return the shared store
+     */
+    public static BlockOutStore getInstance(Context context) {
+        return getInstance(context, DatabaseHelper.DATABASE_NAME);
+    }
+
+    /**
+     * Returns the process-wide store for a specific database file, used for clinic shards
+     * @param context - any context
+     * @param databaseName - the database file name
+     * @return the shared store
+     */
+    public static synchronized BlockOutStore getInstance(Context context, String databaseName) {
+        BlockOutStore store = instances.get(databaseName);
+        if (store == null) {
+            store = new BlockOutStore(DatabaseHelper.getInstance(context, databaseName), calendarFor(databaseName));
+            store.reload();
+            instances.put(databaseName, store);
+        }
+        return store;
+    }
+
+    /**
+     * The calendar a database file's store keeps in step with its table.
+     * Never reads the database: until the store is opened (by
+     * {@link #getInstance(Context, String)}, normally from the startup
+     * warm-up) the calendar is empty, and the loaded block-outs are swapped
+     * in as a whole.
+     * @param databaseName - the database file name
+     * @return the shared calendar
+     */
+    public static BlockOutCalendar calendarFor(String databaseName) {
+        return calendars.computeIfAbsent(databaseName, name -> new BlockOutCalendar());
+    }
+
+    private BlockOutStore(DatabaseHelper dbHelper, BlockOutCalendar calendar) {
+        this.dbHelper = dbHelper;
+        this.calendar = calendar;
+    }
+
+    /**
+     * The calendar kept in step with the table, for the scheduling core
+     * @return the live calendar
+     */
+    public BlockOutCalendar getCalendar() {
+        return calendar;
+    }
+
+    /**
+     * Saves a block-out and applies it to the calendar
+     * @param kind - why the time is blocked
+     * @param start - first blocked minute; seconds are dropped
+     * @param end - first minute after the block-out; seconds are dropped
+     * @param reason - note for staff, may be null
+     * @return the stored block-out with its id
+     */
+    public BlockOut add(BlockOut.Kind kind, LocalDateTime start, LocalDateTime end, String reason) {
+        LocalDateTime from = start.truncatedTo(ChronoUnit.MINUTES);
+        LocalDateTime to = end.truncatedTo(ChronoUnit.MINUTES);
+        new BlockOut(0, kind, from, to, reason); // validates before anything is written
+        ContentValues values = new ContentValues();
+        values.put(DatabaseHelper.COLUMN_KIND, kind.name());
+        values.put(DatabaseHelper.COLUMN_STARTS_AT, STORED.format(from));
+        values.put(DatabaseHelper.COLUMN_ENDS_AT, STORED.format(to));
+        values.put(DatabaseHelper.COLUMN_REASON, reason);
+        long id = dbHelper.getWritableDatabase().insertOrThrow(DatabaseHelper.TABLE_BLOCK_OUTS, null, values);
+
+        BlockOut saved = new BlockOut(id, kind, from, to, reason);
+        calendar.add(saved);
+        return saved;
+    }
+
+    /**
+     * Deletes a block-out and frees its time
+     * @param id - the block-out's id
+     * @return true if it existed
+     */
+    public boolean remove(long id) {
+        int deleted = dbHelper.getWritableDatabase().delete(DatabaseHelper.TABLE_BLOCK_OUTS, "id = ?",
+                new String[]{String.valueOf(id)});
+        calendar.remove(id);
+        return deleted > 0;
+    }
+
+    /**
+     * Reloads the calendar from the table, e.g. after a restore
+     */
+    public void reload() {
+        List<BlockOut> current = new ArrayList<>();
+        SQLiteDatabase db = dbHelper.getReadableDatabase();
+        String today = STORED.format(LocalDate.now().atStartOfDay());
+        try (Cursor cursor = db.rawQuery("SELECT id, " + DatabaseHelper.COLUMN_KIND + ", " + DatabaseHelper.COLUMN_STARTS_AT
+                + ", " + DatabaseHelper.COLUMN_ENDS_AT + ", " + DatabaseHelper.COLUMN_REASON + " FROM "
+                + DatabaseHelper.TABLE_BLOCK_OUTS + " WHERE " + DatabaseHelper.COLUMN_ENDS_AT + " > ?", new String[]{today})) {
+            while (cursor.moveToNext()) {
+                try {
+                    current.add(new BlockOut(cursor.getLong(0), kindOf(cursor.getString(1)),
+                            LocalDateTime.parse(cursor.getString(2), STORED), LocalDateTime.parse(cursor.getString(3), STORED),
+                            cursor.getString(4)));
+                } catch (DateTimeParseException | IllegalArgumentException e) {
+                    Log.w(TAG, "Skipping unreadable block-out " + cursor.getLong(0), e);
+                }
+            }
+        }
+        calendar.replaceAll(current);
+    }
+
+    /**
+     * A kind written by a newer version still blocks its time
+     */
+    private static BlockOut.Kind kindOf(String name) {
+        try {
+            return BlockOut.Kind.valueOf(name);
+        } catch (IllegalArgumentException e) {
+            return BlockOut.Kind.CLOSURE;
+        }
+    }
+}
@@ -0,0 +1,594 @@
+/**
+ * Write-behind queue for new bookings.
+ * A submitted appointment is given a booking reference and handed back to
+ * the caller straight away as a provisional reservation. The booking is
+ * appended to a group-committed journal file and a single writer thread
+ * drains it into SQLite. Anything journaled but not yet written when the
+ * process dies is replayed on the next start; the unique booking reference
+ * makes that replay idempotent.
+ * The writer thread also publishes the clinic's availability snapshot
+ * whenever it catches up, and availability reads are served from that
+ * snapshot plus the reservations it does not show yet, without touching
+ * the database.
+ * A write that fails is retried with growing delays while its slot stays
+ * reserved; once the retries run out the booking is dropped, its slot is
+ * released and the journal records it as failed so it is not replayed.
+ * Restoring the database from a backup swaps the file on the writer
+ * thread and drops every booking not written yet, since they were made
+ * against availability the restored file no longer has.
+ * @date 10.19.2026
+ */
+package com.example.wiredorthodontics.model;
+
+import android.content.Context;
+import android.util.Log;
+
+import com.example.wiredorthodontics.core.AppointmentStore;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.UUID;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+public class BookingQueue implements AppointmentStore {
+
+    private static final String TAG = "BookingQueue";
+    private static final int MAX_BATCH = 64;
+    // days covered by the availability snapshot, from today
+    private static final int SNAPSHOT_DAYS = 120;
+
+    // journal record types
+    private static final byte RECORD_BOOKED = 1;
+    private static final byte RECORD_APPLIED = 2;
+    private static final byte RECORD_FAILED = 3;
+
+    // a failed write is retried after 0.5 s, 1 s, 2 s, ... about two minutes in all
+    private static final int MAX_ATTEMPTS = 9;
+    private static final long RETRY_BASE_MILLIS = 500;
+
+    // one queue (and journal writer) per clinic shard
+    private static final Map<String, BookingQueue> instances = new HashMap<>();
+
+    private final AppendOnlyLog journal;
+    private final AppointmentDAO dao;
+    private final BlockingQueue<Reservation> toWrite = new LinkedBlockingQueue<>();
+    private final Map<String, Reservation> inFlight = new ConcurrentHashMap<>();
+    // written, but kept in flight until a snapshot that includes them is published
+    private final List<Reservation> applied = new ArrayList<>();
+    // failed writes waiting for their next attempt, soonest first; writer thread only
+    private final PriorityQueue<Reservation> retries =
+            new PriorityQueue<>((a, b) -> Long.compare(a.retryAtNanos, b.retryAtNanos));
+    // completes once the writer's latest applied or failed marker is durable
+    private CompletableFuture<Void> lastMarker = CompletableFuture.completedFuture(null);
+    // work other threads need done between two writes, see replaceDatabase
+    private final ConcurrentLinkedQueue<FutureTask<Void>> tasks = new ConcurrentLinkedQueue<>();
+    // queued to wake the writer for a task rather than a booking
+    private final Reservation wake = new Reservation(null);
+
+    private final File snapshotFile;
+    private volatile AvailabilitySnapshot snapshot;
+    private long snapshotStamp;
+
+    /**
+     * A booking that has been accepted but may not be in SQLite yet.
+     */
+    public static class Reservation {
+        private final Appointment appointment;
+        private final CompletableFuture<Long> committed = new CompletableFuture<>();
+        private int attempts;
+        private long retryAtNanos;
+
+        Reservation(Appointment appointment) {
+            this.appointment = appointment;
+        }
+
+        /**
+         * The reserved appointment, including its booking reference
+         * @return the appointment
+         */
+        public Appointment getAppointment() {
+            return appointment;
+        }
+
+        /**
+         * Completes with the row id once the booking is written to the
+         * database, or -1 if the same booking was already there.
+         * @return future row id
+         */
+        public CompletableFuture<Long> getCommitted() {
+            return committed;
+        }
+    }
+
+    /**
+     * Returns the process-wide queue for the default clinic, opening the journal and replaying any
+     * unapplied bookings on first use. There must only ever be one writer
+     * per journal file, so activities share this instance across recreation.
+     * @param context any context; the application context is retained
+     * @return the shared booking queue
+     */
+    public static BookingQueue getInstance(Context context) {
+        return getInstance(context, ClinicShardRouter.DEFAULT_CLINIC);
+    }
+
+    /**
+     * Returns the process-wide queue for one clinic's shard.
+     * @param context any context; the application context is retained
+     * @param clinicId the clinic whose database the queue writes to
+     * @return the shared booking queue for that clinic
+     */
+    public static synchronized BookingQueue getInstance(Context context, String clinicId) {
+        BookingQueue queue = instances.get(clinicId);
+        if (queue == null) {
+            Context app = context.getApplicationContext();
+            try {
+                queue = new BookingQueue(new File(app.getFilesDir(), ClinicShardRouter.journalName(clinicId)),
+                        new AppointmentDAO(app, ClinicShardRouter.databaseName(clinicId)),
+                        new File(app.getFilesDir(), ClinicShardRouter.snapshotName(clinicId)));
+            } catch (IOException e) {
+                throw new IllegalStateException("Unable to open booking journal", e);
+            }
+            instances.put(clinicId, queue);
+        }
+        return queue;
+    }
+
+    /**
+     * The queue already writing to a database file, if one has been opened
+     * in this process
+     * @param databaseName - the database file name
+     * @return the queue, or null if there is none
+     */
+    static synchronized BookingQueue existingFor(String databaseName) {
+        for (Map.Entry<String, BookingQueue> entry : instances.entrySet()) {
+            if (ClinicShardRouter.databaseName(entry.getKey()).equals(databaseName)) {
+                return entry.getValue();
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Opens the journal, re-queues bookings that never reached the
+     * database and starts the writer thread.
+     * @param journalFile the journal file
+     * @param dao the database the writer drains into
+     * @param snapshotFile the availability snapshot the writer publishes
+     * @throws IOException if the journal cannot be opened or read
+     */
+    BookingQueue(File journalFile, AppointmentDAO dao, File snapshotFile) throws IOException {
+        this.dao = dao;
+        this.snapshotFile = snapshotFile;
+        this.journal = new AppendOnlyLog(journalFile, MAX_BATCH, "booking-journal");
+
+        replayJournal();
+
+        Thread writer = new Thread(this::writeLoop, "booking-writer");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    /**
+     * Accepts a validated appointment and returns immediately with a
+     * provisional reservation. The booking becomes durable at the next
+     * group commit of the journal and is written to SQLite after that.
+     * @param appointment the validated new appointment
+     * @return the provisional reservation
+     */
+    public Reservation submit(Appointment appointment) {
+        appointment.setBookingRef(UUID.randomUUID().toString());
+        Reservation reservation = new Reservation(appointment);
+        inFlight.put(appointment.getBookingRef(), reservation);
+
+        journal.append(encode(RECORD_BOOKED, appointment)).whenComplete((ignored, error) -> {
+            if (error != null) {
+                Log.e(TAG, "Booking could not be journaled", error);
+                inFlight.remove(appointment.getBookingRef());
+                reservation.committed.completeExceptionally(error);
+            } else {
+                toWrite.add(reservation);
+            }
+        });
+        return reservation;
+    }
+
+    /**
+     * Booked times on a date: rows already in the database plus
+     * reservations still waiting to be written. Dates covered by the
+     * availability snapshot are answered from it without a query.
+     * @param date the appointment date
+     * @return the booked times for that date
+     */
+    @Override
+    public List<String> getBookedTimesForDate(String date) {
+        // pending first: a reservation only leaves it after a snapshot showing it is published
+        List<String> times = getPendingTimes(date);
+        AvailabilitySnapshot current = snapshot;
+        int occupancy = current == null ? -1 : occupancyOf(current, date);
+        if (occupancy < 0) {
+            times.addAll(dao.getBookedTimesForDate(date));
+            return times;
+        }
+        for (int slot = 0; slot < TimeSlots.count(); slot++) {
+            if ((occupancy >> slot & 1) != 0) {
+                times.add(TimeSlots.get(slot));
+            }
+        }
+        return times;
+    }
+
+    /**
+     * Saves through the write-behind path; see {@link #submit(Appointment)}.
+     * @param appointment the validated new appointment
+     */
+    @Override
+    public void save(Appointment appointment) {
+        submit(appointment);
+    }
+
+    /**
+     * Times on the given date held by reservations that are not in the
+     * database yet, so they can be hidden from availability.
+     * @param date the appointment date
+     * @return the pending times for that date
+     */
+    public List<String> getPendingTimes(String date) {
+        List<String> times = new ArrayList<>();
+        for (Reservation reservation : inFlight.values()) {
+            if (date.equals(reservation.appointment.getAppointmentDate())) {
+                times.add(reservation.appointment.getAppointmentTime());
+            }
+        }
+        return times;
+    }
+
+    /**
+     * Replaces the database file between two writes. The replacement runs
+     * on the writer thread; afterwards every booking not written yet is
+     * dropped with a {@link CancellationException}, its slot released and
+     * the journal told not to replay it, and a snapshot of the new file is
+     * published. Blocks until that is done.
+     * @param replacement - moves the new file into place
+     * @throws IOException if the replacement failed; pending bookings are kept
+     */
+    void replaceDatabase(Callable<Void> replacement) throws IOException {
+        FutureTask<Void> task = new FutureTask<>(() -> {
+            replacement.call();
+            discardPending();
+            publishSnapshot();
+            return null;
+        });
+        tasks.add(task);
+        toWrite.add(wake);
+        try {
+            task.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while replacing the database");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException) {
+                throw (IOException) e.getCause();
+            }
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new IOException(e.getCause());
+        }
+    }
+
+    /**
+     * Drops every reservation not yet written. Ones still waiting for the
+     * journal are skipped when they reach the writer, since their futures
+     * are already done by then.
+     */
+    private void discardPending() {
+        for (Reservation reservation : applied) {
+            inFlight.remove(reservation.appointment.getBookingRef());
+        }
+        applied.clear();
+        retries.clear();
+        int dropped = 0;
+        for (Reservation reservation : inFlight.values()) {
+            String ref = reservation.appointment.getBookingRef();
+            inFlight.remove(ref);
+            if (reservation.committed.completeExceptionally(new CancellationException("Database restored from backup"))) {
+                lastMarker = journal.append(encodeMarker(RECORD_FAILED, ref));
+                dropped++;
+            }
+        }
+        if (dropped > 0) {
+            Log.w(TAG, "Dropped " + dropped + " unwritten booking(s) after the database was replaced");
+        }
+    }
+
+    /**
+     * Reads the journal back and queues every booked entry that has no
+     * matching applied marker.
+     */
+    private void replayJournal() throws IOException {
+        final Map<String, Appointment> unapplied = new LinkedHashMap<>();
+        journal.replay(payload -> {
+            DataInputStream in = new DataInputStream(new ByteArrayInputStream(payload));
+            byte type = in.readByte();
+            String ref = in.readUTF();
+            if (type == RECORD_BOOKED) {
+                unapplied.put(ref, readAppointment(in, ref));
+            } else if (type == RECORD_APPLIED || type == RECORD_FAILED) {
+                unapplied.remove(ref);
+            }
+        });
+
+        for (Appointment appointment : unapplied.values()) {
+            Reservation reservation = new Reservation(appointment);
+            inFlight.put(appointment.getBookingRef(), reservation);
+            toWrite.add(reservation);
+        }
+        if (!unapplied.isEmpty()) {
+            Log.i(TAG, "Replaying " + unapplied.size() + " journaled booking(s)");
+        }
+    }
+
+    /**
+     * Body of the single writer thread. Inserts each durable booking,
+     * marks it applied in the journal, publishes a fresh availability
+     * snapshot once it catches up (or every batch under sustained load),
+     * and empties the journal whenever the backlog is fully drained so it
+     * never grows without bound.
+     */
+    private void writeLoop() {
+        publishSnapshot();
+        while (true) {
+            Reservation reservation;
+            try {
+                reservation = nextToWrite();
+            } catch (InterruptedException e) {
+                return;
+            }
+
+            if (reservation == wake) {
+                runTasks();
+            } else if (!reservation.committed.isDone()) {
+                write(reservation);
+            }
+
+            if (!applied.isEmpty() && (toWrite.isEmpty() || applied.size() >= MAX_BATCH)) {
+                publishSnapshot();
+                for (Reservation written : applied) {
+                    inFlight.remove(written.appointment.getBookingRef());
+                }
+                applied.clear();
+            }
+
+            if (toWrite.isEmpty() && retries.isEmpty() && inFlight.isEmpty()) {
+                compactJournal();
+            }
+        }
+    }
+
+    private void write(Reservation reservation) {
+        Appointment appointment = reservation.appointment;
+        try {
+            long id = dao.insertAppointmentIfAbsent(appointment);
+            // the marker only saves replay work, so it rides the next group commit
+            lastMarker = journal.append(encodeMarker(RECORD_APPLIED, appointment.getBookingRef()));
+            applied.add(reservation);
+            reservation.committed.complete(id);
+        } catch (RuntimeException e) {
+            retryOrDrop(reservation, e);
+        }
+    }
+
+    private void runTasks() {
+        FutureTask<Void> task;
+        while ((task = tasks.poll()) != null) {
+            task.run();
+        }
+    }
+
+    /**
+     * Next booking to write: a retry that has come due, otherwise the next
+     * new booking, waiting no longer than the earliest pending retry.
+     */
+    private Reservation nextToWrite() throws InterruptedException {
+        while (true) {
+            Reservation retry = retries.peek();
+            if (retry == null) {
+                return toWrite.take();
+            }
+            long wait = retry.retryAtNanos - System.nanoTime();
+            if (wait <= 0) {
+                return retries.poll();
+            }
+            Reservation next = toWrite.poll(wait, TimeUnit.NANOSECONDS);
+            if (next != null) {
+                return next;
+            }
+        }
+    }
+
+    /**
+     * Schedules another attempt at a write that failed, keeping its slot
+     * reserved meanwhile, or gives the booking up once the attempts are
+     * used: its slot is released and a failed marker keeps it from being
+     * replayed into a slot someone else may have taken since.
+     */
+    private void retryOrDrop(Reservation reservation, RuntimeException error) {
+        String ref = reservation.appointment.getBookingRef();
+        reservation.attempts++;
+        if (reservation.attempts < MAX_ATTEMPTS) {
+            long delay = RETRY_BASE_MILLIS << (reservation.attempts - 1);
+            Log.w(TAG, "Booking " + ref + " could not be written, retrying in " + delay + " ms", error);
+            reservation.retryAtNanos = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(delay);
+            retries.add(reservation);
+            return;
+        }
+        Log.e(TAG, "Booking " + ref + " could not be written after " + MAX_ATTEMPTS + " attempts, dropping it", error);
+        lastMarker = journal.append(encodeMarker(RECORD_FAILED, ref));
+        inFlight.remove(ref);
+        reservation.committed.completeExceptionally(error);
+    }
+
+    /**
+     * Empties the journal once nothing is waiting to be written. The
+     * latest marker is still queued for the journal's next group commit,
+     * and the journal refuses to truncate while anything is queued, so
+     * wait for it first.
+     */
+    private void compactJournal() {
+        try {
+            lastMarker.join();
+        } catch (RuntimeException e) {
+            Log.w(TAG, "Journal marker could not be written", e);
+        }
+        // read the count before checking for work, so a booking journaled
+        // in between makes the truncate a no-op instead of losing it
+        long journaled = journal.getAppendedCount();
+        if (!toWrite.isEmpty() || !inFlight.isEmpty()) {
+            return;
+        }
+        try {
+            journal.truncateIfUnchanged(journaled);
+        } catch (IOException e) {
+            Log.w(TAG, "Journal could not be compacted", e);
+        }
+    }
+
+    /**
+     * Rewrites the availability snapshot from the daily capacity summary.
+     * Runs only on the writer thread, which makes it the snapshot's single
+     * writer. If the snapshot cannot be written, reads fall back to the
+     * database.
+     */
+    private void publishSnapshot() {
+        if (snapshotFile == null) {
+            return;
+        }
+        LocalDate base = LocalDate.now();
+        int[] occupancy = new int[SNAPSHOT_DAYS];
+        try {
+            for (DailyCapacity day : dao.getDailyCapacity(base.toString(), base.plusDays(SNAPSHOT_DAYS - 1).toString())) {
+                occupancy[(int) (LocalDate.parse(day.getDate()).toEpochDay() - base.toEpochDay())] = day.getOccupancy();
+            }
+            if (snapshotStamp == 0) {
+                snapshotStamp = previousSnapshotStamp();
+            }
+            long stamp = Math.max(System.currentTimeMillis(), snapshotStamp + 1);
+            AvailabilitySnapshot.write(snapshotFile, stamp, base.toEpochDay(), TimeSlots.count(), occupancy);
+            snapshotStamp = stamp;
+            snapshot = AvailabilitySnapshot.open(snapshotFile);
+        } catch (IOException | RuntimeException e) {
+            Log.w(TAG, "Availability snapshot could not be published", e);
+            snapshot = null;
+        }
+    }
+
+    /**
+     * Stamp of the snapshot left by the previous process, so stamps keep
+     * growing even if the clock has been set back.
+     */
+    private long previousSnapshotStamp() {
+        if (!snapshotFile.exists()) {
+            return 0;
+        }
+        try {
+            return AvailabilitySnapshot.open(snapshotFile).getVersionStamp();
+        } catch (IOException e) {
+            return 0; // unreadable; it is about to be replaced
+        }
+    }
+
+    private static int occupancyOf(AvailabilitySnapshot snapshot, String date) {
+        if (snapshot.getSlotCount() != TimeSlots.count()) {
+            return -1;
+        }
+        try {
+            return snapshot.getOccupancy(LocalDate.parse(date).toEpochDay());
+        } catch (DateTimeParseException e) {
+            return -1;
+        }
+    }
+
+    /**
+     * Journal record of a booking that was accepted but not written, as a
+     * crash would leave it; for tests of the replay
+     * @param appointment - the booking, with its booking reference set
+     * @return the record payload
+     */
+    static byte[] bookedRecord(Appointment appointment) {
+        return encode(RECORD_BOOKED, appointment);
+    }
+
+    private static byte[] encode(byte type, Appointment appointment) {
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream(256);
+            DataOutputStream out = new DataOutputStream(bytes);
+            out.writeByte(type);
+            out.writeUTF(appointment.getBookingRef());
+            writeNullable(out, appointment.getPatientName());
+            writeNullable(out, appointment.getDob());
+            writeNullable(out, appointment.getAddress());
+            writeNullable(out, appointment.getIdentificationNumber());
+            writeNullable(out, appointment.getAppointmentDate());
+            writeNullable(out, appointment.getAppointmentTime());
+            writeNullable(out, appointment.getAppointmentDescription());
+            writeNullable(out, appointment.getClinicSource());
+            out.flush();
+            return bytes.toByteArray();
+        } catch (IOException e) {
+            throw new IllegalStateException(e); // in-memory stream
+        }
+    }
+
+    private static byte[] encodeMarker(byte type, String bookingRef) {
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream(48);
+            DataOutputStream out = new DataOutputStream(bytes);
+            out.writeByte(type);
+            out.writeUTF(bookingRef);
+            out.flush();
+            return bytes.toByteArray();
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static Appointment readAppointment(DataInputStream in, String bookingRef) throws IOException {
+        Appointment appointment = new Appointment(readNullable(in), readNullable(in), readNullable(in), readNullable(in),
+                readNullable(in), readNullable(in), readNullable(in), readNullable(in));
+        appointment.setBookingRef(bookingRef);
+        return appointment;
+    }
+
+    private static void writeNullable(DataOutputStream out, String value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            out.writeUTF(value);
+        }
+    }
+
+    private static String readNullable(DataInputStream in) throws IOException {
+        return in.readBoolean() ? in.readUTF() : null;
+    }
+}
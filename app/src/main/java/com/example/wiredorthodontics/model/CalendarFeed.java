@@ -0,0 +1,319 @@
+/**
+ * iCalendar (RFC 5545) feed of the schedule for doctors' calendar apps.
+ * Events are written straight from a cursor into the output, so the
+ * document is never held in memory.
+ * The sync token is a position in the appointment change log. A client
+ * that sends back its last token gets only the appointments changed
+ * since, with deleted ones as cancelled events, or nothing at all if the
+ * schedule is unchanged; the current token doubles as an ETag. The log is
+ * pruned after full backups and renumbered with a gap after a restore, so
+ * a token older than the oldest entry kept, or newer than the log, gets a
+ * full feed instead.
+ * Only the live table is exported; appointments moved to the yearly
+ * archives are old enough that calendars already have them.
+ * @date 10.19.2026
+ */
+package com.example.wiredorthodontics.model;
+
+import android.content.Context;
+import android.database.Cursor;
+import android.database.DatabaseUtils;
+import android.database.sqlite.SQLiteDatabase;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.LocalTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+
+public class CalendarFeed {
+
+    private static final int MAX_LINE_OCTETS = 75;
+    private static final DateTimeFormatter UTC_STAMP =
+            DateTimeFormatter.ofPattern("yyyyMMdd'T'HHmmss'Z'").withZone(ZoneOffset.UTC);
+    private static final DateTimeFormatter LOCAL_TIME = DateTimeFormatter.ofPattern("HHmmss");
+    private static final String UID_DOMAIN = "@wiredorthodontics";
+
+    /**
+     * What a feed request produced.
+     */
+    public enum Kind {
+        /** every appointment; the client replaces what it has */
+        FULL,
+        /** only appointments changed since the client's token */
+        CHANGES,
+        /** nothing changed since the client's token and nothing was written */
+        NOT_MODIFIED
+    }
+
+    /**
+     * Outcome of writing a feed.
+     */
+    public static final class Result {
+        private final Kind kind;
+        private final long syncToken;
+        private final int events;
+
+        Result(Kind kind, long syncToken, int events) {
+            this.kind = kind;
+            this.syncToken = syncToken;
+            this.events = events;
+        }
+
+        /**
+         * Whether the feed is complete, a delta or empty
+         * @return the kind
+         */
+        public Kind getKind() {
+            return kind;
+        }
+
+        /**
+         * Token for the client's next request
+         * @return the opaque token
+         */
+        public String getSyncToken() {
+            return Long.toString(syncToken);
+        }
+
+        /**
+         * Number of events written, cancellations included
+         * @return the count
+         */
+        public int getEvents() {
+            return events;
+        }
+    }
+
+    private final DatabaseHelper dbHelper;
+
+    /**
+     * Constructor for the feed of the default database
+     * @param context - any context
+     */
+    public CalendarFeed(Context context) {
+        this(context, DatabaseHelper.DATABASE_NAME);
+    }
+
+    /**
+     * Constructor for the feed of a specific database file, used for clinic shards
+     * @param context - any context
+     * @param databaseName - the database file name
+     */
+    public CalendarFeed(Context context, String databaseName) {
+        this.dbHelper = DatabaseHelper.getInstance(context, databaseName);
+    }
+
+    /**
+     * Current sync token, cheap enough to answer conditional requests
+     * (If-None-Match) without touching the appointments
+     * @return the token; quote it to use it as an ETag
+     */
+    public String getCurrentToken() {
+        return Long.toString(DatabaseHelper.changeLogHead(dbHelper.getReadableDatabase()));
+    }
+
+    /**
+     * Writes the feed for a client.
+     * @param sinceToken - token from the client's previous result, or null for a full feed
+     * @param out - destination; flushed but not closed
+     * @return what was written and the token to send next time
+     * @throws IOException if writing fails
+     */
+    public Result write(String sinceToken, OutputStream out) throws IOException {
+        SQLiteDatabase db = dbHelper.getReadableDatabase();
+        long head = DatabaseHelper.changeLogHead(db);
+        long since = parseToken(sinceToken);
+        if (since == head) {
+            return new Result(Kind.NOT_MODIFIED, head, 0);
+        }
+        if (since < 0 || since > head || since + 1 < oldestKept(db, head)) {
+            return writeAll(db, head, out);
+        }
+        return writeChanges(db, since, head, out);
+    }
+
+    /**
+     * Every appointment in the live table. The head is read before the
+     * rows, so a change landing in between is sent now and again in the
+     * next delta, which the client applies as a harmless update.
+     */
+    private Result writeAll(SQLiteDatabase db, long head, OutputStream out) throws IOException {
+        Writer writer = open(out);
+        StringBuilder line = new StringBuilder(128);
+        String stamp = UTC_STAMP.format(Instant.now());
+        int events = 0;
+        try (Cursor cursor = db.rawQuery("SELECT id, name, date, time, description, booking_ref FROM appointments"
+                + " WHERE date IS NOT NULL", null)) {
+            while (cursor.moveToNext()) {
+                if (writeEvent(writer, line, stamp, cursor)) {
+                    events++;
+                }
+            }
+        }
+        close(writer);
+        return new Result(Kind.FULL, head, events);
+    }
+
+    /**
+     * Appointments changed after a position in the change log, each once
+     * with its current values; one that no longer exists comes back from
+     * the join with a null id and is sent as cancelled. Block-out entries
+     * in the log are skipped, and the delta runs to the head read before
+     * the rows, so a log holding only those still moves the client's token.
+     */
+    private Result writeChanges(SQLiteDatabase db, long since, long head, OutputStream out) throws IOException {
+        Writer writer = open(out);
+        StringBuilder line = new StringBuilder(128);
+        String stamp = UTC_STAMP.format(Instant.now());
+        int events = 0;
+        try (Cursor cursor = db.rawQuery("SELECT a.id, a.name, a.date, a.time, a.description, a.booking_ref, c."
+                + DatabaseHelper.COLUMN_APPOINTMENT_ID + " FROM " + DatabaseHelper.TABLE_CHANGES
+                + " c LEFT JOIN appointments a ON a.id = c." + DatabaseHelper.COLUMN_APPOINTMENT_ID
+                + " WHERE c." + DatabaseHelper.COLUMN_SEQ + " > ? AND c." + DatabaseHelper.COLUMN_SEQ + " <= ?"
+                + " AND c." + DatabaseHelper.COLUMN_OP + " <> '" + DatabaseHelper.OP_BLOCK_OUT + "'"
+                + " GROUP BY c." + DatabaseHelper.COLUMN_APPOINTMENT_ID,
+                new String[]{String.valueOf(since), String.valueOf(head)})) {
+            while (cursor.moveToNext()) {
+                boolean written = cursor.isNull(0)
+                        ? writeCancelled(writer, line, stamp, cursor.getLong(6))
+                        : writeEvent(writer, line, stamp, cursor);
+                if (written) {
+                    events++;
+                }
+            }
+        }
+        close(writer);
+        return new Result(Kind.CHANGES, head, events);
+    }
+
+    private boolean writeEvent(Writer writer, StringBuilder line, String stamp, Cursor cursor) throws IOException {
+        String date = cursor.getString(2);
+        LocalTime start = TimeSlots.startOf(cursor.getString(3));
+        if (date == null || date.length() != 10 || start == null) {
+            return false; // not a schedulable slot, nothing to put in a calendar
+        }
+        String day = date.substring(0, 4) + date.substring(5, 7) + date.substring(8, 10);
+
+        writeLine(writer, line, "BEGIN:VEVENT");
+        writeLine(writer, line, "UID:appointment-" + cursor.getLong(0) + UID_DOMAIN);
+        writeLine(writer, line, "DTSTAMP:" + stamp);
+        // floating local times: the clinic's wall clock, whatever zone the viewer is in
+        writeLine(writer, line, "DTSTART:" + day + "T" + LOCAL_TIME.format(start));
+        writeLine(writer, line, "DTEND:" + day + "T" + LOCAL_TIME.format(start.plusMinutes(TimeSlots.SLOT_MINUTES)));
+        line.setLength(0);
+        line.append("SUMMARY:");
+        escape(line, cursor.getString(1));
+        line.append(" - ");
+        escape(line, cursor.getString(4));
+        writeFolded(writer, line);
+        if (!cursor.isNull(5)) {
+            writeLine(writer, line, "DESCRIPTION:Booking reference " + cursor.getString(5));
+        }
+        writeLine(writer, line, "STATUS:CONFIRMED");
+        writeLine(writer, line, "END:VEVENT");
+        return true;
+    }
+
+    private boolean writeCancelled(Writer writer, StringBuilder line, String stamp, long appointmentId) throws IOException {
+        writeLine(writer, line, "BEGIN:VEVENT");
+        writeLine(writer, line, "UID:appointment-" + appointmentId + UID_DOMAIN);
+        writeLine(writer, line, "DTSTAMP:" + stamp);
+        writeLine(writer, line, "STATUS:CANCELLED");
+        writeLine(writer, line, "END:VEVENT");
+        return true;
+    }
+
+    private static Writer open(OutputStream out) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), 64 * 1024);
+        writer.write("BEGIN:VCALENDAR\r\n");
+        writer.write("VERSION:2.0\r\n");
+        writer.write("PRODID:-//Wired Orthodontics//Schedule//EN\r\n");
+        writer.write("CALSCALE:GREGORIAN\r\n");
+        return writer;
+    }
+
+    private static void close(Writer writer) throws IOException {
+        writer.write("END:VCALENDAR\r\n");
+        writer.flush();
+    }
+
+    private static void writeLine(Writer writer, StringBuilder line, String content) throws IOException {
+        line.setLength(0);
+        line.append(content);
+        writeFolded(writer, line);
+    }
+
+    /**
+     * Writes a content line, folding it so no physical line is longer than
+     * 75 octets of UTF-8. Folds never split a character.
+     */
+    static void writeFolded(Writer writer, CharSequence line) throws IOException {
+        int octets = 0;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            int size = c < 0x80 ? 1 : c < 0x800 ? 2 : Character.isHighSurrogate(c) ? 4 : 3;
+            if (octets + size > MAX_LINE_OCTETS) {
+                writer.write("\r\n ");
+                octets = 1; // the leading space of the continuation line
+            }
+            writer.write(c);
+            if (size == 4 && i + 1 < line.length()) {
+                writer.write(line.charAt(++i));
+            }
+            octets += size;
+        }
+        writer.write("\r\n");
+    }
+
+    /**
+     * Appends a TEXT value with backslashes, separators and line breaks escaped
+     */
+    static void escape(StringBuilder out, String text) {
+        if (text == null) {
+            return;
+        }
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            switch (c) {
+                case '\\':
+                case ';':
+                case ',':
+                    out.append('\\').append(c);
+                    break;
+                case '\n':
+                    out.append("\\n");
+                    break;
+                case '\r':
+                    break;
+                default:
+                    out.append(c);
+            }
+        }
+    }
+
+    /**
+     * Sequence number of the oldest change log entry still kept; one past
+     * the head when the log is empty
+     */
+    private static long oldestKept(SQLiteDatabase db, long head) {
+        return DatabaseUtils.longForQuery(db, "SELECT IFNULL(MIN(" + DatabaseHelper.COLUMN_SEQ + "), ?) FROM "
+                + DatabaseHelper.TABLE_CHANGES, new String[]{String.valueOf(head + 1)});
+    }
+
+    private static long parseToken(String token) {
+        if (token == null) {
+            return -1;
+        }
+        try {
+            return Long.parseLong(token.trim());
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+}
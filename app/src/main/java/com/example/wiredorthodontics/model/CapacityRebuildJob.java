@@ -0,0 +1,36 @@
+/**
+ * Background job that rebuilds the daily capacity summary when it has
+ * drifted from the appointments table (for example after a restore or a
+ * manual edit of the database). Cheap when nothing is wrong: the check is
+ * two aggregate queries.
+ * @date 10.19.2026
+ */
+package com.example.wiredorthodontics.model;
+
+import android.util.Log;
+
+public class CapacityRebuildJob implements Runnable {
+
+    private static final String TAG = "CapacityRebuildJob";
+
+    private final AppointmentDAO dao;
+
+    /**
+     * Constructor for the rebuild job
+     * @param dao - data access object for the database to check
+     */
+    public CapacityRebuildJob(AppointmentDAO dao) {
+        this.dao = dao;
+    }
+
+    /**
+     * Rebuilds the summary if it is stale. Must not run on the ui thread.
+     */
+    @Override
+    public void run() {
+        if (dao.isDailyCapacityStale()) {
+            Log.i(TAG, "Daily capacity summary is stale, rebuilding");
+            dao.rebuildDailyCapacity();
+        }
+    }
+}
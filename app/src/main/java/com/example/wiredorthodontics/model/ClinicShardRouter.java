@@ -0,0 +1,220 @@
+/**
+ * Routes each clinic location to its own shard: a separate SQLite
+ * database file with its own connection pool, booking journal and
+ * scheduling core. Like the booking queue, each shard's scheduling core
+ * is shared by the whole process, since its date locks are what keep two
+ * bookings out of one slot. The original location keeps using AppData.db so
+ * existing installs need no data migration.
+ * @date 10.19.2026
+ */
+package com.example.wiredorthodontics.model;
+
+import android.content.Context;
+
+import com.example.wiredorthodontics.core.AppointmentStore;
+import com.example.wiredorthodontics.core.HolidayCalendar;
+import com.example.wiredorthodontics.core.MultiClinicScheduler;
+import com.example.wiredorthodontics.core.SchedulingService;
+import com.example.wiredorthodontics.core.SlotHoldRegistry;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+public class ClinicShardRouter {
+
+    /**
+     * The clinic whose data lives in the original AppData.db.
+     */
+    public static final String DEFAULT_CLINIC = "main";
+
+    // clinic ids become part of file names
+    private static final Pattern CLINIC_ID = Pattern.compile("[a-z0-9_-]{1,32}");
+
+    // a picked time is held this long while the patient fills in their details
+    private static final long HOLD_MINUTES = 10;
+
+    // one scheduling core per clinic shard
+    private static final Map<String, SchedulingService> schedulers = new HashMap<>();
+
+    private final Context context;
+    private final List<String> clinicIds;
+
+    /**
+     * Constructor for a router over a fixed set of locations
+     * @param context any context; the application context is retained
+     * @param clinicIds ids of every clinic location, lower-case letters, digits, '-' and '_'
+     */
+    public ClinicShardRouter(Context context, List<String> clinicIds) {
+        for (String clinicId : clinicIds) {
+            checkClinicId(clinicId);
+        }
+        this.context = context.getApplicationContext();
+        this.clinicIds = Collections.unmodifiableList(new ArrayList<>(clinicIds));
+    }
+
+    /**
+     * Every routed clinic
+     * @return the clinic ids in configuration order
+     */
+    public List<String> getClinicIds() {
+        return clinicIds;
+    }
+
+    /**
+     * Data access object for one clinic's shard
+     * @param clinicId the clinic
+     * @return a dao over that clinic's database file
+     */
+    public AppointmentDAO dao(String clinicId) {
+        return new AppointmentDAO(context, databaseName(route(clinicId)));
+    }
+
+    /**
+     * The write-behind booking queue for one clinic's shard
+     * @param clinicId the clinic
+     * @return the shared queue for that clinic
+     */
+    public BookingQueue bookingQueue(String clinicId) {
+        return BookingQueue.getInstance(context, route(clinicId));
+    }
+
+    /**
+     * Maps the current availability snapshot of one clinic for a read-only
+     * consumer such as a waiting-room kiosk. Check
+     * {@link AvailabilitySnapshot#isStale()} and reopen when it turns true.
+     * @param clinicId the clinic
+     * @return the snapshot
+     * @throws IOException if no snapshot has been written yet
+     */
+    public AvailabilitySnapshot openAvailabilitySnapshot(String clinicId) throws IOException {
+        return AvailabilitySnapshot.open(new File(context.getFilesDir(), snapshotName(route(clinicId))));
+    }
+
+    /**
+     * The scheduling core for one clinic's shard
+     * @param clinicId the clinic
+     * @return the shared scheduling core for that clinic
+     */
+    public SchedulingService schedulingService(String clinicId) {
+        return schedulingService(context, route(clinicId));
+    }
+
+    /**
+     * Builds a scheduler over the shared scheduling core of every routed
+     * clinic. Loads each clinic's block-outs, so call it off the ui thread.
+     * @param fanOut executor for cross-clinic queries
+     * @return the multi-clinic scheduler
+     */
+    public MultiClinicScheduler scheduler(ExecutorService fanOut) {
+        Map<String, SchedulingService> services = new LinkedHashMap<>();
+        for (String clinicId : clinicIds) {
+            // the startup warm-up only loads the default clinic's block-outs
+            BlockOutStore.getInstance(context, databaseName(clinicId));
+            services.put(clinicId, schedulingService(clinicId));
+        }
+        return new MultiClinicScheduler(services, fanOut);
+    }
+
+    /**
+     * Returns the process-wide scheduling core for one clinic's shard:
+     * its booking queue, the 2023 holiday calendar, the clinic's own slot
+     * holds and its stored block-outs. Building it touches no files; the
+     * booking queue is opened by the first availability check or booking,
+     * normally long after the startup warm-up has replayed its journal, and
+     * the block-out calendar fills in when the warm-up loads the table.
+     * @param context any context; the application context is retained
+     * @param clinicId the clinic
+     * @return the shared scheduling core for that clinic
+     */
+    public static synchronized SchedulingService schedulingService(Context context, String clinicId) {
+        SchedulingService service = schedulers.get(clinicId);
+        if (service == null) {
+            service = new SchedulingService(new QueueStore(context.getApplicationContext(), clinicId), HolidayCalendar.newMexico2023(),
+                    new SlotHoldRegistry(HOLD_MINUTES, TimeUnit.MINUTES),
+                    BlockOutStore.calendarFor(databaseName(clinicId)));
+            schedulers.put(clinicId, service);
+        }
+        return service;
+    }
+
+    /**
+     * Database file holding a clinic's appointments
+     * @param clinicId the clinic
+     * @return the database file name
+     */
+    public static String databaseName(String clinicId) {
+        checkClinicId(clinicId);
+        return DEFAULT_CLINIC.equals(clinicId) ? DatabaseHelper.DATABASE_NAME : "AppData_" + clinicId + ".db";
+    }
+
+    /**
+     * Booking journal file for a clinic's write-behind queue
+     * @param clinicId the clinic
+     * @return the journal file name
+     */
+    static String journalName(String clinicId) {
+        checkClinicId(clinicId);
+        return DEFAULT_CLINIC.equals(clinicId) ? "bookings.journal" : "bookings_" + clinicId + ".journal";
+    }
+
+    /**
+     * Availability snapshot file for a clinic, written by its booking queue
+     * @param clinicId the clinic
+     * @return the snapshot file name
+     */
+    static String snapshotName(String clinicId) {
+        checkClinicId(clinicId);
+        return DEFAULT_CLINIC.equals(clinicId) ? "availability.snap" : "availability_" + clinicId + ".snap";
+    }
+
+    /**
+     * Store that resolves the clinic's booking queue on each call instead
+     * of when the scheduling core is built, since opening the queue
+     * replays its journal
+     */
+    private static final class QueueStore implements AppointmentStore {
+        private final Context context;
+        private final String clinicId;
+
+        QueueStore(Context context, String clinicId) {
+            this.context = context;
+            this.clinicId = clinicId;
+        }
+
+        @Override
+        public List<String> getBookedTimesForDate(String date) {
+            return queue().getBookedTimesForDate(date);
+        }
+
+        @Override
+        public void save(Appointment appointment) {
+            queue().save(appointment);
+        }
+
+        private BookingQueue queue() {
+            return BookingQueue.getInstance(context, clinicId);
+        }
+    }
+
+    private String route(String clinicId) {
+        if (!clinicIds.contains(clinicId)) {
+            throw new IllegalArgumentException("Unknown clinic: " + clinicId);
+        }
+        return clinicId;
+    }
+
+    private static void checkClinicId(String clinicId) {
+        if (clinicId == null || !CLINIC_ID.matcher(clinicId).matches()) {
+            throw new IllegalArgumentException("Invalid clinic id: " + clinicId);
+        }
+    }
+}
@@ -0,0 +1,69 @@
+/**
+ * One row of the daily capacity summary: how many slots are booked and
+ * free on a date, and which ones (bit i set means slot i of
+ * {@link TimeSlots} is taken).
+ * @date 10.19.2026
+ */
+package com.example.wiredorthodontics.model;
+
+public class DailyCapacity {
+    private final String date;
+    private final int booked;
+    private final int free;
+    private final int occupancy;
+
+    /**
+     * Constructor for a capacity row
+     * @param date - the yyyy-MM-dd date
+     * @param booked - number of appointments on that date
+     * @param free - number of open slots on that date
+     * @param occupancy - bitmask of booked slot indexes
+     */
+    public DailyCapacity(String date, int booked, int free, int occupancy) {
+        this.date = date;
+        this.booked = booked;
+        this.free = free;
+        this.occupancy = occupancy;
+    }
+
+    /**
+     * The date of this row
+     * @return the yyyy-MM-dd date
+     */
+    public String getDate() {
+        return date;
+    }
+
+    /**
+     * Booked appointment count
+     * @return number of appointments
+     */
+    public int getBooked() {
+        return booked;
+    }
+
+    /**
+     * Open slot count
+     * @return number of free slots
+     */
+    public int getFree() {
+        return free;
+    }
+
+    /**
+     * Occupied slots as a bitmask
+     * @return the occupancy bitmask
+     */
+    public int getOccupancy() {
+        return occupancy;
+    }
+
+    /**
+     * Whether a given slot is taken
+     * @param slotIndex - index into {@link TimeSlots#all()}
+     * @return true if booked
+     */
+    public boolean isBooked(int slotIndex) {
+        return (occupancy & (1 << slotIndex)) != 0;
+    }
+}
@@ -5,21 +5,29 @@
  */
 package com.example.wiredorthodontics.model;
 
+import android.content.ContentValues;
 import android.content.Context;
+import android.database.Cursor;
+import android.database.DatabaseUtils;
 import android.database.sqlite.SQLiteDatabase;
 import android.database.sqlite.SQLiteOpenHelper;
 
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
 public class DatabaseHelper extends SQLiteOpenHelper {
 
     /**
      * Name of the database.
      */
-    private static final String DATABASE_NAME = "AppData.db";
+    static final String DATABASE_NAME = "AppData.db";
 
     /**
      * Database version.
      */
-    private static final int DATABASE_VERSION = 1;
+    private static final int DATABASE_VERSION = 11;
 
     // Table and field names
     private static final String TABLE_APPOINTMENTS = "appointments";
@@ -32,6 +40,74 @@ public class DatabaseHelper extends SQLiteOpenHelper {
     private static final String COLUMN_DATE = "date";
     private static final String COLUMN_TIME = "time";
     private static final String COLUMN_DESCRIPTION = "description";
+    private static final String COLUMN_BOOKING_REF = "booking_ref";
+
+    // Daily capacity summary, kept in step with appointments by triggers
+    static final String TABLE_DAILY_CAPACITY = "daily_capacity";
+    static final String COLUMN_BOOKED = "booked";
+    static final String COLUMN_FREE = "free";
+    static final String COLUMN_OCCUPANCY = "occupancy";
+
+    // Change log of appointment rows, used for incremental backups
+    static final String TABLE_CHANGES = "appointment_changes";
+    static final String COLUMN_SEQ = "seq";
+    static final String COLUMN_OP = "op";
+    static final String COLUMN_APPOINTMENT_ID = "appointment_id";
+    static final String COLUMN_CHANGED_AT = "changed_at";
+    // op of entries for block-out rows; their appointment_id holds the block-out id
+    static final String OP_BLOCK_OUT = "B";
+
+    // Ledger of appointment reminders already sent
+    static final String TABLE_REMINDERS_SENT = "reminders_sent";
+    static final String COLUMN_KIND = "kind";
+    static final String COLUMN_SENT_AT = "sent_at";
+
+    // Single-row table holding the date before which appointments live in the yearly archives
+    static final String TABLE_ARCHIVE_STATE = "archive_state";
+    static final String COLUMN_ARCHIVED_BEFORE = "archived_before";
+
+    // Ad-hoc block-outs within open days; times are local yyyy-MM-ddTHH:mm
+    static final String TABLE_BLOCK_OUTS = "block_outs";
+    static final String COLUMN_STARTS_AT = "starts_at";
+    static final String COLUMN_ENDS_AT = "ends_at";
+    static final String COLUMN_REASON = "reason";
+
+    // Likely duplicate patients for staff to link at check-in; match_ columns hold the identity already on file
+    static final String TABLE_POSSIBLE_DUPLICATES = "possible_duplicates";
+    static final String COLUMN_MATCH_PREFIX = "match_";
+    static final String COLUMN_SIMILARITY = "similarity";
+    static final String COLUMN_DETECTED_AT = "detected_at";
+
+    // one helper per database file (clinic shard)
+    private static final Map<String, DatabaseHelper> instances = new HashMap<>();
+
+    /**
+     * Returns the process-wide helper for the default database. Every DAO
+     * shares it so there is a single connection pool per database file;
+     * separate helpers on the same file would contend for its locks.
+     *
+     * @param context Any context; the application context is retained.
+     * @return The shared helper.
+     */
+    public static DatabaseHelper getInstance(Context context) {
+        return getInstance(context, DATABASE_NAME);
+    }
+
+    /**
+     * Returns the process-wide helper for a named database file.
+     *
+     * @param context      Any context; the application context is retained.
+     * @param databaseName The database file name.
+     * @return The shared helper for that file.
+     */
+    public static synchronized DatabaseHelper getInstance(Context context, String databaseName) {
+        DatabaseHelper helper = instances.get(databaseName);
+        if (helper == null) {
+            helper = new DatabaseHelper(context.getApplicationContext(), databaseName);
+            instances.put(databaseName, helper);
+        }
+        return helper;
+    }
 
     /**
      * Constructs a DatabaseHelper object.
@@ -39,7 +115,19 @@ public class DatabaseHelper extends SQLiteOpenHelper {
      * @param context The application context.
      */
     public DatabaseHelper(Context context) {
-        super(context, DATABASE_NAME, null, DATABASE_VERSION);
+        this(context, DATABASE_NAME);
+    }
+
+    /**
+     * Constructs a DatabaseHelper object for a specific database file.
+     *
+     * @param context      The application context.
+     * @param databaseName The database file name.
+     */
+    public DatabaseHelper(Context context, String databaseName) {
+        super(context, databaseName, null, DATABASE_VERSION);
+        // write-ahead logging lets report and ui readers run alongside the booking writer
+        setWriteAheadLoggingEnabled(true);
     }
 
     /**
@@ -49,7 +137,16 @@ public class DatabaseHelper extends SQLiteOpenHelper {
      */
     @Override
     public void onCreate(SQLiteDatabase db) {
+        createArchiveState(db);
         createAppointmentsTable(db);
+        createBookingRefIndex(db);
+        createDailyCapacity(db);
+        createDateIndex(db);
+        createChangeLog(db);
+        createRemindersSent(db);
+        createBlockOuts(db);
+        createBlockOutChangeLog(db);
+        createPossibleDuplicates(db);
     }
 
     /**
@@ -61,9 +158,72 @@ public class DatabaseHelper extends SQLiteOpenHelper {
      */
     @Override
     public void onUpgrade(SQLiteDatabase db, int oldVersion, int newVersion) {
-        // Drop the appointments table if it exists and create it again
-        db.execSQL("DROP TABLE IF EXISTS " + TABLE_APPOINTMENTS);
-        onCreate(db);
+        // migrate step by step so existing appointments are kept
+        if (oldVersion < 2) {
+            db.execSQL("ALTER TABLE " + TABLE_APPOINTMENTS + " ADD COLUMN " + COLUMN_BOOKING_REF + " TEXT");
+            createBookingRefIndex(db);
+        }
+        if (oldVersion < 3) {
+            createDailyCapacity(db);
+            rebuildDailyCapacity(db);
+        }
+        if (oldVersion < 4) {
+            createDateIndex(db);
+        }
+        if (oldVersion < 5) {
+            createChangeLog(db);
+        }
+        if (oldVersion < 6) {
+            createRemindersSent(db);
+        }
+        if (oldVersion < 7) {
+            createArchiveState(db);
+            // recreate the delete triggers so they skip rows being moved to the archives
+            db.execSQL("DROP TRIGGER IF EXISTS trg_capacity_delete");
+            db.execSQL("DROP TRIGGER IF EXISTS trg_changes_delete");
+            createDailyCapacity(db);
+            createChangeLog(db);
+        }
+        if (oldVersion < 8) {
+            createBlockOuts(db);
+        }
+        if (oldVersion < 9) {
+            createPossibleDuplicates(db);
+        }
+        if (oldVersion < 10) {
+            normalizeSlotTimes(db);
+            rebuildDailyCapacity(db);
+        }
+        if (oldVersion < 11) {
+            createBlockOutChangeLog(db);
+        }
+    }
+
+    /**
+     * Rewrites appointment times stored with the device's native digits to
+     * the ASCII slot strings. Until slots were formatted with a fixed
+     * locale, those rows matched no slot: they were left out of the
+     * capacity summary and their slots looked free.
+     * The updates go through the change log, so calendar feeds pick them up.
+     *
+     * @param db The database.
+     */
+    private static void normalizeSlotTimes(SQLiteDatabase db) {
+        List<String> stored = new ArrayList<>();
+        try (Cursor cursor = db.rawQuery("SELECT DISTINCT " + COLUMN_TIME + " FROM " + TABLE_APPOINTMENTS
+                + " WHERE " + COLUMN_TIME + " IS NOT NULL", null)) {
+            while (cursor.moveToNext()) {
+                stored.add(cursor.getString(0));
+            }
+        }
+        ContentValues values = new ContentValues();
+        for (String time : stored) {
+            String slot = TimeSlots.normalize(time);
+            if (!slot.equals(time)) {
+                values.put(COLUMN_TIME, slot);
+                db.update(TABLE_APPOINTMENTS, values, COLUMN_TIME + " = ?", new String[]{time});
+            }
+        }
     }
 
     /**
@@ -81,8 +241,278 @@ public class DatabaseHelper extends SQLiteOpenHelper {
                 COLUMN_SOURCE + " TEXT," +
                 COLUMN_DATE + " TEXT," +
                 COLUMN_TIME + " TEXT," +
-                COLUMN_DESCRIPTION + " TEXT" +
+                COLUMN_DESCRIPTION + " TEXT," +
+                COLUMN_BOOKING_REF + " TEXT" +
                 ")";
         db.execSQL(createAppointmentsTable);
     }
-}
\ No newline at end of file
+
+    /**
+     * Creates the unique index on the booking reference so that a booking
+     * replayed from the journal can never be inserted twice.
+     * Legacy rows have a null reference, which SQLite does not treat as a duplicate.
+     *
+     * @param db The database.
+     */
+    private void createBookingRefIndex(SQLiteDatabase db) {
+        db.execSQL("CREATE UNIQUE INDEX IF NOT EXISTS idx_appointments_booking_ref ON "
+                + TABLE_APPOINTMENTS + " (" + COLUMN_BOOKING_REF + ")");
+    }
+
+    /**
+     * Creates the index used by per-date lookups and date-range scans.
+     * It includes the time column so booked-time queries never touch the table.
+     *
+     * @param db The database.
+     */
+    private void createDateIndex(SQLiteDatabase db) {
+        db.execSQL("CREATE INDEX IF NOT EXISTS idx_appointments_date_time ON "
+                + TABLE_APPOINTMENTS + " (" + COLUMN_DATE + ", " + COLUMN_TIME + ")");
+    }
+
+    /**
+     * Creates the change log and the triggers that append to it whenever an
+     * appointment row is inserted, updated or deleted. Each entry only
+     * records which row changed; readers join back to the appointments
+     * table for the current values.
+     *
+     * @param db The database.
+     */
+    private void createChangeLog(SQLiteDatabase db) {
+        db.execSQL("CREATE TABLE IF NOT EXISTS " + TABLE_CHANGES + " (" +
+                COLUMN_SEQ + " INTEGER PRIMARY KEY AUTOINCREMENT," +
+                COLUMN_OP + " TEXT NOT NULL," +
+                COLUMN_APPOINTMENT_ID + " INTEGER NOT NULL," +
+                COLUMN_CHANGED_AT + " INTEGER NOT NULL" +
+                ")");
+
+        db.execSQL("CREATE TRIGGER IF NOT EXISTS trg_changes_insert AFTER INSERT ON " + TABLE_APPOINTMENTS +
+                " BEGIN " + changeLogEntry("I", "NEW") + " END");
+        db.execSQL("CREATE TRIGGER IF NOT EXISTS trg_changes_update AFTER UPDATE ON " + TABLE_APPOINTMENTS +
+                " BEGIN " + changeLogEntry("U", "NEW") + " END");
+        db.execSQL("CREATE TRIGGER IF NOT EXISTS trg_changes_delete AFTER DELETE ON " + TABLE_APPOINTMENTS +
+                " WHEN " + isLiveRow("OLD") + " BEGIN " + changeLogEntry("D", "OLD") + " END");
+    }
+
+    /**
+     * Last sequence number handed out by the change log. Unlike MAX(seq)
+     * this survives the log being pruned.
+     *
+     * @param db The database.
+     * @return the sequence number, 0 if the log was never written
+     */
+    static long changeLogHead(SQLiteDatabase db) {
+        return DatabaseUtils.longForQuery(db, "SELECT IFNULL((SELECT seq FROM sqlite_sequence WHERE name = ?), 0)",
+                new String[]{TABLE_CHANGES});
+    }
+
+    /**
+     * Trigger body statement that appends one change log entry.
+     * @param op I, U or D for appointments, B for block-outs
+     * @param row NEW or OLD
+     * @return the SQL statement
+     */
+    private String changeLogEntry(String op, String row) {
+        return "INSERT INTO " + TABLE_CHANGES + " (" + COLUMN_OP + ", " + COLUMN_APPOINTMENT_ID + ", " + COLUMN_CHANGED_AT + ")"
+                + " VALUES ('" + op + "', " + row + "." + COLUMN_ID + ", CAST(strftime('%s', 'now') AS INTEGER) * 1000); ";
+    }
+
+    /**
+     * Creates the ledger of sent reminders. The primary key makes recording
+     * a reminder twice a no-op.
+     *
+     * @param db The database.
+     */
+    private void createRemindersSent(SQLiteDatabase db) {
+        db.execSQL("CREATE TABLE IF NOT EXISTS " + TABLE_REMINDERS_SENT + " (" +
+                COLUMN_APPOINTMENT_ID + " INTEGER NOT NULL," +
+                COLUMN_KIND + " TEXT NOT NULL," +
+                COLUMN_SENT_AT + " INTEGER NOT NULL," +
+                "PRIMARY KEY (" + COLUMN_APPOINTMENT_ID + ", " + COLUMN_KIND + ")" +
+                ") WITHOUT ROWID");
+    }
+
+    /**
+     * Creates the block-out table. It is small and read whole into an
+     * interval tree, so it needs no index.
+     *
+     * @param db The database.
+     */
+    private void createBlockOuts(SQLiteDatabase db) {
+        db.execSQL("CREATE TABLE IF NOT EXISTS " + TABLE_BLOCK_OUTS + " (" +
+                COLUMN_ID + " INTEGER PRIMARY KEY AUTOINCREMENT," +
+                COLUMN_KIND + " TEXT NOT NULL," +
+                COLUMN_STARTS_AT + " TEXT NOT NULL," +
+                COLUMN_ENDS_AT + " TEXT NOT NULL," +
+                COLUMN_REASON + " TEXT," +
+                "CHECK (" + COLUMN_ENDS_AT + " > " + COLUMN_STARTS_AT + ")" +
+                ")");
+    }
+
+    /**
+     * Creates the triggers that log block-out inserts, updates and deletes
+     * to the change log, so incremental backups notice edited block-outs.
+     * Appointment readers of the log skip these entries.
+     *
+     * @param db The database.
+     */
+    private void createBlockOutChangeLog(SQLiteDatabase db) {
+        db.execSQL("CREATE TRIGGER IF NOT EXISTS trg_block_out_changes_insert AFTER INSERT ON " + TABLE_BLOCK_OUTS +
+                " BEGIN " + changeLogEntry(OP_BLOCK_OUT, "NEW") + " END");
+        db.execSQL("CREATE TRIGGER IF NOT EXISTS trg_block_out_changes_update AFTER UPDATE ON " + TABLE_BLOCK_OUTS +
+                " BEGIN " + changeLogEntry(OP_BLOCK_OUT, "NEW") + " END");
+        db.execSQL("CREATE TRIGGER IF NOT EXISTS trg_block_out_changes_delete AFTER DELETE ON " + TABLE_BLOCK_OUTS +
+                " BEGIN " + changeLogEntry(OP_BLOCK_OUT, "OLD") + " END");
+    }
+
+    /**
+     * Creates the table of likely duplicate patients. A pair is stored once
+     * however often it is found, so the startup scan can rerun freely; the
+     * booking reference is set when a new booking raised it.
+     *
+     * @param db The database.
+     */
+    private void createPossibleDuplicates(SQLiteDatabase db) {
+        StringBuilder identity = new StringBuilder();
+        StringBuilder matchIdentity = new StringBuilder();
+        for (String column : new String[]{COLUMN_NAME, COLUMN_DATE_OF_BIRTH, COLUMN_ADDRESS, COLUMN_IDENTIFICATION_NUMBER}) {
+            identity.append(column).append(" TEXT NOT NULL,");
+            matchIdentity.append(COLUMN_MATCH_PREFIX).append(column).append(" TEXT NOT NULL,");
+        }
+        db.execSQL("CREATE TABLE IF NOT EXISTS " + TABLE_POSSIBLE_DUPLICATES + " (" +
+                COLUMN_ID + " INTEGER PRIMARY KEY AUTOINCREMENT," +
+                COLUMN_BOOKING_REF + " TEXT," +
+                identity +
+                matchIdentity +
+                COLUMN_SIMILARITY + " REAL," +
+                COLUMN_DETECTED_AT + " INTEGER NOT NULL," +
+                "UNIQUE (" + COLUMN_NAME + ", " + COLUMN_DATE_OF_BIRTH + ", " + COLUMN_ADDRESS + ", " + COLUMN_IDENTIFICATION_NUMBER + ", "
+                + COLUMN_MATCH_PREFIX + COLUMN_NAME + ", " + COLUMN_MATCH_PREFIX + COLUMN_DATE_OF_BIRTH + ", "
+                + COLUMN_MATCH_PREFIX + COLUMN_ADDRESS + ", " + COLUMN_MATCH_PREFIX + COLUMN_IDENTIFICATION_NUMBER + ")" +
+                ")");
+    }
+
+    /**
+     * Creates the archive state row. Appointments dated before
+     * archived_before have been moved to the yearly archive databases; an
+     * empty string means nothing has been archived yet.
+     *
+     * @param db The database.
+     */
+    private void createArchiveState(SQLiteDatabase db) {
+        db.execSQL("CREATE TABLE IF NOT EXISTS " + TABLE_ARCHIVE_STATE + " (" +
+                COLUMN_ID + " INTEGER PRIMARY KEY CHECK (" + COLUMN_ID + " = 0)," +
+                COLUMN_ARCHIVED_BEFORE + " TEXT NOT NULL" +
+                ")");
+        db.execSQL("INSERT OR IGNORE INTO " + TABLE_ARCHIVE_STATE + " VALUES (0, '')");
+    }
+
+    /**
+     * Trigger condition that is true for rows not yet covered by the
+     * archives. Deleting an archived row only moves it out of the live
+     * table, so it must neither log a deletion nor uncount its day.
+     * @param row NEW or OLD
+     * @return the SQL condition
+     */
+    private String isLiveRow(String row) {
+        return "(" + row + "." + COLUMN_DATE + " IS NULL OR " + row + "." + COLUMN_DATE + " >= " + archivedBeforeQuery() + ")";
+    }
+
+    private static String archivedBeforeQuery() {
+        return "IFNULL((SELECT " + COLUMN_ARCHIVED_BEFORE + " FROM " + TABLE_ARCHIVE_STATE + "), '')";
+    }
+
+    /**
+     * Reads the archive watermark
+     *
+     * @param db The live database.
+     * @return the first date still kept in the live table, as yyyy-MM-dd, or
+     *         an empty string if nothing has been archived
+     */
+    static String archivedBefore(SQLiteDatabase db) {
+        if (!DatabaseUtils.stringForQuery(db, "SELECT COUNT(*) FROM sqlite_master WHERE type = 'table' AND name = ?",
+                new String[]{TABLE_ARCHIVE_STATE}).equals("1")) {
+            // a backup taken before archiving existed
+            return "";
+        }
+        return DatabaseUtils.stringForQuery(db, "SELECT " + archivedBeforeQuery(), null);
+    }
+
+    /**
+     * Creates the daily capacity summary table and the triggers that keep it
+     * current on every insert, delete and reschedule of an appointment, so
+     * range reads touch one row per day instead of every appointment.
+     *
+     * @param db The database.
+     */
+    private void createDailyCapacity(SQLiteDatabase db) {
+        db.execSQL("CREATE TABLE IF NOT EXISTS " + TABLE_DAILY_CAPACITY + " (" +
+                COLUMN_DATE + " TEXT PRIMARY KEY," +
+                COLUMN_BOOKED + " INTEGER NOT NULL," +
+                COLUMN_FREE + " INTEGER NOT NULL," +
+                COLUMN_OCCUPANCY + " INTEGER NOT NULL" +
+                ")");
+
+        db.execSQL("CREATE TRIGGER IF NOT EXISTS trg_capacity_insert AFTER INSERT ON " + TABLE_APPOINTMENTS +
+                " BEGIN " + capacityAdd("NEW") + " END");
+        db.execSQL("CREATE TRIGGER IF NOT EXISTS trg_capacity_delete AFTER DELETE ON " + TABLE_APPOINTMENTS +
+                " WHEN " + isLiveRow("OLD") + " BEGIN " + capacityRemove("OLD") + " END");
+        db.execSQL("CREATE TRIGGER IF NOT EXISTS trg_capacity_update AFTER UPDATE OF " + COLUMN_DATE + ", " + COLUMN_TIME +
+                " ON " + TABLE_APPOINTMENTS + " BEGIN " + capacityRemove("OLD") + capacityAdd("NEW") + " END");
+    }
+
+    /**
+     * Trigger body statements that count a row into its date's summary.
+     * @param row NEW or OLD
+     * @return the SQL statements
+     */
+    private String capacityAdd(String row) {
+        return "INSERT OR IGNORE INTO " + TABLE_DAILY_CAPACITY + " VALUES (" + row + "." + COLUMN_DATE + ", 0, "
+                + TimeSlots.count() + ", 0); "
+                + "UPDATE " + TABLE_DAILY_CAPACITY + " SET "
+                + COLUMN_BOOKED + " = " + COLUMN_BOOKED + " + 1, "
+                + COLUMN_FREE + " = MAX(0, " + TimeSlots.count() + " - (" + COLUMN_BOOKED + " + 1)), "
+                + COLUMN_OCCUPANCY + " = " + COLUMN_OCCUPANCY + " | " + TimeSlots.sqlBitExpression(row + "." + COLUMN_TIME)
+                + " WHERE " + COLUMN_DATE + " = " + row + "." + COLUMN_DATE + "; ";
+    }
+
+    /**
+     * Trigger body statements that count a row out of its date's summary.
+     * The slot bit is only cleared when no other appointment shares the slot.
+     * @param row NEW or OLD
+     * @return the SQL statements
+     */
+    private String capacityRemove(String row) {
+        return "UPDATE " + TABLE_DAILY_CAPACITY + " SET "
+                + COLUMN_BOOKED + " = MAX(0, " + COLUMN_BOOKED + " - 1), "
+                + COLUMN_FREE + " = MAX(0, MIN(" + TimeSlots.count() + ", " + TimeSlots.count() + " - (" + COLUMN_BOOKED + " - 1))), "
+                + COLUMN_OCCUPANCY + " = " + COLUMN_OCCUPANCY + " & ~(CASE WHEN EXISTS (SELECT 1 FROM " + TABLE_APPOINTMENTS
+                + " WHERE " + COLUMN_DATE + " = " + row + "." + COLUMN_DATE + " AND " + COLUMN_TIME + " = " + row + "." + COLUMN_TIME
+                + ") THEN 0 ELSE " + TimeSlots.sqlBitExpression(row + "." + COLUMN_TIME) + " END)"
+                + " WHERE " + COLUMN_DATE + " = " + row + "." + COLUMN_DATE + "; ";
+    }
+
+    /**
+     * Recomputes the daily capacity summary from the appointments table.
+     * Used after migrating existing data and by the background rebuild job.
+     * Days already archived keep their rows, since their appointments are
+     * no longer in the live table to recount.
+     * SUM(DISTINCT) over single-bit values is the bitwise OR of the slots.
+     *
+     * @param db The database.
+     */
+    static void rebuildDailyCapacity(SQLiteDatabase db) {
+        String[] archivedBefore = {archivedBefore(db)};
+        db.beginTransaction();
+        try {
+            db.execSQL("DELETE FROM " + TABLE_DAILY_CAPACITY + " WHERE " + COLUMN_DATE + " >= ?", archivedBefore);
+            db.execSQL("INSERT INTO " + TABLE_DAILY_CAPACITY + " SELECT " + COLUMN_DATE + ", COUNT(*), "
+                    + "MAX(0, " + TimeSlots.count() + " - COUNT(*)), "
+                    + "SUM(DISTINCT " + TimeSlots.sqlBitExpression(COLUMN_TIME) + ") FROM " + TABLE_APPOINTMENTS
+                    + " WHERE " + COLUMN_DATE + " >= ? GROUP BY " + COLUMN_DATE, archivedBefore);
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+        }
+    }
+}
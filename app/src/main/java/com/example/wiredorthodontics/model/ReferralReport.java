@@ -0,0 +1,177 @@
+/**
+ * Incremental aggregate of appointments by referral source, by month and
+ * by reason for visit. Rows are added one at a time as they stream out of
+ * the database, and partial reports built over separate date partitions
+ * can be merged. Counting is done into arrays indexed by dictionary code.
+ * @date 10.19.2026
+ */
+package com.example.wiredorthodontics.model;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+public class ReferralReport {
+
+    private final TextDictionary sources;
+    private final TextDictionary reasons;
+    private final Map<Integer, int[]> sourcesByMonth = new HashMap<>();
+    private int[] sourceTotals = new int[16];
+    private int[] reasonTotals = new int[16];
+    private int rowCount;
+
+    /**
+     * Constructs an empty report. Partial reports that will be merged must
+     * share the same dictionaries.
+     * @param sources - dictionary for referral sources
+     * @param reasons - dictionary for visit reasons
+     */
+    public ReferralReport(TextDictionary sources, TextDictionary reasons) {
+        this.sources = sources;
+        this.reasons = reasons;
+    }
+
+    /**
+     * Counts one appointment row.
+     * @param date - appointment date as yyyy-MM-dd
+     * @param clinicSource - answer to "How did you hear about us?"
+     * @param appointmentDescription - reason for visit
+     */
+    public void add(String date, String clinicSource, String appointmentDescription) {
+        int source = sources.encode(clinicSource);
+        int reason = reasons.encode(appointmentDescription);
+
+        sourceTotals = increment(sourceTotals, source, 1);
+        reasonTotals = increment(reasonTotals, reason, 1);
+
+        int month = monthIndex(date);
+        if (month >= 0) {
+            int[] counts = sourcesByMonth.get(month);
+            int[] grown = increment(counts == null ? new int[sources.size()] : counts, source, 1);
+            if (grown != counts) {
+                sourcesByMonth.put(month, grown);
+            }
+        }
+        rowCount++;
+    }
+
+    /**
+     * Adds another partial report's counts into this one.
+     * @param other - a report built with the same dictionaries
+     */
+    public void merge(ReferralReport other) {
+        sourceTotals = addAll(sourceTotals, other.sourceTotals);
+        reasonTotals = addAll(reasonTotals, other.reasonTotals);
+        for (Map.Entry<Integer, int[]> entry : other.sourcesByMonth.entrySet()) {
+            int[] mine = sourcesByMonth.get(entry.getKey());
+            sourcesByMonth.put(entry.getKey(), mine == null ? entry.getValue().clone() : addAll(mine, entry.getValue()));
+        }
+        rowCount += other.rowCount;
+    }
+
+    /**
+     * Number of appointments counted
+     * @return the row count
+     */
+    public int getRowCount() {
+        return rowCount;
+    }
+
+    /**
+     * Appointments per referral source, most common first
+     * @return source label to count
+     */
+    public Map<String, Integer> getSourceTotals() {
+        return toSortedLabels(sourceTotals, sources);
+    }
+
+    /**
+     * Appointments per reason for visit, most common first
+     * @return reason label to count
+     */
+    public Map<String, Integer> getReasonTotals() {
+        return toSortedLabels(reasonTotals, reasons);
+    }
+
+    /**
+     * Appointments per referral source for each month
+     * @return yyyy-MM to (source label to count), in month order
+     */
+    public SortedMap<String, Map<String, Integer>> getSourcesByMonth() {
+        SortedMap<String, Map<String, Integer>> months = new TreeMap<>();
+        for (Map.Entry<Integer, int[]> entry : sourcesByMonth.entrySet()) {
+            int month = entry.getKey();
+            String label = String.format(Locale.US, "%04d-%02d", month / 12, month % 12 + 1);
+            months.put(label, toSortedLabels(entry.getValue(), sources));
+        }
+        return months;
+    }
+
+    /**
+     * Parses the year and month out of a yyyy-MM-dd string without
+     * allocating.
+     * @param date - appointment date
+     * @return year * 12 + zero-based month, or -1 if malformed
+     */
+    static int monthIndex(String date) {
+        if (date == null || date.length() < 7 || date.charAt(4) != '-') {
+            return -1;
+        }
+        int year = 0;
+        for (int i = 0; i < 4; i++) {
+            int digit = date.charAt(i) - '0';
+            if (digit < 0 || digit > 9) {
+                return -1;
+            }
+            year = year * 10 + digit;
+        }
+        int tens = date.charAt(5) - '0';
+        int ones = date.charAt(6) - '0';
+        int month = tens * 10 + ones;
+        if (tens < 0 || tens > 9 || ones < 0 || ones > 9 || month < 1 || month > 12) {
+            return -1;
+        }
+        return year * 12 + month - 1;
+    }
+
+    private static int[] increment(int[] counts, int index, int by) {
+        if (index >= counts.length) {
+            counts = Arrays.copyOf(counts, Math.max(index + 1, counts.length * 2));
+        }
+        counts[index] += by;
+        return counts;
+    }
+
+    private static int[] addAll(int[] into, int[] from) {
+        if (from.length > into.length) {
+            into = Arrays.copyOf(into, from.length);
+        }
+        for (int i = 0; i < from.length; i++) {
+            into[i] += from[i];
+        }
+        return into;
+    }
+
+    private static Map<String, Integer> toSortedLabels(int[] counts, TextDictionary dictionary) {
+        List<Integer> codes = new ArrayList<>();
+        for (int code = 0; code < counts.length; code++) {
+            if (counts[code] > 0) {
+                codes.add(code);
+            }
+        }
+        Collections.sort(codes, (a, b) -> Integer.compare(counts[b], counts[a]));
+
+        Map<String, Integer> labels = new LinkedHashMap<>();
+        for (int code : codes) {
+            labels.put(dictionary.decode(code), counts[code]);
+        }
+        return labels;
+    }
+}
@@ -0,0 +1,113 @@
+/**
+ * Reminder source backed by the appointments database: pages through
+ * upcoming appointments by date and keeps the ledger of sent reminders in
+ * the reminders_sent table.
+ * @date 10.19.2026
+ */
+package com.example.wiredorthodontics.model;
+
+import android.content.ContentValues;
+import android.content.Context;
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+
+import com.example.wiredorthodontics.core.Reminder;
+import com.example.wiredorthodontics.core.ReminderSource;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+
+public class ReminderStore implements ReminderSource {
+
+    private final DatabaseHelper dbHelper;
+    private final ZoneId zone;
+
+    /**
+     * Constructor for the default database in the device time zone
+     * @param context - any context
+     */
+    public ReminderStore(Context context) {
+        this(context, DatabaseHelper.DATABASE_NAME, ZoneId.systemDefault());
+    }
+
+    /**
+     * Constructor for a specific database file, used for clinic shards
+     * @param context - any context
+     * @param databaseName - the database file name
+     * @param zone - time zone the clinic's appointment times are in
+     */
+    public ReminderStore(Context context, String databaseName, ZoneId zone) {
+        this.dbHelper = DatabaseHelper.getInstance(context, databaseName);
+        this.zone = zone;
+    }
+
+    /**
+     * Appointments are stored by date, so the page is selected on the
+     * whole days the range touches; rows without a known time slot are
+     * left out.
+     */
+    @Override
+    public List<Upcoming> loadUpcoming(long fromMillis, long toMillis, long afterId, int limit) {
+        String fromDate = Instant.ofEpochMilli(fromMillis).atZone(zone).toLocalDate().toString();
+        String toDate = Instant.ofEpochMilli(toMillis).atZone(zone).toLocalDate().toString();
+        String sent = "(SELECT group_concat(r." + DatabaseHelper.COLUMN_KIND + ") FROM " + DatabaseHelper.TABLE_REMINDERS_SENT
+                + " r WHERE r." + DatabaseHelper.COLUMN_APPOINTMENT_ID + " = a.id)";
+        String sentCount = "(SELECT COUNT(*) FROM " + DatabaseHelper.TABLE_REMINDERS_SENT
+                + " r WHERE r." + DatabaseHelper.COLUMN_APPOINTMENT_ID + " = a.id)";
+        String query = "SELECT a.id, a.date, a.time, " + sent + " FROM appointments a"
+                + " WHERE a.date BETWEEN ? AND ? AND a.id > ? AND " + sentCount + " < " + Reminder.Kind.values().length
+                + " ORDER BY a.id LIMIT " + limit;
+
+        List<Upcoming> page = new ArrayList<>();
+        SQLiteDatabase db = dbHelper.getReadableDatabase();
+        try (Cursor cursor = db.rawQuery(query, new String[]{fromDate, toDate, String.valueOf(afterId)})) {
+            while (cursor.moveToNext()) {
+                LocalTime start = TimeSlots.startOf(cursor.getString(2));
+                if (start == null) {
+                    continue;
+                }
+                long startMillis = LocalDate.parse(cursor.getString(1)).atTime(start).atZone(zone).toInstant().toEpochMilli();
+                page.add(new Upcoming(cursor.getLong(0), startMillis, sentKinds(cursor.getString(3))));
+            }
+        }
+        return page;
+    }
+
+    @Override
+    public void markSent(List<Reminder> reminders) {
+        SQLiteDatabase db = dbHelper.getWritableDatabase();
+        long now = System.currentTimeMillis();
+        ContentValues values = new ContentValues();
+        db.beginTransaction();
+        try {
+            for (Reminder reminder : reminders) {
+                values.put(DatabaseHelper.COLUMN_APPOINTMENT_ID, reminder.getAppointmentId());
+                values.put(DatabaseHelper.COLUMN_KIND, reminder.getKind().name());
+                values.put(DatabaseHelper.COLUMN_SENT_AT, now);
+                db.insertWithOnConflict(DatabaseHelper.TABLE_REMINDERS_SENT, null, values, SQLiteDatabase.CONFLICT_IGNORE);
+            }
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+        }
+    }
+
+    private static int sentKinds(String kinds) {
+        int bits = 0;
+        if (kinds == null) {
+            return bits;
+        }
+        for (String kind : kinds.split(",")) {
+            try {
+                bits |= Reminder.Kind.valueOf(kind).bit();
+            } catch (IllegalArgumentException e) {
+                // a kind this version no longer sends
+            }
+        }
+        return bits;
+    }
+}
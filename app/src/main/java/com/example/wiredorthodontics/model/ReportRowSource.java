@@ -0,0 +1,25 @@
+/**
+ * A source of appointment rows for reporting that streams them one at a
+ * time rather than returning a list, so a report never holds the whole
+ * table in memory.
+ * @date 10.19.2026
+ */
+package com.example.wiredorthodontics.model;
+
+public interface ReportRowSource {
+
+    /**
+     * Receives the reporting columns of one appointment row.
+     */
+    interface RowVisitor {
+        void onRow(String date, String clinicSource, String appointmentDescription);
+    }
+
+    /**
+     * Streams every appointment dated within a range.
+     * @param fromDate - first date (inclusive) as yyyy-MM-dd
+     * @param toDate - last date (inclusive) as yyyy-MM-dd
+     * @param visitor - called once per row
+     */
+    void scanReportRows(String fromDate, String toDate, RowVisitor visitor);
+}
@@ -0,0 +1,106 @@
+/**
+ * Dictionary encoding for free-text answers such as the referral source
+ * ("How did you hear about us?") and the reason for visit.
+ * Each distinct normalized value is assigned a small integer code once,
+ * so aggregation can count into arrays instead of hashing strings per row.
+ * Safe to share between threads.
+ * @date 10.19.2026
+ */
+package com.example.wiredorthodontics.model;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ConcurrentHashMap;
+
+public class TextDictionary {
+
+    /**
+     * Code used for null or blank answers.
+     */
+    public static final int UNKNOWN = 0;
+    private static final String UNKNOWN_LABEL = "(none)";
+
+    private final ConcurrentHashMap<String, Integer> codes = new ConcurrentHashMap<>();
+    private final List<String> labels = new ArrayList<>();
+
+    /**
+     * Constructs an empty dictionary holding only the unknown entry.
+     */
+    public TextDictionary() {
+        labels.add(UNKNOWN_LABEL);
+    }
+
+    /**
+     * Returns the code for a free-text value, adding it if it is new.
+     * Values that differ only in case or spacing share a code.
+     * @param value - raw text as entered by the patient
+     * @return the code, {@link #UNKNOWN} for blank input
+     */
+    public int encode(String value) {
+        String key = normalize(value);
+        if (key.isEmpty()) {
+            return UNKNOWN;
+        }
+        Integer code = codes.get(key);
+        if (code != null) {
+            return code;
+        }
+        synchronized (labels) {
+            code = codes.get(key);
+            if (code == null) {
+                code = labels.size();
+                labels.add(key);
+                codes.put(key, code);
+            }
+            return code;
+        }
+    }
+
+    /**
+     * Label for a code.
+     * @param code - a code returned by {@link #encode(String)}
+     * @return the normalized text for that code
+     */
+    public String decode(int code) {
+        synchronized (labels) {
+            return labels.get(code);
+        }
+    }
+
+    /**
+     * Number of codes assigned so far, including the unknown entry.
+     * @return the dictionary size
+     */
+    public int size() {
+        synchronized (labels) {
+            return labels.size();
+        }
+    }
+
+    /**
+     * Lower-cases, trims and collapses inner whitespace.
+     * @param value - raw text
+     * @return the normalized key, empty for null or blank input
+     */
+    static String normalize(String value) {
+        if (value == null) {
+            return "";
+        }
+        StringBuilder key = new StringBuilder(value.length());
+        boolean space = false;
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (Character.isWhitespace(c)) {
+                space = key.length() > 0;
+            } else {
+                if (space) {
+                    key.append(' ');
+                    space = false;
+                }
+                key.append(c);
+            }
+        }
+        return key.toString().toLowerCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,162 @@
+/**
+ * The fixed set of bookable time slots in a clinic day.
+ * Appointments store the slot's display string (e.g. "08:00 AM", "1:00 PM"),
+ * and each slot also has a stable index used for occupancy bitmasks.
+ * @date 10.19.2026
+ */
+package com.example.wiredorthodontics.model;
+
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+
+public final class TimeSlots {
+
+    /**
+     * Length of every slot
+     */
+    public static final int SLOT_MINUTES = 60;
+
+    private static final int START_HOUR = 8; // 8 am
+    private static final int END_HOUR = 17; // 5 pm
+
+    private static final List<String> SLOTS;
+    private static final List<LocalTime> STARTS;
+
+    static {
+        List<String> slots = new ArrayList<>();
+        List<LocalTime> starts = new ArrayList<>();
+        for (int hour = START_HOUR; hour < END_HOUR; hour++) {
+            if (hour == 12) {
+                continue; // lunchtime
+            }
+            starts.add(LocalTime.of(hour, 0));
+            slots.add(label(hour, 0));
+        }
+        SLOTS = Collections.unmodifiableList(slots);
+        STARTS = Collections.unmodifiableList(starts);
+    }
+
+    private TimeSlots() {
+    }
+
+    /**
+     * All bookable slots in clock order
+     * @return an unmodifiable list of slot display strings
+     */
+    public static List<String> all() {
+        return SLOTS;
+    }
+
+    /**
+     * Number of bookable slots per day
+     * @return the slot count
+     */
+    public static int count() {
+        return SLOTS.size();
+    }
+
+    /**
+     * Index of a slot in clock order
+     * @param time - slot display string as stored on an appointment
+     * @return the index, or -1 if the time is not a known slot
+     */
+    public static int indexOf(String time) {
+        return SLOTS.indexOf(time);
+    }
+
+    /**
+     * Display string of the slot at an index
+     * @param index - slot index
+     * @return the slot display string
+     */
+    public static String get(int index) {
+        return SLOTS.get(index);
+    }
+
+    /**
+     * Clock time at which a slot starts
+     * @param time - slot display string as stored on an appointment
+     * @return the start time, or null if the time is not a known slot
+     */
+    public static LocalTime startOf(String time) {
+        int index = SLOTS.indexOf(time);
+        return index < 0 ? null : STARTS.get(index);
+    }
+
+    /**
+     * Minute of the day at which a slot starts, the compact form of a slot
+     * @param time - slot display string as stored on an appointment
+     * @return minutes after midnight, or -1 if the time is not a known slot
+     */
+    static int startMinuteOf(String time) {
+        int index = SLOTS.indexOf(time);
+        return index < 0 ? -1 : STARTS.get(index).getHour() * 60 + STARTS.get(index).getMinute();
+    }
+
+    /**
+     * Display string for a start minute. Known slots return the shared
+     * string; a minute that is no longer a slot (the clinic day changed)
+     * is formatted the same way.
+     * @param minute - minutes after midnight
+     * @return the slot display string
+     */
+    static String atMinute(int minute) {
+        for (int i = 0; i < STARTS.size(); i++) {
+            LocalTime start = STARTS.get(i);
+            if (start.getHour() * 60 + start.getMinute() == minute) {
+                return SLOTS.get(i);
+            }
+        }
+        return label(minute / 60, minute % 60);
+    }
+
+    /**
+     * Rewrites a stored time in plain ASCII digits. Slot strings used to be
+     * formatted with the device's default locale, so on a device showing
+     * Arabic-Indic or other native digits the stored time never matched a
+     * slot.
+     * @param time - stored time string
+     * @return the same time with ASCII digits, or the input if it has none to change
+     */
+    static String normalize(String time) {
+        if (time == null) {
+            return null;
+        }
+        StringBuilder ascii = null;
+        for (int i = 0; i < time.length(); i++) {
+            char c = time.charAt(i);
+            int digit = Character.digit(c, 10);
+            if (digit >= 0 && (c < '0' || c > '9')) {
+                if (ascii == null) {
+                    ascii = new StringBuilder(time);
+                }
+                ascii.setCharAt(i, (char) ('0' + digit));
+            }
+        }
+        return ascii == null ? time : ascii.toString();
+    }
+
+    private static String label(int hour, int minute) {
+        if (hour > 12) {
+            return String.format(Locale.US, "%d:%02d PM", hour - 12, minute);
+        }
+        return String.format(Locale.US, "%02d:%02d AM", hour, minute);
+    }
+
+    /**
+     * Builds a SQL CASE expression mapping a time column to its occupancy bit,
+     * so triggers and aggregate queries agree with {@link #indexOf(String)}.
+     * @param column - the column or NEW/OLD reference holding the time
+     * @return the SQL expression, evaluating to 0 for unknown times
+     */
+    static String sqlBitExpression(String column) {
+        StringBuilder sql = new StringBuilder("(CASE ").append(column);
+        for (int i = 0; i < SLOTS.size(); i++) {
+            sql.append(" WHEN '").append(SLOTS.get(i)).append("' THEN ").append(1 << i);
+        }
+        return sql.append(" ELSE 0 END)").toString();
+    }
+}
@@ -0,0 +1,110 @@
+/**
+ * The booking in progress: the date and time picked on the calendar tab,
+ * read back by the personal info tab when the patient submits.
+ * Scoped to the activity, so every tab sees the same instance and it
+ * survives rotation in memory. The selection is also kept in a
+ * SavedStateHandle, which only reaches the saved instance state bundle
+ * when the system saves the activity, so it comes back after the process
+ * is killed in the background without the app ever writing it to disk
+ * itself. It is stored as an epoch day and a slot index rather than the
+ * display strings. The session id names the session's slot hold.
+ * @date 10.19.2026
+ */
+package com.example.wiredorthodontics.view;
+
+import androidx.lifecycle.SavedStateHandle;
+import androidx.lifecycle.ViewModel;
+
+import com.example.wiredorthodontics.model.TimeSlots;
+
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.UUID;
+
+public class BookingSessionViewModel extends ViewModel {
+
+    private static final String KEY_EPOCH_DAY = "epochDay";
+    private static final String KEY_SLOT = "slot";
+    private static final String KEY_SESSION_ID = "sessionId";
+
+    private final SavedStateHandle state;
+
+    /**
+     * Constructor called by the default view model factory
+     * @param state - saved selection, empty for a new session
+     */
+    public BookingSessionViewModel(SavedStateHandle state) {
+        this.state = state;
+        if (!state.contains(KEY_SESSION_ID)) {
+            state.set(KEY_SESSION_ID, UUID.randomUUID().toString());
+        }
+    }
+
+    /**
+     * Identifies this booking session to the slot holds
+     * @return the session id, stable across process death
+     */
+    public String getSessionId() {
+        return state.get(KEY_SESSION_ID);
+    }
+
+    /**
+     * Selects a date. Picking a different date drops the time picked for
+     * the previous one.
+     * @param date - date as yyyy-MM-dd
+     */
+    public void selectDate(String date) {
+        long epochDay;
+        try {
+            epochDay = LocalDate.parse(date).toEpochDay();
+        } catch (DateTimeParseException e) {
+            clear();
+            return;
+        }
+        Long previous = state.get(KEY_EPOCH_DAY);
+        if (previous == null || previous != epochDay) {
+            state.remove(KEY_SLOT);
+        }
+        state.set(KEY_EPOCH_DAY, epochDay);
+    }
+
+    /**
+     * Selects a time on the selected date
+     * @param time - slot display string
+     */
+    public void selectTime(String time) {
+        int slot = TimeSlots.indexOf(time);
+        if (slot < 0) {
+            state.remove(KEY_SLOT);
+        } else {
+            state.set(KEY_SLOT, slot);
+        }
+    }
+
+    /**
+     * The selected date
+     * @return the date as yyyy-MM-dd, or null if none is selected
+     */
+    public String getSelectedDate() {
+        Long epochDay = state.get(KEY_EPOCH_DAY);
+        return epochDay == null ? null : LocalDate.ofEpochDay(epochDay).toString();
+    }
+
+    /**
+     * The selected time
+     * @return the slot display string, or null if none is selected
+     */
+    public String getSelectedTime() {
+        Integer slot = state.get(KEY_SLOT);
+        return slot == null || slot >= TimeSlots.count() ? null : TimeSlots.get(slot);
+    }
+
+    /**
+     * Forgets the selection once it has been booked, so the next booking
+     * starts from scratch.
+     */
+    public void clear() {
+        state.remove(KEY_EPOCH_DAY);
+        state.remove(KEY_SLOT);
+    }
+}
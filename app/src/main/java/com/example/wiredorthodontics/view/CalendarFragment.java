@@ -7,7 +7,6 @@ package com.example.wiredorthodontics.view;
 
 import android.app.AlertDialog;
 import android.content.Context;
-import android.content.SharedPreferences;
 import android.os.Bundle;
 import android.view.LayoutInflater;
 import android.view.View;
@@ -16,6 +15,7 @@ import android.widget.CalendarView;
 import android.widget.TextView;
 
 import androidx.fragment.app.Fragment;
+import androidx.lifecycle.ViewModelProvider;
 import androidx.recyclerview.widget.GridLayoutManager;
 import androidx.recyclerview.widget.RecyclerView;
 
@@ -33,6 +33,7 @@ public class CalendarFragment extends Fragment {
     private AppointmentController controller;
     private RecyclerView recyclerAppointments;
     private AppointmentsAdapter adapter;
+    private BookingSessionViewModel session;
     private String selectedDate = "";
 
     /**
@@ -42,12 +43,16 @@ public class CalendarFragment extends Fragment {
     }
 
     /**
-     * Sets the AppointmentController for managing appointments.
+     * Looks up the AppointmentController from the hosting activity. Done on
+     * attach rather than injected at construction, so a fragment restored by
+     * the FragmentManager after recreation is wired up the same way.
      *
-     * @param controller The AppointmentController to be set.
+     * @param context The hosting MainActivity.
      */
-    public void setController(AppointmentController controller) {
-        this.controller = controller;
+    @Override
+    public void onAttach(Context context) {
+        super.onAttach(context);
+        controller = ((MainActivity) context).getController();
     }
 
     /**
@@ -62,17 +67,21 @@ public class CalendarFragment extends Fragment {
     public View onCreateView(LayoutInflater inflater, ViewGroup container, Bundle savedInstanceState) {
         View view = inflater.inflate(R.layout.fragment_calendar, container, false);
 
-        SharedPreferences sharedPreferences = requireActivity().getSharedPreferences("AppointmentData", Context.MODE_PRIVATE);
+        // shared with the other tabs through the activity
+        session = new ViewModelProvider(requireActivity()).get(BookingSessionViewModel.class);
 
         recyclerAppointments = view.findViewById(R.id.recyclerViewAvailableAppointments);
         TextView txtAvailableTimes = view.findViewById(R.id.txtAvailableTimes);
 
         adapter = new AppointmentsAdapter(new ArrayList<>());
         adapter.setOnItemClickListener(selectedTime -> {
-            // Store the selected date in SharedPreferences
-            SharedPreferences.Editor editor = sharedPreferences.edit();
-            editor.putString("selectedTime", selectedTime);
-            editor.apply();
+            // hold the time while the patient fills in their details
+            if (!controller.holdTime(session.getSessionId(), selectedDate, selectedTime)) {
+                showSlotTakenAlert();
+                updateAvailableAppointments(controller.getAvailableTimes(selectedDate, session.getSessionId()));
+                return;
+            }
+            session.selectTime(selectedTime);
 
             // go to next tab
             MainActivity activity = (MainActivity) requireActivity();
@@ -100,15 +109,12 @@ public class CalendarFragment extends Fragment {
             // perform holiday validation
             if (controller.isValid(selectedDate)) {
 
-                // add the selected date to the shared preferences
-                SharedPreferences.Editor editor = sharedPreferences.edit();
-                editor.putString("selectedDate", selectedDate);
-                editor.apply();
+                session.selectDate(selectedDate);
 
                 txtAvailableTimes.setText(getString(R.string.available_times) + " " + selectedDate);
 
                 // retrieve a list of available appointments and update
-                List<String> fetchedAppointments = controller.getAvailableTimes(selectedDate);
+                List<String> fetchedAppointments = controller.getAvailableTimes(selectedDate, session.getSessionId());
                 updateAvailableAppointments(fetchedAppointments);
             } else {
                 showHolidayAlert(selectedDate); // if the date is a holiday notify the user
@@ -143,4 +149,14 @@ public class CalendarFragment extends Fragment {
                 .setPositiveButton("OK", (dialog, which) -> dialog.dismiss())
                 .show();
     }
+
+    /**
+     * Displays an alert when the picked time was taken by another booking in the meantime.
+     */
+    private void showSlotTakenAlert() {
+        new AlertDialog.Builder(requireContext())
+                .setMessage(R.string.slot_taken_alert)
+                .setPositiveButton("OK", (dialog, which) -> dialog.dismiss())
+                .show();
+    }
 }
\ No newline at end of file
@@ -0,0 +1,192 @@
+/**
+ * Built-in frame-time monitor. Listens to the window's per-frame metrics
+ * on a background thread and files each frame under the tab that was
+ * showing, so jank and frame-time percentiles can be compared tab by tab,
+ * together with how many frames each tab drew per second it was visible.
+ * An idle tab should draw next to nothing. Read the report with
+ * {@code adb logcat -s FrameMetrics}.
+ * @date 10.19.2026
+ */
+package com.example.wiredorthodontics.view;
+
+import android.os.Handler;
+import android.os.HandlerThread;
+import android.os.SystemClock;
+import android.util.Log;
+import android.view.Display;
+import android.view.FrameMetrics;
+import android.view.Window;
+
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+public final class FrameMetricsCollector implements Window.OnFrameMetricsAvailableListener {
+
+    private static final String TAG = "FrameMetrics";
+
+    private static final float DEFAULT_REFRESH_RATE = 60f;
+
+    private static Handler metricsHandler;
+
+    private final long budgetNanos;
+    // guarded by itself; written on the ui thread, looked up when reporting
+    private final Map<String, Section> sections = new LinkedHashMap<>();
+    private final AtomicLong droppedReports = new AtomicLong();
+    private volatile Section current;
+    private Window window;
+
+    /**
+     * Per-tab frames and time on screen.
+     */
+    private static final class Section {
+        final FrameTimeHistogram histogram;
+        long visibleMillis;
+        long visibleSince = -1;
+
+        Section(long budgetNanos) {
+            histogram = new FrameTimeHistogram(budgetNanos);
+        }
+    }
+
+    /**
+     * Constructor for a collector that judges frames against the display's refresh rate
+     * @param display - the display the window is shown on, may be null
+     */
+    public FrameMetricsCollector(Display display) {
+        float refreshRate = display == null ? 0 : display.getRefreshRate();
+        if (refreshRate < 1) {
+            refreshRate = DEFAULT_REFRESH_RATE;
+        }
+        budgetNanos = (long) (1_000_000_000L / refreshRate);
+    }
+
+    /**
+     * Starts receiving frame metrics for a window; call from onResume
+     * @param window - the activity's window
+     */
+    public void start(Window window) {
+        if (this.window != null) {
+            return;
+        }
+        this.window = window;
+        window.addOnFrameMetricsAvailableListener(this, handler());
+        Section section = current;
+        if (section != null) {
+            section.visibleSince = SystemClock.uptimeMillis();
+        }
+    }
+
+    /**
+     * Stops receiving frame metrics; call from onPause
+     */
+    public void stop() {
+        if (window == null) {
+            return;
+        }
+        window.removeOnFrameMetricsAvailableListener(this);
+        window = null;
+        Section section = current;
+        if (section != null) {
+            hide(section);
+        }
+    }
+
+    /**
+     * Files the frames that follow under a tab
+     * @param name - the tab's title
+     */
+    public void setSection(String name) {
+        Section next;
+        synchronized (sections) {
+            next = sections.get(name);
+            if (next == null) {
+                next = new Section(budgetNanos);
+                sections.put(name, next);
+            }
+        }
+        Section previous = current;
+        if (previous == next) {
+            return;
+        }
+        if (previous != null) {
+            hide(previous);
+        }
+        if (window != null) {
+            next.visibleSince = SystemClock.uptimeMillis();
+        }
+        current = next;
+    }
+
+    /**
+     * Frames recorded for a tab so far
+     * @param name - the tab's title
+     * @return the histogram, or null if the tab was never shown
+     */
+    public FrameTimeHistogram getHistogram(String name) {
+        synchronized (sections) {
+            Section section = sections.get(name);
+            return section == null ? null : section.histogram;
+        }
+    }
+
+    /**
+     * Logs one line per tab and starts counting afresh, so each visit to
+     * the foreground is reported on its own
+     */
+    public void logAndReset() {
+        synchronized (sections) {
+            for (Map.Entry<String, Section> entry : sections.entrySet()) {
+                Section section = entry.getValue();
+                long frames = section.histogram.getFrames();
+                if (frames == 0 && section.visibleMillis == 0) {
+                    continue;
+                }
+                double seconds = section.visibleMillis / 1000.0;
+                Log.i(TAG, String.format(Locale.US, "%s: %.1f s visible, %.1f frames/s, %s", entry.getKey(), seconds,
+                        seconds == 0 ? 0 : frames / seconds, section.histogram));
+                section.histogram.reset();
+                section.visibleMillis = 0;
+            }
+        }
+        long dropped = droppedReports.getAndSet(0);
+        if (dropped > 0) {
+            Log.i(TAG, dropped + " frames were not reported by the system");
+        }
+    }
+
+    /**
+     * Called on the metrics thread once per rendered frame.
+     */
+    @Override
+    public void onFrameMetricsAvailable(Window window, FrameMetrics frameMetrics, int dropCountSinceLastInvocation) {
+        if (dropCountSinceLastInvocation > 0) {
+            droppedReports.addAndGet(dropCountSinceLastInvocation);
+        }
+        // the first frame of a window includes inflation and layout, which the startup trace covers
+        if (frameMetrics.getMetric(FrameMetrics.FIRST_DRAW_FRAME) == 1) {
+            return;
+        }
+        Section section = current;
+        if (section != null) {
+            section.histogram.record(frameMetrics.getMetric(FrameMetrics.TOTAL_DURATION));
+        }
+    }
+
+    private static void hide(Section section) {
+        if (section.visibleSince >= 0) {
+            section.visibleMillis += SystemClock.uptimeMillis() - section.visibleSince;
+            section.visibleSince = -1;
+        }
+    }
+
+    private static synchronized Handler handler() {
+        if (metricsHandler == null) {
+            HandlerThread thread = new HandlerThread(TAG);
+            thread.start();
+            metricsHandler = new Handler(thread.getLooper());
+        }
+        return metricsHandler;
+    }
+}
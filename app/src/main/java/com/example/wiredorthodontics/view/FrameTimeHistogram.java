@@ -0,0 +1,150 @@
+/**
+ * Frame durations of one screen, bucketed by the tenth of a millisecond
+ * up to a quarter second so that recording a frame is an array increment
+ * and percentiles are read without keeping every sample. Frames over the
+ * display's frame budget count as janky and frames over 700 ms as frozen,
+ * the same thresholds Android vitals uses.
+ * @date 10.19.2026
+ */
+package com.example.wiredorthodontics.view;
+
+import java.util.Arrays;
+import java.util.Locale;
+
+public final class FrameTimeHistogram {
+
+    public static final long FROZEN_FRAME_NANOS = 700_000_000L;
+
+    private static final long BUCKET_NANOS = 100_000L;
+    private static final int BUCKETS = 2_500;
+
+    private final long budgetNanos;
+    // the last bucket holds every frame of BUCKETS * BUCKET_NANOS or longer
+    private final int[] counts = new int[BUCKETS + 1];
+    private long frames;
+    private long jankyFrames;
+    private long frozenFrames;
+    private long totalNanos;
+    private long maxNanos;
+
+    /**
+     * Constructor for an empty histogram
+     * @param budgetNanos - time the display gives each frame, e.g. 16.67 ms at 60 Hz
+     */
+    public FrameTimeHistogram(long budgetNanos) {
+        if (budgetNanos <= 0) {
+            throw new IllegalArgumentException("Frame budget must be positive");
+        }
+        this.budgetNanos = budgetNanos;
+    }
+
+    /**
+     * Records one frame
+     * @param durationNanos - time from input handling to the frame being handed to the display
+     */
+    public synchronized void record(long durationNanos) {
+        long duration = Math.max(0, durationNanos);
+        counts[(int) Math.min(BUCKETS, duration / BUCKET_NANOS)]++;
+        frames++;
+        totalNanos += duration;
+        if (duration > maxNanos) {
+            maxNanos = duration;
+        }
+        if (duration > budgetNanos) {
+            jankyFrames++;
+            if (duration > FROZEN_FRAME_NANOS) {
+                frozenFrames++;
+            }
+        }
+    }
+
+    /**
+     * Forgets every recorded frame
+     */
+    public synchronized void reset() {
+        Arrays.fill(counts, 0);
+        frames = 0;
+        jankyFrames = 0;
+        frozenFrames = 0;
+        totalNanos = 0;
+        maxNanos = 0;
+    }
+
+    /**
+     * Time the display gives each frame
+     * @return the budget in nanoseconds
+     */
+    public long getBudgetNanos() {
+        return budgetNanos;
+    }
+
+    /**
+     * Frames recorded
+     * @return the count
+     */
+    public synchronized long getFrames() {
+        return frames;
+    }
+
+    /**
+     * Frames that missed the budget, frozen frames included
+     * @return the count
+     */
+    public synchronized long getJankyFrames() {
+        return jankyFrames;
+    }
+
+    /**
+     * Frames that took longer than 700 ms
+     * @return the count
+     */
+    public synchronized long getFrozenFrames() {
+        return frozenFrames;
+    }
+
+    /**
+     * Mean frame duration
+     * @return milliseconds, 0 if nothing was recorded
+     */
+    public synchronized double getMeanMillis() {
+        return frames == 0 ? 0 : totalNanos / 1e6 / frames;
+    }
+
+    /**
+     * Frame duration that the given share of frames did not exceed, to the
+     * tenth of a millisecond; the slowest frame bounds it from above
+     * @param percentile - between 0 and 100, e.g. 99 for p99
+     * @return milliseconds, 0 if nothing was recorded
+     */
+    public synchronized double percentileMillis(double percentile) {
+        if (percentile < 0 || percentile > 100) {
+            throw new IllegalArgumentException("Percentile must be between 0 and 100");
+        }
+        if (frames == 0) {
+            return 0;
+        }
+        // nearest rank: the smallest bucket holding at least that many frames
+        long rank = Math.max(1, (long) Math.ceil(percentile / 100 * frames));
+        long seen = 0;
+        for (int bucket = 0; bucket < counts.length; bucket++) {
+            seen += counts[bucket];
+            if (seen >= rank) {
+                long upper = bucket == BUCKETS ? maxNanos : Math.min(maxNanos, (bucket + 1) * BUCKET_NANOS);
+                return upper / 1e6;
+            }
+        }
+        return maxNanos / 1e6;
+    }
+
+    /**
+     * One-line summary for the log
+     * @return frame count, jank and percentiles
+     */
+    @Override
+    public synchronized String toString() {
+        return String.format(Locale.US, "%d frames, %d janky (%.1f%%), %d frozen, p50 %.1f ms, p90 %.1f ms,"
+                        + " p99 %.1f ms, max %.1f ms, budget %.1f ms",
+                frames, jankyFrames, frames == 0 ? 0 : 100.0 * jankyFrames / frames, frozenFrames,
+                percentileMillis(50), percentileMillis(90), percentileMillis(99), maxNanos / 1e6, budgetNanos / 1e6);
+    }
+}
@@ -15,11 +15,15 @@ import android.view.View;
 import android.view.ViewGroup;
 import android.widget.Button;
 
+import com.airbnb.lottie.LottieCompositionFactory;
 import com.airbnb.lottie.LottieDrawable;
+import com.airbnb.lottie.RenderMode;
 import com.example.wiredorthodontics.R;
 
 public class HomeFragment extends Fragment {
 
+    private LottieAnimationView lottieAnimationView;
+
     public HomeFragment() {
         // Required empty public constructor
     }
@@ -43,11 +47,29 @@ public class HomeFragment extends Fragment {
         View view = inflater.inflate(R.layout.fragment_home, container, false);
 
         // set up the lottie animation
-        LottieAnimationView lottieAnimationView = view.findViewById(R.id.lottieAnimationView);
+        lottieAnimationView = view.findViewById(R.id.lottieAnimationView);
         lottieAnimationView.setRepeatCount(LottieDrawable.INFINITE);
         lottieAnimationView.setRepeatMode(LottieDrawable.RESTART);
         lottieAnimationView.setSpeed(0.5f);
-        lottieAnimationView.playAnimation();
+        // the animation has four track mattes and no dashed strokes; the gpu
+        // composites the matte layers, where software would redraw a
+        // full-size bitmap on the cpu every frame
+        lottieAnimationView.setRenderMode(RenderMode.HARDWARE);
+
+        // the composition was parsed in the background at startup, so this is
+        // normally a cache hit; the first frame never waits on the json parse
+        LottieCompositionFactory.fromAsset(requireContext(), MainActivity.HOME_ANIMATION)
+                .addListener(composition -> {
+                    if (lottieAnimationView == null) {
+                        return; // the view was destroyed before the composition arrived
+                    }
+                    lottieAnimationView.setComposition(composition);
+                    // a tab that is already offscreen starts when it is resumed
+                    if (isResumed()) {
+                        lottieAnimationView.playAnimation();
+                    }
+                    StartupTrace.mark("home animation ready");
+                });
 
         // set up a click listener for the button
         Button btnStart = view.findViewById(R.id.btnStart);
@@ -58,4 +80,35 @@ public class HomeFragment extends Fragment {
         });
         return view;
     }
-}
\ No newline at end of file
+
+    /**
+     * Runs the animation while this tab is the current page. The pager
+     * resumes only the page that is showing.
+     */
+    @Override
+    public void onResume() {
+        super.onResume();
+        if (lottieAnimationView != null && lottieAnimationView.getComposition() != null) {
+            lottieAnimationView.resumeAnimation();
+        }
+    }
+
+    /**
+     * Stops the animation's frame callbacks when another tab is selected or
+     * the app leaves the foreground, so the looping animation costs nothing
+     * while nobody can see it.
+     */
+    @Override
+    public void onPause() {
+        super.onPause();
+        if (lottieAnimationView != null) {
+            lottieAnimationView.pauseAnimation();
+        }
+    }
+
+    @Override
+    public void onDestroyView() {
+        super.onDestroyView();
+        lottieAnimationView = null;
+    }
+}
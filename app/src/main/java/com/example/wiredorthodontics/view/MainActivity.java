@@ -2,29 +2,61 @@ package com.example.wiredorthodontics.view;
 
 import androidx.appcompat.app.AppCompatActivity;
 import androidx.fragment.app.Fragment;
+import androidx.viewpager.widget.PagerAdapter;
 import androidx.viewpager.widget.ViewPager;
 
 import android.app.AlertDialog;
+import android.content.Context;
 import android.content.res.ColorStateList;
+import android.hardware.display.DisplayManager;
+import android.os.Build;
 import android.os.Bundle;
+import android.util.Log;
+import android.view.Display;
 
 import com.example.wiredorthodontics.R;
 import com.example.wiredorthodontics.controller.AppointmentController;
+import com.example.wiredorthodontics.controller.ReportController;
+import com.example.wiredorthodontics.model.AppointmentArchiver;
 import com.example.wiredorthodontics.model.AppointmentDAO;
+import com.example.wiredorthodontics.model.AuditLog;
+import com.example.wiredorthodontics.model.BlockOutStore;
+import com.example.wiredorthodontics.model.BookingQueue;
+import com.example.wiredorthodontics.model.CapacityRebuildJob;
+import com.airbnb.lottie.LottieCompositionFactory;
 import com.google.android.material.tabs.TabLayout;
 
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
 public class MainActivity extends AppCompatActivity {
 
+    static final String HOME_ANIMATION = "tooth_lottie.json";
+    private static final String TAG = "MainActivity";
+
+    // one background thread for startup work that must not block the first frame, and for daily maintenance
+    private static final ScheduledExecutorService STARTUP_EXECUTOR = Executors.newSingleThreadScheduledExecutor();
+    private static final AtomicBoolean MAINTENANCE_SCHEDULED = new AtomicBoolean();
+    // archiving waits until the app has settled after launch
+    private static final long ARCHIVE_DELAY_MINUTES = 1;
+
     private AppointmentController controller;
+    private ReportController reportController;
+    private AppointmentDAO dao;
+    private FrameMetricsCollector frameMetrics;
     ViewPager viewPager;
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
         super.onCreate(savedInstanceState);
+        StartupTrace.mark("activity create");
         setContentView(R.layout.activity_main);
 
-        // Create the controller instance
-        controller = new AppointmentController(this, new AppointmentDAO(this));
+        // constructing the dao is cheap; opening the database is deferred to the warm-up
+        dao = new AppointmentDAO(this);
+        warmUpInBackground(getApplicationContext(), dao);
 
         // set up viewpager and tabs
         viewPager = findViewById(R.id.viewPager);
@@ -33,26 +65,118 @@ public class MainActivity extends AppCompatActivity {
         TabLayout tabLayout = findViewById(R.id.tabLayout);
         tabLayout.setupWithViewPager(viewPager);
         setupTabLayout(tabLayout);
+
+        setupFrameMetrics(viewPager);
+        StartupTrace.reportFirstFrame(getWindow().getDecorView());
     }
 
-    private void setupViewPager(ViewPager viewPager) {
-        ViewPagerAdapter adapter = new ViewPagerAdapter(getSupportFragmentManager());
+    @Override
+    protected void onResume() {
+        super.onResume();
+        frameMetrics.start(getWindow());
+    }
 
-        HomeFragment homeFragment = new HomeFragment();
-        CalendarFragment calendarFragment = new CalendarFragment();
-        PersonalInfoFragment personalInfoFragment = new PersonalInfoFragment();
+    @Override
+    protected void onPause() {
+        super.onPause();
+        frameMetrics.stop();
+        frameMetrics.logAndReset();
+    }
 
-        // Set the controller for fragments
-        calendarFragment.setController(controller);
-        personalInfoFragment.setController(controller);
+    /**
+     * Returns the controller, creating it on first use.
+     * Fragments fetch it from here when they attach.
+     * @return the appointment controller
+     */
+    public AppointmentController getController() {
+        if (controller == null) {
+            controller = new AppointmentController(this);
+        }
+        return controller;
+    }
 
-        adapter.addFragment(homeFragment, "Getting Started");
-        adapter.addFragment(calendarFragment, "Pick a Date");
-        adapter.addFragment(personalInfoFragment, "Your Info");
+    /**
+     * Returns the report controller, creating it on first use.
+     * Reports read the archived years as well as the live table.
+     * @return the referral report controller
+     */
+    public ReportController getReportController() {
+        if (reportController == null) {
+            reportController = new ReportController(this);
+        }
+        return reportController;
+    }
+
+    /**
+     * Moves the slow parts of startup off the ui thread: parsing the home
+     * animation into Lottie's composition cache, opening the database (which
+     * runs schema creation or migration on first launch), replaying the
+     * booking journal and checking the capacity summary.
+     * @param context application context
+     * @param dao the data access object to open
+     */
+    private static void warmUpInBackground(Context context, AppointmentDAO dao) {
+        // parses on Lottie's own executor and caches the result under the asset name
+        LottieCompositionFactory.fromAsset(context, HOME_ANIMATION);
+
+        STARTUP_EXECUTOR.execute(() -> {
+            try {
+                dao.open();
+                StartupTrace.mark("database open");
+                BookingQueue.getInstance(context);
+                StartupTrace.mark("booking journal replayed");
+                AuditLog.getInstance(context);
+                StartupTrace.mark("audit log opened");
+                BlockOutStore.getInstance(context);
+                // the booking selection used to be written here on every tap
+                context.deleteSharedPreferences("AppointmentData");
+                new CapacityRebuildJob(dao).run();
+            } catch (RuntimeException e) {
+                // anything that failed here is retried lazily on first use
+                Log.e(TAG, "Startup warm-up failed", e);
+            }
+        });
+        // activities are recreated, the process-wide schedule is set up once
+        if (MAINTENANCE_SCHEDULED.compareAndSet(false, true)) {
+            new AppointmentArchiver(context).schedule(STARTUP_EXECUTOR, ARCHIVE_DELAY_MINUTES, TimeUnit.MINUTES);
+            STARTUP_EXECUTOR.execute(() -> {
+                try {
+                    AppointmentController.loadPatientIndex(context);
+                    StartupTrace.mark("patient index loaded");
+                    AppointmentController.recordDuplicatePatients(context);
+                } catch (RuntimeException e) {
+                    Log.e(TAG, "Loading the patient index failed", e);
+                }
+            });
+        }
+    }
+
+    private void setupViewPager(ViewPager viewPager) {
+        ViewPagerAdapter adapter = new ViewPagerAdapter(getSupportFragmentManager());
+
+        // pages are created by the adapter when first shown
+        adapter.addFragment(HomeFragment::new, "Getting Started");
+        adapter.addFragment(CalendarFragment::new, "Pick a Date");
+        adapter.addFragment(PersonalInfoFragment::new, "Your Info");
 
         viewPager.setAdapter(adapter);
     }
 
+    private void setupFrameMetrics(ViewPager viewPager) {
+        // Activity.getDisplay() is only there from Android 11
+        Display display = Build.VERSION.SDK_INT >= Build.VERSION_CODES.R ? getDisplay()
+                : getSystemService(DisplayManager.class).getDisplay(Display.DEFAULT_DISPLAY);
+        frameMetrics = new FrameMetricsCollector(display);
+        PagerAdapter adapter = viewPager.getAdapter();
+        frameMetrics.setSection(String.valueOf(adapter.getPageTitle(viewPager.getCurrentItem())));
+        viewPager.addOnPageChangeListener(new ViewPager.SimpleOnPageChangeListener() {
+            @Override
+            public void onPageSelected(int position) {
+                frameMetrics.setSection(String.valueOf(adapter.getPageTitle(position)));
+            }
+        });
+    }
+
     private void setupTabLayout(TabLayout tabLayout) {
         // code for setting up tab colors
         tabLayout.setTabTextColors(ColorStateList.valueOf(getResources().getColor(R.color.unselected_tab_color)));
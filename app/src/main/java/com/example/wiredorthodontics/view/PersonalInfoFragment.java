@@ -9,9 +9,9 @@ package com.example.wiredorthodontics.view;
 import android.app.AlertDialog;
 import android.content.Context;
 import android.content.DialogInterface;
-import android.content.SharedPreferences;
 import android.os.Bundle;
 import androidx.fragment.app.Fragment;
+import androidx.lifecycle.ViewModelProvider;
 import android.view.LayoutInflater;
 import android.view.View;
 import android.view.ViewGroup;
@@ -30,6 +30,7 @@ public class PersonalInfoFragment extends Fragment {
     private Spinner spinnerIdChoices;
     private Button btnSubmit;
     private AppointmentController controller;
+    private BookingSessionViewModel session;
 
     /**
      * Required empty public constructor.
@@ -38,13 +39,14 @@ public class PersonalInfoFragment extends Fragment {
     }
 
     /**
-     * Sets the AppointmentController for managing appointments.
+     * Retrieves the AppointmentController from MainActivity when attached.
      *
-     * @param controller The AppointmentController to be set.
+     * @param context The hosting MainActivity.
      */
-    public void setController(AppointmentController controller) {
-        // assign
-        this.controller = controller;
+    @Override
+    public void onAttach(Context context) {
+        super.onAttach(context);
+        controller = ((MainActivity) context).getController();
     }
 
     /**
@@ -58,6 +60,7 @@ public class PersonalInfoFragment extends Fragment {
     @Override
     public View onCreateView(LayoutInflater inflater, ViewGroup container, Bundle savedInstanceState) {
         View view = inflater.inflate(R.layout.fragment_personal_info, container, false);
+        session = new ViewModelProvider(requireActivity()).get(BookingSessionViewModel.class);
 
         edtPatientName = view.findViewById(R.id.edtPatientName);
         edtDOB = view.findViewById(R.id.edtDateOfBirth);
@@ -119,13 +122,13 @@ public class PersonalInfoFragment extends Fragment {
         String appointmentDescription = edtDescription.getText().toString();
         String clinicSource = edtClinicSource.getText().toString();
 
-        // get date and time from preferences
-        SharedPreferences sharedPreferences = requireActivity().getSharedPreferences("AppointmentData", Context.MODE_PRIVATE);
-        String appointmentDate = sharedPreferences.getString("selectedDate", "DEFAULT_VALUE");
-        String appointmentTime = sharedPreferences.getString("selectedTime", "DEFAULT_VALUE");
+        // get date and time picked on the calendar tab; null if not picked yet
+        String appointmentDate = session.getSelectedDate();
+        String appointmentTime = session.getSelectedTime();
 
-        boolean isAdded = controller.addAppointment(patientName, patientDOB, patientAddress, patientID, appointmentDate, appointmentTime, appointmentDescription, clinicSource);
+        boolean isAdded = controller.addAppointment(patientName, patientDOB, patientAddress, patientID, appointmentDate, appointmentTime, appointmentDescription, clinicSource, session.getSessionId());
         if (isAdded) {
+            session.clear();
             showAppointmentConfirmation();
         }
     }
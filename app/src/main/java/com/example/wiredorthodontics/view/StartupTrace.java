@@ -0,0 +1,70 @@
+/**
+ * Lightweight cold-start trace. Records named milestones relative to the
+ * moment the process was started, emits each as a systrace section marker
+ * so they show up in Perfetto, and logs time to first frame so startup
+ * changes can be compared run over run with
+ * {@code adb logcat -s StartupTrace}.
+ * @date 10.19.2026
+ */
+package com.example.wiredorthodontics.view;
+
+import android.os.Process;
+import android.os.SystemClock;
+import android.os.Trace;
+import android.util.Log;
+import android.view.View;
+import android.view.ViewTreeObserver;
+
+public final class StartupTrace {
+
+    private static final String TAG = "StartupTrace";
+
+    private static boolean firstFrameReported;
+
+    private StartupTrace() {
+    }
+
+    /**
+     * Milliseconds since the process was forked.
+     * @return elapsed startup time
+     */
+    public static long sinceProcessStart() {
+        return SystemClock.uptimeMillis() - Process.getStartUptimeMillis();
+    }
+
+    /**
+     * Records a named milestone.
+     * @param milestone - short name of the step that just finished
+     */
+    public static void mark(String milestone) {
+        Trace.beginSection("startup:" + milestone);
+        Trace.endSection();
+        Log.i(TAG, milestone + " at " + sinceProcessStart() + " ms");
+    }
+
+    /**
+     * Logs time to first frame the first time the given view is drawn.
+     * Only the first activity launch in a process is a cold start, so later
+     * calls are ignored.
+     * @param root - the activity's root view
+     */
+    public static void reportFirstFrame(final View root) {
+        if (firstFrameReported) {
+            return;
+        }
+        root.getViewTreeObserver().addOnPreDrawListener(new ViewTreeObserver.OnPreDrawListener() {
+            @Override
+            public boolean onPreDraw() {
+                root.getViewTreeObserver().removeOnPreDrawListener(this);
+                // the frame is submitted once this draw pass completes
+                root.post(() -> {
+                    if (!firstFrameReported) {
+                        firstFrameReported = true;
+                        mark("first frame");
+                    }
+                });
+                return true;
+            }
+        });
+    }
+}
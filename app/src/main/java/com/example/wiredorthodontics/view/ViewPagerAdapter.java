@@ -12,10 +12,11 @@ import androidx.fragment.app.FragmentManager;
 import androidx.fragment.app.FragmentPagerAdapter;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.function.Supplier;
 
 public class ViewPagerAdapter extends FragmentPagerAdapter {
 
-    private final List<Fragment> fragmentList = new ArrayList<>();
+    private final List<Supplier<Fragment>> fragmentFactories = new ArrayList<>();
     private final List<String> fragmentTitleList = new ArrayList<>();
 
     /**
@@ -24,12 +25,15 @@ public class ViewPagerAdapter extends FragmentPagerAdapter {
      * @param manager The FragmentManager to handle the fragments.
      */
     public ViewPagerAdapter(FragmentManager manager) {
+        // offscreen pages stay started but are paused, which stops the home animation
         super(manager, BEHAVIOR_RESUME_ONLY_CURRENT_FRAGMENT);
     }
 
 
     /**
-     * Returns the fragment at the specified position.
+     * Creates the fragment at the specified position. The ViewPager only
+     * asks for a page when it is about to be shown (or is adjacent to the
+     * current one), so fragments are not built until they are needed.
      *
      * @param position The position of the fragment.
      * @return The fragment at the specified position.
@@ -37,7 +41,7 @@ public class ViewPagerAdapter extends FragmentPagerAdapter {
     @NonNull
     @Override
     public Fragment getItem(int position) {
-        return fragmentList.get(position);
+        return fragmentFactories.get(position).get();
     }
 
     /**
@@ -47,17 +51,17 @@ public class ViewPagerAdapter extends FragmentPagerAdapter {
      */
     @Override
     public int getCount() {
-        return fragmentList.size();
+        return fragmentFactories.size();
     }
 
     /**
-     * Adds a fragment to the adapter with a given title.
+     * Adds a page to the adapter with a given title.
      *
-     * @param fragment The fragment to add.
-     * @param title    The title associated with the fragment.
+     * @param factory Creates the page's fragment on first use.
+     * @param title   The title associated with the fragment.
      */
-    public void addFragment(Fragment fragment, String title) {
-        fragmentList.add(fragment);
+    public void addFragment(Supplier<Fragment> factory, String title) {
+        fragmentFactories.add(factory);
         fragmentTitleList.add(title);
     }
 
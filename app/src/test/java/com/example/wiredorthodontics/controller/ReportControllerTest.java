@@ -0,0 +1,126 @@
+package com.example.wiredorthodontics.controller;
+
+import com.example.wiredorthodontics.model.ReferralReport;
+import com.example.wiredorthodontics.model.ReportRowSource;
+import com.example.wiredorthodontics.model.TextDictionary;
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.Assert.*;
+
+/**
+ * JVM tests for the referral report: how the date range is partitioned
+ * across the fork/join pool and that the merged result matches a single
+ * pass over the same rows.
+ */
+public class ReportControllerTest {
+
+    private static final String[] SOURCES = {"Friend", "Google", "Instagram", "Dentist referral", "Flyer"};
+    private static final String[] REASONS = {"Consultation", "Adjustment", "Retainer check", "Braces removal"};
+
+    private final ForkJoinPool pool = new ForkJoinPool(4);
+
+    /**
+     * Generates a fixed number of rows for every day asked for and records
+     * the ranges it was scanned over.
+     */
+    private static class GeneratedRows implements ReportRowSource {
+        final int rowsPerDay;
+        final List<String[]> scans = Collections.synchronizedList(new ArrayList<String[]>());
+
+        GeneratedRows(int rowsPerDay) {
+            this.rowsPerDay = rowsPerDay;
+        }
+
+        @Override
+        public void scanReportRows(String fromDate, String toDate, RowVisitor visitor) {
+            scans.add(new String[]{fromDate, toDate});
+            LocalDate last = LocalDate.parse(toDate);
+            for (LocalDate day = LocalDate.parse(fromDate); !day.isAfter(last); day = day.plusDays(1)) {
+                String date = day.toString();
+                int seed = day.getDayOfYear();
+                for (int i = 0; i < rowsPerDay; i++) {
+                    visitor.onRow(date, SOURCES[(seed + i) % SOURCES.length], REASONS[(seed * 7 + i) % REASONS.length]);
+                }
+            }
+        }
+    }
+
+    @After
+    public void tearDown() {
+        pool.shutdownNow();
+    }
+
+    @Test
+    public void partitionsCoverTheRangeOnMonthBoundaries() {
+        GeneratedRows rows = new GeneratedRows(1);
+        new ReportController(rows, pool).buildReport("2025-02-14", "2026-03-09");
+
+        List<String[]> scans = new ArrayList<>(rows.scans);
+        Collections.sort(scans, (a, b) -> a[0].compareTo(b[0]));
+        assertEquals("2025-02-14", scans.get(0)[0]);
+        assertEquals("2026-03-09", scans.get(scans.size() - 1)[1]);
+        for (int i = 1; i < scans.size(); i++) {
+            LocalDate start = LocalDate.parse(scans.get(i)[0]);
+            // each partition starts on the first of a month, the day after the previous one ends
+            assertEquals(1, start.getDayOfMonth());
+            assertEquals(LocalDate.parse(scans.get(i - 1)[1]).plusDays(1), start);
+        }
+        // fourteen months split into halves of at most three months
+        assertTrue(scans.size() > 1);
+        for (String[] scan : scans) {
+            assertTrue(LocalDate.parse(scan[0]).plusMonths(3).isAfter(LocalDate.parse(scan[1])));
+        }
+    }
+
+    @Test
+    public void parallelReportMatchesASinglePass() {
+        GeneratedRows rows = new GeneratedRows(3);
+        ReferralReport parallel = new ReportController(rows, pool).buildReport("2024-11-20", "2026-06-11");
+
+        ReferralReport single = new ReferralReport(new TextDictionary(), new TextDictionary());
+        rows.scanReportRows("2024-11-20", "2026-06-11", single::add);
+
+        assertEquals(single.getRowCount(), parallel.getRowCount());
+        assertEquals(single.getSourceTotals(), parallel.getSourceTotals());
+        assertEquals(single.getReasonTotals(), parallel.getReasonTotals());
+        assertEquals(single.getSourcesByMonth(), parallel.getSourcesByMonth());
+        assertEquals("2024-11", parallel.getSourcesByMonth().firstKey());
+        assertEquals("2026-06", parallel.getSourcesByMonth().lastKey());
+    }
+
+    @Test
+    public void singleMonthAndEmptyRanges() {
+        GeneratedRows rows = new GeneratedRows(2);
+        ReportController reports = new ReportController(rows, pool);
+
+        assertEquals(20, reports.buildReport("2026-04-01", "2026-04-10").getRowCount());
+        assertEquals(1, rows.scans.size());
+
+        assertEquals(0, reports.buildReport("2026-05-01", "2026-04-01").getRowCount());
+        assertEquals(1, rows.scans.size());
+    }
+
+    @Test
+    public void multiYearReportStaysFast() {
+        // five years at about 275 rows a day, streamed without being stored
+        GeneratedRows rows = new GeneratedRows(275);
+        ReportController reports = new ReportController(rows, pool);
+        reports.buildReport("2021-01-01", "2021-03-31"); // warm up
+
+        long start = System.nanoTime();
+        ReferralReport report = reports.buildReport("2021-01-01", "2025-12-31");
+        long millis = (System.nanoTime() - start) / 1_000_000;
+
+        assertEquals(1826 * 275, report.getRowCount());
+        assertEquals(60, report.getSourcesByMonth().size());
+        assertTrue("report took " + millis + " ms", millis < 5_000);
+    }
+}
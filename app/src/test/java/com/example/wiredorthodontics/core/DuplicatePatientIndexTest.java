@@ -0,0 +1,103 @@
+package com.example.wiredorthodontics.core;
+
+import org.junit.Test;
+
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * Checks that misspelled re-registrations are found and unrelated
+ * patients are not, including at clinic-history scale.
+ */
+public class DuplicatePatientIndexTest {
+
+    private static final String[] FIRST = {"James", "Maria", "Robert", "Linda", "Michael", "Sofia", "David", "Ana",
+            "William", "Elena", "Daniel", "Grace", "Thomas", "Lucia", "Kevin", "Rosa"};
+    private static final String[] LAST = {"Garcia", "Smith", "Martinez", "Johnson", "Lopez", "Brown", "Chavez",
+            "Williams", "Romero", "Jones", "Sanchez", "Miller", "Baca", "Davis", "Trujillo", "Wilson"};
+    private static final String[] STREETS = {"Oak", "Central", "Lomas", "Montgomery", "Menaul", "Juan Tabo",
+            "Coors", "Tramway", "Paseo del Norte", "Rio Grande"};
+
+    @Test
+    public void misspelledDetailsMatch() {
+        DuplicatePatientIndex index = new DuplicatePatientIndex();
+        index.add("Jonathan Smith", "1990-03-04", "12 Oak Street Apt 4", "D1234567");
+        index.add("Maria Garcia", "1985-11-20", "400 Central Ave SW", "P9876543");
+
+        List<DuplicatePatientIndex.Match> matches =
+                index.findMatches("Jonathon Smith", "1990-03-04", "12 oak st. apt 4", "D1234567", 5);
+        assertEquals(1, matches.size());
+        assertEquals("Jonathan Smith", matches.get(0).getPatient().getName());
+        assertTrue(matches.get(0).getSimilarity() >= DuplicatePatientIndex.DEFAULT_THRESHOLD);
+
+        assertTrue(index.findMatches("Robert Chavez", "1970-01-15", "9 Tramway Blvd NE", "S5550001", 5).isEmpty());
+    }
+
+    @Test
+    public void exactRepeatsAreOneIdentity() {
+        DuplicatePatientIndex index = new DuplicatePatientIndex();
+        assertTrue(index.add("Ana Lopez", "2001-07-09", "5 Rio Grande Blvd", "S1112223"));
+        assertFalse(index.add("ana  lopez", "2001-07-09", "5 Rio Grande Boulevard", "s-111-2223"));
+        assertEquals(1, index.size());
+        // a returning patient is not their own duplicate
+        assertTrue(index.findMatches("Ana Lopez", "2001-07-09", "5 Rio Grande Blvd", "S1112223", 5).isEmpty());
+    }
+
+    @Test
+    public void clustersGroupEverySpelling() {
+        DuplicatePatientIndex index = new DuplicatePatientIndex();
+        index.add("Jonathan Smith", "1990-03-04", "12 Oak Street Apt 4", "D1234567");
+        index.add("Jonathon Smith", "1990-03-04", "12 Oak St Apt 4", "D1234567");
+        index.add("Jon Smith", "1990-03-04", "12 Oak St Apt 4", "D1234567");
+        index.add("Maria Garcia", "1985-11-20", "400 Central Ave SW", "P9876543");
+        index.add("Maria Garcia", "1985-11-20", "400 Central Avenue Southwest", "P9876543");
+        index.add("Robert Chavez", "1970-01-15", "9 Tramway Blvd NE", "S5550001");
+
+        List<List<DuplicatePatientIndex.Patient>> clusters = index.findClusters();
+        assertEquals(2, clusters.size());
+        assertEquals(3, clusters.get(0).size());
+        assertEquals(2, clusters.get(1).size());
+    }
+
+    @Test
+    public void findsPlantedDuplicatesAmongManyPatients() {
+        Random random = new Random(42);
+        DuplicatePatientIndex index = new DuplicatePatientIndex();
+        int patients = 20_000;
+        int planted = 200;
+        for (int i = 0; i < patients; i++) {
+            String name = FIRST[random.nextInt(FIRST.length)] + " " + LAST[random.nextInt(LAST.length)];
+            String dob = String.format("%04d-%02d-%02d", 1950 + random.nextInt(60), 1 + random.nextInt(12), 1 + random.nextInt(28));
+            String address = (1 + random.nextInt(9999)) + " " + STREETS[random.nextInt(STREETS.length)] + " St";
+            String id = "D" + (1_000_000 + i);
+            index.add(name, dob, address, id);
+            if (i < planted) {
+                // one typo in the name, the street word spelled out
+                char[] typo = name.toCharArray();
+                int at = 1 + random.nextInt(typo.length - 2);
+                typo[at] = typo[at] == 'x' ? 'y' : 'x';
+                index.add(new String(typo), dob, address.replace(" St", " Street"), id);
+            }
+        }
+
+        long start = System.nanoTime();
+        List<List<DuplicatePatientIndex.Patient>> clusters = index.findClusters();
+        long clusterMillis = (System.nanoTime() - start) / 1_000_000;
+
+        int found = 0;
+        int others = 0;
+        for (List<DuplicatePatientIndex.Patient> cluster : clusters) {
+            // planted pairs share their ID number; unrelated patients never do
+            if (cluster.size() == 2 && cluster.get(0).getIdNumber().equals(cluster.get(1).getIdNumber())) {
+                found++;
+            } else {
+                others++; // same common name and birthday, as likely the same person as not
+            }
+        }
+        assertTrue("found " + found + " of " + planted, found >= planted * 95 / 100);
+        assertTrue(others + " unplanted groups", others < planted / 10);
+        assertTrue("clustering took " + clusterMillis + " ms", clusterMillis < 5_000);
+    }
+}
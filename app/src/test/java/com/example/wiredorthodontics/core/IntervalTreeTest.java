@@ -0,0 +1,70 @@
+package com.example.wiredorthodontics.core;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * Checks interval queries against a linear scan.
+ */
+public class IntervalTreeTest {
+
+    private static final class Span {
+        final long start;
+        final long end;
+
+        Span(long start, long end) {
+            this.start = start;
+            this.end = end;
+        }
+    }
+
+    @Test
+    public void queriesMatchALinearScan() {
+        Random random = new Random(7);
+        List<Span> spans = new ArrayList<>();
+        for (int i = 0; i < 2000; i++) {
+            long start = random.nextInt(100_000);
+            // mostly short spans with a few long ones, like meetings and vacations
+            long length = random.nextInt(10) == 0 ? random.nextInt(20_000) : random.nextInt(120);
+            spans.add(new Span(start, start + length));
+        }
+        IntervalTree<Span> tree = new IntervalTree<>(spans, s -> s.start, s -> s.end);
+
+        for (int q = 0; q < 1000; q++) {
+            long from = random.nextInt(110_000) - 5_000;
+            long to = from + 1 + random.nextInt(1_440);
+            List<Span> expected = new ArrayList<>();
+            for (Span span : spans) {
+                if (span.start < span.end && span.start < to && span.end > from) {
+                    expected.add(span);
+                }
+            }
+            List<Span> found = tree.overlapping(from, to);
+            assertEquals(expected.size(), found.size());
+            assertTrue(found.containsAll(expected));
+        }
+    }
+
+    @Test
+    public void rangesAreHalfOpen() {
+        List<Span> spans = new ArrayList<>();
+        spans.add(new Span(10, 20));
+        spans.add(new Span(20, 30));
+        spans.add(new Span(25, 25)); // empty, never found
+        IntervalTree<Span> tree = new IntervalTree<>(spans, s -> s.start, s -> s.end);
+
+        assertEquals(2, tree.size());
+        assertEquals(1, tree.overlapping(19, 20).size());
+        assertEquals(1, tree.overlapping(20, 21).size());
+        assertEquals(2, tree.overlapping(19, 21).size());
+        assertTrue(tree.overlapping(30, 40).isEmpty());
+        assertTrue(tree.overlapping(15, 15).isEmpty());
+        assertTrue(new IntervalTree<Span>(Collections.emptyList(), s -> s.start, s -> s.end).overlapping(0, 100).isEmpty());
+    }
+}
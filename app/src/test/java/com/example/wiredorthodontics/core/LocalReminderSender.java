@@ -0,0 +1,35 @@
+package com.example.wiredorthodontics.core;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Reminder sender for tests: records every batch instead of delivering
+ * it, and can be told to fail.
+ */
+public class LocalReminderSender implements ReminderSender {
+
+    final List<List<Reminder>> batches = Collections.synchronizedList(new ArrayList<>());
+    volatile boolean failing;
+
+    @Override
+    public void send(List<Reminder> batch) throws Exception {
+        if (failing) {
+            throw new Exception("provider unavailable");
+        }
+        batches.add(new ArrayList<>(batch));
+    }
+
+    List<String> sentKeys() {
+        List<String> keys = new ArrayList<>();
+        synchronized (batches) {
+            for (List<Reminder> batch : batches) {
+                for (Reminder reminder : batch) {
+                    keys.add(reminder.getKey());
+                }
+            }
+        }
+        return keys;
+    }
+}
@@ -0,0 +1,178 @@
+package com.example.wiredorthodontics.core;
+
+import com.example.wiredorthodontics.model.Appointment;
+import com.example.wiredorthodontics.model.TimeSlots;
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BrokenBarrierException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import static org.junit.Assert.*;
+
+/**
+ * JVM tests for the cross-clinic search: the parallel fan-out and how the
+ * per-clinic answers are merged.
+ */
+public class MultiClinicSchedulerTest {
+
+    private static final LocalDate FIRST_DAY = LocalDate.of(2026, 11, 2);
+
+    private final ExecutorService fanOut = Executors.newFixedThreadPool(4);
+
+    private static class InMemoryStore implements AppointmentStore {
+        final Map<String, List<String>> booked = new ConcurrentHashMap<>();
+
+        @Override
+        public List<String> getBookedTimesForDate(String date) {
+            List<String> times = booked.get(date);
+            return times == null ? new ArrayList<>() : new ArrayList<>(times);
+        }
+
+        @Override
+        public void save(Appointment appointment) {
+            booked.computeIfAbsent(appointment.getAppointmentDate(), d -> new ArrayList<>()).add(appointment.getAppointmentTime());
+        }
+
+        void fill(LocalDate date, int slots) {
+            for (int slot = 0; slot < slots; slot++) {
+                save(appointment(date, slot));
+            }
+        }
+    }
+
+    @After
+    public void tearDown() {
+        fanOut.shutdownNow();
+    }
+
+    private static Appointment appointment(LocalDate date, int slot) {
+        return new Appointment("Pat", "1990-01-01", "1 Main St", "X1", date.toString(), TimeSlots.get(slot), "Cleaning", "Friend");
+    }
+
+    private static SchedulingService service(AppointmentStore store) {
+        return new SchedulingService(store, HolidayCalendar.newMexico2023());
+    }
+
+    @Test
+    public void earliestOpeningWinsAcrossClinics() throws InterruptedException {
+        InMemoryStore north = new InMemoryStore();
+        north.fill(FIRST_DAY, TimeSlots.count());
+        InMemoryStore south = new InMemoryStore();
+        south.fill(FIRST_DAY, 3);
+        InMemoryStore east = new InMemoryStore();
+        east.fill(FIRST_DAY, 5);
+
+        Map<String, SchedulingService> clinics = new LinkedHashMap<>();
+        clinics.put("north", service(north));
+        clinics.put("south", service(south));
+        clinics.put("east", service(east));
+        MultiClinicScheduler.Opening opening = new MultiClinicScheduler(clinics, fanOut).findFirstOpening(FIRST_DAY, 7);
+
+        assertEquals("south", opening.getClinicId());
+        assertEquals(FIRST_DAY, opening.getDate());
+        assertEquals(TimeSlots.get(3), opening.getTime());
+    }
+
+    @Test
+    public void tiesGoToTheLowerClinicId() throws InterruptedException {
+        Map<String, SchedulingService> clinics = new LinkedHashMap<>();
+        clinics.put("west", service(new InMemoryStore()));
+        clinics.put("east", service(new InMemoryStore()));
+        clinics.put("north", service(new InMemoryStore()));
+
+        MultiClinicScheduler.Opening opening = new MultiClinicScheduler(clinics, fanOut).findFirstOpening(FIRST_DAY, 7);
+        assertEquals("east", opening.getClinicId());
+        assertEquals(TimeSlots.get(0), opening.getTime());
+    }
+
+    @Test
+    public void fullClinicsHaveNoOpening() throws InterruptedException {
+        InMemoryStore full = new InMemoryStore();
+        for (int day = 0; day < 3; day++) {
+            full.fill(FIRST_DAY.plusDays(day), TimeSlots.count());
+        }
+        Map<String, SchedulingService> clinics = new LinkedHashMap<>();
+        clinics.put("main", service(full));
+
+        assertNull(new MultiClinicScheduler(clinics, fanOut).findFirstOpening(FIRST_DAY, 3));
+    }
+
+    @Test
+    public void searchSkipsHoldsBlockOutsAndClosedDays() throws InterruptedException {
+        SlotHoldRegistry holds = new SlotHoldRegistry(10, TimeUnit.MINUTES);
+        BlockOutCalendar blockOuts = new BlockOutCalendar();
+        SchedulingService main = new SchedulingService(new InMemoryStore(), HolidayCalendar.newMexico2023(), holds, blockOuts);
+        Map<String, SchedulingService> clinics = new LinkedHashMap<>();
+        clinics.put("main", main);
+        MultiClinicScheduler scheduler = new MultiClinicScheduler(clinics, fanOut);
+
+        assertTrue(main.hold("session", FIRST_DAY.toString(), TimeSlots.get(0)));
+        assertEquals(TimeSlots.get(1), scheduler.findFirstOpening(FIRST_DAY, 7).getTime());
+
+        blockOuts.add(new BlockOut(1, BlockOut.Kind.STAFF_MEETING, FIRST_DAY.atTime(9, 0), FIRST_DAY.atTime(10, 0), null));
+        assertEquals(TimeSlots.get(2), scheduler.findFirstOpening(FIRST_DAY, 7).getTime());
+
+        blockOuts.add(new BlockOut(2, BlockOut.Kind.CLOSURE, FIRST_DAY.atStartOfDay(), FIRST_DAY.plusDays(1).atStartOfDay(), null));
+        MultiClinicScheduler.Opening opening = scheduler.findFirstOpening(FIRST_DAY, 7);
+        assertEquals(FIRST_DAY.plusDays(1), opening.getDate());
+        assertEquals(TimeSlots.get(0), opening.getTime());
+    }
+
+    @Test
+    public void bookingsThroughAClinicAreSeenByTheSearch() throws InterruptedException {
+        Map<String, SchedulingService> clinics = new LinkedHashMap<>();
+        clinics.put("main", service(new InMemoryStore()));
+        MultiClinicScheduler scheduler = new MultiClinicScheduler(clinics, fanOut);
+
+        MultiClinicScheduler.Opening opening = scheduler.findFirstOpening(FIRST_DAY, 7);
+        Appointment appointment = appointment(opening.getDate(), TimeSlots.indexOf(opening.getTime()));
+        assertEquals(BookingResult.Status.BOOKED, scheduler.forClinic("main").book(appointment).getStatus());
+        assertEquals(TimeSlots.get(1), scheduler.findFirstOpening(FIRST_DAY, 7).getTime());
+    }
+
+    @Test
+    public void clinicsAreSearchedInParallel() throws InterruptedException {
+        int count = 4;
+        // each clinic's first read waits for all the others to start theirs
+        final CyclicBarrier allSearching = new CyclicBarrier(count);
+        Map<String, SchedulingService> clinics = new LinkedHashMap<>();
+        for (int i = 0; i < count; i++) {
+            clinics.put("clinic" + i, service(new InMemoryStore() {
+                private boolean waited;
+
+                @Override
+                public List<String> getBookedTimesForDate(String date) {
+                    if (!waited) {
+                        waited = true;
+                        try {
+                            allSearching.await(10, TimeUnit.SECONDS);
+                        } catch (InterruptedException | BrokenBarrierException | TimeoutException e) {
+                            throw new IllegalStateException("clinics were searched one at a time", e);
+                        }
+                    }
+                    return super.getBookedTimesForDate(date);
+                }
+            }));
+        }
+
+        MultiClinicScheduler.Opening opening = new MultiClinicScheduler(clinics, fanOut).findFirstOpening(FIRST_DAY, 7);
+        assertEquals("clinic0", opening.getClinicId());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void unknownClinicIsRejected() {
+        new MultiClinicScheduler(new LinkedHashMap<>(), fanOut).forClinic("nowhere");
+    }
+}
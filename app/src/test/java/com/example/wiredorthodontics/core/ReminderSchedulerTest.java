@@ -0,0 +1,145 @@
+package com.example.wiredorthodontics.core;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for reminder scheduling and dispatch against an in-memory
+ * source and the local sender.
+ */
+public class ReminderSchedulerTest {
+
+    private static final long HOUR = TimeUnit.HOURS.toMillis(1);
+    private static final long MINUTE = TimeUnit.MINUTES.toMillis(1);
+    private static final long NOW = 1_800_000_000_000L;
+
+    /**
+     * Appointments held in memory; the ledger survives scheduler restarts.
+     */
+    private static class InMemorySource implements ReminderSource {
+        final List<long[]> appointments = new ArrayList<>(); // id, start
+        final Set<String> ledger = new HashSet<>();
+        int loads;
+
+        @Override
+        public synchronized List<Upcoming> loadUpcoming(long fromMillis, long toMillis, long afterId, int limit) {
+            loads++;
+            List<Upcoming> page = new ArrayList<>();
+            for (long[] appointment : appointments) {
+                if (appointment[0] > afterId && appointment[1] >= fromMillis && appointment[1] <= toMillis) {
+                    int sent = 0;
+                    for (Reminder.Kind kind : Reminder.Kind.values()) {
+                        if (ledger.contains(appointment[0] + ":" + kind)) {
+                            sent |= kind.bit();
+                        }
+                    }
+                    page.add(new Upcoming(appointment[0], appointment[1], sent));
+                    if (page.size() == limit) {
+                        break;
+                    }
+                }
+            }
+            return page;
+        }
+
+        @Override
+        public synchronized void markSent(List<Reminder> reminders) {
+            for (Reminder reminder : reminders) {
+                ledger.add(reminder.getKey());
+            }
+        }
+    }
+
+    @Test
+    public void remindersFireOnTimeInBatches() {
+        InMemorySource source = new InMemorySource();
+        // 250 appointments all starting 49 hours from now
+        for (long id = 1; id <= 250; id++) {
+            source.appointments.add(new long[]{id, NOW + 49 * HOUR});
+        }
+        LocalReminderSender sender = new LocalReminderSender();
+        AtomicLong clock = new AtomicLong(NOW);
+        ReminderScheduler scheduler = new ReminderScheduler(source, sender, clock::get);
+
+        assertEquals(500, scheduler.loadUpcoming());
+        assertEquals(500, scheduler.pendingCount());
+
+        clock.set(NOW + HOUR - MINUTE);
+        assertEquals(0, scheduler.dispatchDue());
+
+        clock.set(NOW + HOUR);
+        assertEquals(250, scheduler.dispatchDue());
+        assertEquals(3, sender.batches.size()); // 100 + 100 + 50
+        assertEquals(ReminderScheduler.BATCH_SIZE, sender.batches.get(0).size());
+
+        clock.set(NOW + 47 * HOUR);
+        assertEquals(250, scheduler.dispatchDue());
+        assertEquals(0, scheduler.pendingCount());
+        assertEquals(500, new HashSet<>(sender.sentKeys()).size());
+    }
+
+    @Test
+    public void restartDoesNotResendRecordedReminders() {
+        InMemorySource source = new InMemorySource();
+        source.appointments.add(new long[]{7, NOW + 10 * HOUR});
+        LocalReminderSender sender = new LocalReminderSender();
+        AtomicLong clock = new AtomicLong(NOW);
+
+        ReminderScheduler first = new ReminderScheduler(source, sender, clock::get);
+        first.loadUpcoming(); // the 48-hour reminder is too late to be useful
+        assertEquals(1, first.pendingCount());
+        clock.set(NOW + 8 * HOUR);
+        assertEquals(1, first.dispatchDue());
+
+        // a new process loads the same appointment again
+        ReminderScheduler second = new ReminderScheduler(source, sender, clock::get);
+        assertEquals(0, second.loadUpcoming());
+        clock.set(NOW + 9 * HOUR);
+        assertEquals(0, second.dispatchDue());
+        assertEquals(1, sender.sentKeys().size());
+        assertEquals("7:BEFORE_2_HOURS", sender.sentKeys().get(0));
+    }
+
+    @Test
+    public void failedBatchIsRetriedAndCancelWins() {
+        InMemorySource source = new InMemorySource();
+        LocalReminderSender sender = new LocalReminderSender();
+        AtomicLong clock = new AtomicLong(NOW);
+        ReminderScheduler scheduler = new ReminderScheduler(source, sender, clock::get);
+        scheduler.schedule(1, NOW + 3 * HOUR);
+        scheduler.schedule(2, NOW + 3 * HOUR);
+        scheduler.schedule(3, NOW + 3 * HOUR);
+        assertTrue(scheduler.cancel(3));
+        assertFalse(scheduler.cancel(3));
+
+        sender.failing = true;
+        clock.set(NOW + HOUR);
+        assertEquals(0, scheduler.dispatchDue());
+        assertEquals(2, scheduler.pendingCount());
+
+        sender.failing = false;
+        clock.set(NOW + HOUR + ReminderScheduler.RETRY_DELAY_MILLIS);
+        assertEquals(2, scheduler.dispatchDue());
+        assertEquals(2, source.ledger.size());
+        assertFalse(sender.sentKeys().contains("3:BEFORE_2_HOURS"));
+    }
+
+    @Test
+    public void hundredThousandRemindersLoadInPages() {
+        InMemorySource source = new InMemorySource();
+        for (long id = 1; id <= 50_000; id++) {
+            source.appointments.add(new long[]{id, NOW + 49 * HOUR + (id % 60) * MINUTE});
+        }
+        ReminderScheduler scheduler = new ReminderScheduler(source, new LocalReminderSender(), () -> NOW);
+        assertEquals(100_000, scheduler.loadUpcoming());
+        assertEquals(50_000 / ReminderScheduler.PAGE_SIZE + 1, source.loads);
+    }
+}
@@ -0,0 +1,238 @@
+package com.example.wiredorthodontics.core;
+
+import com.example.wiredorthodontics.model.Appointment;
+import com.example.wiredorthodontics.model.DailyCapacity;
+import com.example.wiredorthodontics.model.TimeSlots;
+
+import org.junit.Test;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BrokenBarrierException;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+/**
+ * Multi-threaded JVM tests for the headless scheduling core.
+ */
+public class SchedulingServiceTest {
+
+    private static final LocalDate FIRST_DAY = LocalDate.of(2026, 11, 2);
+
+    /**
+     * In-memory store; an optional delay on save stands in for database latency.
+     */
+    private static class InMemoryStore implements AppointmentStore {
+        final Map<String, List<String>> booked = new ConcurrentHashMap<>();
+        final AtomicInteger saves = new AtomicInteger();
+        private final long saveDelayMs;
+
+        InMemoryStore(long saveDelayMs) {
+            this.saveDelayMs = saveDelayMs;
+        }
+
+        @Override
+        public List<String> getBookedTimesForDate(String date) {
+            List<String> times = booked.get(date);
+            return times == null ? new ArrayList<>() : new ArrayList<>(times);
+        }
+
+        @Override
+        public void save(Appointment appointment) {
+            if (saveDelayMs > 0) {
+                try {
+                    Thread.sleep(saveDelayMs);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            booked.computeIfAbsent(appointment.getAppointmentDate(), d -> Collections.synchronizedList(new ArrayList<>()))
+                    .add(appointment.getAppointmentTime());
+            saves.incrementAndGet();
+        }
+    }
+
+    private static Appointment appointment(String date, String time) {
+        return new Appointment("Pat", "1990-01-01", "1 Main St", "X1", date, time, "Cleaning", "Friend");
+    }
+
+    @Test
+    public void capacityCountsBookingsHoldsAndBlockOuts() {
+        InMemoryStore store = new InMemoryStore(0);
+        SlotHoldRegistry holds = new SlotHoldRegistry(10, TimeUnit.MINUTES);
+        BlockOutCalendar blockOuts = new BlockOutCalendar();
+        SchedulingService service = new SchedulingService(store, HolidayCalendar.newMexico2023(), holds, blockOuts);
+
+        String day = FIRST_DAY.toString();
+        store.save(appointment(day, TimeSlots.get(0)));
+        assertTrue(service.hold("other", day, TimeSlots.get(1)));
+        assertTrue(service.hold("mine", day, TimeSlots.get(2)));
+        blockOuts.add(new BlockOut(1, BlockOut.Kind.STAFF_MEETING, FIRST_DAY.atTime(TimeSlots.startOf(TimeSlots.get(3))),
+                FIRST_DAY.atTime(TimeSlots.startOf(TimeSlots.get(3))).plusMinutes(TimeSlots.SLOT_MINUTES), null));
+
+        List<DailyCapacity> capacity = service.getCapacity(FIRST_DAY, 2, "mine");
+        assertEquals(2, capacity.size());
+        DailyCapacity first = capacity.get(0);
+        assertEquals(day, first.getDate());
+        // the session's own hold stays free for it
+        assertEquals(0b1011, first.getOccupancy());
+        assertEquals(3, first.getBooked());
+        assertEquals(TimeSlots.count() - 3, first.getFree());
+        assertEquals(0, capacity.get(1).getOccupancy());
+
+        // every slot the capacity leaves free is one the session is offered
+        List<String> free = new ArrayList<>();
+        for (int slot = 0; slot < TimeSlots.count(); slot++) {
+            if (!first.isBooked(slot)) {
+                free.add(TimeSlots.get(slot));
+            }
+        }
+        assertEquals(service.getAvailableTimes(day, "mine"), free);
+    }
+
+    @Test
+    public void capacitySkipsHolidays() {
+        SchedulingService service = new SchedulingService(new InMemoryStore(0), HolidayCalendar.newMexico2023());
+        List<DailyCapacity> capacity = service.getCapacity(LocalDate.of(2023, 12, 24), 3, null);
+
+        assertEquals(2, capacity.size());
+        assertEquals("2023-12-24", capacity.get(0).getDate());
+        assertEquals("2023-12-26", capacity.get(1).getDate());
+    }
+
+    @Test
+    public void rejectsHolidaysMissingFieldsAndUnknownTimes() {
+        SchedulingService service = new SchedulingService(new InMemoryStore(0), HolidayCalendar.newMexico2023());
+
+        assertEquals(BookingResult.Status.HOLIDAY, service.book(appointment("2023-12-25", TimeSlots.get(0))).getStatus());
+        assertEquals(BookingResult.Status.INVALID_DATE, service.book(appointment("DEFAULT_VALUE", TimeSlots.get(0))).getStatus());
+        assertEquals(BookingResult.Status.UNKNOWN_TIME, service.book(appointment("2026-11-02", "12:00 PM")).getStatus());
+        assertEquals(BookingResult.Status.MISSING_FIELDS, service.book(appointment("2026-11-02", " ")).getStatus());
+    }
+
+    @Test
+    public void blockOutsRemoveOverlappingSlots() {
+        BlockOutCalendar blockOuts = new BlockOutCalendar();
+        // a staff meeting from 9:30 to 10:15 touches the 9 and 10 o'clock slots
+        blockOuts.add(new BlockOut(1, BlockOut.Kind.STAFF_MEETING, FIRST_DAY.atTime(9, 30), FIRST_DAY.atTime(10, 15), null));
+        // a vacation ending at the day's first slot blocks nothing on that day
+        blockOuts.add(new BlockOut(2, BlockOut.Kind.VACATION, FIRST_DAY.minusDays(7).atStartOfDay(), FIRST_DAY.atTime(8, 0), null));
+        SchedulingService service = new SchedulingService(new InMemoryStore(0), HolidayCalendar.newMexico2023(), null, blockOuts);
+        String date = FIRST_DAY.toString();
+
+        List<String> available = service.getAvailableTimes(date);
+        assertEquals(TimeSlots.count() - 2, available.size());
+        assertFalse(available.contains(TimeSlots.get(1)));
+        assertFalse(available.contains(TimeSlots.get(2)));
+        assertEquals(BookingResult.Status.BLOCKED_OUT, service.book(appointment(date, TimeSlots.get(1))).getStatus());
+        assertFalse(service.hold("s1", date, TimeSlots.get(2)));
+        assertEquals(BookingResult.Status.BOOKED, service.book(appointment(date, TimeSlots.get(0))).getStatus());
+
+        assertEquals(BookingResult.Status.BLOCKED_OUT, service.checkDate(FIRST_DAY.minusDays(1).toString()));
+        assertEquals(BookingResult.Status.BOOKED, service.checkDate(date));
+
+        assertTrue(blockOuts.remove(1));
+        assertEquals(TimeSlots.count() - 1, service.getAvailableTimes(date).size());
+    }
+
+    @Test
+    public void racingForOneSlotBooksItExactlyOnce() throws Exception {
+        InMemoryStore store = new InMemoryStore(1);
+        SchedulingService service = new SchedulingService(store, HolidayCalendar.newMexico2023());
+        int threads = 16;
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+
+        List<Future<BookingResult>> results = new ArrayList<>();
+        for (int i = 0; i < threads; i++) {
+            results.add(pool.submit(() -> {
+                start.await();
+                return service.book(appointment("2026-11-02", TimeSlots.get(3)));
+            }));
+        }
+        start.countDown();
+
+        int booked = 0;
+        for (Future<BookingResult> result : results) {
+            BookingResult.Status status = result.get().getStatus();
+            if (status == BookingResult.Status.BOOKED) {
+                booked++;
+            } else {
+                assertEquals(BookingResult.Status.SLOT_TAKEN, status);
+            }
+        }
+        pool.shutdown();
+        assertEquals(1, booked);
+        assertEquals(1, store.saves.get());
+        assertFalse(service.getAvailableTimes("2026-11-02").contains(TimeSlots.get(3)));
+    }
+
+    @Test
+    public void bookingsOnDifferentDaysDoNotContend() throws Exception {
+        int days = 8;
+        // the first save of each day waits until every day is inside a save at the same time;
+        // if two days shared a lock, one of them could never arrive and the barrier would time out
+        CyclicBarrier allDaysSaving = new CyclicBarrier(days);
+        AtomicInteger saving = new AtomicInteger();
+        AtomicInteger mostSavingAtOnce = new AtomicInteger();
+        Map<String, Boolean> waited = new ConcurrentHashMap<>();
+        InMemoryStore store = new InMemoryStore(0) {
+            @Override
+            public void save(Appointment appointment) {
+                mostSavingAtOnce.accumulateAndGet(saving.incrementAndGet(), Math::max);
+                try {
+                    if (waited.putIfAbsent(appointment.getAppointmentDate(), Boolean.TRUE) == null) {
+                        allDaysSaving.await(10, TimeUnit.SECONDS);
+                    }
+                } catch (InterruptedException | BrokenBarrierException | TimeoutException e) {
+                    throw new IllegalStateException("bookings on different days contended", e);
+                } finally {
+                    saving.decrementAndGet();
+                }
+                super.save(appointment);
+            }
+        };
+        SchedulingService service = new SchedulingService(store, HolidayCalendar.newMexico2023());
+        ExecutorService pool = Executors.newFixedThreadPool(days);
+
+        // one thread per day, each filling every slot of its day
+        List<Callable<Integer>> tasks = new ArrayList<>();
+        for (int d = 0; d < days; d++) {
+            String date = FIRST_DAY.plusDays(d).toString();
+            tasks.add(() -> {
+                int booked = 0;
+                for (String time : TimeSlots.all()) {
+                    if (service.book(appointment(date, time)).isBooked()) {
+                        booked++;
+                    }
+                }
+                return booked;
+            });
+        }
+
+        int total = 0;
+        for (Future<Integer> future : pool.invokeAll(tasks)) {
+            total += future.get();
+        }
+        pool.shutdown();
+
+        assertEquals(days * TimeSlots.count(), total);
+        assertEquals(days, mostSavingAtOnce.get());
+        for (int d = 0; d < days; d++) {
+            assertTrue(service.getAvailableTimes(FIRST_DAY.plusDays(d).toString()).isEmpty());
+        }
+    }
+}
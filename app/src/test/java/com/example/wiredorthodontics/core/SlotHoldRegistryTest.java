@@ -0,0 +1,132 @@
+package com.example.wiredorthodontics.core;
+
+import com.example.wiredorthodontics.model.Appointment;
+import com.example.wiredorthodontics.model.TimeSlots;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+/**
+ * Multi-threaded JVM tests for slot holds and their use by the scheduling core.
+ */
+public class SlotHoldRegistryTest {
+
+    private static final String DATE = "2026-11-02";
+
+    @Test
+    public void racingSessionsGetOneHoldPerSlot() throws Exception {
+        int sessions = 32;
+        ExecutorService pool = Executors.newFixedThreadPool(sessions);
+        try (SlotHoldRegistry holds = new SlotHoldRegistry(1, TimeUnit.MINUTES)) {
+            // every session tries every slot in its own order
+            CountDownLatch start = new CountDownLatch(1);
+            Map<String, String> winners = new ConcurrentHashMap<>();
+            List<Future<?>> done = new ArrayList<>();
+            for (int s = 0; s < sessions; s++) {
+                String session = "session-" + s;
+                List<String> order = new ArrayList<>(TimeSlots.all());
+                Collections.shuffle(order, new Random(s));
+                done.add(pool.submit(() -> {
+                    start.await();
+                    for (String time : order) {
+                        if (holds.hold(session, DATE, time)) {
+                            assertNull("two sessions hold " + time, winners.put(time, session));
+                            return null;
+                        }
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> f : done) {
+                f.get(10, TimeUnit.SECONDS);
+            }
+
+            // each slot went to exactly one session and every session sees the others' holds
+            assertEquals(TimeSlots.count(), winners.size());
+            assertEquals(TimeSlots.count(), holds.size());
+            for (Map.Entry<String, String> win : winners.entrySet()) {
+                assertFalse(holds.heldByOthers(DATE, win.getValue()).contains(win.getKey()));
+                assertTrue(holds.heldByOthers(DATE, "someone-else").contains(win.getKey()));
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    @Test
+    public void holdsExpireWithoutPolling() throws Exception {
+        try (SlotHoldRegistry holds = new SlotHoldRegistry(50, TimeUnit.MILLISECONDS)) {
+            assertTrue(holds.hold("a", DATE, TimeSlots.get(0)));
+            assertFalse(holds.hold("b", DATE, TimeSlots.get(0)));
+
+            long deadline = System.currentTimeMillis() + 5000;
+            while (holds.size() > 0 && System.currentTimeMillis() < deadline) {
+                Thread.sleep(10);
+            }
+            assertEquals("reaper removed the expired hold", 0, holds.size());
+            assertTrue(holds.hold("b", DATE, TimeSlots.get(0)));
+        }
+    }
+
+    @Test
+    public void pickingAnotherTimeMovesTheHold() {
+        try (SlotHoldRegistry holds = new SlotHoldRegistry(1, TimeUnit.MINUTES)) {
+            assertTrue(holds.hold("a", DATE, TimeSlots.get(0)));
+            assertTrue(holds.hold("a", DATE, TimeSlots.get(1)));
+            assertEquals(1, holds.size());
+            assertTrue(holds.hold("b", DATE, TimeSlots.get(0)));
+
+            holds.release("a");
+            assertTrue(holds.hold("c", DATE, TimeSlots.get(1)));
+        }
+    }
+
+    @Test
+    public void heldSlotIsHiddenAndUnbookableForOtherSessions() throws Exception {
+        Map<String, List<String>> booked = new ConcurrentHashMap<>();
+        AppointmentStore store = new AppointmentStore() {
+            @Override
+            public List<String> getBookedTimesForDate(String date) {
+                List<String> times = booked.get(date);
+                return times == null ? new ArrayList<>() : new ArrayList<>(times);
+            }
+
+            @Override
+            public void save(Appointment appointment) {
+                booked.computeIfAbsent(appointment.getAppointmentDate(), d -> Collections.synchronizedList(new ArrayList<>()))
+                        .add(appointment.getAppointmentTime());
+            }
+        };
+        try (SlotHoldRegistry holds = new SlotHoldRegistry(1, TimeUnit.MINUTES)) {
+            SchedulingService service = new SchedulingService(store, HolidayCalendar.newMexico2023(), holds);
+            String time = TimeSlots.get(2);
+            assertTrue(service.hold("a", DATE, time));
+
+            assertTrue(service.getAvailableTimes(DATE, "a").contains(time));
+            assertFalse(service.getAvailableTimes(DATE, "b").contains(time));
+            assertEquals(BookingResult.Status.SLOT_TAKEN, service.book(appointment(time), "b").getStatus());
+
+            assertEquals(BookingResult.Status.BOOKED, service.book(appointment(time), "a").getStatus());
+            assertEquals("booking releases the hold", 0, holds.size());
+            assertFalse(service.hold("b", DATE, time));
+        }
+    }
+
+    private static Appointment appointment(String time) {
+        return new Appointment("Pat", "1990-01-01", "1 Main St", "X1", DATE, time, "Adjustment", "Friend");
+    }
+}
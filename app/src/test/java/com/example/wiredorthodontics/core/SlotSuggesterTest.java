@@ -0,0 +1,91 @@
+package com.example.wiredorthodontics.core;
+
+import com.example.wiredorthodontics.model.DailyCapacity;
+import com.example.wiredorthodontics.model.TimeSlots;
+
+import org.junit.Test;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for gap-minimizing slot suggestions.
+ */
+public class SlotSuggesterTest {
+
+    private static final LocalDate DAY = LocalDate.of(2026, 11, 2);
+    private static final HolidayCalendar NO_HOLIDAYS = new HolidayCalendar(Collections.<String>emptyList());
+
+    private static int mask(String... times) {
+        int mask = 0;
+        for (String time : times) {
+            mask |= 1 << TimeSlots.indexOf(time);
+        }
+        return mask;
+    }
+
+    private static DailyCapacity day(LocalDate date, int occupancy) {
+        int booked = Integer.bitCount(occupancy);
+        return new DailyCapacity(date.toString(), booked, TimeSlots.count() - booked, occupancy);
+    }
+
+    @Test
+    public void fillingAHoleBeatsOpeningANewOne() {
+        // 08:00 and 10:00 booked leaves a one-hour hole at 09:00
+        int occupancy = mask("08:00 AM", "10:00 AM");
+        int hole = SlotSuggester.packingScore(occupancy, TimeSlots.indexOf("09:00 AM"));
+        int adjacent = SlotSuggester.packingScore(occupancy, TimeSlots.indexOf("11:00 AM"));
+        int isolating = SlotSuggester.packingScore(occupancy, TimeSlots.indexOf("2:00 PM"));
+        assertTrue(hole > adjacent);
+        assertTrue(adjacent > isolating);
+        assertEquals(Integer.MIN_VALUE, SlotSuggester.packingScore(occupancy, TimeSlots.indexOf("08:00 AM")));
+
+        List<SlotSuggester.Suggestion> top = new SlotSuggester(NO_HOLIDAYS)
+                .suggest(DAY, 1, Arrays.asList(day(DAY, occupancy)), ProcedureType.OTHER, 1);
+        assertEquals("09:00 AM", top.get(0).getTime());
+    }
+
+    @Test
+    public void preferredBlockAndHolidaysAreRespected() {
+        HolidayCalendar holidays = new HolidayCalendar(Collections.singletonList(DAY.toString()));
+        List<SlotSuggester.Suggestion> top = new SlotSuggester(holidays)
+                .suggest(DAY, 2, new ArrayList<DailyCapacity>(), ProcedureType.fromDescription("Consultation for braces"), 3);
+        assertEquals(3, top.size());
+        for (SlotSuggester.Suggestion suggestion : top) {
+            assertEquals(DAY.plusDays(1), suggestion.getDate());
+        }
+        // on an empty day the edges of the preferred afternoon block come first; the
+        // middle of the afternoon would strand a one-hour hole, so a morning edge is next
+        assertEquals("1:00 PM", top.get(0).getTime());
+        assertEquals("4:00 PM", top.get(1).getTime());
+        assertEquals("08:00 AM", top.get(2).getTime());
+        assertTrue(top.get(1).getScore() > top.get(2).getScore());
+    }
+
+    @Test
+    public void scoresAMonthInSingleDigitMilliseconds() {
+        Random random = new Random(42);
+        List<DailyCapacity> month = new ArrayList<>();
+        for (int d = 0; d < 31; d++) {
+            month.add(day(DAY.plusDays(d), random.nextInt(1 << TimeSlots.count())));
+        }
+        SlotSuggester suggester = new SlotSuggester(HolidayCalendar.newMexico2023());
+        for (int i = 0; i < 2000; i++) {
+            suggester.suggest(DAY, 31, month, ProcedureType.ADJUSTMENT, 5); // warm up
+        }
+
+        int runs = 1000;
+        long start = System.nanoTime();
+        for (int i = 0; i < runs; i++) {
+            assertEquals(5, suggester.suggest(DAY, 31, month, ProcedureType.ADJUSTMENT, 5).size());
+        }
+        double msPerMonth = (System.nanoTime() - start) / 1e6 / runs;
+        assertTrue("took " + msPerMonth + " ms", msPerMonth < 5);
+    }
+}
@@ -0,0 +1,88 @@
+package com.example.wiredorthodontics.core;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for the hierarchical timing wheel.
+ */
+public class TimingWheelTest {
+
+    private static final long TICK = 1000;
+
+    private static class Timer extends TimingWheel.Entry {
+        final int id;
+
+        Timer(int id) {
+            this.id = id;
+        }
+    }
+
+    @Test
+    public void expiresEachEntryOnItsTickAcrossLevels() {
+        long start = 5_000_000;
+        TimingWheel<Timer> wheel = new TimingWheel<>(TICK, 4, start);
+        // deadlines in level 0, level 1, level 2 and level 3 of the wheel
+        long[] offsets = {3, 63, 64, 65, 4095, 4096, 4097, 300_000, 2_000_000};
+        for (int i = 0; i < offsets.length; i++) {
+            wheel.schedule(new Timer(i), start + offsets[i] * TICK);
+        }
+
+        List<Long> firedAt = new ArrayList<>();
+        long[] firedOffset = new long[offsets.length];
+        for (long t = 0; t <= 2_000_000; t += 1) {
+            final long now = start + t * TICK;
+            wheel.advance(now, timer -> {
+                firedOffset[timer.id] = (now - start) / TICK;
+                firedAt.add(now);
+            });
+            if (wheel.size() == 0) {
+                break;
+            }
+        }
+        assertEquals(offsets.length, firedAt.size());
+        assertArrayEquals(offsets, firedOffset);
+    }
+
+    @Test
+    public void cancelledEntriesNeverFire() {
+        TimingWheel<Timer> wheel = new TimingWheel<>(TICK, 3, 0);
+        Timer kept = new Timer(1);
+        Timer dropped = new Timer(2);
+        wheel.schedule(kept, 10 * TICK);
+        wheel.schedule(dropped, 10 * TICK);
+        assertTrue(wheel.cancel(dropped));
+        assertFalse(wheel.cancel(dropped));
+
+        List<Integer> fired = new ArrayList<>();
+        wheel.advance(20 * TICK, timer -> fired.add(timer.id));
+        assertEquals(1, fired.size());
+        assertEquals(1, (int) fired.get(0));
+        assertEquals(0, wheel.size());
+    }
+
+    @Test
+    public void pastAndFarFutureDeadlines() {
+        // two levels span 4096 ticks; a later deadline is parked and re-placed
+        TimingWheel<Timer> wheel = new TimingWheel<>(TICK, 2, 100 * TICK);
+        Timer overdue = new Timer(1);
+        Timer far = new Timer(2);
+        wheel.schedule(overdue, 5 * TICK);
+        wheel.schedule(far, 100 * TICK + 10_000 * TICK);
+
+        List<Integer> fired = new ArrayList<>();
+        wheel.advance(100 * TICK, timer -> fired.add(timer.id));
+        assertEquals(1, fired.size());
+
+        for (long t = 101; t < 100 + 10_000; t++) {
+            wheel.advance(t * TICK, timer -> fired.add(timer.id));
+        }
+        assertEquals(1, fired.size());
+        wheel.advance((100 + 10_000) * TICK, timer -> fired.add(timer.id));
+        assertEquals(2, fired.size());
+    }
+}
@@ -0,0 +1,86 @@
+package com.example.wiredorthodontics.model;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.Assert.*;
+
+/**
+ * Local unit tests for the group-committed journal used by the booking queue.
+ */
+public class AppendOnlyLogTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void recordsSurviveReopenInOrder() throws Exception {
+        File file = folder.newFile("journal");
+        List<CompletableFuture<Void>> writes = new ArrayList<>();
+        try (AppendOnlyLog log = new AppendOnlyLog(file, 16, "test-flusher")) {
+            for (int i = 0; i < 100; i++) {
+                writes.add(log.append(("booking-" + i).getBytes(StandardCharsets.UTF_8)));
+            }
+            CompletableFuture.allOf(writes.toArray(new CompletableFuture<?>[0])).get();
+            assertEquals(100, log.getAppendedCount());
+        }
+
+        List<String> read = new ArrayList<>();
+        try (AppendOnlyLog log = new AppendOnlyLog(file, 16, "test-flusher")) {
+            log.replay(payload -> read.add(new String(payload, StandardCharsets.UTF_8)));
+        }
+        assertEquals(100, read.size());
+        assertEquals("booking-0", read.get(0));
+        assertEquals("booking-99", read.get(99));
+    }
+
+    @Test
+    public void tornTailIsTrimmedOnOpen() throws Exception {
+        File file = folder.newFile("journal");
+        try (AppendOnlyLog log = new AppendOnlyLog(file, 16, "test-flusher")) {
+            log.append("complete".getBytes(StandardCharsets.UTF_8)).get();
+        }
+        long intact = file.length();
+
+        // simulate a crash part way through the next record
+        try (FileOutputStream out = new FileOutputStream(file, true)) {
+            out.write(new byte[]{0, 0, 0, 20, 1, 2, 3});
+        }
+
+        List<String> read = new ArrayList<>();
+        try (AppendOnlyLog log = new AppendOnlyLog(file, 16, "test-flusher")) {
+            log.replay(payload -> read.add(new String(payload, StandardCharsets.UTF_8)));
+            assertEquals(intact, file.length());
+            log.append("after".getBytes(StandardCharsets.UTF_8)).get();
+        }
+        assertEquals(1, read.size());
+
+        read.clear();
+        try (AppendOnlyLog log = new AppendOnlyLog(file, 16, "test-flusher")) {
+            log.replay(payload -> read.add(new String(payload, StandardCharsets.UTF_8)));
+        }
+        assertEquals(2, read.size());
+        assertEquals("after", read.get(1));
+    }
+
+    @Test
+    public void truncateIsSkippedWhenNewRecordsArrived() throws Exception {
+        File file = folder.newFile("journal");
+        try (AppendOnlyLog log = new AppendOnlyLog(file, 16, "test-flusher")) {
+            log.append(new byte[]{1}).get();
+            long seen = log.getAppendedCount();
+            log.append(new byte[]{2}).get();
+            assertFalse(log.truncateIfUnchanged(seen));
+            assertTrue(log.truncateIfUnchanged(log.getAppendedCount()));
+            assertEquals(0, file.length());
+        }
+    }
+}
@@ -0,0 +1,168 @@
+package com.example.wiredorthodontics.model;
+
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Round trips through the binary appointment format and compares it
+ * with the JSON an export would otherwise write.
+ */
+public class AppointmentCodecTest {
+
+    private static final String[] SOURCES = {"Friend", "Google", "Instagram", "Dentist referral", "Flyer"};
+    private static final String[] REASONS = {"Consultation", "Adjustment", "Retainer check", "Braces removal"};
+
+    @Test
+    public void recordsRoundTripExactly() {
+        List<Appointment> originals = new ArrayList<>();
+        originals.add(appointment(1, "Ana Mu\u00f1oz", "1987-02-28", "2026-10-19", TimeSlots.get(0), "Friend", "ref-1"));
+        originals.add(appointment(2, "\u5f20\u4f1f \ud83d\ude00", "03/04/1990", "1969-12-31", TimeSlots.get(7), "Friend", "ref-2"));
+        originals.add(appointment(3, "Lee", null, "2026-2-3", "12:30 PM", null, null));
+        originals.add(appointment(Integer.MAX_VALUE, "", "2024-02-29", "2023-02-29", TimeSlots.get(3), "friend", "ref-4"));
+
+        ByteBuffer buffer = ByteBuffer.allocate(4096);
+        AppointmentCodec.Encoder encoder = new AppointmentCodec.Encoder();
+        for (Appointment appointment : originals) {
+            encoder.encode(appointment, buffer);
+        }
+        buffer.flip();
+
+        AppointmentCodec.Decoder decoder = new AppointmentCodec.Decoder();
+        for (Appointment expected : originals) {
+            assertSameFields(expected, decoder.decode(buffer));
+        }
+        assertFalse(buffer.hasRemaining());
+    }
+
+    @Test
+    public void sourcesAreSentAsTextOnce() {
+        ByteBuffer buffer = ByteBuffer.allocate(1024);
+        AppointmentCodec.Encoder encoder = new AppointmentCodec.Encoder();
+        encoder.encode(appointment(1, "Pat", "1990-01-01", "2026-10-19", TimeSlots.get(0), "Dentist referral", "r"), buffer);
+        int first = buffer.position();
+        encoder.encode(appointment(1, "Pat", "1990-01-01", "2026-10-19", TimeSlots.get(0), "Dentist referral", "r"), buffer);
+        int second = buffer.position() - first;
+        // each value took a text prefix and its bytes the first time, one code byte after
+        assertEquals("Dentist referral".length() + 1 + "Adjustment".length() + 1, first - second);
+
+        // a reset encoder starts a stream a fresh decoder can read
+        encoder.reset();
+        buffer.clear();
+        encoder.encode(appointment(5, "Pat", "1990-01-01", "2026-10-19", TimeSlots.get(0), "Dentist referral", "r"), buffer);
+        buffer.flip();
+        assertEquals("Dentist referral", new AppointmentCodec.Decoder().decode(buffer).getClinicSource());
+    }
+
+    @Test
+    public void epochDaysMatchJavaTime() {
+        for (LocalDate date = LocalDate.of(1899, 12, 1); date.getYear() < 2101; date = date.plusDays(1)) {
+            assertEquals(date.toString(), date.toEpochDay(), AppointmentCodec.epochDayOf(date.toString()));
+        }
+        assertEquals(Long.MIN_VALUE, AppointmentCodec.epochDayOf("2026-13-01"));
+        assertEquals(Long.MIN_VALUE, AppointmentCodec.epochDayOf("2026-04-31"));
+        assertEquals(Long.MIN_VALUE, AppointmentCodec.epochDayOf("2026/04/01"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void unknownVersionIsRejected() {
+        new AppointmentCodec.Decoder().decode(ByteBuffer.wrap(new byte[]{9, 0, 0}));
+    }
+
+    @Test
+    public void smallerThanJson() {
+        Appointment[] batch = batch(1000);
+        ByteBuffer buffer = ByteBuffer.allocate(256 * 1024);
+        AppointmentCodec.Encoder encoder = new AppointmentCodec.Encoder();
+        for (Appointment appointment : batch) {
+            encoder.encode(appointment, buffer);
+        }
+        int binaryBytes = buffer.position();
+
+        StringBuilder json = new StringBuilder(512 * 1024);
+        json.append('[');
+        for (Appointment appointment : batch) {
+            appendJson(json, appointment);
+        }
+        json.setCharAt(json.length() - 1, ']');
+        int jsonBytes = json.toString().getBytes(StandardCharsets.UTF_8).length;
+
+        // encode and decode speed is measured on a device by AppointmentCodecBenchmark
+        assertTrue("binary " + binaryBytes + " bytes, json " + jsonBytes + " bytes", binaryBytes * 2 < jsonBytes);
+    }
+
+    /**
+     * A day-ordered batch like an export, eight appointments a day
+     * @param size - number of appointments
+     */
+    private static Appointment[] batch(int size) {
+        Appointment[] batch = new Appointment[size];
+        for (int i = 0; i < batch.length; i++) {
+            batch[i] = appointment(i + 1, "Patient Number " + i, LocalDate.of(1960 + i % 50, 1 + i % 12, 1 + i % 28).toString(),
+                    LocalDate.of(2026, 1, 1).plusDays(i / 8).toString(), TimeSlots.get(i % 8), SOURCES[i % SOURCES.length],
+                    "8c1f5e2a-0d7b-4c39-9a6e-" + String.format("%012d", i));
+        }
+        return batch;
+    }
+
+    private static Appointment appointment(int id, String name, String dob, String date, String time, String source, String ref) {
+        Appointment appointment = new Appointment(name, dob, id + " Main Street, Springfield", "D" + (1000000 + id),
+                date, time, id % 3 == 0 ? null : REASONS[id % REASONS.length], source);
+        appointment.setId(id);
+        appointment.setBookingRef(ref);
+        return appointment;
+    }
+
+    private static void assertSameFields(Appointment expected, Appointment actual) {
+        assertEquals(expected.getId(), actual.getId());
+        assertEquals(expected.getPatientName(), actual.getPatientName());
+        assertEquals(expected.getDob(), actual.getDob());
+        assertEquals(expected.getAddress(), actual.getAddress());
+        assertEquals(expected.getIdentificationNumber(), actual.getIdentificationNumber());
+        assertEquals(expected.getAppointmentDate(), actual.getAppointmentDate());
+        assertEquals(expected.getAppointmentTime(), actual.getAppointmentTime());
+        assertEquals(expected.getAppointmentDescription(), actual.getAppointmentDescription());
+        assertEquals(expected.getClinicSource(), actual.getClinicSource());
+        assertEquals(expected.getBookingRef(), actual.getBookingRef());
+    }
+
+    private static void appendJson(StringBuilder json, Appointment appointment) {
+        json.append("{\"id\":").append(appointment.getId());
+        appendField(json, "patientName", appointment.getPatientName());
+        appendField(json, "dob", appointment.getDob());
+        appendField(json, "address", appointment.getAddress());
+        appendField(json, "identificationNumber", appointment.getIdentificationNumber());
+        appendField(json, "appointmentDate", appointment.getAppointmentDate());
+        appendField(json, "appointmentTime", appointment.getAppointmentTime());
+        appendField(json, "appointmentDescription", appointment.getAppointmentDescription());
+        appendField(json, "clinicSource", appointment.getClinicSource());
+        appendField(json, "bookingRef", appointment.getBookingRef());
+        json.append("},");
+    }
+
+    private static void appendField(StringBuilder json, String name, String value) {
+        json.append(",\"").append(name).append("\":");
+        if (value == null) {
+            json.append("null");
+            return;
+        }
+        json.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"' || c == '\\') {
+                json.append('\\').append(c);
+            } else if (c < 0x20) {
+                json.append(String.format("\\u%04x", (int) c));
+            } else {
+                json.append(c);
+            }
+        }
+        json.append('"');
+    }
+}
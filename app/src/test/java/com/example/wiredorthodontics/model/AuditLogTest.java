@@ -0,0 +1,186 @@
+package com.example.wiredorthodontics.model;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.zip.CRC32;
+
+import static org.junit.Assert.*;
+
+/**
+ * Local unit tests for the hash-chained audit log and its verifier.
+ */
+public class AuditLogTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void chainContinuesAcrossReopen() throws Exception {
+        File file = folder.newFile("audit.log");
+        String head;
+        try (AuditLog audit = new AuditLog(file)) {
+            record(audit, 10);
+            head = audit.getHeadHash();
+        }
+        try (AuditLog audit = new AuditLog(file)) {
+            assertEquals(head, audit.getHeadHash());
+            record(audit, 5);
+            head = audit.getHeadHash();
+        }
+
+        AuditLog.Verification result = AuditLog.verify(file);
+        assertTrue(result.getProblem(), result.isValid());
+        assertEquals(15, result.getVerifiedEntries());
+        assertEquals(head, result.getHeadHash());
+    }
+
+    @Test
+    public void editedEntryIsDetectedEvenWithValidChecksum() throws Exception {
+        File file = folder.newFile("audit.log");
+        try (AuditLog audit = new AuditLog(file)) {
+            record(audit, 10);
+        }
+        List<byte[]> entries = readAll(file);
+        // change the booking reference inside entry 4 and fix up the record crc
+        byte[] entry = entries.get(4);
+        String text = new String(entry, StandardCharsets.ISO_8859_1).replace("ref-4", "ref-X");
+        entries.set(4, text.getBytes(StandardCharsets.ISO_8859_1));
+        rewrite(file, entries);
+
+        AuditLog.Verification result = AuditLog.verify(file);
+        assertFalse(result.isValid());
+        assertEquals(4, result.getFailedAt());
+        assertEquals(4, result.getVerifiedEntries());
+    }
+
+    @Test
+    public void removedEntryIsDetected() throws Exception {
+        File file = folder.newFile("audit.log");
+        try (AuditLog audit = new AuditLog(file)) {
+            record(audit, 10);
+        }
+        List<byte[]> entries = readAll(file);
+        entries.remove(7);
+        rewrite(file, entries);
+
+        AuditLog.Verification result = AuditLog.verify(file);
+        assertFalse(result.isValid());
+        assertEquals(7, result.getFailedAt());
+    }
+
+    @Test
+    public void damagedTailIsKeptAsideOnOpen() throws Exception {
+        File file = folder.newFile("audit.log");
+        try (AuditLog audit = new AuditLog(file)) {
+            record(audit, 3);
+        }
+        try (FileOutputStream out = new FileOutputStream(file, true)) {
+            out.write(new byte[]{0, 0, 0, 40, 9, 9, 9});
+        }
+        assertFalse(AuditLog.verify(file).isValid());
+
+        try (AuditLog audit = new AuditLog(file)) {
+            record(audit, 1);
+        }
+        File[] copies = folder.getRoot().listFiles((dir, name) -> name.startsWith("audit.log.damaged-"));
+        assertEquals(1, copies.length);
+        AuditLog.Verification result = AuditLog.verify(file);
+        assertTrue(result.getProblem(), result.isValid());
+        assertEquals(4, result.getVerifiedEntries());
+    }
+
+    @Test
+    public void chainRunsAcrossSealedSegments() throws Exception {
+        File file = folder.newFile("audit.log");
+        String head;
+        try (AuditLog audit = new AuditLog(file, 1024)) {
+            record(audit, 60);
+            head = audit.getHeadHash();
+        }
+        File[] segments = folder.getRoot().listFiles((dir, name) -> name.matches("audit\\.log\\.\\d+"));
+        assertTrue(segments.length > 1);
+        assertTrue(file.length() < 1024 + 200);
+
+        // reopening reads only the newest files but continues the same chain
+        try (AuditLog audit = new AuditLog(file, 1024)) {
+            assertEquals(head, audit.getHeadHash());
+            record(audit, 5);
+            head = audit.getHeadHash();
+        }
+        AuditLog.Verification result = AuditLog.verify(file);
+        assertTrue(result.getProblem(), result.isValid());
+        assertEquals(65, result.getVerifiedEntries());
+        assertEquals(head, result.getHeadHash());
+    }
+
+    @Test
+    public void removedSegmentIsDetected() throws Exception {
+        File file = folder.newFile("audit.log");
+        try (AuditLog audit = new AuditLog(file, 1024)) {
+            record(audit, 60);
+        }
+        assertTrue(new File(folder.getRoot(), "audit.log.1").delete());
+
+        AuditLog.Verification result = AuditLog.verify(file);
+        assertFalse(result.isValid());
+        assertTrue(result.getFailedAt() > 0);
+    }
+
+    @Test
+    public void recordingDoesNotWaitForDisk() throws Exception {
+        File file = folder.newFile("audit.log");
+        int events = 20000;
+        try (AuditLog audit = new AuditLog(file)) {
+            long start = System.nanoTime();
+            CompletableFuture<Void> last = null;
+            for (int i = 0; i < events; i++) {
+                last = audit.record("patient:" + i, AuditLog.Action.VIEW, "availability:2026-11-02", null);
+            }
+            long queuedNanos = System.nanoTime() - start;
+            last.get();
+            // generous bound: thousands of events per second even on a slow ci machine
+            assertTrue("queued " + events + " in " + queuedNanos / 1_000_000 + " ms", queuedNanos < 5_000_000_000L);
+        }
+        assertEquals(events, AuditLog.verify(file).getVerifiedEntries());
+    }
+
+    private static void record(AuditLog audit, int count) throws Exception {
+        CompletableFuture<Void> last = null;
+        for (int i = 0; i < count; i++) {
+            last = audit.record("patient:" + i, AuditLog.Action.BOOK, "ref-" + i, "2026-11-02 1:00 PM");
+        }
+        last.get();
+    }
+
+    private static List<byte[]> readAll(File file) throws Exception {
+        List<byte[]> entries = new ArrayList<>();
+        AppendOnlyLog.read(file, entries::add);
+        return entries;
+    }
+
+    /**
+     * Writes records in the journal's own framing, as someone with file
+     * access could.
+     */
+    private static void rewrite(File file, List<byte[]> entries) throws Exception {
+        try (DataOutputStream out = new DataOutputStream(new FileOutputStream(file))) {
+            CRC32 crc = new CRC32();
+            for (byte[] entry : entries) {
+                crc.reset();
+                crc.update(entry, 0, entry.length);
+                out.writeInt(entry.length);
+                out.writeInt((int) crc.getValue());
+                out.write(entry);
+            }
+        }
+    }
+}
@@ -0,0 +1,94 @@
+package com.example.wiredorthodontics.model;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+
+import static org.junit.Assert.*;
+
+/**
+ * Local unit tests for the memory-mapped availability snapshot.
+ */
+public class AvailabilitySnapshotTest {
+
+    private static final long BASE = 20_000; // epoch day
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void readsOccupancyForCoveredDays() throws Exception {
+        File file = new File(folder.getRoot(), "availability.snap");
+        int[] occupancy = new int[30];
+        occupancy[0] = 0b1;
+        occupancy[29] = 0b1000_0001;
+        AvailabilitySnapshot.write(file, 1, BASE, 8, occupancy);
+
+        AvailabilitySnapshot snapshot = AvailabilitySnapshot.open(file);
+        assertEquals(AvailabilitySnapshot.HEADER_BYTES + 30 * AvailabilitySnapshot.RECORD_BYTES, file.length());
+        assertEquals(1, snapshot.getOccupancy(BASE));
+        assertEquals(0b1000_0001, snapshot.getOccupancy(BASE + 29));
+        assertEquals(0, snapshot.getOccupancy(BASE + 1));
+        assertEquals(-1, snapshot.getOccupancy(BASE - 1));
+        assertEquals(-1, snapshot.getOccupancy(BASE + 30));
+        assertFalse(snapshot.isFree(BASE, 0));
+        assertTrue(snapshot.isFree(BASE, 1));
+        assertFalse(snapshot.isFree(BASE + 30, 1));
+    }
+
+    @Test
+    public void readersSeeStalenessAndKeepTheirOldView() throws Exception {
+        File file = new File(folder.getRoot(), "availability.snap");
+        AvailabilitySnapshot.write(file, 1, BASE, 8, new int[]{0, 0});
+        AvailabilitySnapshot old = AvailabilitySnapshot.open(file);
+        assertFalse(old.isStale());
+
+        AvailabilitySnapshot.write(file, 2, BASE, 8, new int[]{0xFF, 0});
+        assertTrue(old.isStale());
+        // the old mapping still points at the replaced file
+        assertEquals(0, old.getOccupancy(BASE));
+
+        AvailabilitySnapshot fresh = AvailabilitySnapshot.open(file);
+        assertFalse(fresh.isStale());
+        assertEquals(2, fresh.getVersionStamp());
+        assertEquals(0xFF, fresh.getOccupancy(BASE));
+    }
+
+    @Test(expected = IOException.class)
+    public void truncatedFileIsRejected() throws Exception {
+        File file = new File(folder.getRoot(), "availability.snap");
+        AvailabilitySnapshot.write(file, 1, BASE, 8, new int[100]);
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+            raf.setLength(AvailabilitySnapshot.HEADER_BYTES + 10);
+        }
+        AvailabilitySnapshot.open(file);
+    }
+
+    @Test
+    public void lookupsTakeNanoseconds() throws Exception {
+        File file = new File(folder.getRoot(), "availability.snap");
+        int[] occupancy = new int[365];
+        for (int i = 0; i < occupancy.length; i++) {
+            occupancy[i] = i & 0xFF;
+        }
+        AvailabilitySnapshot.write(file, 1, BASE, 8, occupancy);
+        AvailabilitySnapshot snapshot = AvailabilitySnapshot.open(file);
+
+        long sum = 0;
+        for (int i = 0; i < 2_000_000; i++) {
+            sum += snapshot.getOccupancy(BASE + (i % 365)); // warm up
+        }
+        int lookups = 10_000_000;
+        long start = System.nanoTime();
+        for (int i = 0; i < lookups; i++) {
+            sum += snapshot.getOccupancy(BASE + (i % 365));
+        }
+        double nanosPerLookup = (double) (System.nanoTime() - start) / lookups;
+        assertTrue(sum > 0);
+        assertTrue("took " + nanosPerLookup + " ns", nanosPerLookup < 100);
+    }
+}
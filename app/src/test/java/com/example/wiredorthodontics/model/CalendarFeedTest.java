@@ -0,0 +1,43 @@
+package com.example.wiredorthodontics.model;
+
+import org.junit.Test;
+
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.Assert.*;
+
+/**
+ * Local unit tests for the iCalendar line encoding used by the feed.
+ */
+public class CalendarFeedTest {
+
+    @Test
+    public void longLinesFoldAtSeventyFiveOctets() throws Exception {
+        StringBuilder line = new StringBuilder("SUMMARY:");
+        for (int i = 0; i < 60; i++) {
+            line.append("\u00f1"); // two octets in UTF-8
+        }
+        StringWriter out = new StringWriter();
+        CalendarFeed.writeFolded(out, line);
+
+        String[] physical = out.toString().split("\r\n");
+        assertTrue(physical.length > 1);
+        StringBuilder unfolded = new StringBuilder();
+        for (int i = 0; i < physical.length; i++) {
+            assertTrue(physical[i].getBytes(StandardCharsets.UTF_8).length <= 75);
+            unfolded.append(i == 0 ? physical[i] : physical[i].substring(1));
+            if (i > 0) {
+                assertEquals(' ', physical[i].charAt(0));
+            }
+        }
+        assertEquals(line.toString(), unfolded.toString());
+    }
+
+    @Test
+    public void textValuesAreEscaped() {
+        StringBuilder out = new StringBuilder();
+        CalendarFeed.escape(out, "Adjust wires; check, \\retainer\r\nnext");
+        assertEquals("Adjust wires\\; check\\, \\\\retainer\\nnext", out.toString());
+    }
+}
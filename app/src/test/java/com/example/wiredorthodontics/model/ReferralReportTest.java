@@ -0,0 +1,106 @@
+package com.example.wiredorthodontics.model;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+
+import static org.junit.Assert.*;
+
+/**
+ * Counting appointments by referral source, month and reason, and merging
+ * partial reports.
+ */
+public class ReferralReportTest {
+
+    @Test
+    public void monthIndexParsesYearAndMonth() {
+        assertEquals(2026 * 12, ReferralReport.monthIndex("2026-01-15"));
+        assertEquals(2026 * 12 + 11, ReferralReport.monthIndex("2026-12-31"));
+        assertEquals(2024 * 12 + 1, ReferralReport.monthIndex("2024-02"));
+    }
+
+    @Test
+    public void monthIndexRejectsMalformedDates() {
+        assertEquals(-1, ReferralReport.monthIndex(null));
+        assertEquals(-1, ReferralReport.monthIndex("2026-1"));
+        assertEquals(-1, ReferralReport.monthIndex("2026/01/15"));
+        assertEquals(-1, ReferralReport.monthIndex("20x6-01-15"));
+        assertEquals(-1, ReferralReport.monthIndex("2026-00-15"));
+        assertEquals(-1, ReferralReport.monthIndex("2026-13-01"));
+        assertEquals(-1, ReferralReport.monthIndex("2026-1a-01"));
+    }
+
+    @Test
+    public void rowsAreCountedBySourceMonthAndReason() {
+        ReferralReport report = new ReferralReport(new TextDictionary(), new TextDictionary());
+        report.add("2026-01-05", "Google", "Consultation");
+        report.add("2026-01-20", "google ", "Adjustment");
+        report.add("2026-02-03", "Friend", "Adjustment");
+        report.add("2026-02-10", null, "Adjustment");
+        report.add("bad date", "Friend", "");
+
+        assertEquals(5, report.getRowCount());
+        assertEquals(Arrays.asList("google", "friend", "(none)"), keys(report.getSourceTotals()));
+        assertEquals(Integer.valueOf(2), report.getSourceTotals().get("google"));
+        assertEquals(Integer.valueOf(2), report.getSourceTotals().get("friend"));
+        assertEquals(Arrays.asList("adjustment", "(none)", "consultation"), keys(report.getReasonTotals()));
+        assertEquals(Integer.valueOf(3), report.getReasonTotals().get("adjustment"));
+
+        // the malformed date is counted in the totals but not in any month
+        SortedMap<String, Map<String, Integer>> months = report.getSourcesByMonth();
+        assertEquals(Arrays.asList("2026-01", "2026-02"), keys(months));
+        assertEquals(Integer.valueOf(2), months.get("2026-01").get("google"));
+        assertEquals(Integer.valueOf(1), months.get("2026-02").get("friend"));
+        assertEquals(Integer.valueOf(1), months.get("2026-02").get("(none)"));
+    }
+
+    @Test
+    public void mergedPartsMatchASingleReport() {
+        TextDictionary sources = new TextDictionary();
+        TextDictionary reasons = new TextDictionary();
+        ReferralReport whole = new ReferralReport(sources, reasons);
+        ReferralReport early = new ReferralReport(sources, reasons);
+        ReferralReport late = new ReferralReport(sources, reasons);
+
+        String[][] rows = {
+                {"2025-11-02", "Flyer", "Consultation"},
+                {"2025-12-14", "Google", "Adjustment"},
+                {"2026-01-09", "Google", "Retainer check"},
+                // a source the earlier part never saw grows the later part's arrays
+                {"2026-01-30", "Instagram", "Braces removal"},
+                {"2026-03-01", "Google", "Adjustment"},
+        };
+        for (String[] row : rows) {
+            whole.add(row[0], row[1], row[2]);
+            (row[0].compareTo("2026-01-01") < 0 ? early : late).add(row[0], row[1], row[2]);
+        }
+        early.merge(late);
+
+        assertEquals(whole.getRowCount(), early.getRowCount());
+        assertEquals(whole.getSourceTotals(), early.getSourceTotals());
+        assertEquals(whole.getReasonTotals(), early.getReasonTotals());
+        assertEquals(whole.getSourcesByMonth(), early.getSourcesByMonth());
+    }
+
+    @Test
+    public void mergeDoesNotShareMonthCounts() {
+        TextDictionary sources = new TextDictionary();
+        TextDictionary reasons = new TextDictionary();
+        ReferralReport target = new ReferralReport(sources, reasons);
+        ReferralReport other = new ReferralReport(sources, reasons);
+        other.add("2026-05-01", "Friend", "Consultation");
+
+        target.merge(other);
+        other.add("2026-05-02", "Friend", "Consultation");
+
+        assertEquals(Integer.valueOf(1), target.getSourcesByMonth().get("2026-05").get("friend"));
+    }
+
+    private static <K> List<K> keys(Map<K, ?> map) {
+        return new ArrayList<>(map.keySet());
+    }
+}
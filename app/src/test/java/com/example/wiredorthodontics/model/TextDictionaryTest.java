@@ -0,0 +1,79 @@
+package com.example.wiredorthodontics.model;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.Assert.*;
+
+/**
+ * Normalization and code assignment for free-text answers.
+ */
+public class TextDictionaryTest {
+
+    @Test
+    public void normalizeFoldsCaseAndSpacing() {
+        assertEquals("dentist referral", TextDictionary.normalize("  Dentist \t Referral\n"));
+        assertEquals("google", TextDictionary.normalize("GOOGLE"));
+        assertEquals("", TextDictionary.normalize("   "));
+        assertEquals("", TextDictionary.normalize(null));
+    }
+
+    @Test
+    public void spellingsOfTheSameAnswerShareACode() {
+        TextDictionary dictionary = new TextDictionary();
+        int friend = dictionary.encode("Friend");
+
+        assertEquals(friend, dictionary.encode(" friend "));
+        assertEquals(friend, dictionary.encode("FRIEND"));
+        assertNotEquals(friend, dictionary.encode("Friends"));
+        assertEquals("friend", dictionary.decode(friend));
+        assertEquals(3, dictionary.size());
+    }
+
+    @Test
+    public void blankAnswersAreUnknown() {
+        TextDictionary dictionary = new TextDictionary();
+        assertEquals(TextDictionary.UNKNOWN, dictionary.encode(null));
+        assertEquals(TextDictionary.UNKNOWN, dictionary.encode(" \t"));
+        assertEquals(1, dictionary.size());
+        assertEquals("(none)", dictionary.decode(TextDictionary.UNKNOWN));
+    }
+
+    @Test
+    public void concurrentEncodersAgreeOnCodes() throws Exception {
+        final TextDictionary dictionary = new TextDictionary();
+        final int values = 500;
+        ExecutorService pool = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<int[]>> results = new ArrayList<>();
+            for (int t = 0; t < 4; t++) {
+                results.add(pool.submit(new Callable<int[]>() {
+                    @Override
+                    public int[] call() {
+                        int[] codes = new int[values];
+                        for (int i = 0; i < values; i++) {
+                            codes[i] = dictionary.encode("Source " + i);
+                        }
+                        return codes;
+                    }
+                }));
+            }
+            int[] first = results.get(0).get();
+            for (Future<int[]> result : results) {
+                assertArrayEquals(first, result.get());
+            }
+            assertEquals(values + 1, dictionary.size());
+            for (int i = 0; i < values; i++) {
+                assertEquals("source " + i, dictionary.decode(first[i]));
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,29 @@
+package com.example.wiredorthodontics.model;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Slot strings and the rewrite of times stored with native digits.
+ */
+public class TimeSlotsTest {
+
+    @Test
+    public void slotsUseAsciiDigits() {
+        for (String slot : TimeSlots.all()) {
+            assertTrue(slot, slot.matches("\\d{1,2}:\\d{2} [AP]M"));
+            assertSame(slot, TimeSlots.normalize(slot));
+        }
+    }
+
+    @Test
+    public void nativeDigitsAreRewritten() {
+        // Arabic-Indic and extended (Persian) digits
+        assertEquals("09:00 AM", TimeSlots.normalize("\u0660\u0669:\u0660\u0660 AM"));
+        assertEquals("1:00 PM", TimeSlots.normalize("\u06f1:\u06f0\u06f0 PM"));
+        assertEquals(TimeSlots.get(4), TimeSlots.normalize("\u0661:\u0660\u0660 PM"));
+        assertEquals("not a slot", TimeSlots.normalize("not a slot"));
+        assertNull(TimeSlots.normalize(null));
+    }
+}
@@ -0,0 +1,51 @@
+package com.example.wiredorthodontics.view;
+
+import androidx.lifecycle.SavedStateHandle;
+
+import com.example.wiredorthodontics.model.TimeSlots;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Local unit tests for the booking session shared by the tabs.
+ */
+public class BookingSessionViewModelTest {
+
+    @Test
+    public void selectionIsRestoredFromSavedState() {
+        SavedStateHandle state = new SavedStateHandle();
+        BookingSessionViewModel session = new BookingSessionViewModel(state);
+        session.selectDate("2026-11-02");
+        session.selectTime(TimeSlots.get(5));
+
+        // a new instance over the same state, as after process death
+        BookingSessionViewModel restored = new BookingSessionViewModel(state);
+        assertEquals("2026-11-02", restored.getSelectedDate());
+        assertEquals(TimeSlots.get(5), restored.getSelectedTime());
+    }
+
+    @Test
+    public void changingDateDropsTime() {
+        BookingSessionViewModel session = new BookingSessionViewModel(new SavedStateHandle());
+        session.selectDate("2026-11-02");
+        session.selectTime(TimeSlots.get(0));
+        session.selectDate("2026-11-02");
+        assertEquals(TimeSlots.get(0), session.getSelectedTime());
+
+        session.selectDate("2026-11-03");
+        assertNull(session.getSelectedTime());
+        assertEquals("2026-11-03", session.getSelectedDate());
+    }
+
+    @Test
+    public void clearStartsNewSession() {
+        BookingSessionViewModel session = new BookingSessionViewModel(new SavedStateHandle());
+        session.selectDate("2026-11-02");
+        session.selectTime(TimeSlots.get(2));
+        session.clear();
+        assertNull(session.getSelectedDate());
+        assertNull(session.getSelectedTime());
+    }
+}
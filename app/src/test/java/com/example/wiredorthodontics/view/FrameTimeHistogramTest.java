@@ -0,0 +1,47 @@
+package com.example.wiredorthodontics.view;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Local unit tests for the per-tab frame-time histogram.
+ */
+public class FrameTimeHistogramTest {
+
+    private static final long BUDGET_60HZ = 16_666_666L;
+
+    @Test
+    public void percentilesAndJank() {
+        FrameTimeHistogram histogram = new FrameTimeHistogram(BUDGET_60HZ);
+        // 90 smooth frames of 5 ms, 9 janky ones of 20 ms and one frozen second
+        for (int i = 0; i < 90; i++) {
+            histogram.record(5_000_000L);
+        }
+        for (int i = 0; i < 9; i++) {
+            histogram.record(20_000_000L);
+        }
+        histogram.record(1_000_000_000L);
+
+        assertEquals(100, histogram.getFrames());
+        assertEquals(10, histogram.getJankyFrames());
+        assertEquals(1, histogram.getFrozenFrames());
+        assertEquals(5.1, histogram.percentileMillis(50), 1e-9);
+        assertEquals(5.1, histogram.percentileMillis(90), 1e-9);
+        assertEquals(20.1, histogram.percentileMillis(99), 1e-9);
+        // past the last bucket the slowest frame is reported as is
+        assertEquals(1000.0, histogram.percentileMillis(100), 1e-9);
+        assertEquals((90 * 5 + 9 * 20 + 1000) / 100.0, histogram.getMeanMillis(), 1e-9);
+    }
+
+    @Test
+    public void resetForgetsFrames() {
+        FrameTimeHistogram histogram = new FrameTimeHistogram(BUDGET_60HZ);
+        assertEquals(0, histogram.percentileMillis(99), 0);
+        histogram.record(30_000_000L);
+        histogram.reset();
+        assertEquals(0, histogram.getFrames());
+        assertEquals(0, histogram.getJankyFrames());
+        assertEquals(0, histogram.percentileMillis(50), 0);
+    }
+}
@@ -0,0 +1,50 @@
+plugins {
+    id("com.android.test")
+}
+
+// Generates the app's baseline profile and measures startup against the
+// optimized build type. Needs a device or emulator on API 28+ (rooted) or 33+:
+//   ./gradlew :baselineprofile:connectedOptimizedAndroidTest
+// then copy the generated *-baseline-prof.txt from
+//   baselineprofile/build/outputs/connected_android_test_additional_output/
+// over app/src/main/baseline-prof.txt.
+android {
+    namespace = "com.example.wiredorthodontics.baselineprofile"
+    compileSdk = 34
+
+    defaultConfig {
+        minSdk = 28
+        targetSdk = 33
+
+        testInstrumentationRunner = "androidx.test.runner.AndroidJUnitRunner"
+    }
+
+    buildTypes {
+        // mirrors the app's optimized build type so the two variants are paired
+        create("optimized") {
+            isDebuggable = true
+            signingConfig = signingConfigs.getByName("debug")
+            matchingFallbacks += listOf("release")
+        }
+    }
+
+    compileOptions {
+        sourceCompatibility = JavaVersion.VERSION_1_8
+        targetCompatibility = JavaVersion.VERSION_1_8
+    }
+
+    targetProjectPath = ":app"
+    experimentalProperties["android.experimental.self-instrumenting"] = true
+}
+
+dependencies {
+    implementation("androidx.test.ext:junit:1.1.5")
+    implementation("androidx.test.uiautomator:uiautomator:2.2.0")
+    implementation("androidx.benchmark:benchmark-macro-junit4:1.2.0")
+}
+
+androidComponents {
+    beforeVariants(selector().all()) {
+        it.enable = it.buildType == "optimized"
+    }
+}
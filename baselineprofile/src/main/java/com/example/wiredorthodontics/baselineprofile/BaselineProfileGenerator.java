@@ -0,0 +1,33 @@
+/**
+ * Records the classes and methods used during startup and the booking
+ * journey, through to submitting the booking, so they can be AOT-compiled
+ * at install time.
+ * @date 10.19.2026
+ */
+package com.example.wiredorthodontics.baselineprofile;
+
+import androidx.benchmark.macro.junit4.BaselineProfileRule;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import kotlin.Unit;
+
+@RunWith(AndroidJUnit4.class)
+public class BaselineProfileGenerator {
+
+    @Rule
+    public BaselineProfileRule baselineProfileRule = new BaselineProfileRule();
+
+    @Test
+    public void generate() {
+        baselineProfileRule.collect(BookingJourney.PACKAGE_NAME, scope -> {
+            BookingJourney.launch(scope);
+            BookingJourney.bookAppointment(scope);
+            BookingJourney.submitBooking(scope);
+            return Unit.INSTANCE;
+        });
+    }
+}
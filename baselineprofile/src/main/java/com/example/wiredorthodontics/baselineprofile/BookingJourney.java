@@ -0,0 +1,94 @@
+/**
+ * The critical user path that the baseline profile covers and the
+ * benchmarks measure: launch MainActivity, open the calendar tab, pick a
+ * date and a time slot, and fill in the booking form. Profile generation
+ * also submits the booking so the scheduling, audit and duplicate-patient
+ * code it runs is recorded.
+ * @date 10.19.2026
+ */
+package com.example.wiredorthodontics.baselineprofile;
+
+import androidx.benchmark.macro.MacrobenchmarkScope;
+import androidx.test.uiautomator.By;
+import androidx.test.uiautomator.BySelector;
+import androidx.test.uiautomator.UiDevice;
+import androidx.test.uiautomator.UiObject2;
+import androidx.test.uiautomator.Until;
+
+import java.util.Calendar;
+
+final class BookingJourney {
+
+    static final String PACKAGE_NAME = "com.example.wiredorthodontics";
+    private static final long TIMEOUT_MS = 5_000;
+
+    private BookingJourney() {
+    }
+
+    /**
+     * Cold-launches the app and waits for the first frame.
+     * @param scope - the benchmark scope
+     */
+    static void launch(MacrobenchmarkScope scope) {
+        scope.pressHome();
+        scope.startActivityAndWait();
+    }
+
+    /**
+     * Walks from the home tab through to a filled-in booking form.
+     * @param scope - the benchmark scope
+     */
+    static void bookAppointment(MacrobenchmarkScope scope) {
+        UiDevice device = scope.getDevice();
+
+        click(device, By.text("Pick a Date"));
+
+        // tomorrow is always inside the calendar's selectable range
+        Calendar tomorrow = Calendar.getInstance();
+        tomorrow.add(Calendar.DATE, 1);
+        click(device, By.text(String.valueOf(tomorrow.get(Calendar.DAY_OF_MONTH))));
+
+        // first available slot moves the pager on to the info tab
+        UiObject2 slot = device.wait(Until.findObject(By.res(PACKAGE_NAME, "txtAppointmentTime")), TIMEOUT_MS);
+        if (slot == null) {
+            return; // holiday or fully booked; the calendar path is still covered
+        }
+        slot.click();
+
+        type(device, "edtPatientName", "Profile Patient");
+        type(device, "edtDateOfBirth", "01/01/1990");
+        type(device, "edtAddress", "1 Main St");
+        type(device, "edtIDNumber", "X1234567");
+        type(device, "edtAppointmentDescription", "Cleaning");
+        type(device, "edtClinicSource", "Referral");
+        device.waitForIdle();
+    }
+
+    /**
+     * Submits the filled-in booking form and waits for the confirmation.
+     * Only the profile generator calls this; the benchmarks stop at the
+     * form so repeated runs do not fill the schedule.
+     * @param scope - the benchmark scope
+     */
+    static void submitBooking(MacrobenchmarkScope scope) {
+        UiDevice device = scope.getDevice();
+        click(device, By.res(PACKAGE_NAME, "btnSubmitPersonalInfo"));
+        // the confirmation or the slot-taken alert, either way the booking path ran
+        device.wait(Until.findObject(By.res("android", "button1")), TIMEOUT_MS);
+    }
+
+    private static void click(UiDevice device, BySelector selector) {
+        UiObject2 target = device.wait(Until.findObject(selector), TIMEOUT_MS);
+        if (target != null) {
+            target.click();
+            device.waitForIdle();
+        }
+    }
+
+    private static void type(UiDevice device, String resourceId, String text) {
+        UiObject2 field = device.wait(Until.findObject(By.res(PACKAGE_NAME, resourceId)), TIMEOUT_MS);
+        if (field != null) {
+            field.setText(text);
+        }
+    }
+}
@@ -0,0 +1,76 @@
+/**
+ * Compares cold startup and booking-journey frame times of the optimized
+ * build with and without the baseline profile applied.
+ * Results are written to the benchmark output directory and logcat.
+ * @date 10.19.2026
+ */
+package com.example.wiredorthodontics.baselineprofile;
+
+import androidx.benchmark.macro.BaselineProfileMode;
+import androidx.benchmark.macro.CompilationMode;
+import androidx.benchmark.macro.FrameTimingMetric;
+import androidx.benchmark.macro.StartupMode;
+import androidx.benchmark.macro.StartupTimingMetric;
+import androidx.benchmark.macro.junit4.MacrobenchmarkRule;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import kotlin.Unit;
+
+@RunWith(AndroidJUnit4.class)
+public class StartupBenchmark {
+
+    private static final int ITERATIONS = 10;
+
+    @Rule
+    public MacrobenchmarkRule benchmarkRule = new MacrobenchmarkRule();
+
+    @Test
+    public void startupWithoutProfile() {
+        startup(new CompilationMode.None());
+    }
+
+    @Test
+    public void startupWithBaselineProfile() {
+        startup(new CompilationMode.Partial(BaselineProfileMode.Require));
+    }
+
+    @Test
+    public void bookingJourneyWithoutProfile() {
+        bookingJourney(new CompilationMode.None());
+    }
+
+    @Test
+    public void bookingJourneyWithBaselineProfile() {
+        bookingJourney(new CompilationMode.Partial(BaselineProfileMode.Require));
+    }
+
+    private void startup(CompilationMode mode) {
+        benchmarkRule.measureRepeated(BookingJourney.PACKAGE_NAME,
+                Collections.singletonList(new StartupTimingMetric()),
+                mode, StartupMode.COLD, ITERATIONS,
+                scope -> Unit.INSTANCE,
+                scope -> {
+                    BookingJourney.launch(scope);
+                    return Unit.INSTANCE;
+                });
+    }
+
+    private void bookingJourney(CompilationMode mode) {
+        benchmarkRule.measureRepeated(BookingJourney.PACKAGE_NAME,
+                Arrays.asList(new StartupTimingMetric(), new FrameTimingMetric()),
+                mode, StartupMode.COLD, ITERATIONS,
+                scope -> Unit.INSTANCE,
+                scope -> {
+                    BookingJourney.launch(scope);
+                    BookingJourney.bookAppointment(scope);
+                    return Unit.INSTANCE;
+                });
+    }
+}
@@ -15,4 +15,5 @@ dependencyResolutionManagement {
 
 rootProject.name = "Wired Orthodontics"
 include(":app")
+include(":baselineprofile")
  
\ No newline at end of file